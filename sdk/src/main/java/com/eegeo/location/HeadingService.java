@@ -1,6 +1,7 @@
 package com.eegeo.location;
 
 import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import android.app.Activity;
 import android.content.Context;
@@ -22,6 +23,11 @@ public class HeadingService implements SensorEventListener
 	private boolean m_listeningForUpdates = false;
 
 	private int m_deviceRotation = 0;
+
+	// Services currently listening, so that replayed headings reach the same instances as live ones.
+	private static final CopyOnWriteArrayList<HeadingService> ms_listeningServices = new CopyOnWriteArrayList<HeadingService>();
+	private static volatile boolean ms_isReplaying = false;
+	private static volatile LocationTraceRecorder ms_traceRecorder = null;
 	
 	// The results from SensorManager.getOrientation appear to be worse than the results of 
 	// the deprecated Sensor.TYPE_ORIENTATION on the test device. To enable SensorManager.getOrientation
@@ -67,6 +73,7 @@ public class HeadingService implements SensorEventListener
     	}
 	    
 	    m_listeningForUpdates = true;
+	    ms_listeningServices.add(this);
     	
 	    m_sensorManager = (SensorManager)m_activity.getSystemService(Context.SENSOR_SERVICE);
 	    
@@ -103,6 +110,7 @@ public class HeadingService implements SensorEventListener
     		
   	    	m_orientationEventListener.disable();
     	}
+	    ms_listeningServices.remove(this);
 	    m_listeningForUpdates = false;
     }
     
@@ -119,33 +127,28 @@ public class HeadingService implements SensorEventListener
 		{
 			if (event.sensor.getType() == Sensor.TYPE_ORIENTATION)
 			{
-				float smoothing = 0.6f;
 				float heading = event.values[0];
 	        	if (Float.isNaN(heading)) // Fix MPLY-4888
+	        	{
+	        		return;
+	        	}
+	        	if (ms_isReplaying)
 	        	{
 	        		return;
 	        	}
 				float newAzimuth = adjustHeadingForDeviceOrientation(heading);
-				
-				if(Math.abs(newAzimuth - m_azimuthDegrees) >= 180)
-				{
-					if(newAzimuth > m_azimuthDegrees)
-					{
-						m_azimuthDegrees += 360.0f;
-					}
-					else
-					{
-						newAzimuth += 360.0f;
-					}
-				}
-				m_azimuthDegrees = (float) ((newAzimuth * smoothing) + (m_azimuthDegrees * (1.0 - smoothing)));     
-				m_azimuthDegrees %= 360.0f;
-				m_hasAzimuthAngle = true;
+				recordHeading(newAzimuth);
+				applyHeadingSample(newAzimuth);
 				return;
 			}
 		}
 		else
 		{	
+			if (ms_isReplaying)
+			{
+				return;
+			}
+
 			if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER)
 			{
 				m_gravity = event.values.clone();
@@ -169,13 +172,78 @@ public class HeadingService implements SensorEventListener
 					float orientation[] = new float[3];
 					SensorManager.getOrientation(remap, orientation);
 
-					m_hasAzimuthAngle = true;
-					addResultForFiltering(orientation[0]);                
+					float azimuthDegrees = (float) Math.toDegrees(orientation[0]);
+					recordHeading(azimuthDegrees);
+					applyHeadingSample(azimuthDegrees);
 				}
 			}
 		}
 	}
 
+	static void setTraceRecorder(LocationTraceRecorder recorder)
+	{
+		ms_traceRecorder = recorder;
+	}
+
+	static void beginReplay()
+	{
+		ms_isReplaying = true;
+	}
+
+	static void endReplay()
+	{
+		ms_isReplaying = false;
+	}
+
+	static void onReplayedHeading(float azimuthDegrees)
+	{
+		if (!ms_isReplaying)
+		{
+			return;
+		}
+
+		for (HeadingService service : ms_listeningServices)
+		{
+			service.applyHeadingSample(azimuthDegrees);
+		}
+	}
+
+	private static void recordHeading(float azimuthDegrees)
+	{
+		LocationTraceRecorder recorder = ms_traceRecorder;
+		if (recorder != null)
+		{
+			recorder.recordHeading(azimuthDegrees);
+		}
+	}
+
+	private void applyHeadingSample(float newAzimuth)
+	{
+		if(m_useDeprecatedOrientationMethod)
+		{
+			float smoothing = 0.6f;
+			if(Math.abs(newAzimuth - m_azimuthDegrees) >= 180)
+			{
+				if(newAzimuth > m_azimuthDegrees)
+				{
+					m_azimuthDegrees += 360.0f;
+				}
+				else
+				{
+					newAzimuth += 360.0f;
+				}
+			}
+			m_azimuthDegrees = (float) ((newAzimuth * smoothing) + (m_azimuthDegrees * (1.0 - smoothing)));     
+			m_azimuthDegrees %= 360.0f;
+			m_hasAzimuthAngle = true;
+		}
+		else
+		{
+			m_hasAzimuthAngle = true;
+			addResultForFiltering((float) Math.toRadians(newAzimuth));
+		}
+	}
+
     private void addResultForFiltering(float radians)
     {
     	m_sumSin += (float) Math.sin(radians);
@@ -17,63 +17,72 @@ public class LocationService
 	static boolean isListening = false;
 	static boolean lastQuerySucceeded = false;
 	static boolean locationValid = false;
-	static Location bestLocation = null;
+	static volatile Location bestLocation = null;
 	static boolean isAuthorized = false;
+	static volatile boolean isReplaying = false;
+	static boolean isAuthorizedBeforeReplay = false;
+	static volatile LocationTraceRecorder traceRecorder = null;
 	
 	static Activity activity;
 	
 	public static double lat()
 	{
-		if (bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return 0.0;
 		}
-		return bestLocation.getLatitude();
+		return location.getLatitude();
 	}
 	
 	public static double lon()
 	{
-		if (bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return 0.0;
 		}
-		return bestLocation.getLongitude();
+		return location.getLongitude();
 	}
 	
 	public static double alt()
 	{
-		if(bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return 0.0;
 		}
-		return bestLocation.getAltitude();
+		return location.getAltitude();
 	}
 	
 	public static boolean hasAlt()
 	{
-		if(bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return false;
 		}
-		return bestLocation.hasAltitude();
+		return location.hasAltitude();
 	}
 	
 	public static double accuracy()
 	{
-		if(bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return 0.0;
 		}
-		return bestLocation.getAccuracy();
+		return location.getAccuracy();
 	}
 	
 	public static boolean hasAccuracy()
 	{
-		if(bestLocation == null)
+		Location location = bestLocation;
+		if (location == null)
 		{
 			return false;
 		}
-		return bestLocation.hasAccuracy();
+		return location.hasAccuracy();
 	}
 	
 	public static boolean getIsAuthorized()
@@ -161,6 +170,15 @@ public class LocationService
 			}
 		}
 		
+		if (isReplaying)
+		{
+			return;
+		}
+
+		if (bestCachedLocation != null)
+		{
+			recordLocation(bestCachedLocation);
+		}
 		LocationService.bestLocation = bestCachedLocation;
 		Log.v("Location", "best location set from cache");
     }
@@ -189,18 +207,28 @@ public class LocationService
     {	
 		LocationService.locationManager = (LocationManager) a.getSystemService(Context.LOCATION_SERVICE);
 		
-		LocationService.isAuthorized = isAnyProviderEnabled(LocationService.locationManager);
+		boolean authorized = isAnyProviderEnabled(LocationService.locationManager);
+		if (isReplaying)
+		{
+			// applied once the replay ends
+			LocationService.isAuthorizedBeforeReplay = authorized;
+		}
+		else
+		{
+			LocationService.isAuthorized = authorized;
+		}
 		
 		if (LocationService.locationListener == null)
     	{
 			LocationService.locationListener = new LocationListener() {
     		
 	    		public void onLocationChanged(Location location) {
-    	        	if (isBetterLocation(location, LocationService.bestLocation))
-    	        	{
-    	        		LocationService.bestLocation = location;
-    	        		Log.v("Location", "best updated from onLocationChanged : " + location.getLatitude() + " , " + location.getLongitude() + " , " + location.getAltitude());
-    	        	}
+	    			if (isReplaying)
+	    			{
+	    				return;
+	    			}
+	    			recordLocation(location);
+	    			applyLocation(location);
 	       		}
 	    		
 	    	    public void onStatusChanged(String provider, int status, Bundle extras)
@@ -209,11 +237,19 @@ public class LocationService
 	    	    }
 	
 	    	    public void onProviderEnabled(String provider) {
+	    	    	if (isReplaying)
+	    	    	{
+	    	    		return;
+	    	    	}
 	    	    	LocationService.isAuthorized = isAnyProviderEnabled(LocationService.locationManager);
     	        	Log.v("Location", "onProviderEnabled, LocationService.isAuthorized : " + LocationService.isAuthorized);
 	    	    }
 	
 	    	    public void onProviderDisabled(String provider) {
+	    	    	if (isReplaying)
+	    	    	{
+	    	    		return;
+	    	    	}
 	    	    	LocationService.isAuthorized = isAnyProviderEnabled(LocationService.locationManager);
     	        	Log.v("Location", "onProviderDisabled, LocationService.isAuthorized : " + LocationService.isAuthorized);
 	    	    }        	   
@@ -225,6 +261,59 @@ public class LocationService
 		isListening = true;
     }
     
+    static void setTraceRecorder(LocationTraceRecorder recorder)
+    {
+    	LocationService.traceRecorder = recorder;
+    }
+
+    static void beginReplay()
+    {
+    	LocationService.isAuthorizedBeforeReplay = LocationService.isAuthorized;
+    	LocationService.isReplaying = true;
+    	LocationService.bestLocation = null;
+    	LocationService.isAuthorized = true;
+    }
+
+    static void endReplay()
+    {
+    	// provider changes are ignored while replaying, so re-check them if the service is listening
+    	if (LocationService.locationManager != null)
+    	{
+    		LocationService.isAuthorized = isAnyProviderEnabled(LocationService.locationManager);
+    	}
+    	else
+    	{
+    		LocationService.isAuthorized = LocationService.isAuthorizedBeforeReplay;
+    	}
+    	LocationService.isReplaying = false;
+    }
+
+    static void onReplayedLocation(Location location)
+    {
+    	if (isReplaying)
+    	{
+    		applyLocation(location);
+    	}
+    }
+
+    private static void recordLocation(Location location)
+    {
+    	LocationTraceRecorder recorder = LocationService.traceRecorder;
+    	if (recorder != null)
+    	{
+    		recorder.recordLocation(location);
+    	}
+    }
+
+    private static void applyLocation(Location location)
+    {
+    	if (isBetterLocation(location, LocationService.bestLocation))
+    	{
+    		LocationService.bestLocation = location;
+    		Log.v("Location", "best updated from onLocationChanged : " + location.getLatitude() + " , " + location.getLongitude() + " , " + location.getAltitude());
+    	}
+    }
+
     // Hoick http://developer.android.com/guide/topics/location/strategies.html
     protected static boolean isBetterLocation(Location location, Location currentBestLocation) {
         if (currentBestLocation == null) {
@@ -0,0 +1,88 @@
+package com.eegeo.location;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Layout of the binary trace files written by LocationTraceRecorder and read by
+ * LocationTraceReplayer. All values are big-endian, as written by DataOutputStream.
+ *
+ * Header:  int magic, short version, long wall clock time of the first sample (ms since epoch).
+ * Records: byte record type, int ms elapsed since the previous record, then a type specific payload.
+ *
+ * Location payload: byte flags, double latitude, double longitude, int fix time offset (ms,
+ * relative to the header time), then float altitude and float accuracy if flagged.
+ * Heading payload: float azimuth in degrees, already adjusted for device orientation.
+ */
+final class LocationTraceFormat
+{
+	static final int MAGIC = 0x45474c54; // "EGLT"
+	static final short VERSION = 1;
+
+	static final byte RECORD_LOCATION = 1;
+	static final byte RECORD_HEADING = 2;
+
+	static final byte FLAG_HAS_ALTITUDE = 1;
+	static final byte FLAG_HAS_ACCURACY = 1 << 1;
+	static final byte FLAG_PROVIDER_GPS = 1 << 2;
+	static final byte FLAG_PROVIDER_NETWORK = 1 << 3;
+
+	static final String PROVIDER_REPLAY = "replay";
+
+	private LocationTraceFormat()
+	{
+	}
+
+	static void writeHeader(DataOutputStream output, long startTimeMs) throws IOException
+	{
+		output.writeInt(MAGIC);
+		output.writeShort(VERSION);
+		output.writeLong(startTimeMs);
+	}
+
+	/**
+	 * Reads and checks a header.
+	 *
+	 * @return The wall clock time of the first sample.
+	 */
+	static long readHeader(DataInputStream input) throws IOException
+	{
+		if (input.readInt() != MAGIC)
+		{
+			throw new IOException("Not a location trace");
+		}
+		short version = input.readShort();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported location trace version " + version);
+		}
+		return input.readLong();
+	}
+
+	static void writeLocationRecord(DataOutputStream output, int elapsedMs, byte flags, double latitude, double longitude,
+									int fixTimeOffsetMs, float altitude, float accuracy) throws IOException
+	{
+		output.writeByte(RECORD_LOCATION);
+		output.writeInt(elapsedMs);
+		output.writeByte(flags);
+		output.writeDouble(latitude);
+		output.writeDouble(longitude);
+		output.writeInt(fixTimeOffsetMs);
+		if ((flags & FLAG_HAS_ALTITUDE) != 0)
+		{
+			output.writeFloat(altitude);
+		}
+		if ((flags & FLAG_HAS_ACCURACY) != 0)
+		{
+			output.writeFloat(accuracy);
+		}
+	}
+
+	static void writeHeadingRecord(DataOutputStream output, int elapsedMs, float azimuthDegrees) throws IOException
+	{
+		output.writeByte(RECORD_HEADING);
+		output.writeInt(elapsedMs);
+		output.writeFloat(azimuthDegrees);
+	}
+}
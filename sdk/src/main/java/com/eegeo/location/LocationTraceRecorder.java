@@ -0,0 +1,170 @@
+package com.eegeo.location;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import android.location.LocationManager;
+import android.location.Location;
+import android.util.Log;
+
+/**
+ * Records the location fixes and headings received by LocationService and HeadingService to a
+ * compact binary trace, which can later be fed back through the same services with
+ * LocationTraceReplayer.
+ *
+ * Raw fixes are recorded before LocationService filters them, so a replay exercises the same
+ * selection logic as the original session.
+ */
+public class LocationTraceRecorder
+{
+	private final DataOutputStream m_output;
+	private boolean m_headerWritten = false;
+	private boolean m_recording = false;
+	private long m_startTimeMs = 0;
+	private long m_lastRecordNanos = 0;
+	private int m_recordCount = 0;
+
+	/**
+	 * @param output The stream the trace is written to. It is closed by close().
+	 */
+	public LocationTraceRecorder(OutputStream output)
+	{
+		m_output = new DataOutputStream(new BufferedOutputStream(output));
+	}
+
+	/**
+	 * Starts recording fixes and headings as they are received from the device.
+	 */
+	public synchronized void start()
+	{
+		if (m_recording)
+		{
+			return;
+		}
+		m_recording = true;
+		LocationService.setTraceRecorder(this);
+		HeadingService.setTraceRecorder(this);
+	}
+
+	/**
+	 * Stops recording. The trace remains open, and recording may be restarted.
+	 */
+	public synchronized void stop()
+	{
+		if (!m_recording)
+		{
+			return;
+		}
+		m_recording = false;
+		LocationService.setTraceRecorder(null);
+		HeadingService.setTraceRecorder(null);
+	}
+
+	/**
+	 * Stops recording, flushes any buffered records and closes the underlying stream.
+	 */
+	public synchronized void close() throws IOException
+	{
+		stop();
+		if (!m_headerWritten)
+		{
+			writeHeader(System.currentTimeMillis());
+		}
+		m_output.close();
+	}
+
+	/**
+	 * @return The number of location and heading records written so far.
+	 */
+	public synchronized int getRecordCount()
+	{
+		return m_recordCount;
+	}
+
+	synchronized void recordLocation(Location location)
+	{
+		if (!m_recording)
+		{
+			return;
+		}
+
+		byte flags = 0;
+		if (location.hasAltitude())
+		{
+			flags |= LocationTraceFormat.FLAG_HAS_ALTITUDE;
+		}
+		if (location.hasAccuracy())
+		{
+			flags |= LocationTraceFormat.FLAG_HAS_ACCURACY;
+		}
+		if (LocationManager.GPS_PROVIDER.equals(location.getProvider()))
+		{
+			flags |= LocationTraceFormat.FLAG_PROVIDER_GPS;
+		}
+		else if (LocationManager.NETWORK_PROVIDER.equals(location.getProvider()))
+		{
+			flags |= LocationTraceFormat.FLAG_PROVIDER_NETWORK;
+		}
+
+		try
+		{
+			int elapsedMs = beginRecord();
+			LocationTraceFormat.writeLocationRecord(m_output, elapsedMs, flags,
+					location.getLatitude(), location.getLongitude(), (int) (location.getTime() - m_startTimeMs),
+					(float) location.getAltitude(), location.getAccuracy());
+		}
+		catch (IOException e)
+		{
+			onWriteFailed(e);
+		}
+	}
+
+	synchronized void recordHeading(float azimuthDegrees)
+	{
+		if (!m_recording)
+		{
+			return;
+		}
+
+		try
+		{
+			LocationTraceFormat.writeHeadingRecord(m_output, beginRecord(), azimuthDegrees);
+		}
+		catch (IOException e)
+		{
+			onWriteFailed(e);
+		}
+	}
+
+	private int beginRecord() throws IOException
+	{
+		long nowNanos = System.nanoTime();
+		if (!m_headerWritten)
+		{
+			writeHeader(System.currentTimeMillis());
+			m_lastRecordNanos = nowNanos;
+		}
+
+		int elapsedMs = (int) ((nowNanos - m_lastRecordNanos) / 1000000L);
+		// carry the sub-millisecond remainder forward so long traces do not drift
+		m_lastRecordNanos += elapsedMs * 1000000L;
+
+		++m_recordCount;
+		return elapsedMs;
+	}
+
+	private void writeHeader(long startTimeMs) throws IOException
+	{
+		m_startTimeMs = startTimeMs;
+		LocationTraceFormat.writeHeader(m_output, startTimeMs);
+		m_headerWritten = true;
+	}
+
+	private void onWriteFailed(IOException e)
+	{
+		Log.v("Location", "trace recording stopped: " + e.getMessage());
+		stop();
+	}
+}
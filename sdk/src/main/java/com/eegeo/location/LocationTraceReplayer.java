@@ -0,0 +1,365 @@
+package com.eegeo.location;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+/**
+ * Feeds a trace written by LocationTraceRecorder back through LocationService and HeadingService,
+ * in place of the live device sensors. While a replay is running, live fixes and headings are
+ * ignored, so consumers of the services see exactly the recorded session.
+ *
+ * The trace is decoded up front into primitive arrays, so playback does no I/O or parsing. A replay
+ * can run at the recorded speed, accelerated by a constant factor, or unthrottled with
+ * SPEED_UNTHROTTLED, which delivers every record back to back.
+ */
+public class LocationTraceReplayer
+{
+	/**
+	 * Playback speed which delivers records as fast as possible, ignoring recorded timings.
+	 */
+	public static final double SPEED_UNTHROTTLED = Double.POSITIVE_INFINITY;
+
+	private int m_recordCount = 0;
+	private byte[] m_recordTypes = new byte[64];
+	private int[] m_elapsedMs = new int[64];
+	private byte[] m_flags = new byte[64];
+	private double[] m_latitudes = new double[64];
+	private double[] m_longitudes = new double[64];
+	private int[] m_fixTimeOffsetsMs = new int[64];
+	private float[] m_altitudes = new float[64];
+	private float[] m_accuracies = new float[64];
+	private float[] m_headings = new float[64];
+	private long m_durationMs = 0;
+
+	private Thread m_replayThread = null;
+	private volatile boolean m_stopRequested = false;
+
+	/**
+	 * Decodes a complete trace. The stream is read to the end but not closed.
+	 *
+	 * @param input A stream containing a trace written by LocationTraceRecorder.
+	 * @throws IOException If the stream could not be read or does not contain a valid trace.
+	 */
+	public LocationTraceReplayer(InputStream input) throws IOException
+	{
+		DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+
+		// fix times are stored relative to the recording start, so its absolute value is not needed
+		LocationTraceFormat.readHeader(data);
+
+		while (true)
+		{
+			byte recordType;
+			try
+			{
+				recordType = data.readByte();
+			}
+			catch (EOFException e)
+			{
+				break;
+			}
+			readRecord(data, recordType);
+		}
+	}
+
+	/**
+	 * @return The number of location and heading records in the trace.
+	 */
+	public int getRecordCount()
+	{
+		return m_recordCount;
+	}
+
+	/**
+	 * @return The time between the first and last records, in ms, when replayed at recorded speed.
+	 */
+	public long getDurationMs()
+	{
+		return m_durationMs;
+	}
+
+	/**
+	 * Replays the trace on the calling thread, returning once every record has been delivered or
+	 * stop() has been called.
+	 *
+	 * @param speed Playback speed relative to the recording, e.g. 1.0 for real time, 10.0 to
+	 *              replay ten times faster, or SPEED_UNTHROTTLED.
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the next
+	 *                              record to fall due.
+	 */
+	public void replay(double speed) throws InterruptedException
+	{
+		if (!(speed > 0.0))
+		{
+			throw new IllegalArgumentException("speed must be greater than zero");
+		}
+
+		m_stopRequested = false;
+		runReplay(speed);
+	}
+
+	/**
+	 * Starts replaying the trace on a background thread. Has no effect if a replay started by this
+	 * object is already running.
+	 *
+	 * @param speed Playback speed relative to the recording, as for replay().
+	 */
+	public synchronized void start(final double speed)
+	{
+		if (!(speed > 0.0))
+		{
+			throw new IllegalArgumentException("speed must be greater than zero");
+		}
+
+		if (isReplaying())
+		{
+			return;
+		}
+
+		m_stopRequested = false;
+		m_replayThread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					runReplay(speed);
+				}
+				catch (InterruptedException e)
+				{
+					// stopped
+				}
+			}
+		}, "eegeo-location-replay");
+		m_replayThread.start();
+	}
+
+	private void runReplay(double speed) throws InterruptedException
+	{
+		LocationService.beginReplay();
+		HeadingService.beginReplay();
+		try
+		{
+			deliverRecords(speed);
+		}
+		finally
+		{
+			HeadingService.endReplay();
+			LocationService.endReplay();
+		}
+	}
+
+	/**
+	 * Stops a running replay and waits for it to finish. Live fixes and headings are accepted again
+	 * once this returns.
+	 */
+	public void stop()
+	{
+		Thread replayThread;
+		synchronized (this)
+		{
+			m_stopRequested = true;
+			replayThread = m_replayThread;
+			m_replayThread = null;
+		}
+
+		if (replayThread != null)
+		{
+			replayThread.interrupt();
+			try
+			{
+				replayThread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @return True if a replay started with start() is still running.
+	 */
+	public synchronized boolean isReplaying()
+	{
+		return m_replayThread != null && m_replayThread.isAlive();
+	}
+
+	byte getRecordType(int index)
+	{
+		return m_recordTypes[index];
+	}
+
+	int getElapsedMs(int index)
+	{
+		return m_elapsedMs[index];
+	}
+
+	byte getFlags(int index)
+	{
+		return m_flags[index];
+	}
+
+	double getLatitude(int index)
+	{
+		return m_latitudes[index];
+	}
+
+	double getLongitude(int index)
+	{
+		return m_longitudes[index];
+	}
+
+	int getFixTimeOffsetMs(int index)
+	{
+		return m_fixTimeOffsetsMs[index];
+	}
+
+	float getAltitude(int index)
+	{
+		return m_altitudes[index];
+	}
+
+	float getAccuracy(int index)
+	{
+		return m_accuracies[index];
+	}
+
+	float getHeading(int index)
+	{
+		return m_headings[index];
+	}
+
+	private void deliverRecords(double speed) throws InterruptedException
+	{
+		boolean throttled = !Double.isInfinite(speed);
+		long replayStartNanos = System.nanoTime();
+		long replayStartTimeMs = System.currentTimeMillis();
+		long traceElapsedMs = 0;
+
+		for (int i = 0; i < m_recordCount && !m_stopRequested; ++i)
+		{
+			traceElapsedMs += m_elapsedMs[i];
+
+			if (throttled)
+			{
+				long dueNanos = replayStartNanos + (long) (traceElapsedMs * 1000000L / speed);
+				long waitNanos = dueNanos - System.nanoTime();
+				if (waitNanos > 0)
+				{
+					Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+				}
+			}
+
+			if (m_recordTypes[i] == LocationTraceFormat.RECORD_LOCATION)
+			{
+				LocationService.onReplayedLocation(createLocation(i, replayStartTimeMs));
+			}
+			else
+			{
+				HeadingService.onReplayedHeading(m_headings[i]);
+			}
+		}
+	}
+
+	private Location createLocation(int index, long replayStartTimeMs)
+	{
+		byte flags = m_flags[index];
+		String provider = LocationTraceFormat.PROVIDER_REPLAY;
+		if ((flags & LocationTraceFormat.FLAG_PROVIDER_GPS) != 0)
+		{
+			provider = LocationManager.GPS_PROVIDER;
+		}
+		else if ((flags & LocationTraceFormat.FLAG_PROVIDER_NETWORK) != 0)
+		{
+			provider = LocationManager.NETWORK_PROVIDER;
+		}
+
+		Location location = new Location(provider);
+		location.setLatitude(m_latitudes[index]);
+		location.setLongitude(m_longitudes[index]);
+		// fix times are rebased but not scaled, so LocationService ranks fixes as it did when recording
+		location.setTime(replayStartTimeMs + m_fixTimeOffsetsMs[index]);
+		if ((flags & LocationTraceFormat.FLAG_HAS_ALTITUDE) != 0)
+		{
+			location.setAltitude(m_altitudes[index]);
+		}
+		if ((flags & LocationTraceFormat.FLAG_HAS_ACCURACY) != 0)
+		{
+			location.setAccuracy(m_accuracies[index]);
+		}
+		return location;
+	}
+
+	private void readRecord(DataInputStream data, byte recordType) throws IOException
+	{
+		if (recordType != LocationTraceFormat.RECORD_LOCATION && recordType != LocationTraceFormat.RECORD_HEADING)
+		{
+			throw new IOException("Unknown location trace record type " + recordType);
+		}
+
+		ensureCapacity(m_recordCount + 1);
+		int index = m_recordCount;
+
+		try
+		{
+			m_recordTypes[index] = recordType;
+			m_elapsedMs[index] = data.readInt();
+
+			if (recordType == LocationTraceFormat.RECORD_LOCATION)
+			{
+				byte flags = data.readByte();
+				m_flags[index] = flags;
+				m_latitudes[index] = data.readDouble();
+				m_longitudes[index] = data.readDouble();
+				m_fixTimeOffsetsMs[index] = data.readInt();
+				if ((flags & LocationTraceFormat.FLAG_HAS_ALTITUDE) != 0)
+				{
+					m_altitudes[index] = data.readFloat();
+				}
+				if ((flags & LocationTraceFormat.FLAG_HAS_ACCURACY) != 0)
+				{
+					m_accuracies[index] = data.readFloat();
+				}
+			}
+			else
+			{
+				m_headings[index] = data.readFloat();
+			}
+		}
+		catch (EOFException e)
+		{
+			// a recording interrupted mid-record keeps everything before it
+			return;
+		}
+
+		m_durationMs += m_elapsedMs[index];
+		m_recordCount = index + 1;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= m_recordTypes.length)
+		{
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, m_recordTypes.length * 2);
+		m_recordTypes = Arrays.copyOf(m_recordTypes, newCapacity);
+		m_elapsedMs = Arrays.copyOf(m_elapsedMs, newCapacity);
+		m_flags = Arrays.copyOf(m_flags, newCapacity);
+		m_latitudes = Arrays.copyOf(m_latitudes, newCapacity);
+		m_longitudes = Arrays.copyOf(m_longitudes, newCapacity);
+		m_fixTimeOffsetsMs = Arrays.copyOf(m_fixTimeOffsetsMs, newCapacity);
+		m_altitudes = Arrays.copyOf(m_altitudes, newCapacity);
+		m_accuracies = Arrays.copyOf(m_accuracies, newCapacity);
+		m_headings = Arrays.copyOf(m_headings, newCapacity);
+	}
+}
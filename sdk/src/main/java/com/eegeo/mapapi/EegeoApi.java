@@ -2,6 +2,7 @@ package com.eegeo.mapapi;
 
 import android.content.Context;
 import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
 
 /**
  * Singleton container for the eeGeo API key and application context.
@@ -31,6 +32,31 @@ public final class EegeoApi {
         return ms_instance;
     }
 
+    /**
+     * Starts the native map engine ahead of any MapView, so that the next MapView created adopts
+     * it and displays its first frame sooner. This loads the native library on the calling thread,
+     * then creates the engine's runner on the engine's own thread, both of which otherwise happen
+     * as the MapView is created. The map itself, with its coverage tree and theme manifests, is
+     * still created once the MapView's surface is available. Call this from the UI thread during
+     * app launch, after init. Calls made while an engine is waiting to be adopted have no effect.
+     * If no MapView will be created after all, call cancelPrewarm to release the engine.
+     *
+     * @param context An android.content.Context object, used to obtain the global application context.
+     */
+    @UiThread
+    public void prewarm(@NonNull Context context) {
+        MapEnginePrewarmer.start(context);
+    }
+
+    /**
+     * Tears down an engine started by prewarm that no MapView has adopted, releasing its thread
+     * and native resources. Has no effect if there is no such engine.
+     */
+    @UiThread
+    public void cancelPrewarm() {
+        MapEnginePrewarmer.release();
+    }
+
     /**
      * Gets the instance of the class.
      *
@@ -1,5 +1,6 @@
 package com.eegeo.mapapi;
 
+import android.content.ComponentCallbacks2;
 import android.graphics.Point;
 import androidx.annotation.NonNull;
 import androidx.annotation.UiThread;
@@ -9,21 +10,28 @@ import com.eegeo.mapapi.bluesphere.BlueSphere;
 import com.eegeo.mapapi.bluesphere.BlueSphereApi;
 import com.eegeo.mapapi.buildings.BuildingHighlight;
 import com.eegeo.mapapi.buildings.BuildingHighlightOptions;
+import com.eegeo.mapapi.buildings.BuildingInformationSet;
 import com.eegeo.mapapi.buildings.BuildingsApi;
 import com.eegeo.mapapi.camera.CameraAnimationOptions;
 import com.eegeo.mapapi.camera.CameraApi;
+import com.eegeo.mapapi.camera.CameraChangeDispatcher;
+import com.eegeo.mapapi.camera.CameraChangeThreshold;
 import com.eegeo.mapapi.camera.CameraPosition;
 import com.eegeo.mapapi.camera.CameraUpdate;
 import com.eegeo.mapapi.camera.CameraUpdateFactory;
+import com.eegeo.mapapi.camera.OnCameraChangeListener;
 import com.eegeo.mapapi.camera.Projection;
 import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.geometry.LatLngAlt;
+import com.eegeo.mapapi.geometry.LatLngBounds;
 import com.eegeo.mapapi.indoorentities.IndoorEntityApi;
+import com.eegeo.mapapi.indoorentities.IndoorEntityHighlights;
 import com.eegeo.mapapi.indoorentities.IndoorMapEntityInformation;
 import com.eegeo.mapapi.indoorentities.IndoorMapEntityInformationApi;
 import com.eegeo.mapapi.indoorentities.IndoorEntityPickedMessage;
 import com.eegeo.mapapi.indoorentities.OnIndoorEntityPickedListener;
 import com.eegeo.mapapi.indoorentities.OnIndoorMapEntityInformationChangedListener;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineCache;
 import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineInformation;
 import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineInformationApi;
 import com.eegeo.mapapi.indooroutlines.OnIndoorMapFloorOutlineInformationLoadedListener;
@@ -42,7 +50,9 @@ import com.eegeo.mapapi.markers.Marker;
 import com.eegeo.mapapi.markers.MarkerApi;
 import com.eegeo.mapapi.markers.MarkerOptions;
 import com.eegeo.mapapi.markers.OnMarkerClickListener;
+import com.eegeo.mapapi.picking.OnPickResultListener;
 import com.eegeo.mapapi.picking.PickResult;
+import com.eegeo.mapapi.picking.PickingSession;
 import com.eegeo.mapapi.picking.PickingApi;
 import com.eegeo.mapapi.paths.PointOnPath;
 import com.eegeo.mapapi.paths.PathApi;
@@ -55,17 +65,25 @@ import com.eegeo.mapapi.polylines.Polyline;
 import com.eegeo.mapapi.polylines.PolylineApi;
 import com.eegeo.mapapi.polylines.PolylineOptions;
 import com.eegeo.mapapi.heatmaps.Heatmap;
+import com.eegeo.mapapi.heatmaps.HeatmapAggregator;
 import com.eegeo.mapapi.heatmaps.HeatmapApi;
 import com.eegeo.mapapi.heatmaps.HeatmapOptions;
 import com.eegeo.mapapi.positioner.OnPositionerChangedListener;
 import com.eegeo.mapapi.positioner.Positioner;
 import com.eegeo.mapapi.positioner.PositionerApi;
 import com.eegeo.mapapi.positioner.PositionerOptions;
+import com.eegeo.mapapi.precaching.CorridorPrecacheOperation;
+import com.eegeo.mapapi.precaching.CorridorPrecacheOptions;
 import com.eegeo.mapapi.precaching.PrecacheApi;
 import com.eegeo.mapapi.precaching.OnPrecacheOperationCompletedListener;
+import com.eegeo.mapapi.precaching.OnPrecacheProgressListener;
 import com.eegeo.mapapi.precaching.PrecacheOperation;
+import com.eegeo.mapapi.precaching.ResumablePrecacheOperation;
+import com.eegeo.mapapi.precaching.ResumablePrecacheOptions;
 import com.eegeo.mapapi.precaching.PrecacheOperationResult;
 import com.eegeo.mapapi.props.Prop;
+import com.eegeo.mapapi.props.PropBatch;
+import com.eegeo.mapapi.props.PropBatchOptions;
 import com.eegeo.mapapi.props.PropOptions;
 import com.eegeo.mapapi.props.PropsApi;
 import com.eegeo.mapapi.rendering.RenderingApi;
@@ -83,14 +101,19 @@ import com.eegeo.mapapi.services.routing.RoutingQueryResponse;
 import com.eegeo.mapapi.services.routing.RoutingApi;
 import com.eegeo.mapapi.services.routing.RoutingService;
 import com.eegeo.mapapi.util.Callbacks;
+import com.eegeo.mapapi.util.ListenerRegistry;
 import com.eegeo.mapapi.util.Promise;
 import com.eegeo.mapapi.util.Ready;
 
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main class representing a map. This class is the entry point for methods which change the camera, manage markers,
@@ -104,17 +127,22 @@ import java.util.Map;
 public final class EegeoMap {
     private final long m_eegeoMapApiPtr;
     private final INativeMessageRunner m_nativeRunner;
-    private final IUiMessageRunner m_uiRunner;
-    private List<OnCameraMoveListener> m_onCameraMoveListeners = new ArrayList<>();
-    private List<OnMapClickListener> m_onMapClickedListeners = new ArrayList<>();
-    private List<OnIndoorEnteredListener> m_onIndoorEnteredListeners = new ArrayList<>();
-    private List<OnIndoorExitedListener> m_onIndoorExitedListeners = new ArrayList<>();
-    private List<OnIndoorEnterFailedListener> m_onIndoorEnterFailedListeners = new ArrayList<>();
-    private List<OnIndoorMapLoadedListener> m_onIndoorMapLoadedListeners = new ArrayList<>();
-    private List<OnIndoorMapUnloadedListener> m_onIndoorMapUnloadedListeners = new ArrayList<>();
-    private List<OnFloorChangedListener> m_onIndoorFloorChangedListeners = new ArrayList<>();
-    private List<OnInitialStreamingCompleteListener> m_onInitialStreamingCompleteListeners = new ArrayList<>();
+    private final IDelayedUiMessageRunner m_uiRunner;
+    private final ListenerRegistry<OnCameraMoveListener> m_onCameraMoveListeners = new ListenerRegistry<>(OnCameraMoveListener.class);
+    private final ListenerRegistry<OnMapClickListener> m_onMapClickedListeners = new ListenerRegistry<>(OnMapClickListener.class);
+    private final ListenerRegistry<OnIndoorEnteredListener> m_onIndoorEnteredListeners = new ListenerRegistry<>(OnIndoorEnteredListener.class);
+    private final ListenerRegistry<OnIndoorExitedListener> m_onIndoorExitedListeners = new ListenerRegistry<>(OnIndoorExitedListener.class);
+    private final ListenerRegistry<OnIndoorEnterFailedListener> m_onIndoorEnterFailedListeners = new ListenerRegistry<>(OnIndoorEnterFailedListener.class);
+    private final ListenerRegistry<OnIndoorMapLoadedListener> m_onIndoorMapLoadedListeners = new ListenerRegistry<>(OnIndoorMapLoadedListener.class);
+    private final ListenerRegistry<OnIndoorMapUnloadedListener> m_onIndoorMapUnloadedListeners = new ListenerRegistry<>(OnIndoorMapUnloadedListener.class);
+    private final ListenerRegistry<OnFloorChangedListener> m_onIndoorFloorChangedListeners = new ListenerRegistry<>(OnFloorChangedListener.class);
+    private final ListenerRegistry<OnInitialStreamingCompleteListener> m_onInitialStreamingCompleteListeners = new ListenerRegistry<>(OnInitialStreamingCompleteListener.class);
     private CameraPosition m_cameraPosition = null;
+    private final CameraChangeDispatcher m_cameraChangeDispatcher = new CameraChangeDispatcher();
+    // camera changes from the native thread are coalesced, with at most one update posted at a time
+    private final AtomicReference<CameraPosition> m_pendingCameraPosition = new AtomicReference<>();
+    private final AtomicBoolean m_cameraMovePending = new AtomicBoolean(false);
+    private final AtomicBoolean m_cameraUpdatePosted = new AtomicBoolean(false);
     private IndoorMap m_indoorMap = null;
     private int m_currentIndoorFloor = -1;
     private Map<String, LatLngAlt> m_indoorMapEntryMarkerLocations = new HashMap<>();
@@ -148,7 +176,7 @@ public final class EegeoMap {
 
     @WorkerThread
     EegeoMap(INativeMessageRunner nativeRunner,
-             IUiMessageRunner uiRunner,
+             IDelayedUiMessageRunner uiRunner,
              EegeoNativeMapView.ICreateEegeoMapApi createNativeEegeoMapApi,
              EegeoMapOptions eegeoMapOptions
     ) {
@@ -179,6 +207,10 @@ public final class EegeoMap {
         this.m_indoorEntityApi = new IndoorEntityApi(m_nativeRunner, m_uiRunner, m_eegeoMapApiPtr);
         this.m_indoorMapEntityInformationApi = new IndoorMapEntityInformationApi(m_nativeRunner, m_uiRunner, m_eegeoMapApiPtr);
         this.m_indoorMapFloorOutlineInformationApi = new IndoorMapFloorOutlineInformationApi(m_nativeRunner, m_uiRunner, m_eegeoMapApiPtr);
+        this.m_indoorMapFloorOutlineInformationApi.setCache(new IndoorMapFloorOutlineCache(
+                eegeoMapOptions.getIndoorOutlineCacheMemoryBudgetBytes(),
+                eegeoMapOptions.getIndoorOutlineCacheDirectory(),
+                eegeoMapOptions.getIndoorOutlineCacheDiskBudgetBytes()));
     }
 
     @WorkerThread
@@ -187,6 +219,11 @@ public final class EegeoMap {
         initLocation(m_cameraPosition);
     }
 
+    @UiThread
+    void onDestroy() {
+        m_buildingsApi.destroy();
+    }
+
     /**
      * Moves the camera change from its current position to a new position.
      *
@@ -288,6 +325,40 @@ public final class EegeoMap {
         m_onCameraMoveListeners.remove(listener);
     }
 
+    /**
+     * Registers a listener for camera changes. Changes are reported at most once per rendered frame,
+     * with the new camera position and what changed since the position last reported to the
+     * listener.
+     *
+     * @param listener The listener to be notified.
+     */
+    @UiThread
+    public void addOnCameraChangeListener(@NonNull OnCameraChangeListener listener) {
+        m_cameraChangeDispatcher.add(listener, new CameraChangeThreshold());
+    }
+
+    /**
+     * Registers a listener for camera changes which are at least a given size. Smaller changes
+     * accumulate until, together, they exceed the threshold.
+     *
+     * @param listener  The listener to be notified.
+     * @param threshold The smallest change to report.
+     */
+    @UiThread
+    public void addOnCameraChangeListener(@NonNull OnCameraChangeListener listener, @NonNull CameraChangeThreshold threshold) {
+        m_cameraChangeDispatcher.add(listener, threshold);
+    }
+
+    /**
+     * Unregisters a listener for camera changes.
+     *
+     * @param listener The listener to be removed.
+     */
+    @UiThread
+    public void removeOnCameraChangeListener(@NonNull OnCameraChangeListener listener) {
+        m_cameraChangeDispatcher.remove(listener);
+    }
+
     /**
      * Registers a listener for user map point selection events.
      *
@@ -388,7 +459,7 @@ public final class EegeoMap {
                     @UiThread
                     @Override
                     public void ready(LatLngAlt latLngAlt) {
-                        for (OnMapClickListener listener : m_onMapClickedListeners) {
+                        for (OnMapClickListener listener : m_onMapClickedListeners.snapshot()) {
                             listener.onMapClick(latLngAlt);
                         }
                     }
@@ -397,27 +468,47 @@ public final class EegeoMap {
 
     @WorkerThread
     private void jniOnCameraMove() {
-        m_uiRunner.runOnUiThread(new Runnable() {
-            @UiThread
-            @Override
-            public void run() {
-                for (OnCameraMoveListener listener : m_onCameraMoveListeners) {
-                    listener.onCameraMove();
-                }
-            }
-        });
+        m_cameraMovePending.set(true);
+        postCameraUpdate();
     }
 
     @WorkerThread
     private void jniSetCameraPosition(final CameraPosition cameraPosition) {
-        m_uiRunner.runOnUiThread(new Runnable() {
-            @UiThread
-            @Override
-            public void run() {
+        m_projection.updateCameraSnapshot(cameraPosition);
+        m_pendingCameraPosition.set(cameraPosition);
+        postCameraUpdate();
+    }
+
+    @WorkerThread
+    private void postCameraUpdate() {
+        if (m_cameraUpdatePosted.compareAndSet(false, true)) {
+            m_uiRunner.runOnUiThread(m_cameraUpdateRunnable);
+        }
+    }
+
+    private final Runnable m_cameraUpdateRunnable = new Runnable() {
+        @UiThread
+        @Override
+        public void run() {
+            // cleared first, so that changes made while notifying post another update
+            m_cameraUpdatePosted.set(false);
+            CameraPosition cameraPosition = m_pendingCameraPosition.getAndSet(null);
+            boolean cameraMoved = m_cameraMovePending.getAndSet(false);
+
+            if (cameraPosition != null) {
                 m_cameraPosition = cameraPosition;
             }
-        });
-    }
+            if (cameraMoved) {
+                for (OnCameraMoveListener listener : m_onCameraMoveListeners.snapshot()) {
+                    listener.onCameraMove();
+                }
+            }
+            // a move without a new position has nothing new for change listeners
+            if (cameraPosition != null) {
+                m_cameraChangeDispatcher.dispatch(cameraPosition);
+            }
+        }
+    };
 
     /**
      * Show the expanded indoor map view.
@@ -496,7 +587,7 @@ public final class EegeoMap {
                 m_indoorMap = indoorMap;
                 m_currentIndoorFloor = currentIndoorFloor;
                 m_transitioningToIndoorMap = false;
-                for (OnIndoorEnteredListener listener : m_onIndoorEnteredListeners) {
+                for (OnIndoorEnteredListener listener : m_onIndoorEnteredListeners.snapshot()) {
                     listener.onIndoorEntered();
                 }
             }
@@ -643,7 +734,7 @@ public final class EegeoMap {
             public void run() {
                 m_indoorMap = null;
                 m_currentIndoorFloor = -1;
-                for (OnIndoorExitedListener listener : m_onIndoorExitedListeners) {
+                for (OnIndoorExitedListener listener : m_onIndoorExitedListeners.snapshot()) {
                     listener.onIndoorExited();
                 }
             }
@@ -657,7 +748,7 @@ public final class EegeoMap {
                 m_indoorMap = null;
                 m_currentIndoorFloor = -1;
                 m_transitioningToIndoorMap = false;
-                for (OnIndoorEnterFailedListener listener : m_onIndoorEnterFailedListeners) {
+                for (OnIndoorEnterFailedListener listener : m_onIndoorEnterFailedListeners.snapshot()) {
                     listener.OnIndoorEnterFailed(indoorMapId);
                 }
             }
@@ -778,7 +869,7 @@ public final class EegeoMap {
             @Override
             public void run() {
                 m_currentIndoorFloor = selectedFloor;
-                for (OnFloorChangedListener listener : m_onIndoorFloorChangedListeners) {
+                for (OnFloorChangedListener listener : m_onIndoorFloorChangedListeners.snapshot()) {
                     listener.onFloorChanged(m_currentIndoorFloor);
                 }
             }
@@ -892,6 +983,37 @@ public final class EegeoMap {
     }
 
 
+    /**
+     * Aggregates heatmap data points on a background thread, so that a large data set can be drawn
+     * from a much smaller set of weighted centroids. Pass the centroids for the heatmap's radii, as
+     * given by HeatmapAggregator.getLevelForRadii, to Heatmap.setData.
+     *
+     * @param packedPoints The data points, packed as latitude, longitude, altitude and weight. The
+     *                     array must not be modified until the promise is fulfilled.
+     * @param minCellSizeMeters The size of the smallest grid cells, in meters.
+     * @return A promise of the aggregator, fulfilled on the UI thread, or failed if aggregation
+     * throws.
+     * @throws IllegalArgumentException if packedPoints does not hold four values per point, or
+     * minCellSizeMeters is not greater than zero.
+     */
+    @UiThread
+    public Promise<HeatmapAggregator> aggregateHeatmapPoints(@NonNull final double[] packedPoints, final double minCellSizeMeters) throws IllegalArgumentException
+    {
+        return m_heatmapApi.aggregate(packedPoints, minCellSizeMeters);
+    }
+
+    /**
+     * Aggregates heatmap data points on a background thread, with the default smallest cell size.
+     *
+     * @param packedPoints The data points, packed as latitude, longitude, altitude and weight.
+     * @return A promise of the aggregator, fulfilled on the UI thread.
+     */
+    @UiThread
+    public Promise<HeatmapAggregator> aggregateHeatmapPoints(@NonNull final double[] packedPoints)
+    {
+        return aggregateHeatmapPoints(packedPoints, HeatmapAggregator.DEFAULT_MIN_CELL_SIZE_METERS);
+    }
+
     /**
      * Remove a heatmap from the map and destroy it.
      *
@@ -927,6 +1049,45 @@ public final class EegeoMap {
         buildingHighlight.destroy();
     }
 
+    /**
+     * Finds the buildings in an area, with their dimensions and footprint contours. The area is
+     * sampled on a grid, and results are cached by sample location and building id for the
+     * lifetime of the map, so querying the same area again does no further map work. Only
+     * buildings in the streamed map are found, so areas far from the camera may return nothing.
+     *
+     * @param bounds The area to search.
+     * @param sampleSpacingMeters The distance between sampled locations. Buildings smaller than
+     *                            this may be missed.
+     * @return A promise of the buildings found, fulfilled on the UI thread.
+     * @throws InvalidParameterException if the area needs more than 4096 samples at this spacing.
+     */
+    @UiThread
+    public Promise<BuildingInformationSet> queryBuildingInformation(@NonNull final LatLngBounds bounds, final double sampleSpacingMeters) throws InvalidParameterException
+    {
+        return m_buildingsApi.queryBuildingInformation(bounds, sampleSpacingMeters);
+    }
+
+    /**
+     * Finds the buildings in an area, sampled at BuildingInformationSet.DEFAULT_SAMPLE_SPACING_METERS.
+     *
+     * @param bounds The area to search.
+     * @return A promise of the buildings found, fulfilled on the UI thread.
+     */
+    @UiThread
+    public Promise<BuildingInformationSet> queryBuildingInformation(@NonNull final LatLngBounds bounds) throws InvalidParameterException
+    {
+        return queryBuildingInformation(bounds, BuildingInformationSet.DEFAULT_SAMPLE_SPACING_METERS);
+    }
+
+    /**
+     * Discards the building information cached by queryBuildingInformation.
+     */
+    @UiThread
+    public void clearBuildingInformationCache()
+    {
+        m_buildingsApi.clearBuildingInformationCache();
+    }
+
     /**
      * Create a prop and add it to the map.
      *
@@ -949,6 +1110,28 @@ public final class EegeoMap {
         prop.destroy();
     }
 
+    /**
+     * Create a batch of props sharing one geometry and add it to the map. This is much cheaper
+     * than calling addProp for each of hundreds of identical props.
+     *
+     * @param propBatchOptions Creation parameters for the prop batch
+     * @return The PropBatch that was added
+     */
+    @UiThread
+    public PropBatch addPropBatch(@NonNull final PropBatchOptions propBatchOptions) {
+        return new PropBatch(m_propsApi, propBatchOptions);
+    }
+
+    /**
+     * Remove a prop batch from the map and destroy it.
+     *
+     * @param propBatch The PropBatch to remove.
+     */
+    @UiThread
+    public void removePropBatch(@NonNull final PropBatch propBatch) {
+        propBatch.destroy();
+    }
+
     /**
      * Attempts to find a map feature at the given screen point. A ray is constructed from the
      * camera location and passing through the screen point. The first intersection of the ray with
@@ -974,6 +1157,20 @@ public final class EegeoMap {
         return m_pickingApi.pickFeatureAtScreenPoint(point);
     }
 
+    /**
+     * Creates a session for picking map features at screen points during continuous interactions
+     * such as hovering or dragging. The session keeps at most one pick in progress, picks only the
+     * latest of the points requested meanwhile, and caches results per screen cell until the camera
+     * changes. See PickingSession for details.
+     *
+     * @param listener The function to call with the result of each pick.
+     * @return The new session.
+     */
+    @UiThread
+    public PickingSession createPickingSession(@NonNull final OnPickResultListener listener) {
+        return new PickingSession(m_pickingApi, m_projection, listener);
+    }
+
     /**
      * Attempts to find a map feature at the given LatLng location.
      * See PickResult for details of information returned.
@@ -1068,6 +1265,19 @@ public final class EegeoMap {
         m_indoorEntityApi.clearAllIndoorEntityHighlights();
     }
 
+    /**
+     * Gets the highlight state for the entities of an indoor map. Changes made to it are sent to the
+     * map by IndoorEntityHighlights.apply, which sends only the entities whose highlight has changed.
+     *
+     * @param indoorMapId ID for the indoor map the entities are in.
+     * @return The highlight state for the indoor map. The same instance is returned on every call.
+     */
+    @UiThread
+    public IndoorEntityHighlights getIndoorEntityHighlights(@NonNull final String indoorMapId)
+    {
+        return m_indoorEntityApi.getIndoorEntityHighlights(indoorMapId);
+    }
+
 
     /**
      * Adds an IndoorMapEntityInformation object, that will become populated with the ids
@@ -1125,6 +1335,47 @@ public final class EegeoMap {
         indoorMapFloorOutlineInformation.destroy();
     }
 
+    /**
+     * Sets the cache used to populate IndoorMapFloorOutlineInformation objects. By default a cache is
+     * created with the budgets and directory given in EegeoMapOptions; supply a cache created with a
+     * directory to persist outlines between sessions. Applies to IndoorMapFloorOutlineInformation objects added after this call.
+     * @param cache The outline cache, or null to disable caching.
+     */
+    @UiThread
+    public void setIndoorMapFloorOutlineCache(final IndoorMapFloorOutlineCache cache)
+    {
+        m_indoorMapFloorOutlineInformationApi.setCache(cache);
+    }
+
+    /**
+     * Gets the cache used to populate IndoorMapFloorOutlineInformation objects.
+     * @return The outline cache, or null if caching is disabled.
+     */
+    @UiThread
+    public IndoorMapFloorOutlineCache getIndoorMapFloorOutlineCache()
+    {
+        return m_indoorMapFloorOutlineInformationApi.getCache();
+    }
+
+    /**
+     * Releases memory held by the indoor floor outline cache and, at moderate or higher levels, the
+     * building information cache, in response to memory pressure. This is intended to be called
+     * from ComponentCallbacks2.onTrimMemory, with the level passed to it. Outlines of pinned indoor
+     * maps are kept. The native map's own content cache is not affected, and cannot be trimmed.
+     * @param level The trim level, one of the ComponentCallbacks2.TRIM_MEMORY constants.
+     */
+    @UiThread
+    public void trimIndoorOutlineAndBuildingCaches(int level)
+    {
+        IndoorMapFloorOutlineCache cache = m_indoorMapFloorOutlineInformationApi.getCache();
+        if (cache != null) {
+            cache.trim(level);
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            m_buildingsApi.clearBuildingInformationCache();
+        }
+    }
+
     /**
      * Creates and returns a PoiService for this map.
      *
@@ -1255,6 +1506,104 @@ public final class EegeoMap {
         return m_precacheApi.precache(center, radius, callback);
     }
 
+    /**
+     * Begin an operation to precache a spherical area of the map, with the completion callback
+     * called on an Executor rather than the Android UI thread.
+     *
+     * @param center The center of the area to precache.
+     * @param radius The radius (in meters) of the area to precache.
+     * @param callback The function to call when the precache operation completes.
+     * @param callbackExecutor The Executor on which callback is called.
+     *
+     * @return an object with a cancel() method to allow you to cancel the precache operation.
+     */
+    @UiThread
+    public PrecacheOperation precache(
+            final LatLng center,
+            final double radius,
+            final OnPrecacheOperationCompletedListener callback,
+            @NonNull final Executor callbackExecutor) throws IllegalArgumentException {
+        final double maximumPrecacheRadius = m_precacheApi.getMaximumPrecacheRadius();
+
+        if (radius < 0.0 || radius > maximumPrecacheRadius)
+        {
+            throw new IllegalArgumentException(
+                    String.format("radius %f outside of valid (0, %f] range.",
+                            radius, maximumPrecacheRadius));
+        }
+
+        return m_precacheApi.precache(center, radius, callback, callbackExecutor);
+    }
+
+    /**
+     * Begins precaching the corridor along a path or route, divided into overlapping circular
+     * regions which are precached in order of distance ahead of the current position.
+     *
+     * @param options The path and scheduling parameters of the corridor.
+     * @param callback The function to call when every region has been precached, skipped or has
+     *                 failed. The result indicates success only if no region failed and the
+     *                 operation was not cancelled.
+     *
+     * @return an object with which to update the current position, monitor progress or cancel.
+     */
+    @UiThread
+    public CorridorPrecacheOperation precacheCorridor(
+            @NonNull final CorridorPrecacheOptions options,
+            final OnPrecacheOperationCompletedListener callback) throws IllegalArgumentException {
+        final double maximumPrecacheRadius = m_precacheApi.getMaximumPrecacheRadius();
+
+        if (options.getRegionRadius() < 0.0 || options.getRegionRadius() > maximumPrecacheRadius)
+        {
+            throw new IllegalArgumentException(
+                    String.format("regionRadius %f outside of valid (0, %f] range.",
+                            options.getRegionRadius(), maximumPrecacheRadius));
+        }
+
+        return m_precacheApi.precacheCorridor(options, callback);
+    }
+
+    /**
+     * Begins precaching a circular area of any size, divided into a grid of smaller regions which
+     * are precached nearest the center first. Progress is reported as each region completes, and if
+     * the options give a checkpoint file, a cancelled or interrupted precache of the same area
+     * resumes from the regions already completed.
+     *
+     * @param options The area, region size, concurrency and checkpoint file of the precache.
+     * @param progressListener The function to call each time a region completes, or null.
+     * @param callback The function to call when every region has been precached or has failed, or
+     *                 the operation was cancelled. The result indicates success only if every
+     *                 region has been precached.
+     *
+     * @return an object with which to monitor progress and throughput, or cancel.
+     */
+    @UiThread
+    public ResumablePrecacheOperation precacheResumable(
+            @NonNull final ResumablePrecacheOptions options,
+            final OnPrecacheProgressListener progressListener,
+            final OnPrecacheOperationCompletedListener callback) throws IllegalArgumentException {
+        final double maximumPrecacheRadius = m_precacheApi.getMaximumPrecacheRadius();
+
+        if (options.getCenter() == null)
+        {
+            throw new IllegalArgumentException("center must be set");
+        }
+
+        if (options.getRadius() <= 0.0)
+        {
+            throw new IllegalArgumentException(
+                    String.format("radius %f must be greater than zero.", options.getRadius()));
+        }
+
+        if (options.getRegionRadius() < 0.0 || options.getRegionRadius() > maximumPrecacheRadius)
+        {
+            throw new IllegalArgumentException(
+                    String.format("regionRadius %f outside of valid (0, %f] range.",
+                            options.getRegionRadius(), maximumPrecacheRadius));
+        }
+
+        return m_precacheApi.precacheResumable(options, progressListener, callback);
+    }
+
     /**
      * Gets the maximum radius value that can be passed to precache(center, radius, callback)
      *
@@ -1324,7 +1673,7 @@ public final class EegeoMap {
     private void jniOnIndoorMapLoaded(final String indoorMapId) {
         m_uiRunner.runOnUiThread(new Runnable() {
             public void run() {
-                for (OnIndoorMapLoadedListener listener : m_onIndoorMapLoadedListeners) {
+                for (OnIndoorMapLoadedListener listener : m_onIndoorMapLoadedListeners.snapshot()) {
                     listener.onIndoorMapLoaded(indoorMapId);
                 }
             }
@@ -1335,7 +1684,7 @@ public final class EegeoMap {
     private void jniOnIndoorMapUnloaded(final String indoorMapId) {
         m_uiRunner.runOnUiThread(new Runnable() {
             public void run() {
-                for (OnIndoorMapUnloadedListener listener : m_onIndoorMapUnloadedListeners) {
+                for (OnIndoorMapUnloadedListener listener : m_onIndoorMapUnloadedListeners.snapshot()) {
                     listener.onIndoorMapUnloaded(indoorMapId);
                 }
             }
@@ -1387,7 +1736,7 @@ public final class EegeoMap {
             @UiThread
             @Override
             public void run() {
-                for (OnInitialStreamingCompleteListener listener : m_onInitialStreamingCompleteListeners) {
+                for (OnInitialStreamingCompleteListener listener : m_onInitialStreamingCompleteListeners.snapshot()) {
                     listener.onInitialStreamingComplete();
                 }
             }
@@ -16,7 +16,13 @@ import android.view.Surface;
 import android.view.SurfaceHolder;
 
 import com.eegeo.mapapi.map.EegeoMapOptions;
+import com.eegeo.mapapi.map.OnMapDestroyedCallback;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 
@@ -25,9 +31,17 @@ public class EegeoNativeMapView implements INativeMessageRunner {
         System.loadLibrary("eegeo-jni");
     }
 
+    // the native thread nominated by the api runner is process-global, so a runner is never
+    // created while another is still being torn down
+    private static final Object ms_apiRunnerLock = new Object();
+    private static final Set<EegeoNativeMapView> ms_tearingDown = new HashSet<>();
+
     final private NativeThread m_nativeThread;
-    final private MapView m_mapView;
+    private MapView m_mapView = null;
     private final UiThreadRunner m_uiRunner;
+    // the map's callbacks go through this, so that they stop once onDestroy is called
+    private final MapUiMessageRunner m_mapUiRunner;
+    private boolean m_destroyed = false;
     private SurfaceHolder m_surfaceHolder;
     private long m_jniApiRunnerPtr;
     private EegeoMap m_eeGeoMap = null;
@@ -38,25 +52,24 @@ public class EegeoNativeMapView implements INativeMessageRunner {
 
     @UiThread
     public EegeoNativeMapView(MapView mapView, @NonNull final EegeoMapOptions eegeoMapOptions) throws RuntimeException {
+        this(mapView.getContext(), eegeoMapOptions.getTargetFrameRate());
+        attach(mapView, eegeoMapOptions);
+    }
 
-        final Context context = mapView.getContext();
-
+    /**
+     * Starts the native thread and api runner without a MapView, so that they are ready for a
+     * MapView created later to adopt with attach.
+     */
+    EegeoNativeMapView(final Context context, float targetFrameRate) throws RuntimeException {
         this.m_uiRunner = new UiThreadRunner(context);
-        this.m_mapView = mapView;
-        this.m_nativeThread = new NativeThread(eegeoMapOptions.getTargetFrameRate());
+        this.m_mapUiRunner = new MapUiMessageRunner(m_uiRunner);
+        final List<EegeoNativeMapView> precedingTeardowns;
+        synchronized (ms_apiRunnerLock) {
+            precedingTeardowns = new ArrayList<>(ms_tearingDown);
+        }
+        this.m_nativeThread = new NativeThread(targetFrameRate);
         this.m_nativeThread.start();
 
-        this.m_createEegeoMapNativeCallable = new Callable<EegeoMap>() {
-            @Override
-            public EegeoMap call() throws Exception {
-                EegeoMap eeGeoMap = new EegeoMap(EegeoNativeMapView.this, m_uiRunner, new CreateEegeoMapApiImpl(), eegeoMapOptions);
-                eeGeoMap.initialise(eegeoMapOptions);
-
-                return eeGeoMap;
-            }
-        };
-
-
         runOnNativeThread(new Runnable() {
             @WorkerThread
             @Override
@@ -65,7 +78,10 @@ public class EegeoNativeMapView implements INativeMessageRunner {
                 try {
                     PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
 
-                    m_jniApiRunnerPtr = nativeCreateApiRunner(EegeoNativeMapView.this, context, context.getAssets(), dm.ydpi, dm.densityDpi, packageInfo.versionName, packageInfo.versionCode);
+                    synchronized (ms_apiRunnerLock) {
+                        awaitTeardowns(precedingTeardowns);
+                        m_jniApiRunnerPtr = nativeCreateApiRunner(EegeoNativeMapView.this, context, context.getAssets(), dm.ydpi, dm.densityDpi, packageInfo.versionName, packageInfo.versionCode);
+                    }
 
                 } catch (PackageManager.NameNotFoundException e) {
                     e.printStackTrace();
@@ -79,6 +95,32 @@ public class EegeoNativeMapView implements INativeMessageRunner {
         });
     }
 
+    /**
+     * Sets the MapView which displays this map, and the options with which the map is created once
+     * its surface is available.
+     */
+    @UiThread
+    void attach(MapView mapView, @NonNull final EegeoMapOptions eegeoMapOptions) {
+        this.m_mapView = mapView;
+        this.m_createEegeoMapNativeCallable = new Callable<EegeoMap>() {
+            @Override
+            public EegeoMap call() throws Exception {
+                EegeoMap eeGeoMap = new EegeoMap(EegeoNativeMapView.this, m_mapUiRunner, new CreateEegeoMapApiImpl(), eegeoMapOptions);
+                eeGeoMap.initialise(eegeoMapOptions);
+
+                return eeGeoMap;
+            }
+        };
+
+        runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                m_nativeThread.setTargetFrameRate(eegeoMapOptions.getTargetFrameRate());
+            }
+        });
+    }
+
     @UiThread
     public void runOnNativeThread(Runnable runnable) {
         m_nativeThread.postTo(runnable);
@@ -115,35 +157,47 @@ public class EegeoNativeMapView implements INativeMessageRunner {
     }
 
     @UiThread
-    public void onDestroy() {
+    public void onDestroy(final OnMapDestroyedCallback callback) {
         Log.d("eegeo-android-sdk", "onDestroy");
+        if (m_destroyed) {
+            return;
+        }
+        m_destroyed = true;
+        m_mapUiRunner.close();
 
-        runOnNativeThread(new Runnable() {
+        synchronized (ms_apiRunnerLock) {
+            ms_tearingDown.add(this);
+        }
+
+        // returns straight away; the native map is torn down on its own thread, which then exits
+        m_nativeThread.postLast(new Runnable() {
             @WorkerThread
             @Override
             public void run() {
                 Log.d("eegeo-android-sdk", "Native Thread: onDestroy");
                 m_nativeThread.stopUpdating();
-                nativeDestroyApiRunner(m_jniApiRunnerPtr);
-                m_jniApiRunnerPtr = 0;
-                synchronized (m_nativeThread) {
-                    m_nativeThread.notifyAll();
+                synchronized (ms_apiRunnerLock) {
+                    if (m_jniApiRunnerPtr != 0) {
+                        nativeDestroyApiRunner(m_jniApiRunnerPtr);
+                        m_jniApiRunnerPtr = 0;
+                    }
+                    ms_tearingDown.remove(EegeoNativeMapView.this);
+                    ms_apiRunnerLock.notifyAll();
+                }
+                m_nativeThread.quit();
+
+                Log.d("eegeo-android-sdk", "Native Thread: nativeDestroyApiRunner complete");
+                if (callback != null) {
+                    m_uiRunner.runOnUiThread(new Runnable() {
+                        @UiThread
+                        @Override
+                        public void run() {
+                            callback.onMapDestroyed();
+                        }
+                    });
                 }
             }
         });
-
-        Log.d("eegeo-android-sdk", "begin wait nativeDestroyApiRunner");
-        synchronized (m_nativeThread) {
-            try {
-                m_nativeThread.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-
-        Log.d("eegeo-android-sdk", "end wait nativeDestroyApiRunner");
-
-        m_nativeThread.quit();
     }
 
 
@@ -200,6 +254,21 @@ public class EegeoNativeMapView implements INativeMessageRunner {
     public void draw() {
     }
 
+    @WorkerThread
+    private static void awaitTeardowns(List<EegeoNativeMapView> nativeMapViews) {
+        boolean interrupted = false;
+        while (!Collections.disjoint(ms_tearingDown, nativeMapViews)) {
+            try {
+                ms_apiRunnerLock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @WorkerThread
     private void notifySurfaceCreated() {
         // platform creation is deferred until surface is available.
@@ -213,7 +282,7 @@ public class EegeoNativeMapView implements INativeMessageRunner {
                 throw new RuntimeException("Unable to create native eeGeo Map object");
             }
 
-            m_uiRunner.runOnUiThread(new Runnable() {
+            m_mapUiRunner.runOnUiThread(new Runnable() {
                 @UiThread
                 @Override
                 public void run() {
@@ -333,45 +402,46 @@ public class EegeoNativeMapView implements INativeMessageRunner {
     }
 
     private class NativeThread extends Thread {
-        private final float m_targetFramesPerSecond;
+        private float m_targetFramesPerSecond;
         private Handler m_nativeThreadHandler;
         private NativeUpdateApiRunner m_nativeUpdateApiRunner;
         private boolean m_updatingNative = false;
         private boolean m_threadExiting = false;
+        // runnables posted before the thread's Looper is ready, so that start need not wait for it
+        private List<Runnable> m_pendingRunnables = new ArrayList<>();
 
         @UiThread
         private NativeThread(float m_targetFramesPerSecond) {
             this.m_targetFramesPerSecond = m_targetFramesPerSecond;
         }
 
-        @Override
         @UiThread
-        public void start() {
-            super.start();
-
+        public void postTo(Runnable runnable) {
             synchronized (this) {
-                try {
-                    this.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    throw new RuntimeException("failed to start NativeThread");
+                if (m_threadExiting) {
+                    Log.d("eegeo-android-sdk", "thread exiting, ignoring runnable");
+                } else if (m_nativeThreadHandler == null) {
+                    m_pendingRunnables.add(runnable);
+                } else {
+                    m_nativeThreadHandler.post(runnable);
                 }
             }
-
-            if (m_nativeThreadHandler == null) {
-                throw new RuntimeException("failed to create nativeThreadHandler");
-            }
         }
 
         @UiThread
-        public void postTo(Runnable runnable) {
-            if (!m_threadExiting) {
-                m_nativeThreadHandler.post(runnable);
-            } else {
-                Log.d("eegeo-android-sdk", "thread exiting, ignoring runnable");
+        public void postLast(Runnable runnable) {
+            synchronized (this) {
+                postTo(runnable);
+                m_threadExiting = true;
             }
         }
 
+        @WorkerThread
+        public void setTargetFrameRate(float targetFramesPerSecond) {
+            m_targetFramesPerSecond = targetFramesPerSecond;
+            m_nativeUpdateApiRunner.m_frameThrottleDelaySeconds = 1.f / targetFramesPerSecond;
+        }
+
         @WorkerThread
         public void startUpdating() {
             if (!m_updatingNative) {
@@ -388,18 +458,11 @@ public class EegeoNativeMapView implements INativeMessageRunner {
             }
         }
 
-        @UiThread
+        @WorkerThread
         public void quit() {
             //m_nativeThreadHandler.dump(new LogPrinter(Log.DEBUG, "eegeo-android-sdk"), "");
-            m_threadExiting = true;
             m_nativeThreadHandler.removeCallbacksAndMessages(null);
-            m_nativeThreadHandler.post(new Runnable() {
-                @WorkerThread
-                @Override
-                public void run() {
-                    Looper.myLooper().quit();
-                }
-            });
+            Looper.myLooper().quit();
         }
 
         public void run() {
@@ -407,10 +470,13 @@ public class EegeoNativeMapView implements INativeMessageRunner {
 
             m_nativeUpdateApiRunner = new NativeUpdateApiRunner();
 
-            m_nativeThreadHandler = new Handler();
-
+            Handler handler = new Handler();
             synchronized (this) {
-                notifyAll();
+                for (Runnable runnable : m_pendingRunnables) {
+                    handler.post(runnable);
+                }
+                m_pendingRunnables = null;
+                m_nativeThreadHandler = handler;
             }
 
             Looper.loop();
@@ -418,7 +484,7 @@ public class EegeoNativeMapView implements INativeMessageRunner {
 
         class NativeUpdateApiRunner implements Runnable {
 
-            final private float m_frameThrottleDelaySeconds;
+            private float m_frameThrottleDelaySeconds;
             private long m_startOfLastFrameNano;
 
             @WorkerThread
@@ -0,0 +1,12 @@
+package com.eegeo.mapapi;
+
+/**
+ * A UI message runner that can also post a runnable after a delay and cancel it before it runs.
+ *
+ * @eegeo.internal
+ */
+public interface IDelayedUiMessageRunner extends IUiMessageRunner {
+    void runOnUiThreadDelayed(Runnable runnable, long delayMillis);
+
+    void cancelRunOnUiThread(Runnable runnable);
+}
@@ -0,0 +1,61 @@
+package com.eegeo.mapapi;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.map.EegeoMapOptions;
+
+/**
+ * Holds a native map engine started ahead of any MapView by EegeoApi.prewarm, until the next
+ * MapView adopts it.
+ * <br>
+ * <br>
+ * The engine is started on the UI thread, which loads the native library there, as JNI_OnLoad
+ * nominates the loading thread as the UI thread. Its runner is then created on the engine's own
+ * native thread, as for a MapView's engine.
+ * <br>
+ * <br>
+ * The engine is created with the application context rather than an Activity's, as the runner
+ * keeps a global reference to the context until it is torn down. The application context lives
+ * as long as the process and has the same class loader and main Looper as the app's Activities,
+ * so no Activity is leaked. The engine uses the context only for its package information, assets
+ * and main Looper, none of which differ from an Activity's; views are created by the MapView.
+ */
+final class MapEnginePrewarmer {
+    private static EegeoNativeMapView ms_prewarmedMapView = null;
+
+    private MapEnginePrewarmer() {
+    }
+
+    @UiThread
+    static void start(@NonNull Context context) {
+        if (ms_prewarmedMapView != null) {
+            return;
+        }
+
+        ms_prewarmedMapView = new EegeoNativeMapView(context.getApplicationContext(), new EegeoMapOptions().getTargetFrameRate());
+    }
+
+    /**
+     * Tears down the prewarmed engine, if one is waiting to be adopted.
+     */
+    @UiThread
+    static void release() {
+        EegeoNativeMapView nativeMapView = take();
+        if (nativeMapView != null) {
+            nativeMapView.onDestroy(null);
+        }
+    }
+
+    /**
+     * @return The prewarmed engine, or null if none was started. The engine may still be starting
+     * on its native thread, in which case work posted to it runs once it has started.
+     */
+    @UiThread
+    static EegeoNativeMapView take() {
+        EegeoNativeMapView nativeMapView = ms_prewarmedMapView;
+        ms_prewarmedMapView = null;
+        return nativeMapView;
+    }
+}
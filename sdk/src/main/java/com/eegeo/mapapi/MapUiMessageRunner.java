@@ -0,0 +1,89 @@
+package com.eegeo.mapapi;
+
+import androidx.annotation.UiThread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts a map's runnables to the UI thread, and drops any that have not yet run once the map is
+ * closed, so that no callbacks for the map reach the app after MapView.onDestroy returns.
+ */
+class MapUiMessageRunner implements IDelayedUiMessageRunner {
+    private final IDelayedUiMessageRunner m_uiRunner;
+    // the posted runnable for each delayed runnable, so that it can be cancelled
+    private final Map<Runnable, Runnable> m_delayedRunnables = new HashMap<>();
+    private volatile boolean m_closed = false;
+
+    MapUiMessageRunner(IDelayedUiMessageRunner uiRunner) {
+        m_uiRunner = uiRunner;
+    }
+
+    @Override
+    public void runOnUiThread(final Runnable runnable) {
+        if (m_closed) {
+            return;
+        }
+        m_uiRunner.runOnUiThread(new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                if (!m_closed) {
+                    runnable.run();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void runOnUiThreadDelayed(final Runnable runnable, long delayMillis) {
+        Runnable delayed = new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                synchronized (m_delayedRunnables) {
+                    m_delayedRunnables.remove(runnable);
+                }
+                if (!m_closed) {
+                    runnable.run();
+                }
+            }
+        };
+        synchronized (m_delayedRunnables) {
+            if (m_closed) {
+                return;
+            }
+            m_delayedRunnables.put(runnable, delayed);
+        }
+        m_uiRunner.runOnUiThreadDelayed(delayed, delayMillis);
+    }
+
+    @Override
+    public void cancelRunOnUiThread(Runnable runnable) {
+        Runnable delayed;
+        synchronized (m_delayedRunnables) {
+            delayed = m_delayedRunnables.remove(runnable);
+        }
+        if (delayed != null) {
+            m_uiRunner.cancelRunOnUiThread(delayed);
+        }
+    }
+
+    /**
+     * Drops runnables posted to the UI thread from now on, and any already posted that have not run.
+     */
+    @UiThread
+    void close() {
+        List<Runnable> delayedRunnables;
+        synchronized (m_delayedRunnables) {
+            m_closed = true;
+            delayedRunnables = new ArrayList<>(m_delayedRunnables.values());
+            m_delayedRunnables.clear();
+        }
+        for (Runnable delayed : delayedRunnables) {
+            m_uiRunner.cancelRunOnUiThread(delayed);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import android.view.View;
 import android.widget.FrameLayout;
 
 import com.eegeo.mapapi.map.EegeoMapOptions;
+import com.eegeo.mapapi.map.OnMapDestroyedCallback;
 import com.eegeo.mapapi.map.OnMapReadyCallback;
 import com.eegeo.mapapi.util.Callbacks;
 
@@ -84,7 +85,12 @@ public class MapView extends FrameLayout {
         setClickable(true);
         setFocusable(true);
 
-        m_eegeoNativeMapView = new EegeoNativeMapView(this, eegeoMapOptions);
+        m_eegeoNativeMapView = MapEnginePrewarmer.take();
+        if (m_eegeoNativeMapView != null) {
+            m_eegeoNativeMapView.attach(this, eegeoMapOptions);
+        } else {
+            m_eegeoNativeMapView = new EegeoNativeMapView(this, eegeoMapOptions);
+        }
 
         SurfaceView surfaceView = (SurfaceView) findViewById(R.id.surfaceView);
         surfaceView.getHolder().addCallback(new SurfaceHolderCallback());
@@ -145,11 +151,34 @@ public class MapView extends FrameLayout {
     }
 
     /**
-     * Call this method from the parent Activity's onDestroy method.
+     * Call this method from the parent Activity's onDestroy method. The method returns without
+     * waiting for the map's native resources to be released. No map listeners or callbacks are
+     * called once it has returned, including for events that occurred before the call.
      */
     @UiThread
     public void onDestroy() {
-        m_eegeoNativeMapView.onDestroy();
+        // stops the map's callbacks first, so none run while its APIs are torn down
+        m_eegeoNativeMapView.onDestroy(null);
+        if (m_eegeoMap != null) {
+            m_eegeoMap.onDestroy();
+        }
+    }
+
+    /**
+     * Call this method from the parent Activity's onDestroy method. The method returns without
+     * waiting for the map's native resources to be released, so that they are released while the
+     * next screen is shown, and the callback is notified once they have been. No other map
+     * listeners or callbacks are called once the method has returned.
+     *
+     * @param callback The object to be notified when the map has been destroyed.
+     */
+    @UiThread
+    public void onDestroy(@NonNull OnMapDestroyedCallback callback) {
+        // stops the map's callbacks first, so none run while its APIs are torn down
+        m_eegeoNativeMapView.onDestroy(callback);
+        if (m_eegeoMap != null) {
+            m_eegeoMap.onDestroy();
+        }
     }
 
     /**
@@ -3,7 +3,7 @@ package com.eegeo.mapapi;
 import android.content.Context;
 import android.os.Handler;
 
-public class UiThreadRunner implements IUiMessageRunner {
+public class UiThreadRunner implements IDelayedUiMessageRunner {
     private final Handler m_handler;
 
     public UiThreadRunner(Context context) {
@@ -14,4 +14,14 @@ public class UiThreadRunner implements IUiMessageRunner {
     public void runOnUiThread(Runnable runnable) {
         m_handler.post(runnable);
     }
+
+    @Override
+    public void runOnUiThreadDelayed(Runnable runnable, long delayMillis) {
+        m_handler.postDelayed(runnable, delayMillis);
+    }
+
+    @Override
+    public void cancelRunOnUiThread(Runnable runnable) {
+        m_handler.removeCallbacks(runnable);
+    }
 }
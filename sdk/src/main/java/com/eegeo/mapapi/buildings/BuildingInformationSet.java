@@ -0,0 +1,176 @@
+package com.eegeo.mapapi.buildings;
+
+import androidx.annotation.NonNull;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.util.List;
+
+/**
+ * The buildings found in an area by EegeoMap.queryBuildingInformation, in a packed form.
+ * <br>
+ * <br>
+ * Building dimensions, contour altitudes and contour points are held in flat primitive arrays, so
+ * the footprints and heights of a whole district can be read without a LatLng per contour vertex.
+ * Buildings are addressed by index, from 0 to getBuildingCount() - 1, and a building's contours by
+ * index from 0 to getContourCount(building) - 1. A BuildingInformationSet is immutable.
+ */
+public final class BuildingInformationSet {
+    /**
+     * The default distance between the locations sampled for buildings, in meters. Buildings
+     * smaller than this may be missed.
+     */
+    public static final double DEFAULT_SAMPLE_SPACING_METERS = 15.0;
+
+    private final String[] m_buildingIds;
+    // base altitude, top altitude, centroid latitude and centroid longitude for each building
+    private final double[] m_dimensions;
+    // index of each building's first contour, with a final entry for the total
+    private final int[] m_contourStarts;
+    // bottom and top altitude for each contour
+    private final double[] m_contourAltitudes;
+    // index of each contour's first point, with a final entry for the total
+    private final int[] m_pointStarts;
+    // latitude and longitude for each point
+    private final double[] m_points;
+
+    BuildingInformationSet(@NonNull List<BuildingInformation> buildings) {
+        final int buildingCount = buildings.size();
+        int contourCount = 0;
+        int pointCount = 0;
+        for (BuildingInformation building : buildings) {
+            contourCount += building.contours.length;
+            for (BuildingContour contour : building.contours) {
+                pointCount += contour.points.length;
+            }
+        }
+
+        m_buildingIds = new String[buildingCount];
+        m_dimensions = new double[buildingCount * 4];
+        m_contourStarts = new int[buildingCount + 1];
+        m_contourAltitudes = new double[contourCount * 2];
+        m_pointStarts = new int[contourCount + 1];
+        m_points = new double[pointCount * 2];
+
+        int contour = 0;
+        int point = 0;
+        for (int b = 0; b < buildingCount; ++b) {
+            BuildingInformation building = buildings.get(b);
+            m_buildingIds[b] = building.buildingId;
+            m_dimensions[b * 4] = building.buildingDimensions.baseAltitude;
+            m_dimensions[b * 4 + 1] = building.buildingDimensions.topAltitude;
+            m_dimensions[b * 4 + 2] = building.buildingDimensions.centroid.latitude;
+            m_dimensions[b * 4 + 3] = building.buildingDimensions.centroid.longitude;
+            m_contourStarts[b] = contour;
+            for (BuildingContour buildingContour : building.contours) {
+                m_contourAltitudes[contour * 2] = buildingContour.bottomAltitude;
+                m_contourAltitudes[contour * 2 + 1] = buildingContour.topAltitude;
+                m_pointStarts[contour] = point;
+                for (LatLng latLng : buildingContour.points) {
+                    m_points[point * 2] = latLng.latitude;
+                    m_points[point * 2 + 1] = latLng.longitude;
+                    ++point;
+                }
+                ++contour;
+            }
+        }
+        m_contourStarts[buildingCount] = contour;
+        m_pointStarts[contourCount] = point;
+    }
+
+    /**
+     * @return The number of buildings found.
+     */
+    public int getBuildingCount() {
+        return m_buildingIds.length;
+    }
+
+    /**
+     * @param building The building index.
+     * @return The building's unique identifier.
+     */
+    public String getBuildingId(int building) {
+        return m_buildingIds[building];
+    }
+
+    /**
+     * @param building The building index.
+     * @return The altitude of the building's base, in meters above sea level.
+     */
+    public double getBaseAltitude(int building) {
+        return m_dimensions[building * 4];
+    }
+
+    /**
+     * @param building The building index.
+     * @return The altitude of the building's highest point, in meters above sea level.
+     */
+    public double getTopAltitude(int building) {
+        return m_dimensions[building * 4 + 1];
+    }
+
+    /**
+     * @param building The building index.
+     * @return The centroid of the building.
+     */
+    public LatLng getCentroid(int building) {
+        return new LatLng(m_dimensions[building * 4 + 2], m_dimensions[building * 4 + 3]);
+    }
+
+    /**
+     * @param building The building index.
+     * @return The number of contours the building's footprint is made of.
+     */
+    public int getContourCount(int building) {
+        return m_contourStarts[building + 1] - m_contourStarts[building];
+    }
+
+    /**
+     * @param building The building index.
+     * @param contour  The contour index within the building.
+     * @return The altitude of the bottom of the contour, in meters above sea level.
+     */
+    public double getContourBottomAltitude(int building, int contour) {
+        return m_contourAltitudes[(m_contourStarts[building] + contour) * 2];
+    }
+
+    /**
+     * @param building The building index.
+     * @param contour  The contour index within the building.
+     * @return The altitude of the top of the contour, in meters above sea level.
+     */
+    public double getContourTopAltitude(int building, int contour) {
+        return m_contourAltitudes[(m_contourStarts[building] + contour) * 2 + 1];
+    }
+
+    /**
+     * @param building The building index.
+     * @param contour  The contour index within the building.
+     * @return The number of vertices in the contour.
+     */
+    public int getContourPointCount(int building, int contour) {
+        int index = m_contourStarts[building] + contour;
+        return m_pointStarts[index + 1] - m_pointStarts[index];
+    }
+
+    /**
+     * Copies a contour's vertices into an array.
+     *
+     * @param building The building index.
+     * @param contour  The contour index within the building.
+     * @param out      An array of at least twice getContourPointCount(building, contour) elements,
+     *                 which receives the vertices packed as latitude and longitude.
+     */
+    public void getContourPoints(int building, int contour, @NonNull double[] out) {
+        int index = m_contourStarts[building] + contour;
+        int start = m_pointStarts[index];
+        System.arraycopy(m_points, start * 2, out, 0, (m_pointStarts[index + 1] - start) * 2);
+    }
+
+    /**
+     * @return The total number of contour vertices over all buildings.
+     */
+    public int getTotalPointCount() {
+        return m_points.length / 2;
+    }
+}
@@ -0,0 +1,62 @@
+package com.eegeo.mapapi.buildings;
+
+import com.eegeo.mapapi.geometry.LatLngBounds;
+
+import java.security.InvalidParameterException;
+
+/**
+ * The sample locations used to find the buildings in an area. Samples lie at the centers of a
+ * global grid of roughly square cells, so overlapping queries with the same spacing share sample
+ * keys, and cached results for a sample can be reused.
+ */
+class BuildingSampleGrid {
+    private static final double METERS_PER_DEGREE_LATITUDE = Math.toRadians(6378137.0);
+
+    final double spacingMeters;
+    final long[] keys;
+    final double[] latLngs;
+
+    BuildingSampleGrid(LatLngBounds bounds, double spacingMeters, int maxSamples) {
+        this.spacingMeters = spacingMeters;
+
+        final double latitudeStep = spacingMeters / METERS_PER_DEGREE_LATITUDE;
+        final int firstRow = (int) Math.floor(bounds.southwest.latitude / latitudeStep);
+        final int lastRow = (int) Math.floor(bounds.northeast.latitude / latitudeStep);
+
+        int count = 0;
+        for (int row = firstRow; row <= lastRow; ++row) {
+            double longitudeStep = longitudeStep(row, latitudeStep);
+            int first = (int) Math.floor(bounds.southwest.longitude / longitudeStep);
+            int last = (int) Math.floor(bounds.northeast.longitude / longitudeStep);
+            count += last - first + 1;
+            if (count > maxSamples) {
+                throw new InvalidParameterException("area needs more than " + maxSamples + " samples at this spacing");
+            }
+        }
+
+        keys = new long[count];
+        latLngs = new double[count * 2];
+        int sample = 0;
+        for (int row = firstRow; row <= lastRow; ++row) {
+            double longitudeStep = longitudeStep(row, latitudeStep);
+            int first = (int) Math.floor(bounds.southwest.longitude / longitudeStep);
+            int last = (int) Math.floor(bounds.northeast.longitude / longitudeStep);
+            for (int column = first; column <= last; ++column) {
+                keys[sample] = ((long) row << 32) | (column & 0xffffffffL);
+                latLngs[sample * 2] = (row + 0.5) * latitudeStep;
+                latLngs[sample * 2 + 1] = (column + 0.5) * longitudeStep;
+                ++sample;
+            }
+        }
+    }
+
+    int getSampleCount() {
+        return keys.length;
+    }
+
+    private static double longitudeStep(int row, double latitudeStep) {
+        // each row's cells are sized for the row's own latitude, so a row always has the same columns
+        double rowLatitude = (row + 0.5) * latitudeStep;
+        return latitudeStep / Math.max(0.01, Math.cos(Math.toRadians(rowLatitude)));
+    }
+}
@@ -5,23 +5,46 @@ import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
 import android.util.SparseArray;
 
+import com.eegeo.mapapi.IDelayedUiMessageRunner;
 import com.eegeo.mapapi.INativeMessageRunner;
-import com.eegeo.mapapi.IUiMessageRunner;
 import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.mapapi.geometry.LatLngBounds;
+import com.eegeo.mapapi.util.Promise;
 
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @eegeo.internal
  */
 public class BuildingsApi {
     private INativeMessageRunner m_nativeRunner;
-    private IUiMessageRunner m_uiRunner;
+    private IDelayedUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
     private SparseArray<BuildingHighlight> m_nativeHandleToBuildingHighlight = new SparseArray<>();
 
+    static final int MAX_QUERY_SAMPLES = 4096;
+    static final long QUERY_TIMEOUT_MILLIS = 5000;
+    // sample highlights are created over several native tasks, so that a large query does not stall a frame
+    static final int MAX_SAMPLES_STARTED_PER_TASK = 64;
+
+    // the query session cache, only accessed on the native thread. Only samples that found a
+    // building are kept, per spacing; samples that timed out are retried by later queries
+    private final Map<String, BuildingInformation> m_buildingInformationCache = new HashMap<>();
+    private final Map<Double, Map<Long, String>> m_sampleBuildingIds = new HashMap<>();
+    private final SparseArray<BuildingQuery> m_nativeHandleToQuery = new SparseArray<>();
+    // locked on itself, so that teardown and query completion need not share a thread
+    private final Set<Runnable> m_pendingQueryTimeouts = new HashSet<>();
+    private volatile boolean m_destroyed = false;
+
     public BuildingsApi(INativeMessageRunner nativeRunner,
-                        IUiMessageRunner uiRunner,
+                        IDelayedUiMessageRunner uiRunner,
                         long jniEegeoMapApiPtr) {
         this.m_nativeRunner = nativeRunner;
         this.m_uiRunner = uiRunner;
@@ -34,7 +57,7 @@ public class BuildingsApi {
     }
 
     @UiThread
-    IUiMessageRunner getUiRunner() {
+    IDelayedUiMessageRunner getUiRunner() {
         return m_uiRunner;
     }
 
@@ -97,6 +120,253 @@ public class BuildingsApi {
     public void notifyBuildingInformationReceived(final int nativeHandle) {
         if (m_nativeHandleToBuildingHighlight.get(nativeHandle) != null) {
             fetchBuildingInformation(nativeHandle);
+        } else if (m_nativeHandleToQuery.get(nativeHandle) != null) {
+            BuildingInformation buildingInformation = nativeGetBuildingInformation(m_jniEegeoMapApiPtr, nativeHandle);
+            if (buildingInformation != null) {
+                resolveQuerySample(nativeHandle, buildingInformation);
+            }
+        }
+    }
+
+    @UiThread
+    public Promise<BuildingInformationSet> queryBuildingInformation(LatLngBounds bounds, double sampleSpacingMeters) throws InvalidParameterException {
+        if (!(sampleSpacingMeters > 0.0)) {
+            throw new InvalidParameterException("sampleSpacingMeters must be greater than zero");
+        }
+
+        final BuildingQuery query = new BuildingQuery(new BuildingSampleGrid(bounds, sampleSpacingMeters, MAX_QUERY_SAMPLES));
+        if (m_destroyed) {
+            return query.promise;
+        }
+
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                startQuery(query);
+            }
+        });
+
+        query.timeout = new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                synchronized (m_pendingQueryTimeouts) {
+                    m_pendingQueryTimeouts.remove(this);
+                }
+                m_nativeRunner.runOnNativeThread(new Runnable() {
+                    @WorkerThread
+                    @Override
+                    public void run() {
+                        expireQuery(query);
+                    }
+                });
+            }
+        };
+        synchronized (m_pendingQueryTimeouts) {
+            m_pendingQueryTimeouts.add(query.timeout);
+        }
+        m_uiRunner.runOnUiThreadDelayed(query.timeout, QUERY_TIMEOUT_MILLIS);
+
+        query.promise.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                m_nativeRunner.runOnNativeThread(new Runnable() {
+                    @WorkerThread
+                    @Override
+                    public void run() {
+                        cancelQuery(query);
+                    }
+                });
+            }
+        });
+
+        return query.promise;
+    }
+
+    @UiThread
+    public void clearBuildingInformationCache() {
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                m_buildingInformationCache.clear();
+                m_sampleBuildingIds.clear();
+            }
+        });
+    }
+
+    /**
+     * Stops any queries in progress from doing further work, ahead of the map being destroyed.
+     * The results of queries in flight are dropped, and their promises are left pending.
+     */
+    @UiThread
+    public void destroy() {
+        m_destroyed = true;
+        final List<Runnable> timeouts;
+        synchronized (m_pendingQueryTimeouts) {
+            timeouts = new ArrayList<>(m_pendingQueryTimeouts);
+            m_pendingQueryTimeouts.clear();
+        }
+        for (Runnable timeout : timeouts) {
+            m_uiRunner.cancelRunOnUiThread(timeout);
+        }
+    }
+
+    @WorkerThread
+    private void startQuery(BuildingQuery query) {
+        if (m_destroyed || query.promise.isCancelled()) {
+            query.completed = true;
+            return;
+        }
+
+        final BuildingSampleGrid grid = query.grid;
+        Map<Long, String> sampleBuildingIds = m_sampleBuildingIds.get(grid.spacingMeters);
+        if (sampleBuildingIds == null) {
+            sampleBuildingIds = new HashMap<>();
+            m_sampleBuildingIds.put(grid.spacingMeters, sampleBuildingIds);
+        }
+        query.sampleBuildingIds = sampleBuildingIds;
+        continueQuery(query);
+    }
+
+    @WorkerThread
+    private void continueQuery(final BuildingQuery query) {
+        if (m_destroyed || query.completed) {
+            return;
+        }
+
+        final BuildingSampleGrid grid = query.grid;
+        final Map<Long, String> sampleBuildingIds = query.sampleBuildingIds;
+        int startedCount = 0;
+        while (query.nextSample < grid.getSampleCount() && startedCount < MAX_SAMPLES_STARTED_PER_TASK) {
+            final int sample = query.nextSample++;
+            String buildingId = sampleBuildingIds.get(grid.keys[sample]);
+            if (buildingId != null) {
+                // answered by an earlier query, so there is no native work for this sample
+                query.addBuilding(m_buildingInformationCache.get(buildingId));
+                continue;
+            }
+
+            int nativeHandle = nativeCreateBuildingHighlight(
+                    m_jniEegeoMapApiPtr,
+                    BuildingHighlightOptions.SelectionMode.SelectAtLocation.ordinal(),
+                    grid.latLngs[sample * 2],
+                    grid.latLngs[sample * 2 + 1],
+                    0,
+                    0,
+                    0,
+                    false);
+            ++startedCount;
+            query.pendingSamples.put(nativeHandle, sample);
+            m_nativeHandleToQuery.put(nativeHandle, query);
+
+            BuildingInformation buildingInformation = nativeGetBuildingInformation(m_jniEegeoMapApiPtr, nativeHandle);
+            if (buildingInformation != null) {
+                resolveQuerySample(nativeHandle, buildingInformation);
+            }
+        }
+
+        if (query.nextSample < grid.getSampleCount()) {
+            // queued behind the next frame's update
+            m_nativeRunner.runOnNativeThread(new Runnable() {
+                @WorkerThread
+                @Override
+                public void run() {
+                    continueQuery(query);
+                }
+            });
+        } else {
+            completeQueryIfFinished(query);
+        }
+    }
+
+    @WorkerThread
+    private void resolveQuerySample(int nativeHandle, BuildingInformation buildingInformation) {
+        BuildingQuery query = m_nativeHandleToQuery.get(nativeHandle);
+        Integer sample = query.pendingSamples.remove(nativeHandle);
+        m_nativeHandleToQuery.remove(nativeHandle);
+        nativeDestroyBuildingHighlight(m_jniEegeoMapApiPtr, nativeHandle);
+
+        m_buildingInformationCache.put(buildingInformation.buildingId, buildingInformation);
+        query.sampleBuildingIds.put(query.grid.keys[sample], buildingInformation.buildingId);
+        query.addBuilding(buildingInformation);
+        completeQueryIfFinished(query);
+    }
+
+    @WorkerThread
+    private void expireQuery(BuildingQuery query) {
+        if (query.completed) {
+            return;
+        }
+
+        // samples still unanswered are reported without a building, but are not cached, as their
+        // map data may simply not have streamed in yet. Samples not yet started are skipped
+        for (int nativeHandle : query.pendingSamples.keySet()) {
+            m_nativeHandleToQuery.remove(nativeHandle);
+            nativeDestroyBuildingHighlight(m_jniEegeoMapApiPtr, nativeHandle);
+        }
+        query.pendingSamples.clear();
+        query.nextSample = query.grid.getSampleCount();
+        completeQueryIfFinished(query);
+    }
+
+    @WorkerThread
+    private void cancelQuery(BuildingQuery query) {
+        if (query.completed) {
+            return;
+        }
+
+        query.completed = true;
+        for (int nativeHandle : query.pendingSamples.keySet()) {
+            m_nativeHandleToQuery.remove(nativeHandle);
+            nativeDestroyBuildingHighlight(m_jniEegeoMapApiPtr, nativeHandle);
+        }
+        query.pendingSamples.clear();
+    }
+
+    @WorkerThread
+    private void completeQueryIfFinished(final BuildingQuery query) {
+        if (query.completed || !query.pendingSamples.isEmpty() || query.nextSample < query.grid.getSampleCount()) {
+            return;
+        }
+
+        query.completed = true;
+        final BuildingInformationSet result = new BuildingInformationSet(new ArrayList<>(query.buildings.values()));
+        m_uiRunner.runOnUiThread(new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                final boolean timeoutPending;
+                synchronized (m_pendingQueryTimeouts) {
+                    timeoutPending = m_pendingQueryTimeouts.remove(query.timeout);
+                }
+                if (timeoutPending) {
+                    m_uiRunner.cancelRunOnUiThread(query.timeout);
+                }
+                query.promise.ready(result);
+            }
+        });
+    }
+
+    private static final class BuildingQuery {
+        final BuildingSampleGrid grid;
+        final Promise<BuildingInformationSet> promise = new Promise<>();
+        final Map<Integer, Integer> pendingSamples = new HashMap<>();
+        final Map<String, BuildingInformation> buildings = new LinkedHashMap<>();
+        Map<Long, String> sampleBuildingIds;
+        int nextSample = 0;
+        boolean completed = false;
+        Runnable timeout;
+
+        BuildingQuery(BuildingSampleGrid grid) {
+            this.grid = grid;
+        }
+
+        void addBuilding(BuildingInformation buildingInformation) {
+            if (buildingInformation != null && !buildings.containsKey(buildingInformation.buildingId)) {
+                buildings.put(buildingInformation.buildingId, buildingInformation);
+            }
         }
     }
 
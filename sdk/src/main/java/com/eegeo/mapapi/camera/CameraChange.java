@@ -0,0 +1,143 @@
+package com.eegeo.mapapi.camera;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Describes a change to the camera position, between the position last reported to a listener and
+ * the current position.
+ */
+public final class CameraChange {
+    /**
+     * Flag set when the camera target has moved.
+     */
+    public static final int CHANGED_TARGET = 1;
+
+    /**
+     * Flag set when the zoom level has changed.
+     */
+    public static final int CHANGED_ZOOM = 1 << 1;
+
+    /**
+     * Flag set when the tilt has changed.
+     */
+    public static final int CHANGED_TILT = 1 << 2;
+
+    /**
+     * Flag set when the bearing has changed.
+     */
+    public static final int CHANGED_BEARING = 1 << 3;
+
+    /**
+     * Flag set when the target indoor map or floor has changed.
+     */
+    public static final int CHANGED_INDOOR = 1 << 4;
+
+    private static final double EARTH_RADIUS_METERS = 6378137.0;
+
+    /**
+     * The camera position last reported to the listener, or null if this is the first report.
+     */
+    public final CameraPosition previousPosition;
+
+    /**
+     * The current camera position.
+     */
+    public final CameraPosition position;
+
+    /**
+     * A combination of the CHANGED flags, indicating which properties of the position changed.
+     */
+    public final int changedFlags;
+
+    /**
+     * The distance the camera target has moved horizontally, in meters.
+     */
+    public final double targetDistanceMeters;
+
+    /**
+     * The change in the camera target's elevation, in meters.
+     */
+    public final double targetElevationDelta;
+
+    /**
+     * The change in zoom level.
+     */
+    public final double zoomDelta;
+
+    /**
+     * The change in tilt, in degrees.
+     */
+    public final double tiltDelta;
+
+    /**
+     * The change in bearing, in degrees between -180 and 180.
+     */
+    public final double bearingDelta;
+
+    CameraChange(CameraPosition previousPosition, @NonNull CameraPosition position) {
+        this.previousPosition = previousPosition;
+        this.position = position;
+
+        if (previousPosition == null) {
+            this.changedFlags = CHANGED_TARGET | CHANGED_ZOOM | CHANGED_TILT | CHANGED_BEARING | CHANGED_INDOOR;
+            this.targetDistanceMeters = 0.0;
+            this.targetElevationDelta = 0.0;
+            this.zoomDelta = 0.0;
+            this.tiltDelta = 0.0;
+            this.bearingDelta = 0.0;
+            return;
+        }
+
+        this.targetDistanceMeters = distance(previousPosition, position);
+        this.targetElevationDelta = position.targetElevation - previousPosition.targetElevation;
+        this.zoomDelta = position.zoom - previousPosition.zoom;
+        this.tiltDelta = position.tilt - previousPosition.tilt;
+        double bearingDelta = (position.bearing - previousPosition.bearing) % 360.0;
+        if (bearingDelta > 180.0) {
+            bearingDelta -= 360.0;
+        } else if (bearingDelta < -180.0) {
+            bearingDelta += 360.0;
+        }
+        this.bearingDelta = bearingDelta;
+
+        int flags = 0;
+        if (targetDistanceMeters != 0.0 || targetElevationDelta != 0.0) {
+            flags |= CHANGED_TARGET;
+        }
+        if (zoomDelta != 0.0) {
+            flags |= CHANGED_ZOOM;
+        }
+        if (tiltDelta != 0.0) {
+            flags |= CHANGED_TILT;
+        }
+        if (bearingDelta != 0.0) {
+            flags |= CHANGED_BEARING;
+        }
+        if (!stringEquals(position.targetIndoorMapId, previousPosition.targetIndoorMapId)
+                || position.targetIndoorMapFloorId != previousPosition.targetIndoorMapFloorId) {
+            flags |= CHANGED_INDOOR;
+        }
+        this.changedFlags = flags;
+    }
+
+    /**
+     * @param flags A combination of the CHANGED flags.
+     * @return True if any of the given properties changed.
+     */
+    public boolean hasChanged(int flags) {
+        return (changedFlags & flags) != 0;
+    }
+
+    private static boolean stringEquals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static double distance(CameraPosition from, CameraPosition to) {
+        double fromLatitude = Math.toRadians(from.target.latitude);
+        double toLatitude = Math.toRadians(to.target.latitude);
+        double sinHalfLatitude = Math.sin((toLatitude - fromLatitude) * 0.5);
+        double sinHalfLongitude = Math.sin(Math.toRadians(to.target.longitude - from.target.longitude) * 0.5);
+        double a = sinHalfLatitude * sinHalfLatitude + Math.cos(fromLatitude) * Math.cos(toLatitude) * sinHalfLongitude * sinHalfLongitude;
+        return 2.0 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1.0 - a));
+    }
+}
@@ -0,0 +1,65 @@
+package com.eegeo.mapapi.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.util.ListenerRegistry;
+
+/**
+ * Reports camera position changes to OnCameraChangeListeners, each compared with the position last
+ * reported to that listener so that changes below its threshold accumulate until they exceed it.
+ *
+ * @eegeo.internal
+ */
+public class CameraChangeDispatcher {
+    private static final class Subscription {
+        final OnCameraChangeListener listener;
+        final CameraChangeThreshold threshold;
+        CameraPosition lastReportedPosition = null;
+
+        Subscription(OnCameraChangeListener listener, CameraChangeThreshold threshold) {
+            this.listener = listener;
+            this.threshold = threshold;
+        }
+    }
+
+    private final ListenerRegistry<Subscription> m_subscriptions = new ListenerRegistry<>(Subscription.class);
+
+    /**
+     * @eegeo.internal
+     */
+    @UiThread
+    public void add(@NonNull OnCameraChangeListener listener, @NonNull CameraChangeThreshold threshold) {
+        m_subscriptions.add(new Subscription(listener, threshold));
+    }
+
+    /**
+     * @eegeo.internal
+     */
+    @UiThread
+    public void remove(@NonNull OnCameraChangeListener listener) {
+        for (Subscription subscription : m_subscriptions.snapshot()) {
+            if (subscription.listener == listener) {
+                m_subscriptions.remove(subscription);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @eegeo.internal
+     */
+    @UiThread
+    public void dispatch(@NonNull CameraPosition position) {
+        for (Subscription subscription : m_subscriptions.snapshot()) {
+            if (subscription.lastReportedPosition == position) {
+                continue;
+            }
+            CameraChange change = new CameraChange(subscription.lastReportedPosition, position);
+            if (subscription.threshold.isExceededBy(change)) {
+                subscription.lastReportedPosition = position;
+                subscription.listener.onCameraChange(change);
+            }
+        }
+    }
+}
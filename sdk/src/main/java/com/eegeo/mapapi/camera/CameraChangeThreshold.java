@@ -0,0 +1,131 @@
+package com.eegeo.mapapi.camera;
+
+/**
+ * Defines the smallest camera change reported to an OnCameraChangeListener. A change is reported
+ * when any one property has changed by at least its threshold since the last change reported to
+ * that listener. Changes of indoor map or floor are always reported.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CameraChangeThreshold {
+    private double m_targetDistanceMeters = 0.0;
+    private double m_targetElevationMeters = 0.0;
+    private double m_zoom = 0.0;
+    private double m_tilt = 0.0;
+    private double m_bearing = 0.0;
+
+    /**
+     * Default constructor for a threshold which reports every change.
+     */
+    public CameraChangeThreshold() {
+
+    }
+
+    /**
+     * Sets the distance the camera target must move for the change to be reported.
+     *
+     * @param targetDistanceMeters The distance in meters.
+     * @return The CameraChangeThreshold object on which the method was called, with the new distance set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CameraChangeThreshold targetDistanceMeters(double targetDistanceMeters) {
+        m_targetDistanceMeters = targetDistanceMeters;
+        return this;
+    }
+
+    /**
+     * Sets the change in the camera target's elevation required for the change to be reported.
+     *
+     * @param targetElevationMeters The change in elevation, in meters.
+     * @return The CameraChangeThreshold object on which the method was called, with the new elevation change set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CameraChangeThreshold targetElevationMeters(double targetElevationMeters) {
+        m_targetElevationMeters = targetElevationMeters;
+        return this;
+    }
+
+    /**
+     * Sets the change in zoom level required for the change to be reported.
+     *
+     * @param zoom The change in zoom level.
+     * @return The CameraChangeThreshold object on which the method was called, with the new zoom set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CameraChangeThreshold zoom(double zoom) {
+        m_zoom = zoom;
+        return this;
+    }
+
+    /**
+     * Sets the change in tilt required for the change to be reported.
+     *
+     * @param tilt The change in tilt, in degrees.
+     * @return The CameraChangeThreshold object on which the method was called, with the new tilt set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CameraChangeThreshold tilt(double tilt) {
+        m_tilt = tilt;
+        return this;
+    }
+
+    /**
+     * Sets the change in bearing required for the change to be reported.
+     *
+     * @param bearing The change in bearing, in degrees.
+     * @return The CameraChangeThreshold object on which the method was called, with the new bearing set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CameraChangeThreshold bearing(double bearing) {
+        m_bearing = bearing;
+        return this;
+    }
+
+    /**
+     * @return The distance the camera target must move, in meters.
+     */
+    public double getTargetDistanceMeters() {
+        return m_targetDistanceMeters;
+    }
+
+    /**
+     * @return The change in the camera target's elevation required, in meters.
+     */
+    public double getTargetElevationMeters() {
+        return m_targetElevationMeters;
+    }
+
+    /**
+     * @return The change in zoom level required.
+     */
+    public double getZoom() {
+        return m_zoom;
+    }
+
+    /**
+     * @return The change in tilt required, in degrees.
+     */
+    public double getTilt() {
+        return m_tilt;
+    }
+
+    /**
+     * @return The change in bearing required, in degrees.
+     */
+    public double getBearing() {
+        return m_bearing;
+    }
+
+    boolean isExceededBy(CameraChange change) {
+        if (change.changedFlags == 0) {
+            return false;
+        }
+        if (change.previousPosition == null || change.hasChanged(CameraChange.CHANGED_INDOOR)) {
+            return true;
+        }
+        return (change.targetDistanceMeters != 0.0 && change.targetDistanceMeters >= m_targetDistanceMeters)
+                || (change.targetElevationDelta != 0.0 && Math.abs(change.targetElevationDelta) >= m_targetElevationMeters)
+                || (change.hasChanged(CameraChange.CHANGED_ZOOM) && Math.abs(change.zoomDelta) >= m_zoom)
+                || (change.hasChanged(CameraChange.CHANGED_TILT) && Math.abs(change.tiltDelta) >= m_tilt)
+                || (change.hasChanged(CameraChange.CHANGED_BEARING) && Math.abs(change.bearingDelta) >= m_bearing);
+    }
+}
@@ -0,0 +1,394 @@
+package com.eegeo.mapapi.camera;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the map camera for one rendered frame, which maps between real world
+ * points and screen points synchronously, on any thread.
+ * <br>
+ * <br>
+ * The snapshot holds a projection from earth-centered, earth-fixed (ECEF) co-ordinates, relative
+ * to an origin at the camera target, to screen co-ordinates. Because it is captured on the native
+ * thread at the same time as the frame is rendered, results are consistent with what is on screen
+ * for that frame, unlike the asynchronous methods of Projection, which reflect the camera at the
+ * time they are processed.
+ * <br>
+ * <br>
+ * The projection is an approximation, not the renderer's own view-projection matrix, which the
+ * native API does not expose. It is fitted by direct linear transformation to nine points around
+ * the camera target, each projected by the native map, over an extent that scales with the zoom
+ * level rather than with the actual camera distance. Where the native projection is a pinhole
+ * perspective projection, the fit reproduces it up to the precision of the sampled results, to
+ * within a small fraction of a pixel at the camera distances the map uses for each zoom level,
+ * even at high tilt. No bound is guaranteed otherwise: the error grows when the samples span few
+ * pixels, as when the camera is much farther from its target than usual for its zoom level, and
+ * is largest far from the samples, towards the horizon. Use the asynchronous methods of
+ * Projection where exact results matter.
+ * <br>
+ * <br>
+ * Obtain the latest snapshot with Projection.getCameraSnapshot.
+ */
+public final class CameraSnapshot {
+    private static final double EARTH_RADIUS_METERS = 6378137.0;
+    private static final int UNKNOWN_COUNT = 11;
+    // roughly a twentieth of the camera distance at zoom level zero, halving with each zoom level
+    private static final double SAMPLE_EXTENT_AT_ZOOM_ZERO = 1.4e6;
+
+    static final int SAMPLE_COUNT = 9;
+
+    private final CameraPosition m_cameraPosition;
+    private final long m_sequence;
+    private final double m_originX;
+    private final double m_originY;
+    private final double m_originZ;
+    // 3x4 row-major, from ECEF relative to the origin to homogeneous screen co-ordinates
+    private final double[] m_matrix;
+    // inverse of the left 3x3 of m_matrix, and the camera position relative to the origin
+    private final double[] m_inverse;
+    private final double m_cameraX;
+    private final double m_cameraY;
+    private final double m_cameraZ;
+    // the sign of w for points in front of the camera
+    private final double m_frontSign;
+
+    CameraSnapshot(CameraPosition cameraPosition, long sequence, double originX, double originY, double originZ, double[] matrix) {
+        m_cameraPosition = cameraPosition;
+        m_sequence = sequence;
+        m_originX = originX;
+        m_originY = originY;
+        m_originZ = originZ;
+        m_matrix = matrix;
+        m_inverse = invert3x3(matrix);
+        m_cameraX = -(m_inverse[0] * matrix[3] + m_inverse[1] * matrix[7] + m_inverse[2] * matrix[11]);
+        m_cameraY = -(m_inverse[3] * matrix[3] + m_inverse[4] * matrix[7] + m_inverse[5] * matrix[11]);
+        m_cameraZ = -(m_inverse[6] * matrix[3] + m_inverse[7] * matrix[7] + m_inverse[8] * matrix[11]);
+        // the origin is the camera target, which is always in front of the camera
+        m_frontSign = Math.signum(matrix[11]);
+    }
+
+    /**
+     * @return The camera position of the frame this snapshot was captured for.
+     */
+    @NonNull
+    public CameraPosition getCameraPosition() {
+        return m_cameraPosition;
+    }
+
+    /**
+     * @return A number which increases with each snapshot captured, so that a caller can tell
+     * whether the camera has changed since an earlier snapshot.
+     */
+    public long getSequence() {
+        return m_sequence;
+    }
+
+    /**
+     * @return The ECEF co-ordinates of the origin the projection matrix is relative to, as x, y and z.
+     */
+    public double[] getEcefOrigin() {
+        return new double[]{m_originX, m_originY, m_originZ};
+    }
+
+    /**
+     * @return The 3x4 projection matrix, in row-major order, from ECEF co-ordinates relative to
+     * getEcefOrigin to homogeneous screen co-ordinates in pixels.
+     */
+    public double[] getProjectionMatrix() {
+        return m_matrix.clone();
+    }
+
+    /**
+     * Maps a real world point to screen co-ordinates.
+     *
+     * @param latitude    The latitude of the point, in degrees.
+     * @param longitude   The longitude of the point, in degrees.
+     * @param altitude    The altitude of the point above sea level, in meters.
+     * @param screenPoint An array which receives the screen x and y, in pixels with the origin at
+     *                    the top left corner of the screen.
+     * @return True if the point is in front of the camera; false if it is behind, in which case
+     * screenPoint is not changed.
+     */
+    public boolean toScreenLocation(double latitude, double longitude, double altitude, @NonNull double[] screenPoint) {
+        return project(latitude, longitude, altitude, screenPoint, 0);
+    }
+
+    /**
+     * Maps a batch of real world points to screen co-ordinates.
+     *
+     * @param latLngAlts   The real world points, packed as latitude, longitude and altitude triples.
+     * @param screenPoints An array which receives the screen points, packed as x and y pairs. It
+     *                     must hold at least two values for each point. Points behind the camera
+     *                     are given NaN co-ordinates.
+     * @return The number of points in front of the camera.
+     */
+    public int toScreenLocations(@NonNull double[] latLngAlts, @NonNull double[] screenPoints) {
+        final int pointCount = latLngAlts.length / 3;
+        int inFrontCount = 0;
+        for (int i = 0; i < pointCount; ++i) {
+            if (project(latLngAlts[i * 3], latLngAlts[i * 3 + 1], latLngAlts[i * 3 + 2], screenPoints, i * 2)) {
+                ++inFrontCount;
+            } else {
+                screenPoints[i * 2] = Double.NaN;
+                screenPoints[i * 2 + 1] = Double.NaN;
+            }
+        }
+        return inFrontCount;
+    }
+
+    /**
+     * Maps a screen point to the real world point seen at that point, at a given altitude.
+     *
+     * @param screenX   The screen x, in pixels.
+     * @param screenY   The screen y, in pixels.
+     * @param altitude  The altitude of the surface to intersect, in meters above sea level.
+     * @param latLngAlt An array which receives the latitude, longitude and altitude of the point.
+     * @return True if the view ray through the screen point meets the surface; false if not, in
+     * which case latLngAlt is not changed.
+     */
+    public boolean fromScreenLocation(double screenX, double screenY, double altitude, @NonNull double[] latLngAlt) {
+        final double[] m = m_inverse;
+        double dx = (m[0] * screenX + m[1] * screenY + m[2]) * m_frontSign;
+        double dy = (m[3] * screenX + m[4] * screenY + m[5]) * m_frontSign;
+        double dz = (m[6] * screenX + m[7] * screenY + m[8]) * m_frontSign;
+
+        double qx = m_originX + m_cameraX;
+        double qy = m_originY + m_cameraY;
+        double qz = m_originZ + m_cameraZ;
+        double radius = EARTH_RADIUS_METERS + altitude;
+
+        double a = dx * dx + dy * dy + dz * dz;
+        double b = 2.0 * (qx * dx + qy * dy + qz * dz);
+        double c = qx * qx + qy * qy + qz * qz - radius * radius;
+        double discriminant = b * b - 4.0 * a * c;
+        if (discriminant < 0.0 || a == 0.0) {
+            return false;
+        }
+
+        double root = Math.sqrt(discriminant);
+        double t = (-b - root) / (2.0 * a);
+        if (t <= 0.0) {
+            // the camera is inside the surface, so the ray meets it from within
+            t = (-b + root) / (2.0 * a);
+            if (t <= 0.0) {
+                return false;
+            }
+        }
+
+        ecefToLatLngAlt(qx + t * dx, qy + t * dy, qz + t * dz, latLngAlt);
+        return true;
+    }
+
+    private boolean project(double latitude, double longitude, double altitude, double[] screenPoints, int offset) {
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        double sinLatitude = Math.sin(Math.toRadians(latitude));
+        double cosLongitude = Math.cos(Math.toRadians(longitude));
+        double sinLongitude = Math.sin(Math.toRadians(longitude));
+        double radius = EARTH_RADIUS_METERS + altitude;
+        double x = radius * cosLatitude * cosLongitude - m_originX;
+        double y = radius * cosLatitude * sinLongitude - m_originY;
+        double z = radius * sinLatitude - m_originZ;
+
+        final double[] m = m_matrix;
+        double w = m[8] * x + m[9] * y + m[10] * z + m[11];
+        if (w * m_frontSign <= 0.0) {
+            return false;
+        }
+        screenPoints[offset] = (m[0] * x + m[1] * y + m[2] * z + m[3]) / w;
+        screenPoints[offset + 1] = (m[4] * x + m[5] * y + m[6] * z + m[7]) / w;
+        return true;
+    }
+
+    static void latLngAltToEcef(double latitude, double longitude, double altitude, double[] ecef) {
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        double radius = EARTH_RADIUS_METERS + altitude;
+        ecef[0] = radius * cosLatitude * Math.cos(Math.toRadians(longitude));
+        ecef[1] = radius * cosLatitude * Math.sin(Math.toRadians(longitude));
+        ecef[2] = radius * Math.sin(Math.toRadians(latitude));
+    }
+
+    static void ecefToLatLngAlt(double x, double y, double z, double[] latLngAlt) {
+        double radius = Math.sqrt(x * x + y * y + z * z);
+        latLngAlt[0] = Math.toDegrees(Math.asin(z / radius));
+        latLngAlt[1] = Math.toDegrees(Math.atan2(y, x));
+        latLngAlt[2] = radius - EARTH_RADIUS_METERS;
+    }
+
+    /**
+     * Gets the points around the camera target which are projected to fit the snapshot: the corners
+     * of a cube aligned with east, north and up, and its center, small enough relative to the camera
+     * distance that every point is in front of the camera.
+     *
+     * @param latitude           The latitude of the camera target, in degrees.
+     * @param longitude          The longitude of the camera target, in degrees.
+     * @param zoom               The zoom level of the camera.
+     * @param relativeEcefPoints An array which receives the SAMPLE_COUNT points, packed as ECEF x, y
+     *                           and z relative to the camera target at sea level.
+     */
+    static void getSamplePoints(double latitude, double longitude, double zoom, double[] relativeEcefPoints) {
+        final double extent = Math.max(1.0, SAMPLE_EXTENT_AT_ZOOM_ZERO / Math.pow(2.0, zoom));
+        final double latitudeRadians = Math.toRadians(latitude);
+        final double longitudeRadians = Math.toRadians(longitude);
+        final double[] east = {-Math.sin(longitudeRadians), Math.cos(longitudeRadians), 0.0};
+        final double[] north = {-Math.sin(latitudeRadians) * Math.cos(longitudeRadians), -Math.sin(latitudeRadians) * Math.sin(longitudeRadians), Math.cos(latitudeRadians)};
+        final double[] up = {Math.cos(latitudeRadians) * Math.cos(longitudeRadians), Math.cos(latitudeRadians) * Math.sin(longitudeRadians), Math.sin(latitudeRadians)};
+
+        for (int sample = 0; sample < SAMPLE_COUNT; ++sample) {
+            // the first eight samples are the corners of the cube, and the last is its center
+            double e = sample < 8 ? ((sample & 1) != 0 ? extent : -extent) : 0.0;
+            double n = sample < 8 ? ((sample & 2) != 0 ? extent : -extent) : 0.0;
+            double u = sample < 8 ? ((sample & 4) != 0 ? extent : -extent) : 0.0;
+            for (int axis = 0; axis < 3; ++axis) {
+                relativeEcefPoints[sample * 3 + axis] = east[axis] * e + north[axis] * n + up[axis] * u;
+            }
+        }
+    }
+
+    /**
+     * Fits the projection matrix to sample points by direct linear transformation. At least six
+     * samples are required, not all in one plane.
+     *
+     * @param relativeEcefPoints The samples, packed as ECEF x, y and z relative to the origin.
+     * @param screenPoints       The screen x and y of each sample.
+     * @return The 3x4 row-major matrix, or null if the samples do not determine one.
+     */
+    static double[] fitProjectionMatrix(double[] relativeEcefPoints, double[] screenPoints) {
+        final int pointCount = relativeEcefPoints.length / 3;
+
+        // normalizing both sides keeps the normal equations well conditioned
+        double worldScale = 0.0;
+        for (double value : relativeEcefPoints) {
+            worldScale = Math.max(worldScale, Math.abs(value));
+        }
+        double centerX = 0.0;
+        double centerY = 0.0;
+        for (int i = 0; i < pointCount; ++i) {
+            centerX += screenPoints[i * 2];
+            centerY += screenPoints[i * 2 + 1];
+        }
+        centerX /= pointCount;
+        centerY /= pointCount;
+        double screenScale = 0.0;
+        for (int i = 0; i < pointCount; ++i) {
+            screenScale = Math.max(screenScale, Math.max(Math.abs(screenPoints[i * 2] - centerX), Math.abs(screenPoints[i * 2 + 1] - centerY)));
+        }
+        if (worldScale == 0.0 || screenScale == 0.0) {
+            return null;
+        }
+
+        // least squares over the eleven unknowns, with the last matrix element fixed at one
+        double[] normal = new double[UNKNOWN_COUNT * UNKNOWN_COUNT];
+        double[] rhs = new double[UNKNOWN_COUNT];
+        double[] row = new double[UNKNOWN_COUNT];
+        for (int i = 0; i < pointCount; ++i) {
+            double x = relativeEcefPoints[i * 3] / worldScale;
+            double y = relativeEcefPoints[i * 3 + 1] / worldScale;
+            double z = relativeEcefPoints[i * 3 + 2] / worldScale;
+            double u = (screenPoints[i * 2] - centerX) / screenScale;
+            double v = (screenPoints[i * 2 + 1] - centerY) / screenScale;
+
+            for (int axis = 0; axis < 2; ++axis) {
+                double screen = axis == 0 ? u : v;
+                Arrays.fill(row, 0.0);
+                int base = axis * 4;
+                row[base] = x;
+                row[base + 1] = y;
+                row[base + 2] = z;
+                row[base + 3] = 1.0;
+                row[8] = -screen * x;
+                row[9] = -screen * y;
+                row[10] = -screen * z;
+                for (int j = 0; j < UNKNOWN_COUNT; ++j) {
+                    rhs[j] += row[j] * screen;
+                    for (int k = 0; k < UNKNOWN_COUNT; ++k) {
+                        normal[j * UNKNOWN_COUNT + k] += row[j] * row[k];
+                    }
+                }
+            }
+        }
+
+        double[] p = solve(normal, rhs, UNKNOWN_COUNT);
+        if (p == null) {
+            return null;
+        }
+
+        // undo the normalization: M = T^-1 * P' * diag(1 / worldScale, 1 / worldScale, 1 / worldScale, 1)
+        double[] normalized = new double[]{
+                p[0], p[1], p[2], p[3],
+                p[4], p[5], p[6], p[7],
+                p[8], p[9], p[10], 1.0
+        };
+        double[] matrix = new double[12];
+        for (int column = 0; column < 4; ++column) {
+            double scale = column < 3 ? 1.0 / worldScale : 1.0;
+            double r0 = normalized[column];
+            double r1 = normalized[4 + column];
+            double r2 = normalized[8 + column];
+            matrix[column] = (screenScale * r0 + centerX * r2) * scale;
+            matrix[4 + column] = (screenScale * r1 + centerY * r2) * scale;
+            matrix[8 + column] = r2 * scale;
+        }
+        return invert3x3(matrix) != null ? matrix : null;
+    }
+
+    private static double[] solve(double[] a, double[] b, int n) {
+        for (int column = 0; column < n; ++column) {
+            int pivot = column;
+            for (int r = column + 1; r < n; ++r) {
+                if (Math.abs(a[r * n + column]) > Math.abs(a[pivot * n + column])) {
+                    pivot = r;
+                }
+            }
+            if (Math.abs(a[pivot * n + column]) < 1e-12) {
+                return null;
+            }
+            if (pivot != column) {
+                for (int k = 0; k < n; ++k) {
+                    double swap = a[column * n + k];
+                    a[column * n + k] = a[pivot * n + k];
+                    a[pivot * n + k] = swap;
+                }
+                double swap = b[column];
+                b[column] = b[pivot];
+                b[pivot] = swap;
+            }
+            for (int r = column + 1; r < n; ++r) {
+                double factor = a[r * n + column] / a[column * n + column];
+                for (int k = column; k < n; ++k) {
+                    a[r * n + k] -= factor * a[column * n + k];
+                }
+                b[r] -= factor * b[column];
+            }
+        }
+
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; --r) {
+            double sum = b[r];
+            for (int k = r + 1; k < n; ++k) {
+                sum -= a[r * n + k] * x[k];
+            }
+            x[r] = sum / a[r * n + r];
+        }
+        return x;
+    }
+
+    private static double[] invert3x3(double[] m) {
+        double a = m[0], b = m[1], c = m[2];
+        double d = m[4], e = m[5], f = m[6];
+        double g = m[8], h = m[9], i = m[10];
+        double c0 = e * i - f * h;
+        double c1 = f * g - d * i;
+        double c2 = d * h - e * g;
+        double determinant = a * c0 + b * c1 + c * c2;
+        if (determinant == 0.0 || Double.isNaN(determinant)) {
+            return null;
+        }
+        double s = 1.0 / determinant;
+        return new double[]{
+                c0 * s, (c * h - b * i) * s, (b * f - c * e) * s,
+                c1 * s, (a * i - c * g) * s, (c * d - a * f) * s,
+                c2 * s, (b * g - a * h) * s, (a * e - b * d) * s
+        };
+    }
+}
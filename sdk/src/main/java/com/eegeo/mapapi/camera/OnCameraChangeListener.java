@@ -0,0 +1,18 @@
+package com.eegeo.mapapi.camera;
+
+import androidx.annotation.UiThread;
+
+/**
+ * Defines the signature for a method that is called when the camera position changes. Changes are
+ * reported at most once per rendered frame.
+ */
+public interface OnCameraChangeListener {
+    /**
+     * Called when the camera position has changed by at least the listener's threshold.
+     *
+     * @param change The new camera position, and how it differs from the position last reported
+     *               to this listener.
+     */
+    @UiThread
+    void onCameraChange(CameraChange change);
+}
@@ -1,7 +1,9 @@
 package com.eegeo.mapapi.camera;
 
 import android.graphics.Point;
+import androidx.annotation.NonNull;
 import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
 
 import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
@@ -12,13 +14,28 @@ import com.eegeo.mapapi.util.Promise;
  * Calculates the mapping between screen space points and world points.
  *
  * Calculation of this mapping requires an asynchronous operation, so results are encapsulated in
- * a Promise object.
+ * a Promise object. To map many points at once, for example to draw an overlay, use the batched
+ * methods which take packed arrays of points. These map all of the points in one native task with
+ * one promise, though each point is still projected by its own JNI call.
+ * <br>
+ * <br>
+ * For synchronous mapping consistent with the rendered frame, call requestCameraSnapshots and then
+ * use getCameraSnapshot.
  */
 public class Projection {
     private final long m_eegeoMapApiPtr;
     private final INativeMessageRunner m_nativeRunner;
     private final IUiMessageRunner m_uiRunner;
 
+    // written on the native thread and read on any thread; snapshots are immutable, so publishing
+    // each by replacing this reference is all the synchronization needed
+    private volatile CameraSnapshot m_cameraSnapshot = null;
+    private long m_nextSnapshotSequence = 0;
+    // snapshots cost several native projections per camera change, so are only captured while wanted
+    private int m_snapshotConsumerCount = 0;
+    private volatile boolean m_snapshotsWanted = false;
+    private CameraPosition m_lastCameraPosition = null;
+
     /**
      * This constructor is for internal SDK use only -- use EegeoMap.getProjection instead
      *
@@ -55,6 +72,9 @@ public class Projection {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final double[] latLongAlt = nativeScreenToWorldPoint(m_eegeoMapApiPtr, point.x, point.y);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -90,6 +110,9 @@ public class Projection {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final double[] screen = nativeWorldToScreen(m_eegeoMapApiPtr, location.latitude, location.longitude, location.altitude);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -102,6 +125,244 @@ public class Projection {
         return p;
     }
 
+    /**
+     * Maps a batch of real world points to screen co-ordinates. The batch is mapped in one task on
+     * the native thread and resolved with one promise, but the native API has no batch projection,
+     * so each point still costs one JNI call. Batching saves the per-point task and promise, not the
+     * per-point JNI crossing.
+     *
+     * @param latLngAlts   The real world points, packed as latitude, longitude and altitude triples.
+     *                     The array is copied, so it may be reused once this method returns.
+     * @param screenPoints An array to receive the screen space points, packed as x and y pairs in
+     *                     units of pixels with the origin at the top left corner of the screen. It
+     *                     must hold at least two values for each point, and is filled on the UI
+     *                     thread just before the promise is resolved.
+     * @return A promise to provide screenPoints, once filled.
+     */
+    @UiThread
+    public Promise<double[]> toScreenLocations(@NonNull double[] latLngAlts, @NonNull final double[] screenPoints) {
+        if (latLngAlts.length % 3 != 0) {
+            throw new IllegalArgumentException("latLngAlts must hold latitude, longitude and altitude triples");
+        }
+        final int pointCount = latLngAlts.length / 3;
+        if (screenPoints.length < pointCount * 2) {
+            throw new IllegalArgumentException("screenPoints must hold at least " + pointCount * 2 + " values");
+        }
+
+        final double[] input = latLngAlts.clone();
+        final Promise<double[]> p = new Promise<double[]>();
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
+                final double[] output = new double[pointCount * 2];
+                for (int i = 0; i < pointCount; ++i) {
+                    double[] screen = nativeWorldToScreen(m_eegeoMapApiPtr, input[i * 3], input[i * 3 + 1], input[i * 3 + 2]);
+                    output[i * 2] = screen[0];
+                    output[i * 2 + 1] = screen[1];
+                }
+                m_uiRunner.runOnUiThread(new Runnable() {
+                    @UiThread
+                    @Override
+                    public void run() {
+                        if (p.isCancelled()) {
+                            return;
+                        }
+                        System.arraycopy(output, 0, screenPoints, 0, output.length);
+                        p.ready(screenPoints);
+                    }
+                });
+            }
+        });
+        return p;
+    }
+
+    /**
+     * Maps a batch of real world points to screen co-ordinates, with one JNI call per point. See
+     * toScreenLocations(double[], double[]).
+     *
+     * @param latLngAlts The real world points, packed as latitude, longitude and altitude triples.
+     * @return A promise to provide a new array of the screen space points, packed as x and y pairs.
+     */
+    @UiThread
+    public Promise<double[]> toScreenLocations(@NonNull double[] latLngAlts) {
+        return toScreenLocations(latLngAlts, new double[latLngAlts.length / 3 * 2]);
+    }
+
+    /**
+     * Maps a batch of screen points to real world points. The batch is mapped in one task on the
+     * native thread and resolved with one promise, but the native API has no batch projection, so
+     * each point still costs one JNI call. Batching saves the per-point task and promise, not the
+     * per-point JNI crossing.
+     *
+     * @param screenPoints The screen space points, packed as x and y pairs in units of pixels with
+     *                     the origin at the top left corner of the screen. The array is copied, so
+     *                     it may be reused once this method returns.
+     * @param latLngAlts   An array to receive the real world points, packed as latitude, longitude
+     *                     and altitude triples. It must hold at least three values for each point,
+     *                     and is filled on the UI thread just before the promise is resolved.
+     * @return A promise to provide latLngAlts, once filled.
+     */
+    @UiThread
+    public Promise<double[]> fromScreenLocations(@NonNull double[] screenPoints, @NonNull final double[] latLngAlts) {
+        if (screenPoints.length % 2 != 0) {
+            throw new IllegalArgumentException("screenPoints must hold x and y pairs");
+        }
+        final int pointCount = screenPoints.length / 2;
+        if (latLngAlts.length < pointCount * 3) {
+            throw new IllegalArgumentException("latLngAlts must hold at least " + pointCount * 3 + " values");
+        }
+
+        final double[] input = screenPoints.clone();
+        final Promise<double[]> p = new Promise<double[]>();
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
+                final double[] output = new double[pointCount * 3];
+                for (int i = 0; i < pointCount; ++i) {
+                    double[] latLongAlt = nativeScreenToWorldPoint(m_eegeoMapApiPtr, input[i * 2], input[i * 2 + 1]);
+                    System.arraycopy(latLongAlt, 0, output, i * 3, 3);
+                }
+                m_uiRunner.runOnUiThread(new Runnable() {
+                    @UiThread
+                    @Override
+                    public void run() {
+                        if (p.isCancelled()) {
+                            return;
+                        }
+                        System.arraycopy(output, 0, latLngAlts, 0, output.length);
+                        p.ready(latLngAlts);
+                    }
+                });
+            }
+        });
+        return p;
+    }
+
+    /**
+     * Maps a batch of screen points to real world points, with one JNI call per point. See
+     * fromScreenLocations(double[], double[]).
+     *
+     * @param screenPoints The screen space points, packed as x and y pairs.
+     * @return A promise to provide a new array of the real world points, packed as latitude,
+     * longitude and altitude triples.
+     */
+    @UiThread
+    public Promise<double[]> fromScreenLocations(@NonNull double[] screenPoints) {
+        return fromScreenLocations(screenPoints, new double[screenPoints.length / 2 * 3]);
+    }
+
+    /**
+     * Gets a snapshot of the camera for the most recently rendered frame, with which real world
+     * points and screen points can be mapped synchronously. Snapshots are only captured between
+     * calls to requestCameraSnapshots and releaseCameraSnapshots; while they are, a new snapshot is
+     * captured each time the camera changes. This method may be called on any thread.
+     *
+     * @return The latest snapshot, or null if snapshots have not been requested, or the first has
+     * not yet been captured.
+     */
+    public CameraSnapshot getCameraSnapshot() {
+        return m_cameraSnapshot;
+    }
+
+    /**
+     * Starts capturing camera snapshots, if they are not already being captured. Each call must be
+     * matched by a call to releaseCameraSnapshots. The first snapshot is captured shortly after
+     * the first request, without waiting for the camera to change.
+     */
+    @UiThread
+    public void requestCameraSnapshots() {
+        if (m_snapshotConsumerCount++ > 0) {
+            return;
+        }
+
+        m_snapshotsWanted = true;
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                if (m_snapshotsWanted) {
+                    captureCameraSnapshot(m_lastCameraPosition);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops capturing camera snapshots once every request has been released.
+     */
+    @UiThread
+    public void releaseCameraSnapshots() {
+        if (m_snapshotConsumerCount == 0 || --m_snapshotConsumerCount > 0) {
+            return;
+        }
+
+        m_snapshotsWanted = false;
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                // a stale snapshot would map points for a camera that has since moved
+                if (!m_snapshotsWanted) {
+                    m_cameraSnapshot = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the camera position for the current frame, and captures a snapshot for it if
+     * snapshots have been requested.
+     *
+     * @eegeo.internal
+     */
+    @WorkerThread
+    public void updateCameraSnapshot(CameraPosition cameraPosition) {
+        m_lastCameraPosition = cameraPosition;
+        if (m_snapshotsWanted) {
+            captureCameraSnapshot(cameraPosition);
+        }
+    }
+
+    // projects reference points around the camera target with the native projection, and fits a
+    // projection matrix to them; see CameraSnapshot for the accuracy of the fit
+    @WorkerThread
+    private void captureCameraSnapshot(CameraPosition cameraPosition) {
+        if (cameraPosition == null || cameraPosition.target == null) {
+            return;
+        }
+
+        final double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(cameraPosition.target.latitude, cameraPosition.target.longitude, 0.0, origin);
+
+        final double[] relativeEcefPoints = new double[CameraSnapshot.SAMPLE_COUNT * 3];
+        final double[] screenPoints = new double[CameraSnapshot.SAMPLE_COUNT * 2];
+        final double[] latLngAlt = new double[3];
+        CameraSnapshot.getSamplePoints(cameraPosition.target.latitude, cameraPosition.target.longitude, cameraPosition.zoom, relativeEcefPoints);
+        for (int sample = 0; sample < CameraSnapshot.SAMPLE_COUNT; ++sample) {
+            CameraSnapshot.ecefToLatLngAlt(origin[0] + relativeEcefPoints[sample * 3],
+                    origin[1] + relativeEcefPoints[sample * 3 + 1],
+                    origin[2] + relativeEcefPoints[sample * 3 + 2],
+                    latLngAlt);
+
+            double[] screen = nativeWorldToScreen(m_eegeoMapApiPtr, latLngAlt[0], latLngAlt[1], latLngAlt[2]);
+            screenPoints[sample * 2] = screen[0];
+            screenPoints[sample * 2 + 1] = screen[1];
+        }
+
+        double[] matrix = CameraSnapshot.fitProjectionMatrix(relativeEcefPoints, screenPoints);
+        if (matrix != null) {
+            m_cameraSnapshot = new CameraSnapshot(cameraPosition, m_nextSnapshotSequence++, origin[0], origin[1], origin[2], matrix);
+        }
+    }
+
     private native double[] nativeWorldToScreen(long jniEegeoMapApiPtr, double lat, double lon, double alt);
 
     private native double[] nativeScreenToWorldPoint(long jniEegeoMapApiPtr, double x, double y);
@@ -12,8 +12,11 @@ import com.eegeo.mapapi.polygons.PolygonOptions;
 import com.eegeo.mapapi.util.NativeApiObject;
 
 import java.security.InvalidParameterException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A class for drawing heatmap overlays on a map, displaying the density of geographical points over
@@ -102,6 +105,11 @@ public class Heatmap extends NativeApiObject {
     private static final AllowHandleAccess m_allowHandleAccess = new AllowHandleAccess();
     private final HeatmapApi m_heatmapApi;
     private List<WeightedLatLngAlt> m_weightedPoints;
+    // set instead of m_weightedPoints when data is supplied packed, which is converted only if asked for
+    private double[] m_packedPoints = null;
+    private KeyframeUpload m_keyframeUpload = null;
+    // while an edit is applied, native updates are gathered here and then submitted as one task
+    private Map<Class<?>, Runnable> m_editUpdates = null;
     private float[] m_heatmapDensityStops;
     private double[] m_heatmapRadii;
     private double[] m_heatmapGains;
@@ -193,7 +201,34 @@ public class Heatmap extends NativeApiObject {
      * @return The current data points to be drawn by this heatmap.
      */
     @UiThread
-    public List<WeightedLatLngAlt> getWeightedPoints() { return m_weightedPoints; }
+    public List<WeightedLatLngAlt> getWeightedPoints() {
+        if (m_keyframeUpload != null) {
+            double[] buffer = m_keyframeUpload.keyframes.createBuffer();
+            m_keyframeUpload.keyframes.interpolate(m_keyframeUpload.time, buffer);
+            return HeatmapAggregator.toWeightedPoints(buffer);
+        }
+        if (m_weightedPoints == null && m_packedPoints != null) {
+            m_weightedPoints = HeatmapAggregator.toWeightedPoints(m_packedPoints);
+        }
+        return m_weightedPoints;
+    }
+
+    /**
+     * @return The keyframes being animated by this heatmap, or null if its data was set with
+     * setData.
+     */
+    @UiThread
+    public HeatmapKeyframes getKeyframes() {
+        return m_keyframeUpload != null ? m_keyframeUpload.keyframes : null;
+    }
+
+    /**
+     * @return The current time within the keyframes, or NaN if the heatmap has no keyframes.
+     */
+    @UiThread
+    public double getTime() {
+        return m_keyframeUpload != null ? m_keyframeUpload.time : Double.NaN;
+    }
 
     /**
      *
@@ -402,11 +437,69 @@ public class Heatmap extends NativeApiObject {
      */
     public void setData(List<WeightedLatLngAlt> weightedPoints, double weightMin, double weightMax) {
         m_weightedPoints = weightedPoints;
+        m_packedPoints = null;
+        m_keyframeUpload = null;
+        m_weightMin = weightMin;
+        m_weightMax = weightMax;
+        updateNativeData();
+    }
+
+    /**
+     * Sets the data points to draw for this heatmap from a packed array, such as the centroids
+     * returned by HeatmapAggregator.getPackedPoints. This avoids creating a WeightedLatLngAlt for
+     * each point.
+     * @param packedPoints The input data points, packed as latitude, longitude, altitude and weight.
+     *                     The array is copied, so it may be reused once this method returns.
+     * @param weightMin The intensity corresponding to the lowest color gradient value.
+     * @param weightMax The intensity corresponding to the heighest color gradient value.
+     */
+    public void setData(double[] packedPoints, double weightMin, double weightMax) {
+        if (packedPoints.length % 4 != 0) {
+            throw new InvalidParameterException("packedPoints must hold latitude, longitude, altitude and weight for each point");
+        }
+        m_packedPoints = packedPoints.clone();
+        m_weightedPoints = null;
+        m_keyframeUpload = null;
         m_weightMin = weightMin;
         m_weightMax = weightMax;
         updateNativeData();
     }
 
+    /**
+     * Sets a time series of data for this heatmap to animate. The heatmap shows the weights at the
+     * first keyframe, until setTime is called. This replaces any data set with setData.
+     * @param keyframes The time series of data points.
+     * @param weightMin The intensity corresponding to the lowest color gradient value.
+     * @param weightMax The intensity corresponding to the heighest color gradient value.
+     */
+    @UiThread
+    public void setKeyframes(@NonNull HeatmapKeyframes keyframes, double weightMin, double weightMax) {
+        m_weightedPoints = null;
+        m_packedPoints = null;
+        m_weightMin = weightMin;
+        m_weightMax = weightMax;
+        m_keyframeUpload = new KeyframeUpload(keyframes, weightMin, weightMax);
+        m_keyframeUpload.request(keyframes.getStartTime());
+    }
+
+    /**
+     * Sets the time within the keyframes to display, for example once per animation frame. The
+     * weights are interpolated on the native thread into a buffer allocated once per setKeyframes,
+     * and if several times are set before the native thread gets to them, only the latest is drawn.
+     * Has no effect if the heatmap has no keyframes.
+     * @throws InvalidParameterException if the time is NaN.
+     * @param time The time, in the same units as the keyframe times.
+     */
+    @UiThread
+    public void setTime(double time) throws InvalidParameterException {
+        if (Double.isNaN(time)) {
+            throw new InvalidParameterException("time must be a number");
+        }
+        if (m_keyframeUpload != null) {
+            m_keyframeUpload.request(time);
+        }
+    }
+
     /**
      * Sets one or more density stop for the heatmap. Each density stop determines how the point
      * data should be drawn as a heatmap of specified density.
@@ -420,17 +513,7 @@ public class Heatmap extends NativeApiObject {
      *                     when multiple density stops are used.
      */
     public void setDensityStops(float[] heatmapDensityStops, double[] heatmapRadiiMeters, double[] heatmapGains) {
-        if (heatmapDensityStops.length == 0) {
-            throw new InvalidParameterException("heatmapDensityStops must not be empty");
-        }
-
-        if (heatmapRadiiMeters.length != heatmapDensityStops.length) {
-            throw new InvalidParameterException("heatmapRadiiMeters and stops must be equal length");
-        }
-
-        if (heatmapGains.length != heatmapDensityStops.length) {
-            throw new InvalidParameterException("heatmapGains and stops must be equal length");
-        }
+        validateDensityStops(heatmapDensityStops, heatmapRadiiMeters, heatmapGains);
 
         m_heatmapDensityStops = heatmapDensityStops;
         m_heatmapRadii = heatmapRadiiMeters;
@@ -480,9 +563,7 @@ public class Heatmap extends NativeApiObject {
      * @throws InvalidParameterException if the input parameter arrays are not of equal length.
      */
     public void setGradient(float[] gradientStops, int[] gradientColors) throws InvalidParameterException {
-        if (gradientColors.length != gradientStops.length) {
-            throw new InvalidParameterException("gradientColors and gradientStops must have same length");
-        }
+        validateGradient(gradientStops, gradientColors);
         m_gradientColors = gradientColors;
         m_gradientStops = gradientStops;
         updateNativeGradient();
@@ -636,6 +717,91 @@ public class Heatmap extends NativeApiObject {
         updateNativeUseApproximation();
     }
 
+    /**
+     * Starts a set of changes to this heatmap's properties, which are drawn together once applied.
+     * For example, heatmap.edit().opacity(0.8f).gradient(stops, colors).apply().
+     * @return A new edit of this heatmap.
+     */
+    @UiThread
+    public HeatmapEdit edit() {
+        return new HeatmapEdit(this);
+    }
+
+    @UiThread
+    void applyEdit(HeatmapEdit edit) throws InvalidParameterException {
+        if (edit.hasGradient) {
+            validateGradient(edit.gradientStops, edit.gradientColors);
+        }
+        if (edit.hasDensityStops) {
+            validateDensityStops(edit.densityStops, edit.radiiMeters, edit.gains);
+        }
+
+        m_editUpdates = new LinkedHashMap<>();
+        try {
+            if (edit.hasGradient) {
+                setGradient(edit.gradientStops, edit.gradientColors);
+            }
+            if (edit.hasDensityStops) {
+                setDensityStops(edit.densityStops, edit.radiiMeters, edit.gains);
+            }
+            if (edit.hasOpacity) {
+                setOpacity(edit.opacity);
+            }
+            if (edit.hasIntensityBias) {
+                setIntensityBias(edit.intensityBias);
+            }
+            if (edit.hasIntensityScale) {
+                setIntensityScale(edit.intensityScale);
+            }
+            if (edit.hasDensityBlend) {
+                setDensityBlend(edit.densityBlend);
+            }
+            if (edit.hasInterpolateDensityByZoom) {
+                setInterpolateDensityByZoom(edit.interpolateDensityByZoom);
+            }
+            if (edit.hasZoomExtents) {
+                setZoomExtents(edit.zoomMin, edit.zoomMax);
+            }
+            if (edit.hasResolutionPixels) {
+                setResolutionPixels(edit.resolutionPixels);
+            }
+            if (edit.hasOccludedMapFeatures) {
+                setOccludedMapFeatures(edit.occludedMapFeatures);
+            }
+            if (edit.hasOccludedStyle) {
+                setOccludedStyle(edit.occludedAlpha, edit.occludedSaturation, edit.occludedBrightness);
+            }
+            if (edit.hasUseApproximation) {
+                setUseApproximation(edit.useApproximation);
+            }
+            if (edit.hasElevation) {
+                setElevation(edit.elevation);
+            }
+            if (edit.hasElevationMode) {
+                setElevationMode(edit.elevationMode);
+            }
+            if (edit.hasIndoorMapId) {
+                setIndoorMapId(edit.indoorMapId);
+            }
+            if (edit.hasIndoorFloorId) {
+                setIndoorFloorId(edit.indoorFloorId);
+            }
+        } finally {
+            final Runnable[] updates = m_editUpdates.values().toArray(new Runnable[0]);
+            m_editUpdates = null;
+            if (updates.length > 0) {
+                super.submit(new Runnable() {
+                    @WorkerThread
+                    public void run() {
+                        for (Runnable update : updates) {
+                            update.run();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
     /**
      * Removes this heatmap from the map and destroys the heatmap. Use EegeoMap.removeHeatmap
      *
@@ -865,23 +1031,107 @@ public class Heatmap extends NativeApiObject {
     @UiThread
     private void updateNativeData() {
         final List<WeightedLatLngAlt> data = m_weightedPoints;
+        final double[] packedData = m_packedPoints;
         final double weightMin = m_weightMin;
         final double weightMax = m_weightMax;
 
         submit(new Runnable() {
             @WorkerThread
             public void run() {
-                m_heatmapApi.setData(
-                        getNativeHandle(),
-                        Heatmap.m_allowHandleAccess,
-                        data,
-                        weightMin,
-                        weightMax
-                );
+                if (packedData != null) {
+                    m_heatmapApi.setPackedData(
+                            getNativeHandle(),
+                            Heatmap.m_allowHandleAccess,
+                            packedData,
+                            weightMin,
+                            weightMax
+                    );
+                } else {
+                    m_heatmapApi.setData(
+                            getNativeHandle(),
+                            Heatmap.m_allowHandleAccess,
+                            data,
+                            weightMin,
+                            weightMax
+                    );
+                }
             }
         });
     }
 
+    private final class KeyframeUpload implements Runnable {
+        final HeatmapKeyframes keyframes;
+        private final double m_weightMin;
+        private final double m_weightMax;
+        private final AtomicBoolean m_pending = new AtomicBoolean(false);
+        private double[] m_buffer = null;
+        volatile double time;
+
+        KeyframeUpload(HeatmapKeyframes keyframes, double weightMin, double weightMax) {
+            this.keyframes = keyframes;
+            m_weightMin = weightMin;
+            m_weightMax = weightMax;
+        }
+
+        @UiThread
+        void request(double time) {
+            this.time = time;
+            // an upload already queued will pick up the new time when it runs
+            if (m_pending.compareAndSet(false, true)) {
+                submit(this);
+            }
+        }
+
+        @WorkerThread
+        @Override
+        public void run() {
+            m_pending.set(false);
+            if (m_buffer == null) {
+                m_buffer = keyframes.createBuffer();
+            }
+            keyframes.interpolate(time, m_buffer);
+            m_heatmapApi.setPackedData(
+                    getNativeHandle(),
+                    Heatmap.m_allowHandleAccess,
+                    m_buffer,
+                    m_weightMin,
+                    m_weightMax
+            );
+        }
+    }
+
+    @UiThread
+    @Override
+    protected void submit(Runnable task) {
+        if (m_editUpdates != null) {
+            // each updateNative method submits its own runnable class, so a later update of the same
+            // kind, such as elevation then elevation mode, replaces the earlier one
+            m_editUpdates.put(task.getClass(), task);
+        } else {
+            super.submit(task);
+        }
+    }
+
+    private static void validateDensityStops(float[] heatmapDensityStops, double[] heatmapRadiiMeters, double[] heatmapGains) throws InvalidParameterException {
+        if (heatmapDensityStops.length == 0) {
+            throw new InvalidParameterException("heatmapDensityStops must not be empty");
+        }
+
+        if (heatmapRadiiMeters.length != heatmapDensityStops.length) {
+            throw new InvalidParameterException("heatmapRadiiMeters and stops must be equal length");
+        }
+
+        if (heatmapGains.length != heatmapDensityStops.length) {
+            throw new InvalidParameterException("heatmapGains and stops must be equal length");
+        }
+    }
+
+    private static void validateGradient(float[] gradientStops, int[] gradientColors) throws InvalidParameterException {
+        if (gradientColors.length != gradientStops.length) {
+            throw new InvalidParameterException("gradientColors and gradientStops must have same length");
+        }
+    }
+
     @WorkerThread
     int getNativeHandle(AllowHandleAccess allowHandleAccess) {
         if (allowHandleAccess == null)
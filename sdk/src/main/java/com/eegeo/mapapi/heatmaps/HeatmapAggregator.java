@@ -0,0 +1,260 @@
+package com.eegeo.mapapi.heatmaps;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.eegeo.mapapi.geometry.LatLngAlt;
+import com.eegeo.mapapi.geometry.WeightedLatLngAlt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reduces a large set of heatmap data points to a smaller set of weighted centroids, for display
+ * without visible difference.
+ * <br>
+ * <br>
+ * A heatmap draws each point as a blurred circle several times wider than its density stop radius,
+ * and a point of weight N is drawn the same as N points of weight 1 at the same coordinate. Points
+ * much closer together than the radius can therefore be merged into their weighted centroid with
+ * little visible effect. The aggregator bins the points into a pyramid of square grids, each with
+ * cells twice the size of the one below, and for a given radius returns the centroids of the
+ * coarsest grid whose cells are no larger than a fraction of that radius.
+ * <br>
+ * <br>
+ * Building the pyramid takes time proportional to N log N for N points, so it should be done off
+ * the UI thread, for example with EegeoMap.aggregateHeatmapPoints. A built aggregator is immutable,
+ * and may be used on any thread.
+ */
+public final class HeatmapAggregator {
+    /**
+     * The default size of the smallest grid cells, in meters.
+     */
+    public static final double DEFAULT_MIN_CELL_SIZE_METERS = 1.0;
+
+    /**
+     * The largest cell size used for a radius, as a fraction of that radius.
+     */
+    public static final double CELL_SIZE_RADIUS_FRACTION = 0.25;
+
+    private static final int MAX_LEVEL_COUNT = 24;
+    private static final int DOUBLES_PER_POINT = 4;
+    private static final double METERS_PER_DEGREE_LATITUDE = Math.toRadians(6378137.0);
+
+    private final int m_inputPointCount;
+    private final double m_minCellSizeMeters;
+    // each level holds its centroids packed as latitude, longitude, altitude and weight
+    private final double[][] m_levelPoints;
+
+    // checked before aggregation is queued, so that bad arguments are reported to the caller
+    static void validateArguments(@NonNull double[] packedPoints, double minCellSizeMeters) throws IllegalArgumentException {
+        if (packedPoints.length % DOUBLES_PER_POINT != 0) {
+            throw new IllegalArgumentException("packedPoints must hold latitude, longitude, altitude and weight for each point");
+        }
+        if (!(minCellSizeMeters > 0.0)) {
+            throw new IllegalArgumentException("minCellSizeMeters must be greater than zero");
+        }
+    }
+
+    /**
+     * Aggregates packed data points.
+     *
+     * @param packedPoints      The data points, packed as latitude, longitude, altitude and weight.
+     * @param minCellSizeMeters The size of the smallest grid cells, in meters.
+     */
+    @WorkerThread
+    public HeatmapAggregator(@NonNull double[] packedPoints, double minCellSizeMeters) {
+        validateArguments(packedPoints, minCellSizeMeters);
+
+        m_inputPointCount = packedPoints.length / DOUBLES_PER_POINT;
+        m_minCellSizeMeters = minCellSizeMeters;
+
+        double originLatitude = 0.0;
+        for (int i = 0; i < m_inputPointCount; ++i) {
+            originLatitude += packedPoints[i * DOUBLES_PER_POINT];
+        }
+        originLatitude = m_inputPointCount > 0 ? originLatitude / m_inputPointCount : 0.0;
+        final double metersPerDegreeLongitude = METERS_PER_DEGREE_LATITUDE * Math.max(0.01, Math.cos(Math.toRadians(originLatitude)));
+
+        List<double[]> levels = new ArrayList<>();
+        double[] points = packedPoints;
+        double cellSize = minCellSizeMeters;
+        for (int level = 0; level < MAX_LEVEL_COUNT; ++level) {
+            points = binPoints(points, cellSize, metersPerDegreeLongitude);
+            levels.add(points);
+            if (points.length <= DOUBLES_PER_POINT) {
+                break;
+            }
+            cellSize *= 2.0;
+        }
+        m_levelPoints = levels.toArray(new double[0][]);
+    }
+
+    /**
+     * Aggregates a list of data points, with the default smallest cell size.
+     *
+     * @param weightedPoints The data points.
+     * @return The aggregator.
+     */
+    @WorkerThread
+    public static HeatmapAggregator fromWeightedPoints(@NonNull List<WeightedLatLngAlt> weightedPoints) {
+        double[] packedPoints = new double[weightedPoints.size() * DOUBLES_PER_POINT];
+        for (int i = 0; i < weightedPoints.size(); ++i) {
+            WeightedLatLngAlt point = weightedPoints.get(i);
+            packedPoints[i * DOUBLES_PER_POINT] = point.point.latitude;
+            packedPoints[i * DOUBLES_PER_POINT + 1] = point.point.longitude;
+            packedPoints[i * DOUBLES_PER_POINT + 2] = point.point.altitude;
+            packedPoints[i * DOUBLES_PER_POINT + 3] = point.intensity;
+        }
+        return new HeatmapAggregator(packedPoints, DEFAULT_MIN_CELL_SIZE_METERS);
+    }
+
+    /**
+     * @return The number of data points aggregated.
+     */
+    public int getInputPointCount() {
+        return m_inputPointCount;
+    }
+
+    /**
+     * @return The number of grids in the pyramid.
+     */
+    public int getLevelCount() {
+        return m_levelPoints.length;
+    }
+
+    /**
+     * @param level The grid level, from 0 for the finest.
+     * @return The size of the grid's cells, in meters.
+     */
+    public double getCellSizeMeters(int level) {
+        return m_minCellSizeMeters * (1L << level);
+    }
+
+    /**
+     * @param level The grid level, from 0 for the finest.
+     * @return The number of centroids in the grid.
+     */
+    public int getPointCount(int level) {
+        return m_levelPoints[level].length / DOUBLES_PER_POINT;
+    }
+
+    /**
+     * Gets the level whose centroids may be drawn in place of the data points for a radius.
+     *
+     * @param radiusMeters The smallest density stop radius the points will be drawn with.
+     * @return The grid level.
+     */
+    public int getLevelForRadius(double radiusMeters) {
+        double maxCellSize = radiusMeters * CELL_SIZE_RADIUS_FRACTION;
+        int level = 0;
+        while (level + 1 < m_levelPoints.length && getCellSizeMeters(level + 1) <= maxCellSize) {
+            ++level;
+        }
+        return level;
+    }
+
+    /**
+     * Gets the level whose centroids may be drawn in place of the data points for a heatmap. The
+     * smallest of the heatmap's density stop radii is used, so that the result is suitable at every
+     * zoom level, including when the displayed stop is interpolated by zoom.
+     *
+     * @param heatmapRadiiMeters The heatmap's density stop radii, as given by
+     *                           HeatmapOptions.getHeatmapRadii or Heatmap.getHeatmapRadii.
+     * @return The grid level.
+     */
+    public int getLevelForRadii(@NonNull double[] heatmapRadiiMeters) {
+        if (heatmapRadiiMeters.length == 0) {
+            return 0;
+        }
+        double minRadius = heatmapRadiiMeters[0];
+        for (double radius : heatmapRadiiMeters) {
+            minRadius = Math.min(minRadius, radius);
+        }
+        return getLevelForRadius(minRadius);
+    }
+
+    /**
+     * @param level The grid level, from 0 for the finest.
+     * @return A copy of the grid's centroids, packed as latitude, longitude, altitude and weight,
+     * suitable for Heatmap.setData.
+     */
+    public double[] getPackedPoints(int level) {
+        return m_levelPoints[level].clone();
+    }
+
+    /**
+     * @param level The grid level, from 0 for the finest.
+     * @return The grid's centroids.
+     */
+    public List<WeightedLatLngAlt> getWeightedPoints(int level) {
+        return toWeightedPoints(m_levelPoints[level]);
+    }
+
+    static List<WeightedLatLngAlt> toWeightedPoints(double[] packedPoints) {
+        final int pointCount = packedPoints.length / DOUBLES_PER_POINT;
+        List<WeightedLatLngAlt> weightedPoints = new ArrayList<>(pointCount);
+        for (int i = 0; i < pointCount; ++i) {
+            int offset = i * DOUBLES_PER_POINT;
+            weightedPoints.add(new WeightedLatLngAlt(
+                    new LatLngAlt(packedPoints[offset], packedPoints[offset + 1], packedPoints[offset + 2]),
+                    packedPoints[offset + 3]));
+        }
+        return weightedPoints;
+    }
+
+    private static double[] binPoints(double[] points, double cellSize, double metersPerDegreeLongitude) {
+        final int pointCount = points.length / DOUBLES_PER_POINT;
+        final double degreesLatitudePerCell = cellSize / METERS_PER_DEGREE_LATITUDE;
+        final double degreesLongitudePerCell = cellSize / metersPerDegreeLongitude;
+
+        long[] keys = new long[pointCount];
+        for (int i = 0; i < pointCount; ++i) {
+            int cellX = (int) Math.floor(points[i * DOUBLES_PER_POINT + 1] / degreesLongitudePerCell);
+            int cellY = (int) Math.floor(points[i * DOUBLES_PER_POINT] / degreesLatitudePerCell);
+            keys[i] = ((long) cellX << 32) | (cellY & 0xffffffffL);
+        }
+
+        // sorting primitive keys finds the distinct cells without a map of boxed keys
+        long[] cellKeys = keys.clone();
+        Arrays.sort(cellKeys);
+        int cellCount = 0;
+        for (int i = 0; i < cellKeys.length; ++i) {
+            if (i == 0 || cellKeys[i] != cellKeys[i - 1]) {
+                cellKeys[cellCount++] = cellKeys[i];
+            }
+        }
+
+        double[] sums = new double[cellCount * DOUBLES_PER_POINT];
+        double[] unweightedSums = new double[cellCount * DOUBLES_PER_POINT];
+        for (int i = 0; i < pointCount; ++i) {
+            int cell = Arrays.binarySearch(cellKeys, 0, cellCount, keys[i]);
+            int source = i * DOUBLES_PER_POINT;
+            int target = cell * DOUBLES_PER_POINT;
+            double weight = points[source + 3];
+            sums[target] += points[source] * weight;
+            sums[target + 1] += points[source + 1] * weight;
+            sums[target + 2] += points[source + 2] * weight;
+            sums[target + 3] += weight;
+            unweightedSums[target] += points[source];
+            unweightedSums[target + 1] += points[source + 1];
+            unweightedSums[target + 2] += points[source + 2];
+            unweightedSums[target + 3] += 1.0;
+        }
+
+        double[] centroids = new double[cellCount * DOUBLES_PER_POINT];
+        for (int cell = 0; cell < cellCount; ++cell) {
+            int offset = cell * DOUBLES_PER_POINT;
+            double weight = sums[offset + 3];
+            // a cell whose weights cancel out still needs a position
+            double[] source = weight != 0.0 ? sums : unweightedSums;
+            double divisor = weight != 0.0 ? weight : unweightedSums[offset + 3];
+            centroids[offset] = source[offset] / divisor;
+            centroids[offset + 1] = source[offset + 1] / divisor;
+            centroids[offset + 2] = source[offset + 2] / divisor;
+            centroids[offset + 3] = weight;
+        }
+        return centroids;
+    }
+}
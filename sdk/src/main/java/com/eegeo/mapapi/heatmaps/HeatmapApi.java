@@ -10,16 +10,21 @@ import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.geometry.ElevationMode;
 import com.eegeo.mapapi.geometry.WeightedLatLngAlt;
 import com.eegeo.mapapi.polygons.PolygonOptions;
+import com.eegeo.mapapi.util.Promise;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HeatmapApi {
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
     private SparseArray<Heatmap> m_nativeHandleToHeatmap = new SparseArray<>();
+    // aggregation is too slow for the UI thread and would hold up rendering on the native thread
+    private static final ExecutorService ms_aggregationExecutor = Executors.newSingleThreadExecutor();
 
 
     public HeatmapApi(INativeMessageRunner nativeRunner,
@@ -40,6 +45,44 @@ public class HeatmapApi {
         return m_uiRunner;
     }
 
+    @UiThread
+    public Promise<HeatmapAggregator> aggregate(final double[] packedPoints, final double minCellSizeMeters) throws IllegalArgumentException {
+        HeatmapAggregator.validateArguments(packedPoints, minCellSizeMeters);
+
+        final Promise<HeatmapAggregator> p = new Promise<>();
+        ms_aggregationExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
+                final HeatmapAggregator aggregator;
+                try {
+                    aggregator = new HeatmapAggregator(packedPoints, minCellSizeMeters);
+                } catch (final RuntimeException e) {
+                    // thrown here, it would end the executor's thread and leave the promise pending
+                    m_uiRunner.runOnUiThread(new Runnable() {
+                        @UiThread
+                        @Override
+                        public void run() {
+                            p.fail(e);
+                        }
+                    });
+                    return;
+                }
+                m_uiRunner.runOnUiThread(new Runnable() {
+                    @UiThread
+                    @Override
+                    public void run() {
+                        p.ready(aggregator);
+                    }
+                });
+            }
+        });
+        return p;
+    }
+
     @WorkerThread
     public void register(Heatmap heatmap, Heatmap.AllowHandleAccess allowHandleAccess) {
         m_nativeHandleToHeatmap.put(heatmap.getNativeHandle(allowHandleAccess), heatmap);
@@ -421,7 +464,20 @@ public class HeatmapApi {
         if (allowHandleAccess == null)
             throw new NullPointerException("Null access token. Method is intended for internal use by Heatmap");
 
-        double[] weightedPointsDoubleArray = weightedPointsToDoubleArray(weightedPoints);
+        setPackedData(nativeHandle, allowHandleAccess, weightedPointsToDoubleArray(weightedPoints), weightMin, weightMax);
+    }
+
+    @WorkerThread
+    void setPackedData(
+            int nativeHandle,
+            Heatmap.AllowHandleAccess allowHandleAccess,
+            double[] weightedPointsDoubleArray,
+            double weightMin,
+            double weightMax
+            ) {
+        if (allowHandleAccess == null)
+            throw new NullPointerException("Null access token. Method is intended for internal use by Heatmap");
+
         nativeSetData(
                 m_jniEegeoMapApiPtr,
                 nativeHandle,
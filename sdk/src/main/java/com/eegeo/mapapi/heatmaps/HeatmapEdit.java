@@ -0,0 +1,249 @@
+package com.eegeo.mapapi.heatmaps;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+import java.security.InvalidParameterException;
+
+/**
+ * A set of changes to a heatmap's properties, applied together. Obtain one with Heatmap.edit,
+ * chain the changes, then call apply.
+ * <br>
+ * <br>
+ * Calling the heatmap's setters one at a time sends each change to the map separately, so a frame
+ * may be drawn with only some of them in effect. The changes in an edit reach the map together,
+ * and are drawn from the same frame.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class HeatmapEdit {
+    private final Heatmap m_heatmap;
+
+    boolean hasOpacity = false;
+    float opacity;
+    boolean hasIntensityBias = false;
+    float intensityBias;
+    boolean hasIntensityScale = false;
+    float intensityScale;
+    boolean hasGradient = false;
+    float[] gradientStops;
+    int[] gradientColors;
+    boolean hasDensityStops = false;
+    float[] densityStops;
+    double[] radiiMeters;
+    double[] gains;
+    boolean hasDensityBlend = false;
+    float densityBlend;
+    boolean hasInterpolateDensityByZoom = false;
+    boolean interpolateDensityByZoom;
+    boolean hasZoomExtents = false;
+    double zoomMin;
+    double zoomMax;
+    boolean hasResolutionPixels = false;
+    int resolutionPixels;
+    boolean hasOccludedMapFeatures = false;
+    HeatmapOcclusionMapFeature[] occludedMapFeatures;
+    boolean hasOccludedStyle = false;
+    float occludedAlpha;
+    float occludedSaturation;
+    float occludedBrightness;
+    boolean hasUseApproximation = false;
+    boolean useApproximation;
+    boolean hasElevation = false;
+    double elevation;
+    boolean hasElevationMode = false;
+    ElevationMode elevationMode;
+    boolean hasIndoorMapId = false;
+    String indoorMapId;
+    boolean hasIndoorFloorId = false;
+    int indoorFloorId;
+
+    HeatmapEdit(@NonNull Heatmap heatmap) {
+        m_heatmap = heatmap;
+    }
+
+    /**
+     * @param opacity The opacity, clamped to the range [0..1].
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit opacity(float opacity) {
+        this.hasOpacity = true;
+        this.opacity = opacity;
+        return this;
+    }
+
+    /**
+     * @param intensityBias The intensity bias, clamped to the range [0..1].
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit intensityBias(float intensityBias) {
+        this.hasIntensityBias = true;
+        this.intensityBias = intensityBias;
+        return this;
+    }
+
+    /**
+     * @param intensityScale The intensity multiplier.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit intensityScale(float intensityScale) {
+        this.hasIntensityScale = true;
+        this.intensityScale = intensityScale;
+        return this;
+    }
+
+    /**
+     * @param gradientStops  Stop function input values in the range [0..1].
+     * @param gradientColors The color value for each stop, as 32-bit ARGB color.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit gradient(@NonNull float[] gradientStops, @NonNull int[] gradientColors) {
+        this.hasGradient = true;
+        this.gradientStops = gradientStops;
+        this.gradientColors = gradientColors;
+        return this;
+    }
+
+    /**
+     * @param densityStops An array of stop function input values in the range [0..1].
+     * @param radiiMeters  The radius of the circle drawn for each point at each stop, in meters.
+     * @param gains        The intensity multiplier for each stop.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit densityStops(@NonNull float[] densityStops, @NonNull double[] radiiMeters, @NonNull double[] gains) {
+        this.hasDensityStops = true;
+        this.densityStops = densityStops;
+        this.radiiMeters = radiiMeters;
+        this.gains = gains;
+        return this;
+    }
+
+    /**
+     * @param densityBlend The density stop interpolation parameter, clamped to the range [0..1].
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit densityBlend(float densityBlend) {
+        this.hasDensityBlend = true;
+        this.densityBlend = densityBlend;
+        return this;
+    }
+
+    /**
+     * @param interpolateDensityByZoom Whether to blend between density stops by camera zoom level.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit interpolateDensityByZoom(boolean interpolateDensityByZoom) {
+        this.hasInterpolateDensityByZoom = true;
+        this.interpolateDensityByZoom = interpolateDensityByZoom;
+        return this;
+    }
+
+    /**
+     * @param zoomMin The camera zoom level at which the highest density stop is displayed.
+     * @param zoomMax The camera zoom level at which the lowest density stop is displayed.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit zoomExtents(double zoomMin, double zoomMax) {
+        this.hasZoomExtents = true;
+        this.zoomMin = zoomMin;
+        this.zoomMax = zoomMax;
+        return this;
+    }
+
+    /**
+     * @param resolutionPixels The intensity image size in pixels.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit resolutionPixels(int resolutionPixels) {
+        this.hasResolutionPixels = true;
+        this.resolutionPixels = resolutionPixels;
+        return this;
+    }
+
+    /**
+     * @param occludedMapFeatures The map features that cause occluded areas to use the occluded style.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit occludedMapFeatures(@NonNull HeatmapOcclusionMapFeature[] occludedMapFeatures) {
+        this.hasOccludedMapFeatures = true;
+        this.occludedMapFeatures = occludedMapFeatures;
+        return this;
+    }
+
+    /**
+     * @param alpha      The opacity of occluded areas, clamped to the range [0..1].
+     * @param saturation The color saturation of occluded areas, clamped to the range [0..1].
+     * @param brightness The color brightness of occluded areas, clamped to the range [0..1].
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit occludedStyle(float alpha, float saturation, float brightness) {
+        this.hasOccludedStyle = true;
+        this.occludedAlpha = alpha;
+        this.occludedSaturation = saturation;
+        this.occludedBrightness = brightness;
+        return this;
+    }
+
+    /**
+     * @param useApproximation The useApproximation option value.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit useApproximation(boolean useApproximation) {
+        this.hasUseApproximation = true;
+        this.useApproximation = useApproximation;
+        return this;
+    }
+
+    /**
+     * @param elevation A height in meters, interpreted according to the elevation mode.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit elevation(double elevation) {
+        this.hasElevation = true;
+        this.elevation = elevation;
+        return this;
+    }
+
+    /**
+     * @param elevationMode The mode specifying how to interpret the elevation.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit elevationMode(@NonNull ElevationMode elevationMode) {
+        this.hasElevationMode = true;
+        this.elevationMode = elevationMode;
+        return this;
+    }
+
+    /**
+     * @param indoorMapId The indoor map id, or empty string for an outdoor map.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit indoorMapId(@NonNull String indoorMapId) {
+        this.hasIndoorMapId = true;
+        this.indoorMapId = indoorMapId;
+        return this;
+    }
+
+    /**
+     * @param indoorFloorId The indoor map floor id.
+     * @return This edit, for chaining.
+     */
+    public HeatmapEdit indoorFloorId(int indoorFloorId) {
+        this.hasIndoorFloorId = true;
+        this.indoorFloorId = indoorFloorId;
+        return this;
+    }
+
+    /**
+     * Applies the changes to the heatmap. The changes are checked before any are made, so if one
+     * is invalid, none take effect.
+     *
+     * @throws InvalidParameterException if the gradient or density stop arrays are invalid, as for
+     *                                   Heatmap.setGradient and Heatmap.setDensityStops.
+     */
+    @UiThread
+    public void apply() throws InvalidParameterException {
+        m_heatmap.applyEdit(this);
+    }
+}
@@ -0,0 +1,158 @@
+package com.eegeo.mapapi.heatmaps;
+
+import androidx.annotation.NonNull;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * A time series of heatmap data, for animating a heatmap with Heatmap.setKeyframes and
+ * Heatmap.setTime.
+ * <br>
+ * <br>
+ * Every keyframe shares the same point positions, and supplies a weight for each point at a given
+ * time. Weights at times between keyframes are linearly interpolated, and weights at times outside
+ * the keyframes are those of the first or last keyframe.
+ * <br>
+ * <br>
+ * The positions and weights are copied into preallocated primitive buffers when the keyframes are
+ * created, so the arrays passed in may be reused. A HeatmapKeyframes is immutable, and may be used
+ * on any thread.
+ */
+public final class HeatmapKeyframes {
+    private static final int DOUBLES_PER_POSITION = 3;
+    private static final int DOUBLES_PER_POINT = 4;
+
+    private final double[] m_positions;
+    private final double[] m_times;
+    // weights for each keyframe in turn, stored as floats to halve the size of long series
+    private final float[] m_weights;
+    private final int m_pointCount;
+
+    /**
+     * Creates a time series of heatmap data.
+     *
+     * @param packedPositions The point positions, packed as latitude, longitude and altitude.
+     * @param keyframeTimes   The time of each keyframe, in strictly increasing order. The units are
+     *                        up to the app, for example seconds since the start of a day.
+     * @param keyframeWeights The weight of each point at each keyframe, packed with all the weights
+     *                        for the first keyframe, followed by those for the second, and so on.
+     * @throws InvalidParameterException if the array lengths do not agree, there are no keyframes,
+     *                                   or the times are not strictly increasing.
+     */
+    public HeatmapKeyframes(@NonNull double[] packedPositions,
+                            @NonNull double[] keyframeTimes,
+                            @NonNull double[] keyframeWeights) throws InvalidParameterException {
+        if (packedPositions.length % DOUBLES_PER_POSITION != 0) {
+            throw new InvalidParameterException("packedPositions must hold latitude, longitude and altitude for each point");
+        }
+        if (keyframeTimes.length == 0) {
+            throw new InvalidParameterException("keyframeTimes must not be empty");
+        }
+
+        m_pointCount = packedPositions.length / DOUBLES_PER_POSITION;
+        if (keyframeWeights.length != m_pointCount * keyframeTimes.length) {
+            throw new InvalidParameterException("keyframeWeights must hold a weight for each point at each keyframe");
+        }
+        for (int i = 1; i < keyframeTimes.length; ++i) {
+            if (!(keyframeTimes[i] > keyframeTimes[i - 1])) {
+                throw new InvalidParameterException("keyframeTimes must be strictly increasing");
+            }
+        }
+
+        m_positions = packedPositions.clone();
+        m_times = keyframeTimes.clone();
+        m_weights = new float[keyframeWeights.length];
+        for (int i = 0; i < keyframeWeights.length; ++i) {
+            m_weights[i] = (float) keyframeWeights[i];
+        }
+    }
+
+    /**
+     * @return The number of points in each keyframe.
+     */
+    public int getPointCount() {
+        return m_pointCount;
+    }
+
+    /**
+     * @return The number of keyframes.
+     */
+    public int getKeyframeCount() {
+        return m_times.length;
+    }
+
+    /**
+     * @param keyframe The keyframe index.
+     * @return The time of the keyframe.
+     */
+    public double getKeyframeTime(int keyframe) {
+        return m_times[keyframe];
+    }
+
+    /**
+     * @return The time of the first keyframe.
+     */
+    public double getStartTime() {
+        return m_times[0];
+    }
+
+    /**
+     * @return The time of the last keyframe.
+     */
+    public double getEndTime() {
+        return m_times[m_times.length - 1];
+    }
+
+    /**
+     * Creates a buffer large enough to hold the data points at any time, for use with interpolate.
+     *
+     * @return The buffer, with the point positions already filled in.
+     */
+    public double[] createBuffer() {
+        double[] buffer = new double[m_pointCount * DOUBLES_PER_POINT];
+        for (int i = 0; i < m_pointCount; ++i) {
+            buffer[i * DOUBLES_PER_POINT] = m_positions[i * DOUBLES_PER_POSITION];
+            buffer[i * DOUBLES_PER_POINT + 1] = m_positions[i * DOUBLES_PER_POSITION + 1];
+            buffer[i * DOUBLES_PER_POINT + 2] = m_positions[i * DOUBLES_PER_POSITION + 2];
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the interpolated weight of each point at a time into a buffer returned by createBuffer.
+     * Only the weights are written, so no allocation or position copying is done per frame.
+     *
+     * @param time   The time.
+     * @param buffer The buffer, packed as latitude, longitude, altitude and weight.
+     */
+    public void interpolate(double time, @NonNull double[] buffer) {
+        if (buffer.length != m_pointCount * DOUBLES_PER_POINT) {
+            throw new InvalidParameterException("buffer must be created by createBuffer");
+        }
+        if (Double.isNaN(time)) {
+            throw new InvalidParameterException("time must be a number");
+        }
+
+        int index = Arrays.binarySearch(m_times, time);
+        if (index >= 0 || time <= m_times[0] || time >= m_times[m_times.length - 1]) {
+            int keyframe = index >= 0 ? index : (time <= m_times[0] ? 0 : m_times.length - 1);
+            int offset = keyframe * m_pointCount;
+            for (int i = 0; i < m_pointCount; ++i) {
+                buffer[i * DOUBLES_PER_POINT + 3] = m_weights[offset + i];
+            }
+            return;
+        }
+
+        int next = -index - 1;
+        int previous = next - 1;
+        double t = (time - m_times[previous]) / (m_times[next] - m_times[previous]);
+        int previousOffset = previous * m_pointCount;
+        int nextOffset = next * m_pointCount;
+        for (int i = 0; i < m_pointCount; ++i) {
+            double from = m_weights[previousOffset + i];
+            double to = m_weights[nextOffset + i];
+            buffer[i * DOUBLES_PER_POINT + 3] = from + (to - from) * t;
+        }
+    }
+}
@@ -7,16 +7,21 @@ import androidx.annotation.WorkerThread;
 
 import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
+import com.eegeo.mapapi.util.ListenerRegistry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class IndoorEntityApi {
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
 
     private long m_jniEegeoMapApiPtr;
-    private List<OnIndoorEntityPickedListener> m_onIndoorEntityPickedListeners = new ArrayList<OnIndoorEntityPickedListener>();
+    private final ListenerRegistry<OnIndoorEntityPickedListener> m_onIndoorEntityPickedListeners = new ListenerRegistry<>(OnIndoorEntityPickedListener.class);
+    private Map<String, IndoorEntityHighlights> m_indoorMapIdToHighlights = new HashMap<>();
 
     public IndoorEntityApi(INativeMessageRunner nativeRunner,
                       IUiMessageRunner uiRunner,
@@ -26,8 +31,19 @@ public class IndoorEntityApi {
         this.m_jniEegeoMapApiPtr = jniEegeoMapApiPtr;
     }
 
+    @UiThread
+    public IndoorEntityHighlights getIndoorEntityHighlights(@NonNull final String indoorMapId) {
+        IndoorEntityHighlights highlights = m_indoorMapIdToHighlights.get(indoorMapId);
+        if (highlights == null) {
+            highlights = new IndoorEntityHighlights(this, indoorMapId);
+            m_indoorMapIdToHighlights.put(indoorMapId, highlights);
+        }
+        return highlights;
+    }
+
     @UiThread
     public void setIndoorEntityHighlights(@NonNull final String indoorMapId, @NonNull final List<String> indoorEntityIds, @NonNull final int highlightColor, @NonNull final float highlightBorderThickness){
+        invalidateHighlights(indoorMapId, indoorEntityIds);
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
@@ -38,6 +54,7 @@ public class IndoorEntityApi {
 
     @UiThread
     public void clearIndoorEntityHighlights(final String indoorMapId, final List<String> indoorEntityIds){
+        invalidateHighlights(indoorMapId, indoorEntityIds);
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
@@ -48,6 +65,9 @@ public class IndoorEntityApi {
 
     @UiThread
     public void clearAllIndoorEntityHighlights(){
+        for (IndoorEntityHighlights highlights : m_indoorMapIdToHighlights.values()) {
+            highlights.onAllHighlightsCleared();
+        }
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
@@ -56,6 +76,65 @@ public class IndoorEntityApi {
         });
     }
 
+    @UiThread
+    void applyIndoorEntityHighlightDelta(final IndoorEntityHighlightDelta delta) {
+        m_nativeRunner.runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                sendIndoorEntityHighlightDelta(delta);
+            }
+        });
+    }
+
+    @UiThread
+    private void invalidateHighlights(String indoorMapId, List<String> indoorEntityIds) {
+        IndoorEntityHighlights highlights = m_indoorMapIdToHighlights.get(indoorMapId);
+        if (highlights != null) {
+            highlights.invalidate(indoorEntityIds);
+        }
+    }
+
+    @WorkerThread
+    private void sendIndoorEntityHighlightDelta(IndoorEntityHighlightDelta delta) {
+        // the native api takes string ids, so interned indices are resolved here, with one call
+        // for all cleared entities and one for each highlight style that has changed entities
+        if (delta.clearedIndices.length > 0) {
+            List<String> clearedIds = new ArrayList<>(delta.clearedIndices.length);
+            for (int index : delta.clearedIndices) {
+                clearedIds.add(delta.ids[index]);
+            }
+            nativeClearIndoorEntityHighlights(m_jniEegeoMapApiPtr, delta.indoorMapId, clearedIds);
+        }
+
+        if (delta.highlightedIndices.length == 0) {
+            return;
+        }
+
+        int[] styleStarts = new int[delta.styleCount + 1];
+        for (int style : delta.highlightedStyles) {
+            ++styleStarts[style + 1];
+        }
+        for (int style = 0; style < delta.styleCount; ++style) {
+            styleStarts[style + 1] += styleStarts[style];
+        }
+
+        String[] idsByStyle = new String[delta.highlightedIndices.length];
+        int[] styleFill = Arrays.copyOf(styleStarts, delta.styleCount);
+        for (int i = 0; i < delta.highlightedIndices.length; ++i) {
+            idsByStyle[styleFill[delta.highlightedStyles[i]]++] = delta.ids[delta.highlightedIndices[i]];
+        }
+
+        for (int style = 0; style < delta.styleCount; ++style) {
+            if (styleStarts[style] == styleStarts[style + 1]) {
+                continue;
+            }
+            List<String> styleIds = Arrays.asList(idsByStyle).subList(styleStarts[style], styleStarts[style + 1]);
+            nativeSetIndoorEntityHighlights(m_jniEegeoMapApiPtr, delta.indoorMapId, new ArrayList<>(styleIds),
+                    delta.colors[style], delta.borderThicknesses[style]);
+        }
+    }
+
     @UiThread
     public void addOnIndoorEntityPickedListener(OnIndoorEntityPickedListener listener) {
         m_onIndoorEntityPickedListeners.add(listener);
@@ -72,7 +151,7 @@ public class IndoorEntityApi {
             @UiThread
             @Override
             public void run() {
-                for (OnIndoorEntityPickedListener listener : m_onIndoorEntityPickedListeners) {
+                for (OnIndoorEntityPickedListener listener : m_onIndoorEntityPickedListeners.snapshot()) {
                     listener.onIndoorEntityPicked(message);
                 }
             }
@@ -0,0 +1,41 @@
+package com.eegeo.mapapi.indoorentities;
+
+/**
+ * The changes needed to bring the applied highlights of an indoor map in line with the desired
+ * highlights. Entities are referred to by their index in an IndoorEntityIdTable, and highlight
+ * styles by their index in the colors and borderThicknesses arrays.
+ *
+ * @eegeo.internal
+ */
+final class IndoorEntityHighlightDelta {
+    final String indoorMapId;
+    final String[] ids;
+    final int[] clearedIndices;
+    final int[] highlightedIndices;
+    final int[] highlightedStyles;
+    final int[] colors;
+    final float[] borderThicknesses;
+    final int styleCount;
+
+    IndoorEntityHighlightDelta(String indoorMapId,
+                               String[] ids,
+                               int[] clearedIndices,
+                               int[] highlightedIndices,
+                               int[] highlightedStyles,
+                               int[] colors,
+                               float[] borderThicknesses,
+                               int styleCount) {
+        this.indoorMapId = indoorMapId;
+        this.ids = ids;
+        this.clearedIndices = clearedIndices;
+        this.highlightedIndices = highlightedIndices;
+        this.highlightedStyles = highlightedStyles;
+        this.colors = colors;
+        this.borderThicknesses = borderThicknesses;
+        this.styleCount = styleCount;
+    }
+
+    boolean isEmpty() {
+        return clearedIndices.length == 0 && highlightedIndices.length == 0;
+    }
+}
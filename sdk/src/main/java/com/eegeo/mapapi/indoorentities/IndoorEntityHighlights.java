@@ -0,0 +1,252 @@
+package com.eegeo.mapapi.indoorentities;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * The desired highlight state of the entities in one indoor map. Highlights are changed on this
+ * object freely, then sent to the map together with apply(), which compares them with the
+ * highlights already applied and sends only the entities that have changed.
+ * <br>
+ * <br>
+ * This suits views which periodically rebuild a large set of highlights, only a few of which change
+ * each time. For example, a view could call unhighlightAll, highlight each occupied entity, and
+ * then apply, and only entities whose highlight was added, removed or recolored are sent.
+ * <br>
+ * <br>
+ * Obtain an instance with EegeoMap.getIndoorEntityHighlights. Mixing this object with
+ * EegeoMap.setIndoorEntityHighlights and clearIndoorEntityHighlights for the same entities is
+ * supported, but those calls cause the affected entities to be sent again on the next apply.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public final class IndoorEntityHighlights {
+    /**
+     * The default border thickness, as used by EegeoMap.setIndoorEntityHighlights.
+     */
+    public static final float DEFAULT_BORDER_THICKNESS = 0.5f;
+
+    private static final int STYLE_NONE = -1;
+    private static final int STYLE_UNKNOWN = -2;
+
+    private final IndoorEntityApi m_indoorEntityApi;
+    private final String m_indoorMapId;
+    private final IndoorEntityIdTable m_idTable = new IndoorEntityIdTable();
+    private int[] m_desiredStyles = new int[0];
+    private int[] m_appliedStyles = new int[0];
+
+    private final HashMap<Long, Integer> m_styleKeyToIndex = new HashMap<>();
+    private int[] m_styleColors = new int[4];
+    private float[] m_styleBorderThicknesses = new float[4];
+    private int m_styleCount = 0;
+
+    IndoorEntityHighlights(IndoorEntityApi indoorEntityApi, String indoorMapId) {
+        m_indoorEntityApi = indoorEntityApi;
+        m_indoorMapId = indoorMapId;
+    }
+
+    /**
+     * @return The id of the indoor map these highlights apply to.
+     */
+    public String getIndoorMapId() {
+        return m_indoorMapId;
+    }
+
+    /**
+     * Highlights an entity, replacing any highlight it already has.
+     *
+     * @param indoorEntityId           The id of the entity.
+     * @param highlightColorARGB       ARGB color for the highlight.
+     * @param highlightBorderThickness A value between 0.0f and 1.0f that describes how thick the
+     *                                 border should be.
+     */
+    @UiThread
+    public void highlight(@NonNull String indoorEntityId, int highlightColorARGB, float highlightBorderThickness) {
+        int style = internStyle(highlightColorARGB, highlightBorderThickness);
+        int index = internEntity(indoorEntityId);
+        m_desiredStyles[index] = style;
+    }
+
+    /**
+     * Highlights a number of entities with the same color and border thickness, replacing any
+     * highlights they already have.
+     *
+     * @param indoorEntityIds          The ids of the entities.
+     * @param highlightColorARGB       ARGB color for the highlight.
+     * @param highlightBorderThickness A value between 0.0f and 1.0f that describes how thick the
+     *                                 border should be.
+     */
+    @UiThread
+    public void highlight(@NonNull Collection<String> indoorEntityIds, int highlightColorARGB, float highlightBorderThickness) {
+        int style = internStyle(highlightColorARGB, highlightBorderThickness);
+        for (String indoorEntityId : indoorEntityIds) {
+            int index = internEntity(indoorEntityId);
+            m_desiredStyles[index] = style;
+        }
+    }
+
+    /**
+     * Highlights a number of entities with the same color and the default border thickness.
+     *
+     * @param indoorEntityIds    The ids of the entities.
+     * @param highlightColorARGB ARGB color for the highlight.
+     */
+    @UiThread
+    public void highlight(@NonNull Collection<String> indoorEntityIds, int highlightColorARGB) {
+        highlight(indoorEntityIds, highlightColorARGB, DEFAULT_BORDER_THICKNESS);
+    }
+
+    /**
+     * Removes the highlight from an entity.
+     *
+     * @param indoorEntityId The id of the entity.
+     */
+    @UiThread
+    public void unhighlight(@NonNull String indoorEntityId) {
+        int index = m_idTable.find(indoorEntityId);
+        if (index >= 0) {
+            m_desiredStyles[index] = STYLE_NONE;
+        }
+    }
+
+    /**
+     * Removes the highlights from a number of entities.
+     *
+     * @param indoorEntityIds The ids of the entities.
+     */
+    @UiThread
+    public void unhighlight(@NonNull Collection<String> indoorEntityIds) {
+        for (String indoorEntityId : indoorEntityIds) {
+            unhighlight(indoorEntityId);
+        }
+    }
+
+    /**
+     * Removes the highlights from all entities.
+     */
+    @UiThread
+    public void unhighlightAll() {
+        Arrays.fill(m_desiredStyles, 0, m_idTable.size(), STYLE_NONE);
+    }
+
+    /**
+     * @param indoorEntityId The id of an entity.
+     * @return True if the entity is highlighted in the desired state, whether or not it has been
+     * applied yet.
+     */
+    @UiThread
+    public boolean isHighlighted(@NonNull String indoorEntityId) {
+        int index = m_idTable.find(indoorEntityId);
+        return index >= 0 && m_desiredStyles[index] >= 0;
+    }
+
+    /**
+     * Sends the changes made since the last apply to the map.
+     *
+     * @return The number of entities whose highlight was changed.
+     */
+    @UiThread
+    public int apply() {
+        IndoorEntityHighlightDelta delta = computeDelta();
+        if (!delta.isEmpty()) {
+            m_indoorEntityApi.applyIndoorEntityHighlightDelta(delta);
+        }
+        return delta.clearedIndices.length + delta.highlightedIndices.length;
+    }
+
+    @UiThread
+    IndoorEntityHighlightDelta computeDelta() {
+        final int count = m_idTable.size();
+        int clearedCount = 0;
+        int highlightedCount = 0;
+        for (int i = 0; i < count; ++i) {
+            if (m_desiredStyles[i] != m_appliedStyles[i]) {
+                if (m_desiredStyles[i] == STYLE_NONE) {
+                    ++clearedCount;
+                } else {
+                    ++highlightedCount;
+                }
+            }
+        }
+
+        int[] clearedIndices = new int[clearedCount];
+        int[] highlightedIndices = new int[highlightedCount];
+        int[] highlightedStyles = new int[highlightedCount];
+        clearedCount = 0;
+        highlightedCount = 0;
+        for (int i = 0; i < count; ++i) {
+            int desiredStyle = m_desiredStyles[i];
+            if (desiredStyle == m_appliedStyles[i]) {
+                continue;
+            }
+
+            if (desiredStyle == STYLE_NONE) {
+                clearedIndices[clearedCount++] = i;
+            } else {
+                highlightedIndices[highlightedCount] = i;
+                highlightedStyles[highlightedCount++] = desiredStyle;
+            }
+            m_appliedStyles[i] = desiredStyle;
+        }
+
+        // the id and style arrays are append-only, so the delta can share them with the native thread
+        return new IndoorEntityHighlightDelta(m_indoorMapId,
+                m_idTable.getIds(),
+                clearedIndices,
+                highlightedIndices,
+                highlightedStyles,
+                m_styleColors,
+                m_styleBorderThicknesses,
+                m_styleCount);
+    }
+
+    @UiThread
+    void invalidate(Collection<String> indoorEntityIds) {
+        for (String indoorEntityId : indoorEntityIds) {
+            int index = m_idTable.find(indoorEntityId);
+            if (index >= 0) {
+                m_appliedStyles[index] = STYLE_UNKNOWN;
+            }
+        }
+    }
+
+    @UiThread
+    void onAllHighlightsCleared() {
+        Arrays.fill(m_appliedStyles, 0, m_idTable.size(), STYLE_NONE);
+    }
+
+    private int internEntity(String indoorEntityId) {
+        int index = m_idTable.intern(indoorEntityId);
+        if (index >= m_desiredStyles.length) {
+            int newLength = Math.max(index + 1, m_desiredStyles.length * 2);
+            int oldLength = m_desiredStyles.length;
+            m_desiredStyles = Arrays.copyOf(m_desiredStyles, newLength);
+            m_appliedStyles = Arrays.copyOf(m_appliedStyles, newLength);
+            Arrays.fill(m_desiredStyles, oldLength, newLength, STYLE_NONE);
+            Arrays.fill(m_appliedStyles, oldLength, newLength, STYLE_NONE);
+        }
+        return index;
+    }
+
+    private int internStyle(int colorARGB, float borderThickness) {
+        long key = ((long) colorARGB << 32) | (Float.floatToIntBits(borderThickness) & 0xffffffffL);
+        Integer style = m_styleKeyToIndex.get(key);
+        if (style != null) {
+            return style;
+        }
+
+        if (m_styleCount == m_styleColors.length) {
+            m_styleColors = Arrays.copyOf(m_styleColors, m_styleCount * 2);
+            m_styleBorderThicknesses = Arrays.copyOf(m_styleBorderThicknesses, m_styleCount * 2);
+        }
+        m_styleColors[m_styleCount] = colorARGB;
+        m_styleBorderThicknesses[m_styleCount] = borderThickness;
+        m_styleKeyToIndex.put(key, m_styleCount);
+        return m_styleCount++;
+    }
+}
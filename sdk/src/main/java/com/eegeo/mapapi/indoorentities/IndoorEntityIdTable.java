@@ -0,0 +1,46 @@
+package com.eegeo.mapapi.indoorentities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Maps the string ids of the entities in one indoor map to dense int indices, so that sets of
+ * entities can be held and compared as primitive arrays. Entries are never removed, and the array
+ * returned by getIds only ever has entries appended, so it may be handed to the native thread
+ * without copying.
+ *
+ * @eegeo.internal
+ */
+final class IndoorEntityIdTable {
+    private final HashMap<String, Integer> m_idToIndex = new HashMap<>();
+    private String[] m_ids = new String[64];
+    private int m_count = 0;
+
+    int intern(String indoorEntityId) {
+        Integer index = m_idToIndex.get(indoorEntityId);
+        if (index != null) {
+            return index;
+        }
+
+        if (m_count == m_ids.length) {
+            // copied rather than grown in place, so arrays already handed out stay unchanged
+            m_ids = Arrays.copyOf(m_ids, m_count * 2);
+        }
+        m_ids[m_count] = indoorEntityId;
+        m_idToIndex.put(indoorEntityId, m_count);
+        return m_count++;
+    }
+
+    int find(String indoorEntityId) {
+        Integer index = m_idToIndex.get(indoorEntityId);
+        return index == null ? -1 : index;
+    }
+
+    int size() {
+        return m_count;
+    }
+
+    String[] getIds() {
+        return m_ids;
+    }
+}
@@ -0,0 +1,401 @@
+package com.eegeo.mapapi.indoorentities;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineGeometry;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineInformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A spatial index of the entities of an indoor map, answering nearest-entity and floor containment
+ * queries without a round trip to the map. Entities are indexed by their positions in a packed
+ * R-tree per floor, and floors by their outlines.
+ * <br>
+ * <br>
+ * Build an index once an IndoorMapEntityInformation has finished loading, with
+ * build(IndoorMapEntityInformation, Collection). The index is immutable, and its query methods may
+ * be called on any thread.
+ */
+public final class IndoorMapEntityIndex {
+    private static final double EARTH_RADIUS_METERS = 6378137.0;
+
+    private final String m_indoorMapId;
+    private final Map<Integer, FloorTree> m_floorIdToTree;
+    private final Map<Integer, IndoorMapFloorOutlineGeometry> m_floorIdToOutline;
+    private final int m_entityCount;
+
+    private IndoorMapEntityIndex(String indoorMapId,
+                                 Map<Integer, FloorTree> floorIdToTree,
+                                 Map<Integer, IndoorMapFloorOutlineGeometry> floorIdToOutline,
+                                 int entityCount) {
+        m_indoorMapId = indoorMapId;
+        m_floorIdToTree = floorIdToTree;
+        m_floorIdToOutline = floorIdToOutline;
+        m_entityCount = entityCount;
+    }
+
+    /**
+     * Builds an index from the entities currently held by an IndoorMapEntityInformation, and the
+     * outlines of any of its floors which have loaded.
+     *
+     * @param entityInformation Entity information for the indoor map.
+     * @param floorOutlines     Outline information for floors of the same indoor map. Outlines
+     *                          which have not loaded are ignored.
+     * @return The index.
+     */
+    @UiThread
+    @NonNull
+    public static IndoorMapEntityIndex build(@NonNull IndoorMapEntityInformation entityInformation,
+                                             @NonNull Collection<IndoorMapFloorOutlineInformation> floorOutlines) {
+        Map<Integer, IndoorMapFloorOutlineGeometry> floorIdToOutline = new HashMap<>();
+        for (IndoorMapFloorOutlineInformation floorOutline : floorOutlines) {
+            IndoorMapFloorOutlineGeometry geometry = floorOutline.getIndoorMapFloorOutlineGeometry();
+            if (geometry != null && entityInformation.getIndoorMapId().equals(floorOutline.getIndoorMapId())) {
+                floorIdToOutline.put(floorOutline.getIndoorMapFloorId(), geometry);
+            }
+        }
+        return build(entityInformation.getIndoorMapId(), entityInformation.getIndoorMapEntities(), floorIdToOutline);
+    }
+
+    /**
+     * Builds an index from a set of entities and floor outlines.
+     *
+     * @param indoorMapId      The id of the indoor map.
+     * @param entities         The entities of the indoor map.
+     * @param floorIdToOutline Floor outlines, keyed by floor id.
+     * @return The index.
+     */
+    @NonNull
+    public static IndoorMapEntityIndex build(@NonNull String indoorMapId,
+                                             @NonNull Collection<IndoorMapEntity> entities,
+                                             @NonNull Map<Integer, IndoorMapFloorOutlineGeometry> floorIdToOutline) {
+        Map<Integer, List<IndoorMapEntity>> floorIdToEntities = new HashMap<>();
+        for (IndoorMapEntity entity : entities) {
+            List<IndoorMapEntity> floorEntities = floorIdToEntities.get(entity.indoorMapFloorId);
+            if (floorEntities == null) {
+                floorEntities = new ArrayList<>();
+                floorIdToEntities.put(entity.indoorMapFloorId, floorEntities);
+            }
+            floorEntities.add(entity);
+        }
+
+        Map<Integer, FloorTree> floorIdToTree = new HashMap<>();
+        for (Map.Entry<Integer, List<IndoorMapEntity>> entry : floorIdToEntities.entrySet()) {
+            floorIdToTree.put(entry.getKey(), new FloorTree(entry.getValue()));
+        }
+
+        return new IndoorMapEntityIndex(indoorMapId, floorIdToTree, new HashMap<>(floorIdToOutline), entities.size());
+    }
+
+    /**
+     * @return The id of the indoor map this index was built for.
+     */
+    public String getIndoorMapId() {
+        return m_indoorMapId;
+    }
+
+    /**
+     * @return The number of entities in the index.
+     */
+    public int getEntityCount() {
+        return m_entityCount;
+    }
+
+    /**
+     * Tests whether a point lies within the outline of a floor.
+     *
+     * @param indoorMapFloorId The id of the floor.
+     * @param latitude         Latitude of the point, in degrees.
+     * @param longitude        Longitude of the point, in degrees.
+     * @return True if the floor's outline was available when the index was built and contains the point.
+     */
+    public boolean isInsideFloor(int indoorMapFloorId, double latitude, double longitude) {
+        IndoorMapFloorOutlineGeometry outline = m_floorIdToOutline.get(indoorMapFloorId);
+        return outline != null && outline.contains(latitude, longitude);
+    }
+
+    /**
+     * Finds the entity whose position is nearest to a point on a floor, provided the point is
+     * inside the floor and the entity is within a maximum distance. This is suitable for deciding
+     * which room or desk a location fix is in.
+     *
+     * @param indoorMapFloorId   The id of the floor.
+     * @param latitude           Latitude of the point, in degrees.
+     * @param longitude          Longitude of the point, in degrees.
+     * @param maxDistanceMeters  The maximum distance from the point to the entity's position.
+     * @return The entity, or null if the point is outside the floor or no entity is near enough.
+     * If the floor's outline was not available when the index was built, only distance is tested.
+     */
+    public IndoorMapEntity findEntityAt(int indoorMapFloorId, double latitude, double longitude, double maxDistanceMeters) {
+        IndoorMapFloorOutlineGeometry outline = m_floorIdToOutline.get(indoorMapFloorId);
+        if (outline != null && !outline.contains(latitude, longitude)) {
+            return null;
+        }
+
+        List<IndoorMapEntity> nearest = findNearestEntities(indoorMapFloorId, latitude, longitude, 1, maxDistanceMeters);
+        return nearest.isEmpty() ? null : nearest.get(0);
+    }
+
+    /**
+     * Finds the entities nearest to a point on a floor.
+     *
+     * @param indoorMapFloorId The id of the floor.
+     * @param latitude         Latitude of the point, in degrees.
+     * @param longitude        Longitude of the point, in degrees.
+     * @param count            The maximum number of entities to return.
+     * @return Up to count entities, nearest first.
+     */
+    @NonNull
+    public List<IndoorMapEntity> findNearestEntities(int indoorMapFloorId, double latitude, double longitude, int count) {
+        return findNearestEntities(indoorMapFloorId, latitude, longitude, count, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the entities nearest to a point on a floor, within a maximum distance.
+     *
+     * @param indoorMapFloorId  The id of the floor.
+     * @param latitude          Latitude of the point, in degrees.
+     * @param longitude         Longitude of the point, in degrees.
+     * @param count             The maximum number of entities to return.
+     * @param maxDistanceMeters The maximum distance from the point to an entity's position.
+     * @return Up to count entities, nearest first.
+     */
+    @NonNull
+    public List<IndoorMapEntity> findNearestEntities(int indoorMapFloorId, double latitude, double longitude, int count, double maxDistanceMeters) {
+        FloorTree tree = m_floorIdToTree.get(indoorMapFloorId);
+        if (tree == null || count <= 0) {
+            return Collections.emptyList();
+        }
+        return tree.findNearest(latitude, longitude, count, maxDistanceMeters);
+    }
+
+    /**
+     * Finds all entities on a floor whose positions are within a distance of a point.
+     *
+     * @param indoorMapFloorId The id of the floor.
+     * @param latitude         Latitude of the point, in degrees.
+     * @param longitude        Longitude of the point, in degrees.
+     * @param radiusMeters     The distance from the point.
+     * @return The entities, in no particular order.
+     */
+    @NonNull
+    public List<IndoorMapEntity> findEntitiesWithinRadius(int indoorMapFloorId, double latitude, double longitude, double radiusMeters) {
+        FloorTree tree = m_floorIdToTree.get(indoorMapFloorId);
+        if (tree == null) {
+            return Collections.emptyList();
+        }
+        return tree.findWithinRadius(latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * A static R-tree over the positions of the entities on one floor, bulk loaded by
+     * sort-tile-recursive packing. Positions are projected to a local plane in meters, so that
+     * distances can be compared directly.
+     */
+    private static final class FloorTree {
+        private static final int NODE_SIZE = 16;
+
+        private final IndoorMapEntity[] m_entities;
+        private final double m_originLatitude;
+        private final double m_originLongitude;
+        private final double m_metersPerDegreeLongitude;
+        // nodes of every level, leaves first; four bounds (minX, minY, maxX, maxY) per node
+        private final double[] m_bounds;
+        // for leaves, the entity index; for inner nodes, the position of the first child
+        private final int[] m_indices;
+        // for each level, the position one past its last node
+        private final int[] m_levelEnds;
+
+        FloorTree(List<IndoorMapEntity> entities) {
+            final int count = entities.size();
+            m_originLatitude = entities.get(0).position.latitude;
+            m_originLongitude = entities.get(0).position.longitude;
+            m_metersPerDegreeLongitude = Math.toRadians(EARTH_RADIUS_METERS) * Math.cos(Math.toRadians(m_originLatitude));
+
+            final double[] x = new double[count];
+            final double[] y = new double[count];
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; ++i) {
+                x[i] = projectX(entities.get(i).position.longitude);
+                y[i] = projectY(entities.get(i).position.latitude);
+                order[i] = i;
+            }
+            sortTileRecursive(order, x, y);
+
+            int nodeCount = count;
+            List<Integer> levelEnds = new ArrayList<>();
+            levelEnds.add(count);
+            for (int levelSize = count; levelSize > 1; ) {
+                levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+                nodeCount += levelSize;
+                levelEnds.add(nodeCount);
+            }
+
+            m_entities = new IndoorMapEntity[count];
+            m_bounds = new double[nodeCount * 4];
+            m_indices = new int[nodeCount];
+            m_levelEnds = new int[levelEnds.size()];
+            for (int i = 0; i < m_levelEnds.length; ++i) {
+                m_levelEnds[i] = levelEnds.get(i);
+            }
+
+            for (int i = 0; i < count; ++i) {
+                int entityIndex = order[i];
+                m_entities[i] = entities.get(entityIndex);
+                m_indices[i] = i;
+                m_bounds[i * 4] = m_bounds[i * 4 + 2] = x[entityIndex];
+                m_bounds[i * 4 + 1] = m_bounds[i * 4 + 3] = y[entityIndex];
+            }
+
+            int levelStart = 0;
+            for (int level = 0; level + 1 < m_levelEnds.length; ++level) {
+                int levelEnd = m_levelEnds[level];
+                int parent = levelEnd;
+                for (int child = levelStart; child < levelEnd; child += NODE_SIZE, ++parent) {
+                    int childEnd = Math.min(child + NODE_SIZE, levelEnd);
+                    double minX = Double.POSITIVE_INFINITY;
+                    double minY = Double.POSITIVE_INFINITY;
+                    double maxX = Double.NEGATIVE_INFINITY;
+                    double maxY = Double.NEGATIVE_INFINITY;
+                    for (int i = child; i < childEnd; ++i) {
+                        minX = Math.min(minX, m_bounds[i * 4]);
+                        minY = Math.min(minY, m_bounds[i * 4 + 1]);
+                        maxX = Math.max(maxX, m_bounds[i * 4 + 2]);
+                        maxY = Math.max(maxY, m_bounds[i * 4 + 3]);
+                    }
+                    m_bounds[parent * 4] = minX;
+                    m_bounds[parent * 4 + 1] = minY;
+                    m_bounds[parent * 4 + 2] = maxX;
+                    m_bounds[parent * 4 + 3] = maxY;
+                    m_indices[parent] = child;
+                }
+                levelStart = levelEnd;
+            }
+        }
+
+        List<IndoorMapEntity> findNearest(double latitude, double longitude, int count, double maxDistanceMeters) {
+            final double px = projectX(longitude);
+            final double py = projectY(latitude);
+            final double maxDistanceSquared = maxDistanceMeters * maxDistanceMeters;
+
+            // entries are node positions with their squared distances; negative positions are leaves
+            PriorityQueue<double[]> queue = new PriorityQueue<>(64, new Comparator<double[]>() {
+                @Override
+                public int compare(double[] a, double[] b) {
+                    return Double.compare(a[0], b[0]);
+                }
+            });
+
+            List<IndoorMapEntity> results = new ArrayList<>(Math.min(count, m_entities.length));
+            int root = m_levelEnds[m_levelEnds.length - 1] - 1;
+            queue.add(new double[]{distanceSquared(root, px, py), root});
+            while (!queue.isEmpty() && results.size() < count) {
+                double[] entry = queue.poll();
+                if (entry[0] > maxDistanceSquared) {
+                    break;
+                }
+
+                int position = (int) entry[1];
+                if (position < m_entities.length) {
+                    results.add(m_entities[m_indices[position]]);
+                    continue;
+                }
+
+                int firstChild = m_indices[position];
+                int childEnd = Math.min(firstChild + NODE_SIZE, levelEndOf(firstChild));
+                for (int child = firstChild; child < childEnd; ++child) {
+                    queue.add(new double[]{distanceSquared(child, px, py), child});
+                }
+            }
+            return results;
+        }
+
+        List<IndoorMapEntity> findWithinRadius(double latitude, double longitude, double radiusMeters) {
+            final double px = projectX(longitude);
+            final double py = projectY(latitude);
+            final double radiusSquared = radiusMeters * radiusMeters;
+
+            List<IndoorMapEntity> results = new ArrayList<>();
+            int[] stack = new int[64];
+            int stackSize = 0;
+            stack[stackSize++] = m_levelEnds[m_levelEnds.length - 1] - 1;
+            while (stackSize > 0) {
+                int position = stack[--stackSize];
+                if (distanceSquared(position, px, py) > radiusSquared) {
+                    continue;
+                }
+
+                if (position < m_entities.length) {
+                    results.add(m_entities[m_indices[position]]);
+                    continue;
+                }
+
+                int firstChild = m_indices[position];
+                int childEnd = Math.min(firstChild + NODE_SIZE, levelEndOf(firstChild));
+                for (int child = firstChild; child < childEnd; ++child) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    }
+                    stack[stackSize++] = child;
+                }
+            }
+            return results;
+        }
+
+        private int levelEndOf(int position) {
+            for (int levelEnd : m_levelEnds) {
+                if (position < levelEnd) {
+                    return levelEnd;
+                }
+            }
+            return m_levelEnds[m_levelEnds.length - 1];
+        }
+
+        private double distanceSquared(int position, double px, double py) {
+            double dx = Math.max(0.0, Math.max(m_bounds[position * 4] - px, px - m_bounds[position * 4 + 2]));
+            double dy = Math.max(0.0, Math.max(m_bounds[position * 4 + 1] - py, py - m_bounds[position * 4 + 3]));
+            return dx * dx + dy * dy;
+        }
+
+        private double projectX(double longitude) {
+            return (longitude - m_originLongitude) * m_metersPerDegreeLongitude;
+        }
+
+        private double projectY(double latitude) {
+            return (latitude - m_originLatitude) * Math.toRadians(EARTH_RADIUS_METERS);
+        }
+
+        private static void sortTileRecursive(Integer[] order, final double[] x, final double[] y) {
+            int leafCount = (order.length + NODE_SIZE - 1) / NODE_SIZE;
+            int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+            int sliceSize = sliceCount * NODE_SIZE;
+
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(x[a], x[b]);
+                }
+            });
+
+            Comparator<Integer> byY = new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(y[a], y[b]);
+                }
+            };
+            for (int sliceStart = 0; sliceStart < order.length; sliceStart += sliceSize) {
+                Arrays.sort(order, sliceStart, Math.min(sliceStart + sliceSize, order.length), byY);
+            }
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package com.eegeo.mapapi.indooroutlines;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of indoor map floor outlines, keyed by indoor map id and floor id. Outlines are held in
+ * memory up to a byte budget, evicting the least recently used first, and may optionally also be
+ * persisted to a directory so that they survive between sessions.
+ * <br>
+ * <br>
+ * When an IndoorMapFloorOutlineInformation is added for a floor whose outline is in the cache, it is
+ * populated directly from the cache, without creating a native outline object or waiting for map
+ * tiles to stream in. Outlines on disk are read on a background thread, and one that cannot be
+ * read is loaded from the map instead. Outlines loaded from the map are added to the cache as
+ * they arrive, and written to disk if they are not there already.
+ * <br>
+ * <br>
+ * The files on disk may also be limited to a byte budget, again evicting the least recently used
+ * first. The outlines of pinned indoor maps are never evicted, from memory or disk, and are kept
+ * when the cache is trimmed.
+ * <br>
+ * <br>
+ * Methods in this class are thread safe. Files are read and written without holding the cache's
+ * lock, so a thread doing disk I/O does not block other threads using outlines held in memory.
+ */
+public class IndoorMapFloorOutlineCache {
+    /**
+     * The default in-memory budget, in bytes.
+     */
+    public static final int DEFAULT_MAX_MEMORY_BYTES = 4 * 1024 * 1024;
+
+    private static final String FILE_EXTENSION = ".outline";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final LinkedHashMap<String, IndoorMapFloorOutlineGeometry> m_entries = new LinkedHashMap<>(16, 0.75f, true);
+    // file stem to file size, in least recently used order
+    private final LinkedHashMap<String, Long> m_files = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashSet<String> m_pinnedIndoorMapIds = new HashSet<>();
+    private final int m_maxMemoryBytes;
+    private final File m_directory;
+    private final long m_maxDiskBytes;
+    private int m_memoryBytes = 0;
+    private long m_diskBytes = 0;
+    private int m_hitCount = 0;
+    private int m_missCount = 0;
+    private int m_evictionCount = 0;
+    // the directory is listed on first use rather than on construction, as it may hold many files
+    private boolean m_indexed = false;
+
+    /**
+     * Creates a cache held only in memory.
+     *
+     * @param maxMemoryBytes The maximum size of outlines held in memory, in bytes.
+     */
+    public IndoorMapFloorOutlineCache(int maxMemoryBytes) {
+        this(maxMemoryBytes, null);
+    }
+
+    /**
+     * Creates a cache held in memory and persisted to a directory, for example a subdirectory of
+     * Context.getCacheDir(). Outlines evicted from memory remain on disk, and are read back when
+     * next requested.
+     *
+     * @param maxMemoryBytes The maximum size of outlines held in memory, in bytes.
+     * @param directory      The directory outline files are stored in, or null to keep outlines
+     *                       only in memory. It is created on first use if it does not exist.
+     */
+    public IndoorMapFloorOutlineCache(int maxMemoryBytes, @Nullable File directory) {
+        this(maxMemoryBytes, directory, 0);
+    }
+
+    /**
+     * Creates a cache held in memory and persisted to a directory, with the size of the files in
+     * the directory limited to a budget. Files already in the directory count towards the budget,
+     * oldest first. The directory is not accessed until the cache is first used.
+     *
+     * @param maxMemoryBytes The maximum size of outlines held in memory, in bytes.
+     * @param directory      The directory outline files are stored in, or null to keep outlines
+     *                       only in memory. It is created on first use if it does not exist.
+     * @param maxDiskBytes   The maximum size of the outline files, in bytes, or zero for no limit.
+     */
+    public IndoorMapFloorOutlineCache(int maxMemoryBytes, @Nullable File directory, long maxDiskBytes) {
+        if (maxMemoryBytes < 0) {
+            throw new IllegalArgumentException("maxMemoryBytes must not be negative");
+        }
+        if (maxDiskBytes < 0) {
+            throw new IllegalArgumentException("maxDiskBytes must not be negative");
+        }
+        m_maxMemoryBytes = maxMemoryBytes;
+        m_directory = directory;
+        m_maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Gets the outline of a floor, from memory or, failing that, from disk.
+     *
+     * @param indoorMapId      The id of the indoor map.
+     * @param indoorMapFloorId The id of the floor.
+     * @return The outline, or null if it is not in the cache.
+     */
+    @Nullable
+    public IndoorMapFloorOutlineGeometry get(@NonNull String indoorMapId, int indoorMapFloorId) {
+        String key = makeKey(indoorMapId, indoorMapFloorId);
+        synchronized (this) {
+            IndoorMapFloorOutlineGeometry geometry = getFromMemory(key);
+            if (geometry != null) {
+                return geometry;
+            }
+        }
+
+        ensureIndexed();
+        String fileStem;
+        synchronized (this) {
+            fileStem = (m_directory != null) ? toFileStem(key) : null;
+            // get rather than containsKey, to move the file to the back of the disk eviction order
+            if (fileStem == null || m_files.get(fileStem) == null) {
+                ++m_missCount;
+                return null;
+            }
+        }
+
+        IndoorMapFloorOutlineGeometry geometry = readFile(fileStem);
+
+        synchronized (this) {
+            if (geometry != null) {
+                putInMemory(key, geometry);
+                ++m_hitCount;
+            } else {
+                // a truncated or outdated file is treated as a miss, and replaced on the next put
+                removeFile(fileStem);
+                ++m_missCount;
+            }
+        }
+        return geometry;
+    }
+
+    /**
+     * Gets the outline of a floor only if it is held in memory, without reading from disk. A miss
+     * is not counted, as the caller is expected to follow it with get or recordMiss.
+     */
+    @Nullable
+    synchronized IndoorMapFloorOutlineGeometry getFromMemory(@NonNull String indoorMapId, int indoorMapFloorId) {
+        return getFromMemory(makeKey(indoorMapId, indoorMapFloorId));
+    }
+
+    /**
+     * Adds or replaces the outline of a floor.
+     *
+     * @param indoorMapId      The id of the indoor map.
+     * @param indoorMapFloorId The id of the floor.
+     * @param geometry         The floor outline.
+     */
+    public void put(@NonNull String indoorMapId, int indoorMapFloorId, @NonNull IndoorMapFloorOutlineGeometry geometry) {
+        putInMemoryOnly(indoorMapId, indoorMapFloorId, geometry);
+        writeToDisk(indoorMapId, indoorMapFloorId, geometry);
+    }
+
+    /**
+     * Adds or replaces the outline of a floor in memory, without writing it to disk.
+     */
+    synchronized void putInMemoryOnly(@NonNull String indoorMapId, int indoorMapFloorId, @NonNull IndoorMapFloorOutlineGeometry geometry) {
+        putInMemory(makeKey(indoorMapId, indoorMapFloorId), geometry);
+    }
+
+    /**
+     * Writes the outline of a floor to disk, if the cache is persisted.
+     */
+    void writeToDisk(@NonNull String indoorMapId, int indoorMapFloorId, @NonNull IndoorMapFloorOutlineGeometry geometry) {
+        if (m_directory == null) {
+            return;
+        }
+
+        ensureIndexed();
+        String fileStem = toFileStem(makeKey(indoorMapId, indoorMapFloorId));
+        long fileBytes = writeFile(fileStem, geometry);
+        if (fileBytes < 0) {
+            return;
+        }
+
+        synchronized (this) {
+            Long previousBytes = m_files.put(fileStem, fileBytes);
+            if (previousBytes != null) {
+                m_diskBytes -= previousBytes;
+            }
+            m_diskBytes += fileBytes;
+            evictFiles();
+        }
+    }
+
+    /**
+     * @return True if the outline of a floor has a file on disk, without reading it. Always false
+     * until the directory has been indexed.
+     */
+    synchronized boolean isOnDisk(@NonNull String indoorMapId, int indoorMapFloorId) {
+        return m_directory != null && m_files.containsKey(toFileStem(makeKey(indoorMapId, indoorMapFloorId)));
+    }
+
+    /**
+     * Counts a request for an outline which was in neither memory nor on disk, for callers that
+     * check both without calling get.
+     */
+    synchronized void recordMiss() {
+        ++m_missCount;
+    }
+
+    /**
+     * @return True if outlines are persisted to a directory.
+     */
+    boolean isPersistent() {
+        return m_directory != null;
+    }
+
+    /**
+     * Removes all outlines of an indoor map, in memory and on disk.
+     *
+     * @param indoorMapId The id of the indoor map.
+     */
+    public void removeIndoorMap(@NonNull String indoorMapId) {
+        ensureIndexed();
+        removeIndexedIndoorMap(indoorMapId);
+    }
+
+    private synchronized void removeIndexedIndoorMap(String indoorMapId) {
+        unpinIndexedIndoorMap(indoorMapId);
+        String prefix = makeKeyPrefix(indoorMapId);
+        Iterator<Map.Entry<String, IndoorMapFloorOutlineGeometry>> iterator = m_entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, IndoorMapFloorOutlineGeometry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                m_memoryBytes -= entry.getValue().getSizeInBytes();
+                iterator.remove();
+            }
+        }
+
+        if (m_directory != null) {
+            String filePrefix = toFileStem(prefix);
+            Iterator<Map.Entry<String, Long>> fileIterator = m_files.entrySet().iterator();
+            while (fileIterator.hasNext()) {
+                Map.Entry<String, Long> entry = fileIterator.next();
+                if (entry.getKey().startsWith(filePrefix)) {
+                    m_diskBytes -= entry.getValue();
+                    getFileForStem(entry.getKey()).delete();
+                    fileIterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Pins the outlines of an indoor map, so that they are not evicted from memory or disk, or
+     * removed when the cache is trimmed. Pinned outlines still count towards the budgets. This is
+     * intended for indoor maps in precached areas, which should remain available offline.
+     *
+     * @param indoorMapId The id of the indoor map.
+     */
+    public synchronized void pinIndoorMap(@NonNull String indoorMapId) {
+        m_pinnedIndoorMapIds.add(indoorMapId);
+    }
+
+    /**
+     * Unpins the outlines of an indoor map, allowing them to be evicted again.
+     *
+     * @param indoorMapId The id of the indoor map.
+     */
+    public void unpinIndoorMap(@NonNull String indoorMapId) {
+        ensureIndexed();
+        unpinIndexedIndoorMap(indoorMapId);
+    }
+
+    private synchronized void unpinIndexedIndoorMap(String indoorMapId) {
+        if (m_pinnedIndoorMapIds.remove(indoorMapId)) {
+            evictMemory(m_maxMemoryBytes);
+            evictFiles();
+        }
+    }
+
+    /**
+     * @param indoorMapId The id of an indoor map.
+     * @return True if the outlines of the indoor map are pinned.
+     */
+    public synchronized boolean isIndoorMapPinned(@NonNull String indoorMapId) {
+        return m_pinnedIndoorMapIds.contains(indoorMapId);
+    }
+
+    /**
+     * Releases memory in response to memory pressure, using the levels passed to
+     * ComponentCallbacks2.onTrimMemory. At TRIM_MEMORY_RUNNING_CRITICAL, TRIM_MEMORY_MODERATE and
+     * above, all unpinned outlines are removed from memory; at lower levels, memory is reduced to a
+     * half or three quarters of the budget. Outlines persisted to disk are kept.
+     *
+     * @param level The trim level.
+     */
+    public synchronized void trim(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictMemory(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            evictMemory(m_maxMemoryBytes / 2);
+        } else {
+            evictMemory(m_maxMemoryBytes / 4 * 3);
+        }
+    }
+
+    /**
+     * Removes all outlines held in memory. Outlines persisted to disk are kept.
+     */
+    public synchronized void clearMemory() {
+        m_entries.clear();
+        m_memoryBytes = 0;
+    }
+
+    /**
+     * @return The size of the outline files on disk, in bytes.
+     */
+    public long getDiskBytes() {
+        ensureIndexed();
+        synchronized (this) {
+            return m_diskBytes;
+        }
+    }
+
+    /**
+     * @return The size of the outlines currently held in memory, in bytes.
+     */
+    public synchronized int getMemoryBytes() {
+        return m_memoryBytes;
+    }
+
+    /**
+     * @return The number of requests for outlines which were found in the cache.
+     */
+    public synchronized int getHitCount() {
+        return m_hitCount;
+    }
+
+    /**
+     * @return The number of requests for outlines which were not found in the cache.
+     */
+    public synchronized int getMissCount() {
+        return m_missCount;
+    }
+
+    /**
+     * @return The fraction of requests for outlines which were found in the cache, or zero if
+     * there have been no requests.
+     */
+    public synchronized float getHitRate() {
+        int requestCount = m_hitCount + m_missCount;
+        return requestCount > 0 ? (float) m_hitCount / requestCount : 0.0f;
+    }
+
+    /**
+     * @return The number of outlines evicted from memory or disk to stay within the budgets, or
+     * removed by trim.
+     */
+    public synchronized int getEvictionCount() {
+        return m_evictionCount;
+    }
+
+    private IndoorMapFloorOutlineGeometry getFromMemory(String key) {
+        IndoorMapFloorOutlineGeometry geometry = m_entries.get(key);
+        if (geometry != null) {
+            if (m_directory != null) {
+                // keeps the file's position in the disk eviction order in step with memory
+                m_files.get(toFileStem(key));
+            }
+            ++m_hitCount;
+        }
+        return geometry;
+    }
+
+    private void putInMemory(String key, IndoorMapFloorOutlineGeometry geometry) {
+        IndoorMapFloorOutlineGeometry previous = m_entries.put(key, geometry);
+        if (previous != null) {
+            m_memoryBytes -= previous.getSizeInBytes();
+        }
+        m_memoryBytes += geometry.getSizeInBytes();
+        evictMemory(m_maxMemoryBytes);
+    }
+
+    private void evictMemory(int maxMemoryBytes) {
+        Iterator<Map.Entry<String, IndoorMapFloorOutlineGeometry>> iterator = m_entries.entrySet().iterator();
+        while (m_memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            Map.Entry<String, IndoorMapFloorOutlineGeometry> entry = iterator.next();
+            if (isPinnedKey(entry.getKey())) {
+                continue;
+            }
+            m_memoryBytes -= entry.getValue().getSizeInBytes();
+            iterator.remove();
+            ++m_evictionCount;
+        }
+    }
+
+    private void evictFiles() {
+        if (m_directory == null || m_maxDiskBytes == 0) {
+            return;
+        }
+
+        Iterator<Map.Entry<String, Long>> iterator = m_files.entrySet().iterator();
+        while (m_diskBytes > m_maxDiskBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (isPinnedFileStem(entry.getKey())) {
+                continue;
+            }
+            m_diskBytes -= entry.getValue();
+            getFileForStem(entry.getKey()).delete();
+            iterator.remove();
+            ++m_evictionCount;
+        }
+    }
+
+    private boolean isPinnedKey(String key) {
+        if (m_pinnedIndoorMapIds.isEmpty()) {
+            return false;
+        }
+        return m_pinnedIndoorMapIds.contains(key.substring(0, key.lastIndexOf('\n')));
+    }
+
+    private boolean isPinnedFileStem(String fileStem) {
+        for (String indoorMapId : m_pinnedIndoorMapIds) {
+            if (fileStem.startsWith(toFileStem(makeKeyPrefix(indoorMapId)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the directory if need be and indexes the files in it, if not already done. The
+     * directory is listed without holding the cache's lock, so this may be called on a background
+     * thread while outlines held in memory are used on others.
+     */
+    void ensureIndexed() {
+        if (m_directory == null) {
+            return;
+        }
+        synchronized (this) {
+            if (m_indexed) {
+                return;
+            }
+        }
+
+        File[] files = null;
+        if (m_directory.isDirectory() || m_directory.mkdirs()) {
+            files = m_directory.listFiles();
+        }
+        if (files == null) {
+            files = new File[0];
+        }
+        // the oldest files are the first to be evicted
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long aModified = a.lastModified();
+                long bModified = b.lastModified();
+                return aModified < bModified ? -1 : (aModified == bModified ? 0 : 1);
+            }
+        });
+        LinkedHashMap<String, Long> found = new LinkedHashMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(FILE_EXTENSION) && file.isFile()) {
+                found.put(name.substring(0, name.length() - FILE_EXTENSION.length()), file.length());
+            } else if (name.endsWith(".tmp") && name.contains(FILE_EXTENSION)) {
+                // left behind by a write that was interrupted
+                file.delete();
+            }
+        }
+
+        synchronized (this) {
+            if (m_indexed) {
+                return;
+            }
+            m_indexed = true;
+            // files written while the directory was listed are already counted, and are the most recently used
+            LinkedHashMap<String, Long> written = new LinkedHashMap<>(m_files);
+            m_files.clear();
+            for (Map.Entry<String, Long> entry : found.entrySet()) {
+                if (!written.containsKey(entry.getKey())) {
+                    m_files.put(entry.getKey(), entry.getValue());
+                    m_diskBytes += entry.getValue();
+                }
+            }
+            m_files.putAll(written);
+            evictFiles();
+        }
+    }
+
+    private void removeFile(String fileStem) {
+        Long fileBytes = m_files.remove(fileStem);
+        if (fileBytes != null) {
+            m_diskBytes -= fileBytes;
+            getFileForStem(fileStem).delete();
+        }
+    }
+
+    // called without the cache's lock held
+    @Nullable
+    private IndoorMapFloorOutlineGeometry readFile(String fileStem) {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(getFileForStem(fileStem))));
+            return IndoorMapFloorOutlineGeometry.readFrom(input);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    // called without the cache's lock held; returns the size of the file, or -1 if it was not written
+    private long writeFile(String fileStem, IndoorMapFloorOutlineGeometry geometry) {
+        File file = getFileForStem(fileStem);
+        // named per thread, so that concurrent writes of the same outline do not share a temporary file
+        File tempFile = new File(m_directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            geometry.writeTo(output);
+            output.close();
+            output = null;
+        } catch (IOException e) {
+            closeQuietly(output);
+            tempFile.delete();
+            return -1;
+        }
+
+        // readers never see a partially written file
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            return -1;
+        }
+        return file.length();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing further to clean up
+        }
+    }
+
+    private File getFileForStem(String fileStem) {
+        return new File(m_directory, fileStem + FILE_EXTENSION);
+    }
+
+    private static String makeKeyPrefix(String indoorMapId) {
+        return indoorMapId + "\n";
+    }
+
+    private static String makeKey(String indoorMapId, int indoorMapFloorId) {
+        return makeKeyPrefix(indoorMapId) + indoorMapFloorId;
+    }
+
+    private static String toFileStem(String key) {
+        // hex encoding keeps arbitrary indoor map ids safe for use as file names
+        byte[] bytes = key.getBytes(UTF_8);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+            builder.append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+}
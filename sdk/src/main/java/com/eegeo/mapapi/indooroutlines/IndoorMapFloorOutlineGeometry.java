@@ -0,0 +1,320 @@
+package com.eegeo.mapapi.indooroutlines;
+
+import androidx.annotation.NonNull;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outline of an indoor map floor, stored as packed coordinate arrays rather than as a graph of
+ * polygon, ring and LatLng objects. Instances are immutable and may be shared between threads.
+ * <br>
+ * <br>
+ * Coordinates are stored in a single array of interleaved latitude and longitude values, in degrees.
+ * Each polygon is a contiguous run of rings, the first of which is its outer ring and the remainder
+ * its holes. Bounding boxes for each polygon are precomputed, so containment tests reject most
+ * polygons without examining their rings.
+ */
+public final class IndoorMapFloorOutlineGeometry {
+    private static final int FORMAT_MAGIC = 0x45474f4c; // "EGOL"
+    private static final short FORMAT_VERSION = 1;
+
+    private final int[] m_polygonRingStarts;
+    private final int[] m_ringPointStarts;
+    private final double[] m_latLngs;
+    private final double[] m_polygonBounds;
+
+    private IndoorMapFloorOutlineGeometry(int[] polygonRingStarts, int[] ringPointStarts, double[] latLngs) {
+        m_polygonRingStarts = polygonRingStarts;
+        m_ringPointStarts = ringPointStarts;
+        m_latLngs = latLngs;
+        m_polygonBounds = computePolygonBounds();
+    }
+
+    /**
+     * Packs a set of outline polygons.
+     *
+     * @param polygons The polygons making up a floor outline.
+     * @return The packed outline.
+     */
+    @NonNull
+    public static IndoorMapFloorOutlineGeometry fromPolygons(@NonNull List<IndoorMapFloorOutlinePolygon> polygons) {
+        int ringCount = 0;
+        int pointCount = 0;
+        for (IndoorMapFloorOutlinePolygon polygon : polygons) {
+            ringCount += 1 + polygon.innerRings.size();
+            pointCount += polygon.outerRing.latLngPoints.size();
+            for (IndoorMapFloorOutlinePolygonRing innerRing : polygon.innerRings) {
+                pointCount += innerRing.latLngPoints.size();
+            }
+        }
+
+        int[] polygonRingStarts = new int[polygons.size() + 1];
+        int[] ringPointStarts = new int[ringCount + 1];
+        double[] latLngs = new double[pointCount * 2];
+
+        int ringIndex = 0;
+        int pointIndex = 0;
+        for (int polygonIndex = 0; polygonIndex < polygons.size(); ++polygonIndex) {
+            IndoorMapFloorOutlinePolygon polygon = polygons.get(polygonIndex);
+            polygonRingStarts[polygonIndex] = ringIndex;
+
+            ringPointStarts[ringIndex++] = pointIndex;
+            pointIndex = packRing(polygon.outerRing, latLngs, pointIndex);
+            for (IndoorMapFloorOutlinePolygonRing innerRing : polygon.innerRings) {
+                ringPointStarts[ringIndex++] = pointIndex;
+                pointIndex = packRing(innerRing, latLngs, pointIndex);
+            }
+        }
+        polygonRingStarts[polygons.size()] = ringIndex;
+        ringPointStarts[ringCount] = pointIndex;
+
+        return new IndoorMapFloorOutlineGeometry(polygonRingStarts, ringPointStarts, latLngs);
+    }
+
+    /**
+     * Reads an outline previously written with writeTo.
+     *
+     * @param input The source of the outline data.
+     * @return The outline.
+     * @throws IOException If the data could not be read or is not a valid outline.
+     */
+    @NonNull
+    public static IndoorMapFloorOutlineGeometry readFrom(@NonNull DataInput input) throws IOException {
+        if (input.readInt() != FORMAT_MAGIC || input.readShort() != FORMAT_VERSION) {
+            throw new IOException("Not a supported indoor map floor outline");
+        }
+
+        int polygonCount = input.readInt();
+        int ringCount = input.readInt();
+        int pointCount = input.readInt();
+        if (polygonCount < 0 || ringCount < polygonCount || pointCount < 0) {
+            throw new IOException("Invalid indoor map floor outline");
+        }
+
+        int[] polygonRingStarts = new int[polygonCount + 1];
+        for (int i = 0; i < polygonRingStarts.length; ++i) {
+            polygonRingStarts[i] = input.readInt();
+        }
+        int[] ringPointStarts = new int[ringCount + 1];
+        for (int i = 0; i < ringPointStarts.length; ++i) {
+            ringPointStarts[i] = input.readInt();
+        }
+        double[] latLngs = new double[pointCount * 2];
+        for (int i = 0; i < latLngs.length; ++i) {
+            latLngs[i] = input.readDouble();
+        }
+
+        if (polygonRingStarts[polygonCount] != ringCount || ringPointStarts[ringCount] != pointCount) {
+            throw new IOException("Invalid indoor map floor outline");
+        }
+
+        return new IndoorMapFloorOutlineGeometry(polygonRingStarts, ringPointStarts, latLngs);
+    }
+
+    /**
+     * Writes this outline in a compact binary form which can be read back with readFrom.
+     *
+     * @param output The destination for the outline data.
+     * @throws IOException If the data could not be written.
+     */
+    public void writeTo(@NonNull DataOutput output) throws IOException {
+        output.writeInt(FORMAT_MAGIC);
+        output.writeShort(FORMAT_VERSION);
+        output.writeInt(getPolygonCount());
+        output.writeInt(getRingCount());
+        output.writeInt(getPointCount());
+        for (int ringStart : m_polygonRingStarts) {
+            output.writeInt(ringStart);
+        }
+        for (int pointStart : m_ringPointStarts) {
+            output.writeInt(pointStart);
+        }
+        for (double value : m_latLngs) {
+            output.writeDouble(value);
+        }
+    }
+
+    /**
+     * Rebuilds the outline as polygon objects, as returned by
+     * IndoorMapFloorOutlineInformation.getIndoorMapFloorOutlinePolygons.
+     *
+     * @return The outline polygons.
+     */
+    @NonNull
+    public List<IndoorMapFloorOutlinePolygon> toPolygons() {
+        List<IndoorMapFloorOutlinePolygon> polygons = new ArrayList<>(getPolygonCount());
+        for (int polygonIndex = 0; polygonIndex < getPolygonCount(); ++polygonIndex) {
+            int firstRing = m_polygonRingStarts[polygonIndex];
+            int endRing = m_polygonRingStarts[polygonIndex + 1];
+            IndoorMapFloorOutlinePolygonRing innerRings[] = new IndoorMapFloorOutlinePolygonRing[endRing - firstRing - 1];
+            for (int ringIndex = firstRing + 1; ringIndex < endRing; ++ringIndex) {
+                innerRings[ringIndex - firstRing - 1] = unpackRing(ringIndex);
+            }
+            polygons.add(new IndoorMapFloorOutlinePolygon(unpackRing(firstRing), innerRings));
+        }
+        return polygons;
+    }
+
+    /**
+     * Tests whether a point lies within the outline, that is, inside the outer ring of any polygon
+     * and outside all of that polygon's holes.
+     *
+     * @param latitude  Latitude of the point, in degrees.
+     * @param longitude Longitude of the point, in degrees.
+     * @return True if the point is within the outline.
+     */
+    public boolean contains(double latitude, double longitude) {
+        for (int polygonIndex = 0; polygonIndex < getPolygonCount(); ++polygonIndex) {
+            if (polygonContains(polygonIndex, latitude, longitude)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests whether a point lies within one polygon of the outline.
+     *
+     * @param polygonIndex The index of the polygon, from 0 to getPolygonCount() - 1.
+     * @param latitude     Latitude of the point, in degrees.
+     * @param longitude    Longitude of the point, in degrees.
+     * @return True if the point is inside the polygon's outer ring and outside its holes.
+     */
+    public boolean polygonContains(int polygonIndex, double latitude, double longitude) {
+        int boundsIndex = polygonIndex * 4;
+        if (latitude < m_polygonBounds[boundsIndex] || longitude < m_polygonBounds[boundsIndex + 1]
+                || latitude > m_polygonBounds[boundsIndex + 2] || longitude > m_polygonBounds[boundsIndex + 3]) {
+            return false;
+        }
+
+        int firstRing = m_polygonRingStarts[polygonIndex];
+        if (!ringContains(firstRing, latitude, longitude)) {
+            return false;
+        }
+        for (int ringIndex = firstRing + 1; ringIndex < m_polygonRingStarts[polygonIndex + 1]; ++ringIndex) {
+            if (ringContains(ringIndex, latitude, longitude)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of polygons in the outline.
+     */
+    public int getPolygonCount() {
+        return m_polygonRingStarts.length - 1;
+    }
+
+    /**
+     * @return The total number of rings, outer and inner, in the outline.
+     */
+    public int getRingCount() {
+        return m_ringPointStarts.length - 1;
+    }
+
+    /**
+     * @return The total number of points in the outline.
+     */
+    public int getPointCount() {
+        return m_latLngs.length / 2;
+    }
+
+    /**
+     * Gets a copy of the packed coordinates.
+     *
+     * @return Interleaved latitude and longitude values for every point, ring by ring.
+     */
+    @NonNull
+    public double[] getPackedLatLngs() {
+        return m_latLngs.clone();
+    }
+
+    /**
+     * Gets a copy of the ring offsets.
+     *
+     * @return For each ring, the index of its first point; followed by the total point count.
+     */
+    @NonNull
+    public int[] getRingPointStarts() {
+        return m_ringPointStarts.clone();
+    }
+
+    /**
+     * Gets a copy of the polygon offsets.
+     *
+     * @return For each polygon, the index of its outer ring; followed by the total ring count.
+     */
+    @NonNull
+    public int[] getPolygonRingStarts() {
+        return m_polygonRingStarts.clone();
+    }
+
+    int getSizeInBytes() {
+        return (m_latLngs.length + m_polygonBounds.length) * 8
+                + (m_polygonRingStarts.length + m_ringPointStarts.length) * 4;
+    }
+
+    private boolean ringContains(int ringIndex, double latitude, double longitude) {
+        int first = m_ringPointStarts[ringIndex];
+        int end = m_ringPointStarts[ringIndex + 1];
+        boolean inside = false;
+        for (int i = first, j = end - 1; i < end; j = i++) {
+            double latI = m_latLngs[i * 2];
+            double lngI = m_latLngs[i * 2 + 1];
+            double latJ = m_latLngs[j * 2];
+            double lngJ = m_latLngs[j * 2 + 1];
+            if ((latI > latitude) != (latJ > latitude)
+                    && longitude < (lngJ - lngI) * (latitude - latI) / (latJ - latI) + lngI) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private double[] computePolygonBounds() {
+        double[] bounds = new double[getPolygonCount() * 4];
+        for (int polygonIndex = 0; polygonIndex < getPolygonCount(); ++polygonIndex) {
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLng = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY;
+            int outerRing = m_polygonRingStarts[polygonIndex];
+            for (int i = m_ringPointStarts[outerRing]; i < m_ringPointStarts[outerRing + 1]; ++i) {
+                minLat = Math.min(minLat, m_latLngs[i * 2]);
+                minLng = Math.min(minLng, m_latLngs[i * 2 + 1]);
+                maxLat = Math.max(maxLat, m_latLngs[i * 2]);
+                maxLng = Math.max(maxLng, m_latLngs[i * 2 + 1]);
+            }
+            bounds[polygonIndex * 4] = minLat;
+            bounds[polygonIndex * 4 + 1] = minLng;
+            bounds[polygonIndex * 4 + 2] = maxLat;
+            bounds[polygonIndex * 4 + 3] = maxLng;
+        }
+        return bounds;
+    }
+
+    private IndoorMapFloorOutlinePolygonRing unpackRing(int ringIndex) {
+        int first = m_ringPointStarts[ringIndex];
+        LatLng points[] = new LatLng[m_ringPointStarts[ringIndex + 1] - first];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = new LatLng(m_latLngs[(first + i) * 2], m_latLngs[(first + i) * 2 + 1]);
+        }
+        return new IndoorMapFloorOutlinePolygonRing(points);
+    }
+
+    private static int packRing(IndoorMapFloorOutlinePolygonRing ring, double[] latLngs, int pointIndex) {
+        for (LatLng point : ring.latLngPoints) {
+            latLngs[pointIndex * 2] = point.latitude;
+            latLngs[pointIndex * 2 + 1] = point.longitude;
+            ++pointIndex;
+        }
+        return pointIndex;
+    }
+}
@@ -4,10 +4,10 @@ import androidx.annotation.NonNull;
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
 
+import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.util.NativeApiObject;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -22,6 +22,7 @@ public class IndoorMapFloorOutlineInformation extends NativeApiObject {
     private final String m_indoorMapId;
     private final int m_indoorMapFloorId;
     private List<IndoorMapFloorOutlinePolygon> m_outlinePolygons;
+    private IndoorMapFloorOutlineGeometry m_outlineGeometry;
     private boolean m_isLoaded;
     private OnIndoorMapFloorOutlineInformationLoadedListener m_onIndoorMapFloorOutlineInformationLoadedListener;
 
@@ -51,6 +52,7 @@ public class IndoorMapFloorOutlineInformation extends NativeApiObject {
         m_indoorMapId = indoorMapId;
         m_indoorMapFloorId = indoorMapFloorId;
         m_outlinePolygons = new ArrayList<>();
+        m_outlineGeometry = null;
         m_isLoaded = false;
         m_onIndoorMapFloorOutlineInformationLoadedListener = indoorMapFloorOutlineInformationLoadedListener;
 
@@ -81,6 +83,21 @@ public class IndoorMapFloorOutlineInformation extends NativeApiObject {
      */
     public List<IndoorMapFloorOutlinePolygon> getIndoorMapFloorOutlinePolygons() { return m_outlinePolygons; }
 
+    /**
+     * Gets the outline as packed coordinate arrays, suitable for fast point-in-floor tests.
+     * @return The outline geometry, or null if the outline has not yet loaded.
+     */
+    public IndoorMapFloorOutlineGeometry getIndoorMapFloorOutlineGeometry() { return m_outlineGeometry; }
+
+    /**
+     * Tests whether a point lies within the floor outline.
+     * @param latLng The point to test.
+     * @return True if the outline has loaded and contains the point.
+     */
+    public boolean containsPoint(@NonNull LatLng latLng) {
+        return m_outlineGeometry != null && m_outlineGeometry.contains(latLng.latitude, latLng.longitude);
+    }
+
     /**
      * Gets the current outline load status.
      * @return True if the outline has finished loading.
@@ -104,9 +121,10 @@ public class IndoorMapFloorOutlineInformation extends NativeApiObject {
     }
 
     @UiThread
-    void updateFromNative(IndoorMapFloorOutlinePolygon indoorMapFloorOutlinePolygons[])
+    void updateFromNative(List<IndoorMapFloorOutlinePolygon> outlinePolygons, IndoorMapFloorOutlineGeometry outlineGeometry)
     {
-        m_outlinePolygons = Arrays.asList(indoorMapFloorOutlinePolygons);
+        m_outlinePolygons = outlinePolygons;
+        m_outlineGeometry = outlineGeometry;
         m_isLoaded = true;
         if (m_onIndoorMapFloorOutlineInformationLoadedListener != null) {
             m_onIndoorMapFloorOutlineInformationLoadedListener.onIndoorMapFloorOutlineInformationLoaded(this);
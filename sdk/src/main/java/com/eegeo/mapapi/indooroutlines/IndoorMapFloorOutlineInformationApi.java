@@ -8,15 +8,33 @@ import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
 
 import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @eegeo.internal
  */
 public class IndoorMapFloorOutlineInformationApi {
+    // cache files are read and written here rather than on the native thread, which renders the map
+    private static final ExecutorService ms_diskExecutor = Executors.newSingleThreadExecutor();
+
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
     private SparseArray<IndoorMapFloorOutlineInformation> m_nativeHandleToIndoorMapFloorOutlineInformation = new SparseArray<>();
+    // outlines served from the cache have no native object, and are given negative handles instead
+    private SparseArray<IndoorMapFloorOutlineGeometry> m_cachedHandleToGeometry = new SparseArray<>();
+    private int m_nextCachedHandle = -1;
+    // cached handles whose outline file is being read
+    private Set<Integer> m_pendingDiskReads = new HashSet<>();
+    // native outlines created for cached handles whose file could not be read, in both directions
+    private SparseArray<Integer> m_cachedHandleToNativeHandle = new SparseArray<>();
+    private SparseArray<Integer> m_nativeHandleToCachedHandle = new SparseArray<>();
+    private volatile IndoorMapFloorOutlineCache m_cache = new IndoorMapFloorOutlineCache(IndoorMapFloorOutlineCache.DEFAULT_MAX_MEMORY_BYTES);
 
     public IndoorMapFloorOutlineInformationApi(INativeMessageRunner nativeRunner,
                                                IUiMessageRunner uiRunner,
@@ -36,24 +54,120 @@ public class IndoorMapFloorOutlineInformationApi {
         return m_uiRunner;
     }
 
+    @UiThread
+    public void setCache(final IndoorMapFloorOutlineCache cache) {
+        m_cache = cache;
+        if (cache != null && cache.isPersistent()) {
+            // until indexed, outlines on disk are not found, and are loaded from the map instead
+            ms_diskExecutor.execute(new Runnable() {
+                @WorkerThread
+                @Override
+                public void run() {
+                    cache.ensureIndexed();
+                }
+            });
+        }
+    }
+
+    @UiThread
+    public IndoorMapFloorOutlineCache getCache() {
+        return m_cache;
+    }
+
     @WorkerThread
     public void register(IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation, IndoorMapFloorOutlineInformation.AllowHandleAccess allowHandleAccess) {
         int nativeHandle = indoorMapFloorOutlineInformation.getNativeHandle(allowHandleAccess);
         m_nativeHandleToIndoorMapFloorOutlineInformation.put(nativeHandle, indoorMapFloorOutlineInformation);
+
+        final IndoorMapFloorOutlineGeometry cachedGeometry = m_cachedHandleToGeometry.get(nativeHandle);
+        if (cachedGeometry != null) {
+            postUpdate(indoorMapFloorOutlineInformation, cachedGeometry.toPolygons(), cachedGeometry);
+            return;
+        }
+
+        if (m_pendingDiskReads.contains(nativeHandle)) {
+            // delivered by onDiskReadComplete
+            return;
+        }
+
         fetchIndoorMapFloorOutlineInformation(nativeHandle);
     }
 
     @WorkerThread
-    public int create(String indoorMapId, int indoorMapFloorId, IndoorMapFloorOutlineInformation.AllowHandleAccess allowHandleAccess) throws InvalidParameterException {
+    public int create(final String indoorMapId, final int indoorMapFloorId, IndoorMapFloorOutlineInformation.AllowHandleAccess allowHandleAccess) throws InvalidParameterException {
         if (allowHandleAccess == null)
             throw new NullPointerException("Null access token. Method is intended for internal use by IndoorMapEntityInformation");
 
+        final IndoorMapFloorOutlineCache cache = m_cache;
+        IndoorMapFloorOutlineGeometry cachedGeometry = null;
+        if (cache != null) {
+            // a persisted cache is only consulted in memory here; its files are read below, off this thread
+            cachedGeometry = cache.isPersistent() ? cache.getFromMemory(indoorMapId, indoorMapFloorId) : cache.get(indoorMapId, indoorMapFloorId);
+        }
+        if (cachedGeometry != null) {
+            int cachedHandle = m_nextCachedHandle--;
+            m_cachedHandleToGeometry.put(cachedHandle, cachedGeometry);
+            return cachedHandle;
+        }
+
+        if (cache != null && cache.isPersistent()) {
+            if (cache.isOnDisk(indoorMapId, indoorMapFloorId)) {
+                // served from the file alone, without a native outline, unless the file cannot be read
+                final int cachedHandle = m_nextCachedHandle--;
+                m_pendingDiskReads.add(cachedHandle);
+                ms_diskExecutor.execute(new Runnable() {
+                    @WorkerThread
+                    @Override
+                    public void run() {
+                        final IndoorMapFloorOutlineGeometry geometry = cache.get(indoorMapId, indoorMapFloorId);
+                        m_nativeRunner.runOnNativeThread(new Runnable() {
+                            @WorkerThread
+                            @Override
+                            public void run() {
+                                onDiskReadComplete(cachedHandle, indoorMapId, indoorMapFloorId, geometry);
+                            }
+                        });
+                    }
+                });
+                return cachedHandle;
+            }
+            cache.recordMiss();
+        }
+
         return nativeCreateIndoorMapFloorOutlineInformation(
                 m_jniEegeoMapApiPtr,
                 indoorMapId,
                 indoorMapFloorId);
     }
 
+    @WorkerThread
+    private void onDiskReadComplete(int cachedHandle, String indoorMapId, int indoorMapFloorId, IndoorMapFloorOutlineGeometry geometry) {
+        // not pending if the outline was destroyed while its file was read
+        if (!m_pendingDiskReads.remove(cachedHandle)) {
+            return;
+        }
+
+        final IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation = m_nativeHandleToIndoorMapFloorOutlineInformation.get(cachedHandle);
+        if (geometry != null) {
+            m_cachedHandleToGeometry.put(cachedHandle, geometry);
+            if (indoorMapFloorOutlineInformation != null) {
+                postUpdate(indoorMapFloorOutlineInformation, geometry.toPolygons(), geometry);
+            }
+            return;
+        }
+
+        // the file was removed or unreadable, so the outline is loaded from the map after all
+        final int nativeHandle = nativeCreateIndoorMapFloorOutlineInformation(
+                m_jniEegeoMapApiPtr,
+                indoorMapId,
+                indoorMapFloorId);
+        m_cachedHandleToNativeHandle.put(cachedHandle, nativeHandle);
+        m_nativeHandleToCachedHandle.put(nativeHandle, cachedHandle);
+        if (indoorMapFloorOutlineInformation != null) {
+            fetchIndoorMapFloorOutlineInformation(cachedHandle);
+        }
+    }
+
 
     @WorkerThread
     public void destroy(IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation, IndoorMapFloorOutlineInformation.AllowHandleAccess allowHandleAccess) {
@@ -62,37 +176,83 @@ public class IndoorMapFloorOutlineInformationApi {
 
         final int nativeHandle = indoorMapFloorOutlineInformation.getNativeHandle(allowHandleAccess);
 
-        if (m_nativeHandleToIndoorMapFloorOutlineInformation.get(nativeHandle) != null) {
-            nativeDestroyIndoorMapFloorOutlineInformation(m_jniEegeoMapApiPtr, nativeHandle);
+        if (m_cachedHandleToGeometry.get(nativeHandle) != null) {
+            m_cachedHandleToGeometry.remove(nativeHandle);
+            m_nativeHandleToIndoorMapFloorOutlineInformation.remove(nativeHandle);
+        }
+        else if (m_pendingDiskReads.remove(nativeHandle)) {
+            m_nativeHandleToIndoorMapFloorOutlineInformation.remove(nativeHandle);
+        }
+        else if (m_nativeHandleToIndoorMapFloorOutlineInformation.get(nativeHandle) != null) {
+            final Integer fallbackNativeHandle = m_cachedHandleToNativeHandle.get(nativeHandle);
+            if (fallbackNativeHandle != null) {
+                nativeDestroyIndoorMapFloorOutlineInformation(m_jniEegeoMapApiPtr, fallbackNativeHandle);
+                m_cachedHandleToNativeHandle.remove(nativeHandle);
+                m_nativeHandleToCachedHandle.remove(fallbackNativeHandle);
+            } else {
+                nativeDestroyIndoorMapFloorOutlineInformation(m_jniEegeoMapApiPtr, nativeHandle);
+            }
             m_nativeHandleToIndoorMapFloorOutlineInformation.remove(nativeHandle);
         }
     }
 
     @WorkerThread
     public void notifyIndoorMapFloorOutlineInformationLoaded(final int nativeHandle) {
-        if (m_nativeHandleToIndoorMapFloorOutlineInformation.get(nativeHandle) != null) {
-            fetchIndoorMapFloorOutlineInformation(nativeHandle);
+        final Integer cachedHandle = m_nativeHandleToCachedHandle.get(nativeHandle);
+        final int handle = cachedHandle != null ? cachedHandle : nativeHandle;
+        if (m_nativeHandleToIndoorMapFloorOutlineInformation.get(handle) != null) {
+            fetchIndoorMapFloorOutlineInformation(handle);
         }
     }
 
     @WorkerThread
-    private void fetchIndoorMapFloorOutlineInformation(int nativeHandle)
+    private void fetchIndoorMapFloorOutlineInformation(int handle)
     {
-        final IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation = m_nativeHandleToIndoorMapFloorOutlineInformation.get(nativeHandle);
+        final IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation = m_nativeHandleToIndoorMapFloorOutlineInformation.get(handle);
 
         if (indoorMapFloorOutlineInformation == null)
             throw new NullPointerException("IndoorMapFloorOutlineInformation object not found for nativeHandle");
 
+        final Integer fallbackNativeHandle = m_cachedHandleToNativeHandle.get(handle);
+        final int nativeHandle = fallbackNativeHandle != null ? fallbackNativeHandle : handle;
+
         if (!nativeGetIndoorMapFloorOutlineInformationLoaded(m_jniEegeoMapApiPtr, nativeHandle)) {
             return;
         }
 
         final IndoorMapFloorOutlinePolygon indoorMapFloorOutlinePolygons[] = nativeGetIndoorMapFloorOutlinePolygon(m_jniEegeoMapApiPtr, nativeHandle);
+        final List<IndoorMapFloorOutlinePolygon> polygons = Arrays.asList(indoorMapFloorOutlinePolygons);
+        final IndoorMapFloorOutlineGeometry geometry = IndoorMapFloorOutlineGeometry.fromPolygons(polygons);
+
+        final IndoorMapFloorOutlineCache cache = m_cache;
+        if (cache != null) {
+            final String indoorMapId = indoorMapFloorOutlineInformation.getIndoorMapId();
+            final int indoorMapFloorId = indoorMapFloorOutlineInformation.getIndoorMapFloorId();
+            cache.putInMemoryOnly(indoorMapId, indoorMapFloorId, geometry);
+            if (cache.isPersistent() && !cache.isOnDisk(indoorMapId, indoorMapFloorId)) {
+                ms_diskExecutor.execute(new Runnable() {
+                    @WorkerThread
+                    @Override
+                    public void run() {
+                        cache.writeToDisk(indoorMapId, indoorMapFloorId, geometry);
+                    }
+                });
+            }
+        }
+
+        postUpdate(indoorMapFloorOutlineInformation, polygons, geometry);
+    }
+
+    @WorkerThread
+    private void postUpdate(final IndoorMapFloorOutlineInformation indoorMapFloorOutlineInformation,
+                            final List<IndoorMapFloorOutlinePolygon> polygons,
+                            final IndoorMapFloorOutlineGeometry geometry)
+    {
         m_uiRunner.runOnUiThread(new Runnable() {
             @UiThread
             @Override
             public void run() {
-                indoorMapFloorOutlineInformation.updateFromNative(indoorMapFloorOutlinePolygons);
+                indoorMapFloorOutlineInformation.updateFromNative(polygons, geometry);
             }
         });
     }
@@ -0,0 +1,378 @@
+package com.eegeo.mapapi.indoors;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import android.util.SparseArray;
+
+import com.eegeo.mapapi.EegeoMap;
+import com.eegeo.mapapi.camera.CameraPosition;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineCache;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineGeometry;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineInformation;
+import com.eegeo.mapapi.precaching.OnPrecacheOperationCompletedListener;
+import com.eegeo.mapapi.precaching.PrecacheOperation;
+import com.eegeo.mapapi.precaching.PrecacheOperationResult;
+import com.eegeo.mapapi.services.routing.Route;
+import com.eegeo.mapapi.services.routing.RouteSection;
+import com.eegeo.mapapi.services.routing.RouteStep;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the outlines of the floors of the active indoor map which are likely to be shown next, so
+ * that an app drawing floor outlines, for example in a floor picker, has them ready when the floor
+ * changes.
+ * <br>
+ * <br>
+ * When an indoor map is entered, the outlines of the floors adjacent to the current floor, along
+ * with any floors of that indoor map visited by the route set with setRoute, are kept loaded as
+ * IndoorMapFloorOutlineInformation. Outlines are loaded in priority order - the current floor, then
+ * adjacent floors nearest first, then route floors in route order - until the outline budget is
+ * reached. The indoor map's outlines are pinned in the map's outline cache while it is active, so
+ * they are not evicted.
+ * <br>
+ * <br>
+ * This is not a prefetch of floor content. The native API has no way to load a floor's rendered
+ * content before it is shown, so adjacent and route floors may still pop in when selected; only
+ * their outline polygons are loaded ahead. Separately, the area around the indoor map is precached
+ * when it is entered; see setPrecacheRadius.
+ * <br>
+ * <br>
+ * Each floor change is counted as a hit if the new floor's outline had already loaded, or a miss
+ * if not.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class IndoorFloorOutlineLoader {
+    /**
+     * The default number of floors above and below the current floor whose outlines are loaded.
+     */
+    public static final int DEFAULT_ADJACENT_FLOOR_COUNT = 1;
+
+    /**
+     * The default budget for loaded outlines, in bytes.
+     */
+    public static final int DEFAULT_OUTLINE_BUDGET_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * The default radius, in meters, of the area precached around an indoor map when it is entered.
+     */
+    public static final double DEFAULT_PRECACHE_RADIUS = 250.0;
+
+    // used for outlines which have not loaded yet, so the budget is not overcommitted while streaming
+    static final int ESTIMATED_OUTLINE_BYTES = 64 * 1024;
+
+    private final EegeoMap m_eegeoMap;
+    private final SparseArray<IndoorMapFloorOutlineInformation> m_floorIndexToOutline = new SparseArray<>();
+    private IndoorMap m_indoorMap = null;
+    private IndoorMapFloorOutlineCache m_pinnedCache = null;
+    private Route m_route = null;
+    private PrecacheOperation m_precacheOperation = null;
+    private int m_adjacentFloorCount = DEFAULT_ADJACENT_FLOOR_COUNT;
+    private int m_outlineBudgetBytes = DEFAULT_OUTLINE_BUDGET_BYTES;
+    private double m_precacheRadius = DEFAULT_PRECACHE_RADIUS;
+    private int m_hitCount = 0;
+    private int m_missCount = 0;
+
+    private final OnIndoorEnteredListener m_onIndoorEnteredListener = new OnIndoorEnteredListener() {
+        @UiThread
+        @Override
+        public void onIndoorEntered() {
+            enterIndoorMap(m_eegeoMap.getActiveIndoorMap());
+        }
+    };
+
+    private final OnIndoorExitedListener m_onIndoorExitedListener = new OnIndoorExitedListener() {
+        @UiThread
+        @Override
+        public void onIndoorExited() {
+            exitIndoorMap();
+        }
+    };
+
+    private final OnFloorChangedListener m_onFloorChangedListener = new OnFloorChangedListener() {
+        @UiThread
+        @Override
+        public void onFloorChanged(int selectedFloor) {
+            if (m_indoorMap == null) {
+                return;
+            }
+
+            if (isFloorOutlineLoaded(selectedFloor)) {
+                ++m_hitCount;
+            } else {
+                ++m_missCount;
+            }
+            updateOutlines();
+        }
+    };
+
+    /**
+     * Creates a loader and starts loading floor outlines of the active indoor map, if any, and
+     * of indoor maps entered later.
+     *
+     * @param eegeoMap The map whose indoor floor outlines are loaded.
+     */
+    @UiThread
+    public IndoorFloorOutlineLoader(@NonNull EegeoMap eegeoMap) {
+        m_eegeoMap = eegeoMap;
+        m_eegeoMap.addOnIndoorEnteredListener(m_onIndoorEnteredListener);
+        m_eegeoMap.addOnIndoorExitedListener(m_onIndoorExitedListener);
+        m_eegeoMap.addOnFloorChangedListener(m_onFloorChangedListener);
+
+        if (m_eegeoMap.getActiveIndoorMap() != null) {
+            enterIndoorMap(m_eegeoMap.getActiveIndoorMap());
+        }
+    }
+
+    /**
+     * Sets how many floors above and below the current floor have their outlines loaded.
+     *
+     * @param adjacentFloorCount The number of floors in each direction.
+     */
+    @UiThread
+    public void setAdjacentFloorCount(int adjacentFloorCount) {
+        m_adjacentFloorCount = Math.max(0, adjacentFloorCount);
+        updateOutlines();
+    }
+
+    /**
+     * Sets the budget for loaded outlines. Outlines of lower priority floors are released when the
+     * budget is exceeded.
+     *
+     * @param outlineBudgetBytes The budget, in bytes.
+     */
+    @UiThread
+    public void setOutlineBudgetBytes(int outlineBudgetBytes) {
+        m_outlineBudgetBytes = Math.max(0, outlineBudgetBytes);
+        updateOutlines();
+    }
+
+    /**
+     * Sets the radius of the area precached around an indoor map when it is entered. The radius is
+     * limited to EegeoMap.getMaximumPrecacheRadius. Set to zero to disable precaching.
+     *
+     * @param precacheRadius The radius in meters.
+     */
+    @UiThread
+    public void setPrecacheRadius(double precacheRadius) {
+        m_precacheRadius = Math.max(0.0, precacheRadius);
+    }
+
+    /**
+     * Sets the route being followed. Outlines of floors of the active indoor map visited by the
+     * route are loaded after those of adjacent floors.
+     *
+     * @param route The route, or null to stop loading route floor outlines.
+     */
+    @UiThread
+    public void setRoute(Route route) {
+        m_route = route;
+        updateOutlines();
+    }
+
+    /**
+     * @param floorIndex The index of a floor of the active indoor map.
+     * @return True if the floor's outline has been requested by this loader and has loaded.
+     */
+    @UiThread
+    public boolean isFloorOutlineLoaded(int floorIndex) {
+        IndoorMapFloorOutlineInformation outline = m_floorIndexToOutline.get(floorIndex);
+        return outline != null && outline.isLoaded();
+    }
+
+    /**
+     * @return The number of floor changes to floors whose outline had already loaded.
+     */
+    @UiThread
+    public int getHitCount() {
+        return m_hitCount;
+    }
+
+    /**
+     * @return The number of floor changes to floors whose outline had not loaded.
+     */
+    @UiThread
+    public int getMissCount() {
+        return m_missCount;
+    }
+
+    /**
+     * Stops loading floor outlines and releases those loaded. The loader cannot be used again.
+     */
+    @UiThread
+    public void destroy() {
+        m_eegeoMap.removeOnIndoorEnteredListener(m_onIndoorEnteredListener);
+        m_eegeoMap.removeOnIndoorExitedListener(m_onIndoorExitedListener);
+        m_eegeoMap.removeOnFloorChangedListener(m_onFloorChangedListener);
+        exitIndoorMap();
+    }
+
+    @UiThread
+    private void enterIndoorMap(IndoorMap indoorMap) {
+        exitIndoorMap();
+        if (indoorMap == null) {
+            return;
+        }
+
+        m_indoorMap = indoorMap;
+        m_pinnedCache = m_eegeoMap.getIndoorMapFloorOutlineCache();
+        if (m_pinnedCache != null) {
+            m_pinnedCache.pinIndoorMap(indoorMap.id);
+        }
+        startPrecache();
+        updateOutlines();
+    }
+
+    @UiThread
+    private void exitIndoorMap() {
+        if (m_precacheOperation != null) {
+            m_precacheOperation.cancel();
+            m_precacheOperation = null;
+        }
+
+        for (int i = 0; i < m_floorIndexToOutline.size(); ++i) {
+            m_eegeoMap.removeIndoorMapFloorOutlineInformation(m_floorIndexToOutline.valueAt(i));
+        }
+        m_floorIndexToOutline.clear();
+        if (m_pinnedCache != null) {
+            m_pinnedCache.unpinIndoorMap(m_indoorMap.id);
+            m_pinnedCache = null;
+        }
+        m_indoorMap = null;
+    }
+
+    @UiThread
+    private void startPrecache() {
+        CameraPosition cameraPosition = m_eegeoMap.getCameraPosition();
+        double radius = Math.min(m_precacheRadius, m_eegeoMap.getMaximumPrecacheRadius());
+        if (cameraPosition == null || cameraPosition.target == null || radius <= 0.0) {
+            return;
+        }
+
+        m_precacheOperation = m_eegeoMap.precache(cameraPosition.target, radius, new OnPrecacheOperationCompletedListener() {
+            @UiThread
+            @Override
+            public void onPrecacheOperationCompleted(PrecacheOperationResult result) {
+                m_precacheOperation = null;
+            }
+        });
+    }
+
+    @UiThread
+    private void updateOutlines() {
+        if (m_indoorMap == null) {
+            return;
+        }
+
+        Map<Integer, Integer> floorIndexToOutlineBytes = new HashMap<>();
+        for (int i = 0; i < m_floorIndexToOutline.size(); ++i) {
+            IndoorMapFloorOutlineGeometry geometry = m_floorIndexToOutline.valueAt(i).getIndoorMapFloorOutlineGeometry();
+            if (geometry != null) {
+                floorIndexToOutlineBytes.put(m_floorIndexToOutline.keyAt(i), estimateOutlineBytes(geometry));
+            }
+        }
+
+        List<Integer> floorsInPriorityOrder = getFloorsInPriorityOrder(
+                m_eegeoMap.getCurrentFloorIndex(),
+                m_indoorMap.floorCount,
+                m_adjacentFloorCount,
+                getRouteFloorIndices());
+        List<Integer> wantedFloors = selectFloorsWithinBudget(floorsInPriorityOrder, floorIndexToOutlineBytes, m_outlineBudgetBytes);
+
+        SparseArray<IndoorMapFloorOutlineInformation> outlines = new SparseArray<>();
+        for (int floorIndex : wantedFloors) {
+            IndoorMapFloorOutlineInformation outline = m_floorIndexToOutline.get(floorIndex);
+            if (outline == null) {
+                outline = m_eegeoMap.addIndoorMapFloorOutlineInformation(m_indoorMap.id, m_indoorMap.floorNumbers[floorIndex], null);
+            } else {
+                m_floorIndexToOutline.remove(floorIndex);
+            }
+            outlines.put(floorIndex, outline);
+        }
+
+        for (int i = 0; i < m_floorIndexToOutline.size(); ++i) {
+            m_eegeoMap.removeIndoorMapFloorOutlineInformation(m_floorIndexToOutline.valueAt(i));
+        }
+        m_floorIndexToOutline.clear();
+        for (int i = 0; i < outlines.size(); ++i) {
+            m_floorIndexToOutline.put(outlines.keyAt(i), outlines.valueAt(i));
+        }
+    }
+
+    @UiThread
+    private List<Integer> getRouteFloorIndices() {
+        List<Integer> floors = new ArrayList<>();
+        if (m_route == null) {
+            return floors;
+        }
+
+        for (RouteSection section : m_route.sections) {
+            for (RouteStep step : section.steps) {
+                if (step.isIndoors && m_indoorMap.id.equals(step.indoorId)) {
+                    int floorIndex = findFloorIndex(step.indoorFloorId);
+                    if (floorIndex >= 0) {
+                        floors.add(floorIndex);
+                    }
+                }
+            }
+        }
+        return floors;
+    }
+
+    private int findFloorIndex(int floorId) {
+        for (int i = 0; i < m_indoorMap.floorNumbers.length; ++i) {
+            if (m_indoorMap.floorNumbers[i] == floorId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // the current floor, then adjacent floors nearest first, then route floors; may contain repeats
+    static List<Integer> getFloorsInPriorityOrder(int currentFloor, int floorCount, int adjacentFloorCount, List<Integer> routeFloors) {
+        List<Integer> floors = new ArrayList<>();
+        if (currentFloor >= 0 && currentFloor < floorCount) {
+            floors.add(currentFloor);
+            for (int offset = 1; offset <= adjacentFloorCount; ++offset) {
+                if (currentFloor + offset < floorCount) {
+                    floors.add(currentFloor + offset);
+                }
+                if (currentFloor - offset >= 0) {
+                    floors.add(currentFloor - offset);
+                }
+            }
+        }
+        floors.addAll(routeFloors);
+        return floors;
+    }
+
+    // distinct floors in priority order until the budget is reached, always keeping the first
+    // whatever its size; floors whose outline size is not known yet count as ESTIMATED_OUTLINE_BYTES
+    static List<Integer> selectFloorsWithinBudget(List<Integer> floorsInPriorityOrder, Map<Integer, Integer> floorIndexToOutlineBytes, int budgetBytes) {
+        List<Integer> selected = new ArrayList<>();
+        int usedBytes = 0;
+        for (Integer floorIndex : floorsInPriorityOrder) {
+            if (selected.contains(floorIndex)) {
+                continue;
+            }
+
+            Integer knownBytes = floorIndexToOutlineBytes.get(floorIndex);
+            int floorBytes = (knownBytes != null) ? knownBytes : ESTIMATED_OUTLINE_BYTES;
+            if (!selected.isEmpty() && usedBytes + floorBytes > budgetBytes) {
+                break;
+            }
+            selected.add(floorIndex);
+            usedBytes += floorBytes;
+        }
+        return selected;
+    }
+
+    private static int estimateOutlineBytes(IndoorMapFloorOutlineGeometry geometry) {
+        return geometry.getPointCount() * 16 + geometry.getRingCount() * 4;
+    }
+}
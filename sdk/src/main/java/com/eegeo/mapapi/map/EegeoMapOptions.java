@@ -9,6 +9,9 @@ import android.util.AttributeSet;
 
 import com.eegeo.mapapi.R;
 import com.eegeo.mapapi.camera.CameraPosition;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineCache;
+
+import java.io.File;
 
 public class EegeoMapOptions {
 
@@ -16,6 +19,9 @@ public class EegeoMapOptions {
     private float m_targetFrameRate = 30.f;
     private String m_coverageTreeManifest = null;
     private String m_environmentThemesManifest = null;
+    private int m_indoorOutlineCacheMemoryBudgetBytes = IndoorMapFloorOutlineCache.DEFAULT_MAX_MEMORY_BYTES;
+    private long m_indoorOutlineCacheDiskBudgetBytes = 0;
+    private File m_indoorOutlineCacheDirectory = null;
 
     /**
      * Specifies configuration for creating an EegeoMap. If you add an eeGeo MapView using XML, you
@@ -87,6 +93,46 @@ public class EegeoMapOptions {
         return this;
     }
 
+    /**
+     * Defines the memory budget of the map's indoor floor outline cache. When it is exceeded, the
+     * least recently used outlines are evicted first, except those of pinned indoor maps. This
+     * cache only holds IndoorMapFloorOutlineInformation geometry; the native map's own content cache
+     * cannot be configured.
+     *
+     * @param indoorOutlineCacheMemoryBudgetBytes The budget in bytes.
+     * @return this EegeoMapOptions object updated with the specified memory budget.
+     */
+    public EegeoMapOptions indoorOutlineCacheMemoryBudgetBytes(int indoorOutlineCacheMemoryBudgetBytes) {
+        this.m_indoorOutlineCacheMemoryBudgetBytes = indoorOutlineCacheMemoryBudgetBytes;
+        return this;
+    }
+
+    /**
+     * Defines the directory in which the map's indoor floor outline cache is persisted between
+     * sessions, for example a subdirectory of Context.getCacheDir(). By default, the cache is held
+     * only in memory.
+     *
+     * @param indoorOutlineCacheDirectory The cache directory, or null to keep the cache only in memory.
+     * @return this EegeoMapOptions object updated with the specified cache directory.
+     */
+    public EegeoMapOptions indoorOutlineCacheDirectory(File indoorOutlineCacheDirectory) {
+        this.m_indoorOutlineCacheDirectory = indoorOutlineCacheDirectory;
+        return this;
+    }
+
+    /**
+     * Defines the disk budget of the indoor floor outline cache directory. When it is exceeded, the
+     * least recently used files are evicted first, except those of pinned indoor maps. By default
+     * there is no limit.
+     *
+     * @param indoorOutlineCacheDiskBudgetBytes The budget in bytes, or zero for no limit.
+     * @return this EegeoMapOptions object updated with the specified disk budget.
+     */
+    public EegeoMapOptions indoorOutlineCacheDiskBudgetBytes(long indoorOutlineCacheDiskBudgetBytes) {
+        this.m_indoorOutlineCacheDiskBudgetBytes = indoorOutlineCacheDiskBudgetBytes;
+        return this;
+    }
+
     /**
      * @return the camera option
      */
@@ -110,4 +156,19 @@ public class EegeoMapOptions {
      * @return the environment themes manifest option
      */
     public String getEnvironmentThemesManifest() { return m_environmentThemesManifest; }
+
+    /**
+     * @return the indoor outline cache memory budget option, in bytes
+     */
+    public int getIndoorOutlineCacheMemoryBudgetBytes() { return m_indoorOutlineCacheMemoryBudgetBytes; }
+
+    /**
+     * @return the indoor outline cache disk budget option, in bytes
+     */
+    public long getIndoorOutlineCacheDiskBudgetBytes() { return m_indoorOutlineCacheDiskBudgetBytes; }
+
+    /**
+     * @return the indoor outline cache directory option
+     */
+    public File getIndoorOutlineCacheDirectory() { return m_indoorOutlineCacheDirectory; }
 }
@@ -0,0 +1,15 @@
+package com.eegeo.mapapi.map;
+
+import androidx.annotation.UiThread;
+
+/**
+ * Defines the signature for a method that is called when a MapView's native resources have been
+ * released, after MapView.onDestroy has returned.
+ */
+public interface OnMapDestroyedCallback {
+    /**
+     * Called when the map's native resources have been released and its thread has stopped.
+     */
+    @UiThread
+    void onMapDestroyed();
+}
@@ -9,15 +9,15 @@ import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
 import com.eegeo.mapapi.geometry.ElevationMode;
 import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.mapapi.util.ListenerRegistry;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
 
 public class MarkerApi {
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
-    private ArrayList<OnMarkerClickListener> m_onMarkerClickListeners = new ArrayList<OnMarkerClickListener>();
+    private final ListenerRegistry<OnMarkerClickListener> m_onMarkerClickListeners = new ListenerRegistry<>(OnMarkerClickListener.class);
     private SparseArray<Marker> m_nativeHandleToMarker = new SparseArray<Marker>();
 
 
@@ -129,7 +129,7 @@ public class MarkerApi {
                 @UiThread
                 @Override
                 public void run() {
-                    for (OnMarkerClickListener listener : m_onMarkerClickListeners) {
+                    for (OnMarkerClickListener listener : m_onMarkerClickListeners.snapshot()) {
                         listener.onMarkerClick(marker);
                     }
                 }
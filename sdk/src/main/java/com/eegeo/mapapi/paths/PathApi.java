@@ -31,6 +31,9 @@ public class PathApi {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final PointOnRoute pointOnRoute = nativeGetPointOnRoute(m_jniEegeoMapApiPtr, point.latitude, point.longitude, route, pointOnRouteOptions);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -59,6 +62,9 @@ public class PathApi {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 double[] latLongs = LatLngHelpers.pointsToArray(path);
                 final PointOnPath pointOnPath = nativeGetPointOnPath(m_jniEegeoMapApiPtr, point.latitude, point.longitude, latLongs);
                 m_uiRunner.runOnUiThread(new Runnable() {
@@ -0,0 +1,21 @@
+package com.eegeo.mapapi.picking;
+
+import android.graphics.Point;
+
+import androidx.annotation.UiThread;
+
+/**
+ * Defines the signature for a method that is called when a pick made through a PickingSession
+ * completes.
+ */
+public interface OnPickResultListener {
+    /**
+     * Called with the result of a pick. Requests superseded by a later one before they were issued
+     * are not reported.
+     *
+     * @param point  The screen point which was picked.
+     * @param result Information about the map feature at the point, if any.
+     */
+    @UiThread
+    void onPickResult(Point point, PickResult result);
+}
@@ -39,6 +39,9 @@ public class PickingApi {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final PickResult pickResult = nativePickFeatureAtScreenPoint(m_jniEegeoMapApiPtr, point.x, point.y);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -60,6 +63,9 @@ public class PickingApi {
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final PickResult pickResult = nativePickFeatureAtLatLng(m_jniEegeoMapApiPtr, latLng.latitude, latLng.longitude);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -0,0 +1,283 @@
+package com.eegeo.mapapi.picking;
+
+import android.graphics.Point;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.camera.CameraSnapshot;
+import com.eegeo.mapapi.camera.Projection;
+import com.eegeo.mapapi.util.Ready;
+
+import java.util.HashMap;
+
+/**
+ * Picks map features at screen points for continuous interactions such as hovering or dragging,
+ * where a pick may be requested on every touch event.
+ * <br>
+ * <br>
+ * At most one pick is in progress at a time. A request made while a pick is in progress replaces
+ * any earlier request still waiting, so that only the latest point is picked next. Results are
+ * cached per square cell of the screen until the camera next changes, or for a short time if it
+ * does not, as streaming may change the features on screen. A request for a cell already picked is
+ * answered from the cache immediately.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class PickingSession {
+    /**
+     * The default width and height of a screen cell, in pixels.
+     */
+    public static final int DEFAULT_CELL_SIZE = 8;
+
+    /**
+     * The default time for which results are cached while the camera is still, in milliseconds.
+     */
+    public static final int DEFAULT_CACHE_LIFETIME_MILLIS = 500;
+
+    private final PickingApi m_pickingApi;
+    private final Projection m_projection;
+    private final OnPickResultListener m_listener;
+    private final HashMap<Long, PickResult> m_cellToResult = new HashMap<>();
+    private long m_cachedSnapshotSequence = -1;
+    private long m_cacheStartNanos = 0;
+    private long m_cacheLifetimeNanos = DEFAULT_CACHE_LIFETIME_MILLIS * 1000000L;
+    private int m_cellSize = DEFAULT_CELL_SIZE;
+    private boolean m_pickInProgress = false;
+    private Point m_pendingPoint = null;
+    private boolean m_closed = false;
+
+    private int m_requestCount = 0;
+    private int m_pickCount = 0;
+    private int m_droppedCount = 0;
+    private int m_cacheHitCount = 0;
+    private long m_lastLatencyNanos = 0;
+    private long m_maxLatencyNanos = 0;
+    private long m_totalLatencyNanos = 0;
+
+    /**
+     * This constructor is for internal SDK use only -- use EegeoMap.createPickingSession instead
+     *
+     * @eegeo.internal
+     */
+    @UiThread
+    public PickingSession(@NonNull PickingApi pickingApi, @NonNull Projection projection, @NonNull OnPickResultListener listener) {
+        m_pickingApi = pickingApi;
+        m_projection = projection;
+        m_listener = listener;
+        // the snapshot sequence tells the session when the camera has changed
+        m_projection.requestCameraSnapshots();
+    }
+
+    /**
+     * Requests a pick at a screen point. The result is passed to the session's listener, straight
+     * away if it is cached, otherwise once the pick completes.
+     *
+     * @param point A screen space point, in units of pixels with the origin at the top left
+     *              corner of the screen.
+     */
+    @UiThread
+    public void pick(@NonNull Point point) {
+        if (m_closed) {
+            return;
+        }
+
+        ++m_requestCount;
+        PickResult cachedResult = getCachedResult(point);
+        if (cachedResult != null) {
+            ++m_cacheHitCount;
+            if (m_pickInProgress && m_pendingPoint != null) {
+                // the latest point has been answered, so the waiting request is out of date
+                m_pendingPoint = null;
+                ++m_droppedCount;
+            }
+            m_listener.onPickResult(point, cachedResult);
+            return;
+        }
+
+        if (m_pickInProgress) {
+            if (m_pendingPoint != null) {
+                ++m_droppedCount;
+            }
+            m_pendingPoint = new Point(point.x, point.y);
+            return;
+        }
+
+        startPick(new Point(point.x, point.y));
+    }
+
+    /**
+     * Sets the width and height of the screen cells results are cached for. Larger cells answer
+     * more requests from the cache, at the cost of accuracy. Changing the size clears the cache.
+     *
+     * @param cellSize The size in pixels, or 1 to cache results only for the exact point picked.
+     */
+    @UiThread
+    public void setCellSize(int cellSize) {
+        m_cellSize = Math.max(1, cellSize);
+        m_cellToResult.clear();
+    }
+
+    /**
+     * Sets the time for which results are cached while the camera is still.
+     *
+     * @param cacheLifetimeMillis The time in milliseconds, or 0 to disable caching.
+     */
+    @UiThread
+    public void setCacheLifetimeMillis(int cacheLifetimeMillis) {
+        m_cacheLifetimeNanos = Math.max(0, cacheLifetimeMillis) * 1000000L;
+        m_cellToResult.clear();
+    }
+
+    /**
+     * Stops the session. Any pick in progress completes, but no further results are reported.
+     */
+    @UiThread
+    public void close() {
+        if (!m_closed) {
+            m_projection.releaseCameraSnapshots();
+        }
+        m_closed = true;
+        m_pendingPoint = null;
+        m_cellToResult.clear();
+    }
+
+    /**
+     * @return The number of calls to pick.
+     */
+    @UiThread
+    public int getRequestCount() {
+        return m_requestCount;
+    }
+
+    /**
+     * @return The number of picks made on the map.
+     */
+    @UiThread
+    public int getPickCount() {
+        return m_pickCount;
+    }
+
+    /**
+     * @return The number of requests which were replaced by a later one before being picked.
+     */
+    @UiThread
+    public int getDroppedCount() {
+        return m_droppedCount;
+    }
+
+    /**
+     * @return The number of requests answered from the cache.
+     */
+    @UiThread
+    public int getCacheHitCount() {
+        return m_cacheHitCount;
+    }
+
+    /**
+     * @return The time between issuing the most recent completed pick and receiving its result,
+     * in milliseconds.
+     */
+    @UiThread
+    public double getLastLatencyMillis() {
+        return m_lastLatencyNanos / 1.0e6;
+    }
+
+    /**
+     * @return The mean time taken by completed picks, in milliseconds.
+     */
+    @UiThread
+    public double getAverageLatencyMillis() {
+        return m_pickCount > 0 ? m_totalLatencyNanos / 1.0e6 / m_pickCount : 0.0;
+    }
+
+    /**
+     * @return The longest time taken by a completed pick, in milliseconds.
+     */
+    @UiThread
+    public double getMaxLatencyMillis() {
+        return m_maxLatencyNanos / 1.0e6;
+    }
+
+    @UiThread
+    private void startPick(final Point point) {
+        final long snapshotSequence = getSnapshotSequence();
+        final long startNanos = System.nanoTime();
+        m_pickInProgress = true;
+        m_pickingApi.pickFeatureAtScreenPoint(point)
+                .then(new Ready<PickResult>() {
+                    @UiThread
+                    @Override
+                    public void ready(PickResult result) {
+                        onPickCompleted(point, result, snapshotSequence, System.nanoTime() - startNanos);
+                    }
+                });
+    }
+
+    @UiThread
+    private void onPickCompleted(Point point, PickResult result, long snapshotSequence, long latencyNanos) {
+        m_pickInProgress = false;
+        ++m_pickCount;
+        m_lastLatencyNanos = latencyNanos;
+        m_totalLatencyNanos += latencyNanos;
+        m_maxLatencyNanos = Math.max(m_maxLatencyNanos, latencyNanos);
+        if (m_closed) {
+            return;
+        }
+
+        // a result picked through an earlier camera no longer matches what is on screen
+        if (snapshotSequence >= 0 && snapshotSequence == getSnapshotSequence()) {
+            validateCache(snapshotSequence);
+            m_cellToResult.put(getCellKey(point), result);
+        }
+        m_listener.onPickResult(point, result);
+
+        if (m_pendingPoint != null) {
+            Point pendingPoint = m_pendingPoint;
+            m_pendingPoint = null;
+            PickResult cachedResult = getCachedResult(pendingPoint);
+            if (cachedResult != null) {
+                ++m_cacheHitCount;
+                m_listener.onPickResult(pendingPoint, cachedResult);
+            } else {
+                startPick(pendingPoint);
+            }
+        }
+    }
+
+    @UiThread
+    private PickResult getCachedResult(Point point) {
+        long snapshotSequence = getSnapshotSequence();
+        if (snapshotSequence < 0) {
+            return null;
+        }
+        validateCache(snapshotSequence);
+        return m_cellToResult.get(getCellKey(point));
+    }
+
+    @UiThread
+    private void validateCache(long snapshotSequence) {
+        long now = System.nanoTime();
+        if (snapshotSequence != m_cachedSnapshotSequence || now - m_cacheStartNanos > m_cacheLifetimeNanos) {
+            m_cellToResult.clear();
+            m_cachedSnapshotSequence = snapshotSequence;
+            m_cacheStartNanos = now;
+        }
+    }
+
+    private long getSnapshotSequence() {
+        CameraSnapshot snapshot = m_projection.getCameraSnapshot();
+        return snapshot != null ? snapshot.getSequence() : -1;
+    }
+
+    private long getCellKey(Point point) {
+        return ((long) floorDiv(point.x, m_cellSize) << 32) | (floorDiv(point.y, m_cellSize) & 0xffffffffL);
+    }
+
+    private static int floorDiv(int value, int divisor) {
+        // Math.floorDiv is not available at the minimum API level
+        int quotient = value / divisor;
+        return (value % divisor != 0 && value < 0) ? quotient - 1 : quotient;
+    }
+}
@@ -9,13 +9,17 @@ import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.geometry.ElevationMode;
 import com.eegeo.mapapi.util.NativeApiObject;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 public class Polygon extends NativeApiObject {
 
     private static final AllowHandleAccess m_allowHandleAccess = new AllowHandleAccess();
     private final PolygonApi m_polygonApi;
+    // while an edit is applied, native updates are gathered here and then submitted as one task
+    private Map<Class<?>, Runnable> m_editUpdates = null;
     private String m_indoorMapId;
     private int m_indoorFloorId;
     private double m_elevation;
@@ -188,6 +192,52 @@ public class Polygon extends NativeApiObject {
         return m_holes;
     }
 
+    /**
+     * Starts a set of changes to this polygon's properties, which are drawn together once applied.
+     * For example, polygon.edit().fillColor(color).elevation(10.0).apply().
+     *
+     * @return A new edit of this polygon.
+     */
+    @UiThread
+    public PolygonEdit edit() {
+        return new PolygonEdit(this);
+    }
+
+    @UiThread
+    void applyEdit(PolygonEdit edit) {
+        m_editUpdates = new LinkedHashMap<>();
+        try {
+            if (edit.hasFillColor) {
+                setFillColor(edit.fillColor);
+            }
+            if (edit.hasElevation) {
+                setElevation(edit.elevation);
+            }
+            if (edit.hasElevationMode) {
+                setElevationMode(edit.elevationMode);
+            }
+            if (edit.hasIndoorMapId) {
+                setIndoorMapId(edit.indoorMapId);
+            }
+            if (edit.hasIndoorFloorId) {
+                setIndoorFloorId(edit.indoorFloorId);
+            }
+        } finally {
+            final Runnable[] updates = m_editUpdates.values().toArray(new Runnable[0]);
+            m_editUpdates = null;
+            if (updates.length > 0) {
+                super.submit(new Runnable() {
+                    @WorkerThread
+                    public void run() {
+                        for (Runnable update : updates) {
+                            update.run();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
     /**
      * Removes this polygon from the map and destroys the polygon. Use EegeoMap.removePolygon
      *
@@ -254,6 +304,18 @@ public class Polygon extends NativeApiObject {
         });
     }
 
+    @UiThread
+    @Override
+    protected void submit(Runnable task) {
+        if (m_editUpdates != null) {
+            // each updateNative method submits its own runnable class, so a later update of the same
+            // kind, such as elevation then elevation mode, replaces the earlier one
+            m_editUpdates.put(task.getClass(), task);
+        } else {
+            super.submit(task);
+        }
+    }
+
     @WorkerThread
     int getNativeHandle(AllowHandleAccess allowHandleAccess) {
         if (allowHandleAccess == null)
@@ -0,0 +1,92 @@
+package com.eegeo.mapapi.polygons;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+/**
+ * A set of changes to a polygon's properties, applied together. Obtain one with Polygon.edit, chain
+ * the changes, then call apply.
+ * <br>
+ * <br>
+ * Setting the properties separately sends each to the map on its own, so a frame may be drawn with
+ * only some of them changed. The changes in an edit reach the map together.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PolygonEdit {
+    private final Polygon m_polygon;
+
+    boolean hasFillColor = false;
+    int fillColor;
+    boolean hasElevation = false;
+    double elevation;
+    boolean hasElevationMode = false;
+    ElevationMode elevationMode;
+    boolean hasIndoorMapId = false;
+    String indoorMapId;
+    boolean hasIndoorFloorId = false;
+    int indoorFloorId;
+
+    PolygonEdit(@NonNull Polygon polygon) {
+        m_polygon = polygon;
+    }
+
+    /**
+     * @param fillColor The fill color of the polygon as a 32-bit ARGB color.
+     * @return This edit, for chaining.
+     */
+    public PolygonEdit fillColor(int fillColor) {
+        this.hasFillColor = true;
+        this.fillColor = fillColor;
+        return this;
+    }
+
+    /**
+     * @param elevation A height in meters, interpreted according to the elevation mode.
+     * @return This edit, for chaining.
+     */
+    public PolygonEdit elevation(double elevation) {
+        this.hasElevation = true;
+        this.elevation = elevation;
+        return this;
+    }
+
+    /**
+     * @param elevationMode The mode specifying how to interpret the elevation.
+     * @return This edit, for chaining.
+     */
+    public PolygonEdit elevationMode(@NonNull ElevationMode elevationMode) {
+        this.hasElevationMode = true;
+        this.elevationMode = elevationMode;
+        return this;
+    }
+
+    /**
+     * @param indoorMapId The indoor map id, or empty string for an outdoor map.
+     * @return This edit, for chaining.
+     */
+    public PolygonEdit indoorMapId(@NonNull String indoorMapId) {
+        this.hasIndoorMapId = true;
+        this.indoorMapId = indoorMapId;
+        return this;
+    }
+
+    /**
+     * @param indoorFloorId The indoor map floor id.
+     * @return This edit, for chaining.
+     */
+    public PolygonEdit indoorFloorId(int indoorFloorId) {
+        this.hasIndoorFloorId = true;
+        this.indoorFloorId = indoorFloorId;
+        return this;
+    }
+
+    /**
+     * Applies the changes to the polygon.
+     */
+    @UiThread
+    public void apply() {
+        m_polygon.applyEdit(this);
+    }
+}
@@ -9,13 +9,17 @@ import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.geometry.ElevationMode;
 import com.eegeo.mapapi.util.NativeApiObject;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 public class Polyline extends NativeApiObject {
 
     private static final AllowHandleAccess m_allowHandleAccess = new AllowHandleAccess();
     private final PolylineApi m_polylineApi;
+    // while an edit is applied, native updates are gathered here and then submitted as one task
+    private Map<Class<?>, Runnable> m_editUpdates = null;
     private String m_indoorMapId;
     private int m_indoorFloorId;
     private double m_elevation;
@@ -224,6 +228,58 @@ public class Polyline extends NativeApiObject {
         return m_points;
     }
 
+    /**
+     * Starts a set of changes to this polyline's properties, which are drawn together once applied.
+     * For example, polyline.edit().width(4.0f).color(color).apply().
+     *
+     * @return A new edit of this polyline.
+     */
+    @UiThread
+    public PolylineEdit edit() {
+        return new PolylineEdit(this);
+    }
+
+    @UiThread
+    void applyEdit(PolylineEdit edit) {
+        m_editUpdates = new LinkedHashMap<>();
+        try {
+            if (edit.hasWidth) {
+                setWidth(edit.width);
+            }
+            if (edit.hasColor) {
+                setColor(edit.color);
+            }
+            if (edit.hasMiterLimit) {
+                setMiterLimit(edit.miterLimit);
+            }
+            if (edit.hasElevation) {
+                setElevation(edit.elevation);
+            }
+            if (edit.hasElevationMode) {
+                setElevationMode(edit.elevationMode);
+            }
+            if (edit.hasIndoorMapId) {
+                setIndoorMapId(edit.indoorMapId);
+            }
+            if (edit.hasIndoorFloorId) {
+                setIndoorFloorId(edit.indoorFloorId);
+            }
+        } finally {
+            final Runnable[] updates = m_editUpdates.values().toArray(new Runnable[0]);
+            m_editUpdates = null;
+            if (updates.length > 0) {
+                super.submit(new Runnable() {
+                    @WorkerThread
+                    public void run() {
+                        for (Runnable update : updates) {
+                            update.run();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
     /**
      * Removes this polyline from the map and destroys the polyline. Use EegeoMap.removePolyline
      *
@@ -294,6 +350,18 @@ public class Polyline extends NativeApiObject {
         });
     }
 
+    @UiThread
+    @Override
+    protected void submit(Runnable task) {
+        if (m_editUpdates != null) {
+            // each updateNative method submits its own runnable class, so a later update of the same
+            // kind, such as width then color, replaces the earlier one
+            m_editUpdates.put(task.getClass(), task);
+        } else {
+            super.submit(task);
+        }
+    }
+
     @WorkerThread
     int getNativeHandle(AllowHandleAccess allowHandleAccess) {
         if (allowHandleAccess == null)
@@ -0,0 +1,118 @@
+package com.eegeo.mapapi.polylines;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+/**
+ * A set of changes to a polyline's properties, applied together. Obtain one with Polyline.edit,
+ * chain the changes, then call apply.
+ * <br>
+ * <br>
+ * Setting the width and color separately sends each to the map on its own, so a frame may be drawn
+ * with only one of them changed. The changes in an edit reach the map together, with the style
+ * attributes sent in a single call.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PolylineEdit {
+    private final Polyline m_polyline;
+
+    boolean hasWidth = false;
+    float width;
+    boolean hasColor = false;
+    int color;
+    boolean hasMiterLimit = false;
+    float miterLimit;
+    boolean hasElevation = false;
+    double elevation;
+    boolean hasElevationMode = false;
+    ElevationMode elevationMode;
+    boolean hasIndoorMapId = false;
+    String indoorMapId;
+    boolean hasIndoorFloorId = false;
+    int indoorFloorId;
+
+    PolylineEdit(@NonNull Polyline polyline) {
+        m_polyline = polyline;
+    }
+
+    /**
+     * @param width The width of the polyline in screen pixels.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit width(float width) {
+        this.hasWidth = true;
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * @param color The color of the polyline as a 32-bit ARGB color.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit color(int color) {
+        this.hasColor = true;
+        this.color = color;
+        return this;
+    }
+
+    /**
+     * @param miterLimit The miter limit, as a ratio between maximum allowed miter join diagonal
+     *                   length and the line width.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit miterLimit(float miterLimit) {
+        this.hasMiterLimit = true;
+        this.miterLimit = miterLimit;
+        return this;
+    }
+
+    /**
+     * @param elevation A height in meters, interpreted according to the elevation mode.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit elevation(double elevation) {
+        this.hasElevation = true;
+        this.elevation = elevation;
+        return this;
+    }
+
+    /**
+     * @param elevationMode The mode specifying how to interpret the elevation.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit elevationMode(@NonNull ElevationMode elevationMode) {
+        this.hasElevationMode = true;
+        this.elevationMode = elevationMode;
+        return this;
+    }
+
+    /**
+     * @param indoorMapId The indoor map id, or empty string for an outdoor map.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit indoorMapId(@NonNull String indoorMapId) {
+        this.hasIndoorMapId = true;
+        this.indoorMapId = indoorMapId;
+        return this;
+    }
+
+    /**
+     * @param indoorFloorId The indoor map floor id.
+     * @return This edit, for chaining.
+     */
+    public PolylineEdit indoorFloorId(int indoorFloorId) {
+        this.hasIndoorFloorId = true;
+        this.indoorFloorId = indoorFloorId;
+        return this;
+    }
+
+    /**
+     * Applies the changes to the polyline.
+     */
+    @UiThread
+    public void apply() {
+        m_polyline.applyEdit(this);
+    }
+}
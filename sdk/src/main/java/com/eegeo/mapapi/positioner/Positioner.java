@@ -311,39 +311,29 @@ public class Positioner extends NativeApiObject {
      */
     @UiThread
     void setProjectedState(
-            Point screenPoint,
-            LatLngAlt transformedPoint,
+            boolean isScreenPointValid,
+            int screenX,
+            int screenY,
+            boolean isTransformedPointValid,
+            double transformedLatitude,
+            double transformedLongitude,
+            double transformedAltitude,
             boolean isBehindGlobeHorizon
     ) {
-        boolean changed=false;
-        boolean isScreenPointValid = (screenPoint != null);
-        boolean isTransformedPointValid = (transformedPoint != null);
-
-        if (isScreenPointValid != m_isScreenPointValid) {
-            m_isScreenPointValid = isScreenPointValid;
-            changed = true;
-        }
-
-        if (isScreenPointValid && !m_screenPoint.equals(screenPoint)) {
-            m_screenPoint.set(screenPoint.x, screenPoint.y);
-            changed = true;
+        m_isScreenPointValid = isScreenPointValid;
+        if (isScreenPointValid) {
+            m_screenPoint.set(screenX, screenY);
         }
 
-
-        if (isTransformedPointValid != m_isTransformedPointValid) {
-            m_isTransformedPointValid = isTransformedPointValid;
-            changed = true;
+        m_isTransformedPointValid = isTransformedPointValid;
+        if (isTransformedPointValid
+                && (Double.compare(m_transformedPoint.latitude, transformedLatitude) != 0
+                || Double.compare(m_transformedPoint.longitude, transformedLongitude) != 0
+                || Double.compare(m_transformedPoint.altitude, transformedAltitude) != 0)) {
+            m_transformedPoint = new LatLngAlt(transformedLatitude, transformedLongitude, transformedAltitude);
         }
 
-        if (isTransformedPointValid && !m_transformedPoint.equals(transformedPoint)) {
-            m_transformedPoint = transformedPoint;
-            changed = true;
-        }
-
-        if (m_isBehindGlobeHorizon != isBehindGlobeHorizon) {
-            m_isBehindGlobeHorizon = isBehindGlobeHorizon;
-            changed = true;
-        }
+        m_isBehindGlobeHorizon = isBehindGlobeHorizon;
     }
 
     static final class AllowHandleAccess {
@@ -3,24 +3,29 @@ package com.eegeo.mapapi.positioner;
 import android.graphics.Point;
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
-import android.util.SparseArray;
-
+import android.util.SparseIntArray;
 
 import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
 import com.eegeo.mapapi.geometry.ElevationMode;
 import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.geometry.LatLngAlt;
+import com.eegeo.mapapi.util.ListenerRegistry;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 
 public class PositionerApi {
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
-    private ArrayList<OnPositionerChangedListener> m_onPositionerChangedListeners = new ArrayList<OnPositionerChangedListener>();
-    private SparseArray<Positioner> m_nativeHandleToPositioner = new SparseArray<>();
+    private final ListenerRegistry<OnPositionerChangedListener> m_onPositionerChangedListeners = new ListenerRegistry<>(OnPositionerChangedListener.class);
+    private SparseIntArray m_nativeHandleToIndex = new SparseIntArray();
+    private int[] m_nativeHandles = new int[16];
+    // projected state most recently sent to the UI thread, indexed as m_nativeHandles
+    private PositionerProjectionBatch m_publishedProjections = new PositionerProjectionBatch(16);
+    private final ArrayDeque<PositionerProjectionBatch> m_freeProjectionBatches = new ArrayDeque<>();
 
 
     public PositionerApi(INativeMessageRunner nativeRunner,
@@ -53,7 +58,13 @@ public class PositionerApi {
 
     @WorkerThread
     void registerPositioner(Positioner positioner, Positioner.AllowHandleAccess allowHandleAccess) {
-        m_nativeHandleToPositioner.put(positioner.getNativeHandle(allowHandleAccess), positioner);
+        final int nativeHandle = positioner.getNativeHandle(allowHandleAccess);
+        final int index = m_publishedProjections.add(positioner, 0, 0, 0.0, 0.0, 0.0, (byte) 0);
+        if (index >= m_nativeHandles.length) {
+            m_nativeHandles = Arrays.copyOf(m_nativeHandles, m_publishedProjections.positioners.length);
+        }
+        m_nativeHandles[index] = nativeHandle;
+        m_nativeHandleToIndex.put(nativeHandle, index);
     }
 
     @WorkerThread
@@ -83,9 +94,17 @@ public class PositionerApi {
 
         final int nativeHandle = positioner.getNativeHandle(allowHandleAccess);
 
-        if (m_nativeHandleToPositioner.get(nativeHandle) != null) {
+        final int index = m_nativeHandleToIndex.get(nativeHandle, -1);
+        if (index >= 0) {
             nativeDestroyPositioner(m_jniEegeoMapApiPtr, nativeHandle);
-            m_nativeHandleToPositioner.remove(nativeHandle);
+            m_nativeHandleToIndex.delete(nativeHandle);
+
+            final int lastIndex = m_publishedProjections.count - 1;
+            m_publishedProjections.removeAt(index);
+            if (index != lastIndex) {
+                m_nativeHandles[index] = m_nativeHandles[lastIndex];
+                m_nativeHandleToIndex.put(m_nativeHandles[index], index);
+            }
         }
     }
 
@@ -111,24 +130,98 @@ public class PositionerApi {
                 indoorFloorId);
     }
 
+    /**
+     * Queries the projected state of every positioner and sends those that have changed since the
+     * last notification to the UI thread as a single batch.
+     */
     @WorkerThread
     public void notifyProjectionChanged() {
-        for(int i = 0; i < m_nativeHandleToPositioner.size(); i++)
-        {
-            final int positionerNativeHandle = m_nativeHandleToPositioner.keyAt(i);
+        final PositionerProjectionBatch changed = obtainProjectionBatch();
+        final PositionerProjectionBatch published = m_publishedProjections;
+
+        for (int i = 0; i < published.count; i++) {
+            final int positionerNativeHandle = m_nativeHandles[i];
             final Point screenPoint = nativeGetScreenPoint(m_jniEegeoMapApiPtr, positionerNativeHandle);
             final LatLngAlt transformedPoint = nativeGetTransformedPoint(m_jniEegeoMapApiPtr, positionerNativeHandle);
-            final Boolean isBehindGlobeHorizon = nativeGetIsBehindGlobeHorizon(m_jniEegeoMapApiPtr, positionerNativeHandle);
-            final Positioner positioner = m_nativeHandleToPositioner.get(positionerNativeHandle);
-            m_uiRunner.runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    positioner.setProjectedState(screenPoint, transformedPoint, isBehindGlobeHorizon);
-                    for (OnPositionerChangedListener listener : m_onPositionerChangedListeners) {
-                        listener.onPositionerChanged(positioner);
-                    }
-                }
-            });
+            final boolean isBehindGlobeHorizon = nativeGetIsBehindGlobeHorizon(m_jniEegeoMapApiPtr, positionerNativeHandle);
+
+            byte flags = PositionerProjectionBatch.PUBLISHED;
+            int x = 0;
+            int y = 0;
+            double latitude = 0.0;
+            double longitude = 0.0;
+            double altitude = 0.0;
+            if (screenPoint != null) {
+                flags |= PositionerProjectionBatch.SCREEN_POINT_VALID;
+                x = screenPoint.x;
+                y = screenPoint.y;
+            }
+            if (transformedPoint != null) {
+                flags |= PositionerProjectionBatch.TRANSFORMED_POINT_VALID;
+                latitude = transformedPoint.latitude;
+                longitude = transformedPoint.longitude;
+                altitude = transformedPoint.altitude;
+            }
+            if (isBehindGlobeHorizon) {
+                flags |= PositionerProjectionBatch.BEHIND_GLOBE_HORIZON;
+            }
+
+            if (!published.equalsAt(i, x, y, latitude, longitude, altitude, flags)) {
+                published.set(i, x, y, latitude, longitude, altitude, flags);
+                changed.add(published.positioners[i], x, y, latitude, longitude, altitude, flags);
+            }
+        }
+
+        if (changed.count == 0) {
+            releaseProjectionBatch(changed);
+            return;
+        }
+
+        m_uiRunner.runOnUiThread(new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                applyProjectionBatch(changed);
+            }
+        });
+    }
+
+    @UiThread
+    private void applyProjectionBatch(PositionerProjectionBatch batch) {
+        for (int i = 0; i < batch.count; i++) {
+            final byte flags = batch.flags[i];
+            batch.positioners[i].setProjectedState(
+                    (flags & PositionerProjectionBatch.SCREEN_POINT_VALID) != 0,
+                    batch.screenX[i],
+                    batch.screenY[i],
+                    (flags & PositionerProjectionBatch.TRANSFORMED_POINT_VALID) != 0,
+                    batch.latitudes[i],
+                    batch.longitudes[i],
+                    batch.altitudes[i],
+                    (flags & PositionerProjectionBatch.BEHIND_GLOBE_HORIZON) != 0);
+        }
+
+        final OnPositionerChangedListener[] listeners = m_onPositionerChangedListeners.snapshot();
+        for (int i = 0; i < batch.count; i++) {
+            for (OnPositionerChangedListener listener : listeners) {
+                listener.onPositionerChanged(batch.positioners[i]);
+            }
+        }
+
+        releaseProjectionBatch(batch);
+    }
+
+    private PositionerProjectionBatch obtainProjectionBatch() {
+        synchronized (m_freeProjectionBatches) {
+            PositionerProjectionBatch batch = m_freeProjectionBatches.poll();
+            return batch != null ? batch : new PositionerProjectionBatch(m_nativeHandles.length);
+        }
+    }
+
+    private void releaseProjectionBatch(PositionerProjectionBatch batch) {
+        batch.clear();
+        synchronized (m_freeProjectionBatches) {
+            m_freeProjectionBatches.add(batch);
         }
     }
 
@@ -0,0 +1,94 @@
+package com.eegeo.mapapi.positioner;
+
+import java.util.Arrays;
+
+/**
+ * Projected state for a number of positioners, held in parallel primitive arrays so that a whole
+ * frame of updates can be gathered on the native thread and handed to the UI thread in one message.
+ *
+ * @eegeo.internal
+ */
+final class PositionerProjectionBatch {
+    static final byte SCREEN_POINT_VALID = 1;
+    static final byte TRANSFORMED_POINT_VALID = 1 << 1;
+    static final byte BEHIND_GLOBE_HORIZON = 1 << 2;
+    static final byte PUBLISHED = 1 << 3;
+
+    int count = 0;
+    Positioner[] positioners;
+    int[] screenX;
+    int[] screenY;
+    double[] latitudes;
+    double[] longitudes;
+    double[] altitudes;
+    byte[] flags;
+
+    PositionerProjectionBatch(int capacity) {
+        positioners = new Positioner[capacity];
+        screenX = new int[capacity];
+        screenY = new int[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        altitudes = new double[capacity];
+        flags = new byte[capacity];
+    }
+
+    int add(Positioner positioner, int x, int y, double latitude, double longitude, double altitude, byte stateFlags) {
+        ensureCapacity(count + 1);
+        int index = count++;
+        positioners[index] = positioner;
+        set(index, x, y, latitude, longitude, altitude, stateFlags);
+        return index;
+    }
+
+    void set(int index, int x, int y, double latitude, double longitude, double altitude, byte stateFlags) {
+        screenX[index] = x;
+        screenY[index] = y;
+        latitudes[index] = latitude;
+        longitudes[index] = longitude;
+        altitudes[index] = altitude;
+        flags[index] = stateFlags;
+    }
+
+    boolean equalsAt(int index, int x, int y, double latitude, double longitude, double altitude, byte stateFlags) {
+        return flags[index] == stateFlags
+                && screenX[index] == x
+                && screenY[index] == y
+                && Double.compare(latitudes[index], latitude) == 0
+                && Double.compare(longitudes[index], longitude) == 0
+                && Double.compare(altitudes[index], altitude) == 0;
+    }
+
+    /**
+     * Removes the entry at index by moving the last entry into its place.
+     */
+    void removeAt(int index) {
+        int last = count - 1;
+        if (index != last) {
+            positioners[index] = positioners[last];
+            set(index, screenX[last], screenY[last], latitudes[last], longitudes[last], altitudes[last], flags[last]);
+        }
+        positioners[last] = null;
+        count = last;
+    }
+
+    void clear() {
+        Arrays.fill(positioners, 0, count, null);
+        count = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= positioners.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, positioners.length * 2);
+        positioners = Arrays.copyOf(positioners, newCapacity);
+        screenX = Arrays.copyOf(screenX, newCapacity);
+        screenY = Arrays.copyOf(screenY, newCapacity);
+        latitudes = Arrays.copyOf(latitudes, newCapacity);
+        longitudes = Arrays.copyOf(longitudes, newCapacity);
+        altitudes = Arrays.copyOf(altitudes, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+    }
+}
@@ -0,0 +1,234 @@
+package com.eegeo.mapapi.precaching;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A handle to an ongoing corridor precache. The corridor is divided into a chain of overlapping
+ * circular regions, which are precached in order of distance ahead of the current position, with
+ * no more than a fixed number in progress at once.
+ * <br>
+ * <br>
+ * Call updatePosition as the user moves along the path, so that regions already passed are skipped
+ * and precaching stays ahead of them.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class CorridorPrecacheOperation {
+    static final byte REGION_PENDING = 0;
+    static final byte REGION_ACTIVE = 1;
+    static final byte REGION_SUCCEEDED = 2;
+    static final byte REGION_FAILED = 3;
+    static final byte REGION_SKIPPED = 4;
+
+    private final PrecacheApi m_precacheApi;
+    private final PrecacheCorridor m_corridor;
+    private final int m_maxConcurrentOperations;
+    private final OnPrecacheOperationCompletedListener m_callback;
+    private final Executor m_callbackExecutor;
+    private final byte[] m_regionStates;
+    private final PrecacheOperation[] m_activeOperations;
+    private int m_nextRegion = 0;
+    private int m_activeCount = 0;
+    private int m_succeededCount = 0;
+    private int m_failedCount = 0;
+    private int m_skippedCount = 0;
+    private boolean m_cancelled = false;
+    private boolean m_completed = false;
+
+    @UiThread
+    CorridorPrecacheOperation(@NonNull PrecacheApi precacheApi,
+                              @NonNull CorridorPrecacheOptions options,
+                              double regionRadius,
+                              OnPrecacheOperationCompletedListener callback) {
+        m_precacheApi = precacheApi;
+        m_corridor = new PrecacheCorridor(options.getPath(), regionRadius);
+        m_maxConcurrentOperations = options.getMaxConcurrentOperations();
+        m_callback = callback;
+        m_callbackExecutor = options.getCallbackExecutor();
+        m_regionStates = new byte[m_corridor.getRegionCount()];
+        m_activeOperations = new PrecacheOperation[m_corridor.getRegionCount()];
+
+        if (options.getStartPosition() != null) {
+            skipRegionsBehind(options.getStartPosition());
+        }
+        startPendingRegions();
+    }
+
+    /**
+     * Updates the current position along the path. Pending regions behind the position are skipped,
+     * and precaching continues with the nearest region ahead of it.
+     *
+     * @param position The current position.
+     */
+    @UiThread
+    public void updatePosition(@NonNull LatLng position) {
+        if (m_completed) {
+            return;
+        }
+
+        skipRegionsBehind(position);
+        startPendingRegions();
+    }
+
+    /**
+     * Cancels the corridor precache. Regions in progress are cancelled, and no further regions are
+     * started.
+     */
+    @UiThread
+    public void cancel() {
+        if (m_completed) {
+            return;
+        }
+
+        m_cancelled = true;
+        for (int region = 0; region < m_activeOperations.length; ++region) {
+            if (m_activeOperations[region] != null) {
+                m_activeOperations[region].cancel();
+            }
+        }
+        for (int region = m_nextRegion; region < m_regionStates.length; ++region) {
+            if (m_regionStates[region] == REGION_PENDING) {
+                m_regionStates[region] = REGION_SKIPPED;
+                ++m_skippedCount;
+            }
+        }
+        m_nextRegion = m_regionStates.length;
+        completeIfFinished();
+    }
+
+    /**
+     * @return The number of regions the corridor was divided into.
+     */
+    @UiThread
+    public int getRegionCount() {
+        return m_regionStates.length;
+    }
+
+    /**
+     * @return The number of regions which have been precached successfully.
+     */
+    @UiThread
+    public int getSucceededRegionCount() {
+        return m_succeededCount;
+    }
+
+    /**
+     * @return The number of regions whose precache failed or was cancelled.
+     */
+    @UiThread
+    public int getFailedRegionCount() {
+        return m_failedCount;
+    }
+
+    /**
+     * @return The number of regions skipped because they were behind the current position, or
+     * because the operation was cancelled before they started.
+     */
+    @UiThread
+    public int getSkippedRegionCount() {
+        return m_skippedCount;
+    }
+
+    /**
+     * @return The number of regions currently being precached.
+     */
+    @UiThread
+    public int getActiveRegionCount() {
+        return m_activeCount;
+    }
+
+    /**
+     * @return True once every region has been precached, skipped or has failed.
+     */
+    @UiThread
+    public boolean isComplete() {
+        return m_completed;
+    }
+
+    @UiThread
+    private void skipRegionsBehind(LatLng position) {
+        double along = m_corridor.getDistanceAlongPath(position.latitude, position.longitude);
+        // a region still overlaps the position until its center is a full radius behind it
+        double firstWanted = along - m_corridor.regionRadius;
+        while (m_nextRegion < m_regionStates.length
+                && m_corridor.regionDistancesAlongPath[m_nextRegion] < firstWanted) {
+            if (m_regionStates[m_nextRegion] == REGION_PENDING) {
+                m_regionStates[m_nextRegion] = REGION_SKIPPED;
+                ++m_skippedCount;
+            }
+            ++m_nextRegion;
+        }
+    }
+
+    @UiThread
+    private void startPendingRegions() {
+        // regions are ordered by distance along the path, so the next pending region is the nearest ahead
+        while (m_activeCount < m_maxConcurrentOperations && m_nextRegion < m_regionStates.length && !m_cancelled) {
+            final int region = m_nextRegion++;
+            if (m_regionStates[region] != REGION_PENDING) {
+                continue;
+            }
+
+            m_regionStates[region] = REGION_ACTIVE;
+            ++m_activeCount;
+            m_activeOperations[region] = m_precacheApi.precache(m_corridor.getRegionCenter(region), m_corridor.regionRadius,
+                    new OnPrecacheOperationCompletedListener() {
+                        @UiThread
+                        @Override
+                        public void onPrecacheOperationCompleted(PrecacheOperationResult result) {
+                            onRegionCompleted(region, result.succeeded());
+                        }
+                    });
+        }
+        completeIfFinished();
+    }
+
+    @UiThread
+    private void onRegionCompleted(int region, boolean succeeded) {
+        m_activeOperations[region] = null;
+        --m_activeCount;
+        if (succeeded) {
+            m_regionStates[region] = REGION_SUCCEEDED;
+            ++m_succeededCount;
+        } else {
+            m_regionStates[region] = REGION_FAILED;
+            ++m_failedCount;
+        }
+        startPendingRegions();
+    }
+
+    @UiThread
+    private void completeIfFinished() {
+        if (m_completed || m_activeCount > 0 || m_nextRegion < m_regionStates.length) {
+            return;
+        }
+
+        m_completed = true;
+        returnResult(new PrecacheOperationResult(!m_cancelled && m_failedCount == 0));
+    }
+
+    @UiThread
+    private void returnResult(final PrecacheOperationResult result) {
+        if (m_callback == null) {
+            return;
+        }
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                m_callback.onPrecacheOperationCompleted(result);
+            }
+        };
+        // always posted, as an empty corridor completes in the constructor, before the caller has the operation
+        if (m_callbackExecutor != null) {
+            m_callbackExecutor.execute(callback);
+        } else {
+            m_precacheApi.getUiRunner().runOnUiThread(callback);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.eegeo.mapapi.precaching;
+
+import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.mapapi.services.routing.Route;
+import com.eegeo.mapapi.services.routing.RouteSection;
+import com.eegeo.mapapi.services.routing.RouteStep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Defines the parameters of a corridor precache, which precaches the area along a path or Route.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CorridorPrecacheOptions {
+    /**
+     * The default number of regions precached at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_OPERATIONS = 2;
+
+    private List<LatLng> m_path = new ArrayList<>();
+    private double m_regionRadius = 0.0;
+    private int m_maxConcurrentOperations = DEFAULT_MAX_CONCURRENT_OPERATIONS;
+    private LatLng m_startPosition = null;
+    private Executor m_callbackExecutor = null;
+
+    /**
+     * Default constructor for corridor precache parameters.
+     */
+    public CorridorPrecacheOptions() {
+
+    }
+
+    /**
+     * Adds points to the end of the path to precache.
+     *
+     * @param points The points to add.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new points added.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions add(LatLng... points) {
+        Collections.addAll(m_path, points);
+        return this;
+    }
+
+    /**
+     * Adds points to the end of the path to precache.
+     *
+     * @param points The points to add.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new points added.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions addAll(List<LatLng> points) {
+        m_path.addAll(points);
+        return this;
+    }
+
+    /**
+     * Adds the path of every step of a route to the end of the path to precache.
+     *
+     * @param route The route to precache.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the route added.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions route(Route route) {
+        for (RouteSection section : route.sections) {
+            for (RouteStep step : section.steps) {
+                m_path.addAll(step.path);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the radius of each circular region the corridor is divided into. Regions overlap, so
+     * the corridor covered either side of the path is narrower than this radius. If this method is
+     * not called, the maximum precache radius is used.
+     *
+     * @param regionRadius The radius in meters, no greater than EegeoMap.getMaximumPrecacheRadius.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new radius set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions regionRadius(double regionRadius) {
+        m_regionRadius = regionRadius;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of regions precached at the same time.
+     *
+     * @param maxConcurrentOperations The number of regions, at least 1.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new limit set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions maxConcurrentOperations(int maxConcurrentOperations) {
+        m_maxConcurrentOperations = Math.max(1, maxConcurrentOperations);
+        return this;
+    }
+
+    /**
+     * Sets the current position along the path. Regions are precached in order of distance ahead of
+     * this position, and regions already passed are skipped. If this method is not called, the
+     * corridor is precached from the start of the path.
+     *
+     * @param startPosition The current position.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new position set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions startPosition(LatLng startPosition) {
+        m_startPosition = startPosition;
+        return this;
+    }
+
+    /**
+     * Sets the Executor on which the completion callback is called. If not specified, it is called
+     * on the Android UI thread. Regions are still scheduled on the UI thread.
+     *
+     * @param callbackExecutor The Executor for the completion callback.
+     * @return The CorridorPrecacheOptions object on which the method was called, with the new Executor set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public CorridorPrecacheOptions callbackExecutor(Executor callbackExecutor) {
+        m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
+    /**
+     * Returns the path to precache.
+     *
+     * @return A list of LatLng objects specifying the path's vertices.
+     */
+    public List<LatLng> getPath() {
+        return m_path;
+    }
+
+    /**
+     * Returns the radius of each region, or zero if the maximum precache radius is to be used.
+     *
+     * @return The region radius in meters.
+     */
+    public double getRegionRadius() {
+        return m_regionRadius;
+    }
+
+    /**
+     * Returns the maximum number of regions precached at the same time.
+     *
+     * @return The maximum number of concurrent operations.
+     */
+    public int getMaxConcurrentOperations() {
+        return m_maxConcurrentOperations;
+    }
+
+    /**
+     * Returns the position from which the corridor is precached.
+     *
+     * @return The start position, or null to precache from the start of the path.
+     */
+    public LatLng getStartPosition() {
+        return m_startPosition;
+    }
+
+    /**
+     * Returns the Executor on which the completion callback is called.
+     *
+     * @return The Executor, or null if the callback is called on the Android UI thread.
+     */
+    public Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+}
@@ -0,0 +1,17 @@
+package com.eegeo.mapapi.precaching;
+
+import androidx.annotation.UiThread;
+
+/**
+ * Defines the signature for a method that is called as a resumable precache operation progresses.
+ */
+public interface OnPrecacheProgressListener
+{
+    /**
+     * A method to be executed each time a region of a resumable precache completes.
+     *
+     * @param operation the operation, from which progress and throughput may be read
+     */
+    @UiThread
+    void onPrecacheProgress(ResumablePrecacheOperation operation);
+}
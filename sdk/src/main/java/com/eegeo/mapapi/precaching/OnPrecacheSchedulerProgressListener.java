@@ -0,0 +1,18 @@
+package com.eegeo.mapapi.precaching;
+
+import androidx.annotation.UiThread;
+
+/**
+ * Defines the signature for a method that is called when a PrecacheScheduler makes progress or
+ * is paused or resumed.
+ */
+public interface OnPrecacheSchedulerProgressListener
+{
+    /**
+     * A method to be executed when a region completes, or when the scheduler pauses or resumes.
+     *
+     * @param scheduler the scheduler, from which progress and metrics may be read
+     */
+    @UiThread
+    void onPrecacheSchedulerProgress(PrecacheScheduler scheduler);
+}
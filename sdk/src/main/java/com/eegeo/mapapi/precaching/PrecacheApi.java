@@ -8,6 +8,8 @@ import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
 import com.eegeo.mapapi.geometry.LatLng;
 
+import java.util.concurrent.Executor;
+
 public class PrecacheApi {
     private INativeMessageRunner m_nativeRunner;
     private IUiMessageRunner m_uiRunner;
@@ -30,7 +32,30 @@ public class PrecacheApi {
     public PrecacheOperation precache(LatLng center,
                                       double radius,
                                       OnPrecacheOperationCompletedListener callback) {
-        return new PrecacheOperation(this, center, radius, callback);
+        return precache(center, radius, callback, null);
+    }
+
+    @UiThread
+    public PrecacheOperation precache(LatLng center,
+                                      double radius,
+                                      OnPrecacheOperationCompletedListener callback,
+                                      Executor callbackExecutor) {
+        return new PrecacheOperation(this, center, radius, callback, callbackExecutor);
+    }
+
+    @UiThread
+    public CorridorPrecacheOperation precacheCorridor(CorridorPrecacheOptions options,
+                                                      OnPrecacheOperationCompletedListener callback) {
+        double regionRadius = options.getRegionRadius() > 0.0 ? options.getRegionRadius() : m_maximumPrecacheRadius;
+        return new CorridorPrecacheOperation(this, options, regionRadius, callback);
+    }
+
+    @UiThread
+    public ResumablePrecacheOperation precacheResumable(ResumablePrecacheOptions options,
+                                                        OnPrecacheProgressListener progressListener,
+                                                        OnPrecacheOperationCompletedListener callback) {
+        double regionRadius = options.getRegionRadius() > 0.0 ? options.getRegionRadius() : m_maximumPrecacheRadius * 0.5;
+        return new ResumablePrecacheOperation(this, options, regionRadius, progressListener, callback);
     }
 
     @UiThread
@@ -62,14 +87,18 @@ public class PrecacheApi {
 
         if (operation != null) {
             m_operations.remove(precacheOperationId);
-            m_uiRunner.runOnUiThread(
-                new Runnable() {
-                    @UiThread
-                    @Override
-                    public void run() {
-                        operation.returnResult(result);
-                    }
-                });
+            Runnable returnResult = new Runnable() {
+                @Override
+                public void run() {
+                    operation.returnResult(result);
+                }
+            };
+            Executor callbackExecutor = operation.getCallbackExecutor();
+            if (callbackExecutor != null) {
+                callbackExecutor.execute(returnResult);
+            } else {
+                m_uiRunner.runOnUiThread(returnResult);
+            }
         }
     }
 
@@ -0,0 +1,56 @@
+package com.eegeo.mapapi.precaching;
+
+import android.net.TrafficStats;
+import android.os.Process;
+
+/**
+ * Measures the bytes received by the application while at least one precache operation is in
+ * progress. The native precache operations do not report their own transfer sizes, so this counts
+ * all traffic received by the application's uid over those periods, which includes any other
+ * downloads made at the same time. Values from it are exposed as app bytes received while
+ * precaching, not as precache download sizes.
+ *
+ * @eegeo.internal
+ */
+final class PrecacheByteCounter {
+    private final int m_uid = Process.myUid();
+    private int m_activeCount = 0;
+    private long m_periodStartBytes = 0;
+    private long m_completedPeriodBytes = 0;
+
+    void begin() {
+        if (m_activeCount++ == 0) {
+            m_periodStartBytes = readReceivedBytes();
+        }
+    }
+
+    void end() {
+        if (m_activeCount == 0) {
+            return;
+        }
+        if (--m_activeCount == 0) {
+            m_completedPeriodBytes += Math.max(0, readReceivedBytes() - m_periodStartBytes);
+        }
+    }
+
+    long getBytes() {
+        long bytes = m_completedPeriodBytes;
+        if (m_activeCount > 0) {
+            bytes += Math.max(0, readReceivedBytes() - m_periodStartBytes);
+        }
+        return bytes;
+    }
+
+    void setCompletedBytes(long bytes) {
+        m_completedPeriodBytes = bytes;
+    }
+
+    void addCompletedBytes(long bytes) {
+        m_completedPeriodBytes += bytes;
+    }
+
+    private long readReceivedBytes() {
+        long bytes = TrafficStats.getUidRxBytes(m_uid);
+        return bytes == TrafficStats.UNSUPPORTED ? 0 : bytes;
+    }
+}
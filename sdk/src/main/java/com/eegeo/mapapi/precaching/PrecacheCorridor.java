@@ -0,0 +1,135 @@
+package com.eegeo.mapapi.precaching;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.util.List;
+
+/**
+ * The decomposition of a path into a chain of overlapping circular precache regions. Region centers
+ * are spaced evenly along the path, close enough that consecutive circles overlap and the corridor
+ * either side of the path is covered to a width of at least CORRIDOR_HALF_WIDTH_FRACTION of the
+ * region radius.
+ *
+ * @eegeo.internal
+ */
+final class PrecacheCorridor {
+    static final double REGION_SPACING_FRACTION = 1.5;
+    static final double CORRIDOR_HALF_WIDTH_FRACTION = 0.66;
+
+    private static final double EARTH_RADIUS_METERS = 6378137.0;
+
+    final double regionRadius;
+    final double[] regionLatitudes;
+    final double[] regionLongitudes;
+    // distance of each region center from the start of the path, in meters
+    final double[] regionDistancesAlongPath;
+
+    private final double[] m_pathLatitudes;
+    private final double[] m_pathLongitudes;
+    private final double[] m_pathDistances;
+
+    PrecacheCorridor(List<LatLng> path, double regionRadius) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("path must contain at least one point");
+        }
+        if (!(regionRadius > 0.0)) {
+            throw new IllegalArgumentException("regionRadius must be greater than zero");
+        }
+
+        this.regionRadius = regionRadius;
+
+        final int pointCount = path.size();
+        m_pathLatitudes = new double[pointCount];
+        m_pathLongitudes = new double[pointCount];
+        m_pathDistances = new double[pointCount];
+        for (int i = 0; i < pointCount; ++i) {
+            m_pathLatitudes[i] = path.get(i).latitude;
+            m_pathLongitudes[i] = path.get(i).longitude;
+            if (i > 0) {
+                m_pathDistances[i] = m_pathDistances[i - 1] + distance(
+                        m_pathLatitudes[i - 1], m_pathLongitudes[i - 1], m_pathLatitudes[i], m_pathLongitudes[i]);
+            }
+        }
+
+        final double length = m_pathDistances[pointCount - 1];
+        final double spacing = regionRadius * REGION_SPACING_FRACTION;
+        final int regionCount = (int) Math.ceil(length / spacing) + 1;
+        regionLatitudes = new double[regionCount];
+        regionLongitudes = new double[regionCount];
+        regionDistancesAlongPath = new double[regionCount];
+
+        int segment = 0;
+        for (int region = 0; region < regionCount; ++region) {
+            double along = Math.min(region * spacing, length);
+            while (segment < pointCount - 2 && m_pathDistances[segment + 1] < along) {
+                ++segment;
+            }
+
+            regionDistancesAlongPath[region] = along;
+            if (pointCount == 1) {
+                regionLatitudes[region] = m_pathLatitudes[0];
+                regionLongitudes[region] = m_pathLongitudes[0];
+                continue;
+            }
+
+            double segmentLength = m_pathDistances[segment + 1] - m_pathDistances[segment];
+            double t = segmentLength > 0.0 ? (along - m_pathDistances[segment]) / segmentLength : 0.0;
+            t = Math.max(0.0, Math.min(1.0, t));
+            regionLatitudes[region] = m_pathLatitudes[segment] + (m_pathLatitudes[segment + 1] - m_pathLatitudes[segment]) * t;
+            regionLongitudes[region] = m_pathLongitudes[segment] + (m_pathLongitudes[segment + 1] - m_pathLongitudes[segment]) * t;
+        }
+    }
+
+    int getRegionCount() {
+        return regionLatitudes.length;
+    }
+
+    LatLng getRegionCenter(int region) {
+        return new LatLng(regionLatitudes[region], regionLongitudes[region]);
+    }
+
+    double getLength() {
+        return m_pathDistances[m_pathDistances.length - 1];
+    }
+
+    /**
+     * Finds how far along the path a position is, by projecting it onto the nearest segment.
+     */
+    double getDistanceAlongPath(double latitude, double longitude) {
+        if (m_pathLatitudes.length == 1) {
+            return 0.0;
+        }
+
+        final double metersPerDegreeLatitude = Math.toRadians(EARTH_RADIUS_METERS);
+        final double metersPerDegreeLongitude = metersPerDegreeLatitude * Math.cos(Math.toRadians(latitude));
+
+        double bestDistanceSquared = Double.POSITIVE_INFINITY;
+        double bestAlong = 0.0;
+        for (int i = 0; i + 1 < m_pathLatitudes.length; ++i) {
+            double ax = (m_pathLongitudes[i] - longitude) * metersPerDegreeLongitude;
+            double ay = (m_pathLatitudes[i] - latitude) * metersPerDegreeLatitude;
+            double bx = (m_pathLongitudes[i + 1] - longitude) * metersPerDegreeLongitude;
+            double by = (m_pathLatitudes[i + 1] - latitude) * metersPerDegreeLatitude;
+            double dx = bx - ax;
+            double dy = by - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared > 0.0 ? Math.max(0.0, Math.min(1.0, -(ax * dx + ay * dy) / lengthSquared)) : 0.0;
+            double cx = ax + dx * t;
+            double cy = ay + dy * t;
+            double distanceSquared = cx * cx + cy * cy;
+            if (distanceSquared < bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                bestAlong = m_pathDistances[i] + (m_pathDistances[i + 1] - m_pathDistances[i]) * t;
+            }
+        }
+        return bestAlong;
+    }
+
+    static double distance(double latitudeA, double longitudeA, double latitudeB, double longitudeB) {
+        double dLat = Math.toRadians(latitudeB - latitudeA);
+        double dLng = Math.toRadians(longitudeB - longitudeA);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitudeA)) * Math.cos(Math.toRadians(latitudeB)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2.0 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1.0 - a));
+    }
+}
@@ -0,0 +1,82 @@
+package com.eegeo.mapapi.precaching;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The decomposition of a large circular area into a square grid of smaller overlapping circular
+ * regions which together cover it. Regions are ordered by distance from the center of the area, so
+ * the most central content is precached first.
+ *
+ * @eegeo.internal
+ */
+final class PrecacheGrid {
+    private static final double METERS_PER_DEGREE_LATITUDE = Math.toRadians(6378137.0);
+
+    final double regionRadius;
+    final double[] regionLatitudes;
+    final double[] regionLongitudes;
+
+    PrecacheGrid(double centerLatitude, double centerLongitude, double radius, double regionRadius) {
+        if (!(radius > 0.0) || !(regionRadius > 0.0)) {
+            throw new IllegalArgumentException("radius and regionRadius must be greater than zero");
+        }
+
+        this.regionRadius = regionRadius;
+
+        if (radius <= regionRadius) {
+            regionLatitudes = new double[]{centerLatitude};
+            regionLongitudes = new double[]{centerLongitude};
+            return;
+        }
+
+        // circles on a square grid with this spacing leave no gaps between them
+        final double spacing = regionRadius * Math.sqrt(2.0);
+        // any point of the area is within regionRadius of its nearest grid point
+        final double reach = radius + regionRadius;
+        final int halfCount = (int) Math.ceil(reach / spacing);
+        final double metersPerDegreeLongitude = METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(centerLatitude));
+
+        final int sideCount = halfCount * 2 + 1;
+        double[] offsetsX = new double[sideCount * sideCount];
+        double[] offsetsY = new double[sideCount * sideCount];
+        double[] distances = new double[sideCount * sideCount];
+        int count = 0;
+        for (int row = -halfCount; row <= halfCount; ++row) {
+            for (int column = -halfCount; column <= halfCount; ++column) {
+                double x = column * spacing;
+                double y = row * spacing;
+                double distance = Math.sqrt(x * x + y * y);
+                if (distance <= reach) {
+                    offsetsX[count] = x;
+                    offsetsY[count] = y;
+                    distances[count] = distance;
+                    ++count;
+                }
+            }
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+        }
+        final double[] sortDistances = distances;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(sortDistances[a], sortDistances[b]);
+            }
+        });
+
+        regionLatitudes = new double[count];
+        regionLongitudes = new double[count];
+        for (int i = 0; i < count; ++i) {
+            regionLatitudes[i] = centerLatitude + offsetsY[order[i]] / METERS_PER_DEGREE_LATITUDE;
+            regionLongitudes[i] = centerLongitude + offsetsX[order[i]] / metersPerDegreeLongitude;
+        }
+    }
+
+    int getRegionCount() {
+        return regionLatitudes.length;
+    }
+}
@@ -8,12 +8,14 @@ import com.eegeo.mapapi.geometry.LatLng;
 import com.eegeo.mapapi.util.NativeApiObject;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * A handle to an ongoing precache operation.
  */
 public class PrecacheOperation extends NativeApiObject {
     private OnPrecacheOperationCompletedListener m_callback;
+    private final Executor m_callbackExecutor;
     private PrecacheApi m_precacheApi;
 
     /**
@@ -27,7 +29,8 @@ public class PrecacheOperation extends NativeApiObject {
             @NonNull final PrecacheApi precacheApi,
             @NonNull final LatLng center,
             final double radius,
-            final OnPrecacheOperationCompletedListener callback) {
+            final OnPrecacheOperationCompletedListener callback,
+            final Executor callbackExecutor) {
         super(precacheApi.getNativeRunner(), precacheApi.getUiRunner(),
                 new Callable<Integer>() {
                     @Override
@@ -38,6 +41,7 @@ public class PrecacheOperation extends NativeApiObject {
                 });
 
         m_callback = callback;
+        m_callbackExecutor = callbackExecutor;
         m_precacheApi = precacheApi;
 
         submit(new Runnable() {
@@ -62,7 +66,11 @@ public class PrecacheOperation extends NativeApiObject {
         });
     }
 
-    @UiThread
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
+    // called on the callback Executor, or the UI thread if there is none
     void returnResult(PrecacheOperationResult result) {
         if (m_callback != null) {
             m_callback.onPrecacheOperationCompleted(result);
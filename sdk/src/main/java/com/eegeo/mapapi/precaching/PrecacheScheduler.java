@@ -0,0 +1,730 @@
+package com.eegeo.mapapi.precaching;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.BatteryManager;
+import android.os.Build;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+import android.util.Log;
+
+import com.eegeo.mapapi.EegeoMap;
+import com.eegeo.mapapi.IUiMessageRunner;
+import com.eegeo.mapapi.UiThreadRunner;
+import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.web.ConnectivityQuerier;
+import com.eegeo.web.NetworkChangeReceiver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Queues precache regions and runs them in the background only while conditions allow, for example
+ * to precache a whole site overnight while a device is charging on Wi-Fi.
+ * <br>
+ * <br>
+ * The queue is saved to the application's files directory, so regions not yet precached survive a
+ * restart of the application. The saved queue is read on a background thread, and its regions join
+ * the queue, ahead of any enqueued since, shortly after the scheduler is created. While started, the scheduler watches for connectivity and power
+ * changes, pausing when its run conditions stop holding - cancelling and requeueing any regions in
+ * progress - and resuming when they hold again. Regions which fail are retried a limited number of
+ * times.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class PrecacheScheduler {
+    /**
+     * Run condition satisfied while the active network connection is not metered.
+     */
+    public static final int CONDITION_UNMETERED = 1;
+
+    /**
+     * Run condition satisfied while the device is connected to a power source.
+     */
+    public static final int CONDITION_CHARGING = 1 << 1;
+
+    /**
+     * The default number of regions precached at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_OPERATIONS = 1;
+
+    private static final String TAG = "PrecacheScheduler";
+    private static final String QUEUE_FILE_NAME = "eegeo_precache_queue";
+    private static final int QUEUE_FILE_MAGIC = 0x45475051; // "EGPQ"
+    private static final short QUEUE_FILE_VERSION = 1;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Context m_context;
+    private final EegeoMap m_eegeoMap;
+    private final File m_queueFile;
+    private final IUiMessageRunner m_uiRunner;
+    private final ExecutorService m_fileExecutor = Executors.newSingleThreadExecutor();
+    private final List<Entry> m_pendingEntries = new ArrayList<>();
+    private final List<Entry> m_activeEntries = new ArrayList<>();
+    private final PrecacheByteCounter m_byteCounter = new PrecacheByteCounter();
+    private OnPrecacheSchedulerProgressListener m_progressListener = null;
+    private int m_runConditions = CONDITION_UNMETERED | CONDITION_CHARGING;
+    private int m_maxConcurrentOperations = DEFAULT_MAX_CONCURRENT_OPERATIONS;
+    private long m_nextEntryId = 1;
+    private int m_completedCount = 0;
+    private int m_failedCount = 0;
+    private boolean m_started = false;
+    private boolean m_paused = true;
+    private boolean m_queueLoaded = false;
+    private boolean m_clearedBeforeLoad = false;
+    private boolean m_destroyed = false;
+
+    private final BroadcastReceiver m_conditionsReceiver = new BroadcastReceiver() {
+        @UiThread
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateRunState();
+        }
+    };
+
+    // watches the default network on API 24 and above, in place of the deprecated connectivity
+    // broadcast. Created on first start, so that the class is not loaded on older API levels
+    private ConnectivityManager.NetworkCallback m_networkCallback = null;
+
+    /**
+     * Creates a scheduler, and starts restoring any regions queued by a previous instance in the
+     * background. The scheduler does not run regions until start is called.
+     *
+     * @param context  An Android context, used to watch connectivity and power state and to store the queue.
+     * @param eegeoMap The map used to precache regions.
+     */
+    @UiThread
+    public PrecacheScheduler(@NonNull Context context, @NonNull EegeoMap eegeoMap) {
+        m_context = context.getApplicationContext();
+        m_eegeoMap = eegeoMap;
+        m_queueFile = new File(m_context.getFilesDir(), QUEUE_FILE_NAME);
+        m_uiRunner = new UiThreadRunner(m_context);
+        loadQueue();
+    }
+
+    /**
+     * Adds a circular region to the end of the queue.
+     *
+     * @param center The center of the area to precache.
+     * @param radius The radius (in meters) of the area to precache.
+     * @return An id which may be passed to remove.
+     */
+    @UiThread
+    public long enqueue(@NonNull LatLng center, double radius) throws IllegalArgumentException {
+        final double maximumPrecacheRadius = m_eegeoMap.getMaximumPrecacheRadius();
+        if (radius <= 0.0 || radius > maximumPrecacheRadius)
+        {
+            throw new IllegalArgumentException(
+                    String.format("radius %f outside of valid (0, %f] range.",
+                            radius, maximumPrecacheRadius));
+        }
+
+        Entry entry = new Entry(m_nextEntryId++, center.latitude, center.longitude, radius);
+        m_pendingEntries.add(entry);
+        saveQueue();
+        startPendingEntries();
+        return entry.id;
+    }
+
+    /**
+     * Adds the regions of a corridor to the end of the queue, in order along the path.
+     *
+     * @param options The path of the corridor and its region radius. Other options are ignored.
+     * @return The number of regions added.
+     */
+    @UiThread
+    public int enqueue(@NonNull CorridorPrecacheOptions options) throws IllegalArgumentException {
+        final double maximumPrecacheRadius = m_eegeoMap.getMaximumPrecacheRadius();
+        if (options.getRegionRadius() < 0.0 || options.getRegionRadius() > maximumPrecacheRadius)
+        {
+            throw new IllegalArgumentException(
+                    String.format("regionRadius %f outside of valid (0, %f] range.",
+                            options.getRegionRadius(), maximumPrecacheRadius));
+        }
+
+        double regionRadius = options.getRegionRadius() > 0.0 ? options.getRegionRadius() : maximumPrecacheRadius;
+        PrecacheCorridor corridor = new PrecacheCorridor(options.getPath(), regionRadius);
+        for (int region = 0; region < corridor.getRegionCount(); ++region) {
+            m_pendingEntries.add(new Entry(m_nextEntryId++,
+                    corridor.regionLatitudes[region], corridor.regionLongitudes[region], regionRadius));
+        }
+        saveQueue();
+        startPendingEntries();
+        return corridor.getRegionCount();
+    }
+
+    /**
+     * Removes a region from the queue, cancelling it if it is in progress. Regions restored from a
+     * previous instance can only be removed once the saved queue has been read.
+     *
+     * @param id The id returned when the region was enqueued.
+     * @return True if the region was found.
+     */
+    @UiThread
+    public boolean remove(long id) {
+        for (int i = 0; i < m_pendingEntries.size(); ++i) {
+            if (m_pendingEntries.get(i).id == id) {
+                m_pendingEntries.remove(i);
+                saveQueue();
+                return true;
+            }
+        }
+        for (Entry entry : m_activeEntries) {
+            if (entry.id == id) {
+                entry.removed = true;
+                entry.operation.cancel();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all regions from the queue, cancelling those in progress.
+     */
+    @UiThread
+    public void clear() {
+        if (!m_queueLoaded) {
+            m_clearedBeforeLoad = true;
+        }
+        m_pendingEntries.clear();
+        for (Entry entry : m_activeEntries) {
+            entry.removed = true;
+            entry.operation.cancel();
+        }
+        saveQueue();
+    }
+
+    /**
+     * Starts running queued regions whenever the run conditions hold.
+     */
+    @UiThread
+    public void start() {
+        if (m_started) {
+            return;
+        }
+
+        m_started = true;
+        IntentFilter filter = new IntentFilter();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            registerNetworkCallback();
+        } else {
+            addConnectivityAction(filter);
+        }
+        filter.addAction(NetworkChangeReceiver.NETWORK_STATUS_CHANGED_INTENT);
+        filter.addAction(Intent.ACTION_POWER_CONNECTED);
+        filter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+        m_context.registerReceiver(m_conditionsReceiver, filter);
+        updateRunState();
+    }
+
+    /**
+     * Stops running regions. Regions in progress are cancelled and kept in the queue.
+     */
+    @UiThread
+    public void stop() {
+        if (!m_started) {
+            return;
+        }
+
+        m_started = false;
+        m_context.unregisterReceiver(m_conditionsReceiver);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            unregisterNetworkCallback();
+        }
+        updateRunState();
+    }
+
+    /**
+     * Stops the scheduler and shuts down its background thread. Regions not yet precached, including
+     * those in progress, stay saved for a later instance. The scheduler cannot be used again.
+     */
+    @UiThread
+    public void destroy() {
+        if (m_destroyed) {
+            return;
+        }
+
+        stop();
+        // saved before shutting down, so regions cancelled by stop are kept in the queue
+        saveQueue();
+        m_destroyed = true;
+        m_fileExecutor.shutdown();
+    }
+
+    /**
+     * Sets the conditions under which regions are run. A network connection is always required;
+     * beyond that, regions are run while any one of the given conditions holds.
+     *
+     * @param runConditions A combination of CONDITION_UNMETERED and CONDITION_CHARGING, or 0 to
+     *                      run whenever a connection is available.
+     */
+    @UiThread
+    public void setRunConditions(int runConditions) {
+        m_runConditions = runConditions;
+        updateRunState();
+    }
+
+    /**
+     * Sets the maximum number of regions precached at the same time.
+     *
+     * @param maxConcurrentOperations The number of regions, at least 1.
+     */
+    @UiThread
+    public void setMaxConcurrentOperations(int maxConcurrentOperations) {
+        m_maxConcurrentOperations = Math.max(1, maxConcurrentOperations);
+        startPendingEntries();
+    }
+
+    /**
+     * Sets a listener to be notified as regions complete and when the scheduler pauses or resumes.
+     *
+     * @param listener The listener, or null.
+     */
+    @UiThread
+    public void setProgressListener(OnPrecacheSchedulerProgressListener listener) {
+        m_progressListener = listener;
+    }
+
+    /**
+     * @return True if the scheduler is not currently running regions, because it is stopped or its
+     * run conditions do not hold.
+     */
+    @UiThread
+    public boolean isPaused() {
+        return m_paused;
+    }
+
+    /**
+     * @return The number of regions waiting to be precached or in progress.
+     */
+    @UiThread
+    public int getPendingRegionCount() {
+        return m_pendingEntries.size() + m_activeEntries.size();
+    }
+
+    /**
+     * @return The number of regions precached successfully.
+     */
+    @UiThread
+    public int getCompletedRegionCount() {
+        return m_completedCount;
+    }
+
+    /**
+     * @return The number of regions abandoned after repeated failures.
+     */
+    @UiThread
+    public int getFailedRegionCount() {
+        return m_failedCount;
+    }
+
+    /**
+     * @return The fraction of queued regions which have completed or been abandoned, from 0 to 1.
+     */
+    @UiThread
+    public double getProgress() {
+        int finished = m_completedCount + m_failedCount;
+        int total = finished + getPendingRegionCount();
+        return total == 0 ? 1.0 : (double) finished / total;
+    }
+
+    /**
+     * @return The bytes received by the whole application while regions were in progress. The
+     * native precache does not report its own transfer sizes, so this is not the size of the
+     * precached regions: it includes any other traffic received by the application during those
+     * periods.
+     */
+    @UiThread
+    public long getAppBytesReceivedWhilePrecaching() {
+        return m_byteCounter.getBytes();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void addConnectivityAction(IntentFilter filter) {
+        filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    @UiThread
+    private void registerNetworkCallback() {
+        ConnectivityManager connectivityManager = (ConnectivityManager) m_context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        if (m_networkCallback == null) {
+            m_networkCallback = new ConnectivityManager.NetworkCallback() {
+                @WorkerThread
+                @Override
+                public void onAvailable(Network network) {
+                    postUpdateRunState();
+                }
+
+                @WorkerThread
+                @Override
+                public void onLost(Network network) {
+                    postUpdateRunState();
+                }
+
+                // a network becoming metered or unmetered is reported as a change of capabilities
+                @WorkerThread
+                @Override
+                public void onCapabilitiesChanged(Network network, NetworkCapabilities networkCapabilities) {
+                    postUpdateRunState();
+                }
+            };
+        }
+        connectivityManager.registerDefaultNetworkCallback(m_networkCallback);
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    @UiThread
+    private void unregisterNetworkCallback() {
+        ConnectivityManager connectivityManager = (ConnectivityManager) m_context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null && m_networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(m_networkCallback);
+        }
+    }
+
+    // network callbacks arrive on a connectivity thread, so the run state is updated on the UI thread
+    @WorkerThread
+    private void postUpdateRunState() {
+        m_uiRunner.runOnUiThread(new Runnable() {
+            @UiThread
+            @Override
+            public void run() {
+                updateRunState();
+            }
+        });
+    }
+
+    @UiThread
+    private void updateRunState() {
+        boolean shouldRun = m_started && areRunConditionsMet();
+        if (shouldRun == !m_paused) {
+            return;
+        }
+
+        m_paused = !shouldRun;
+        if (m_paused) {
+            for (Entry entry : m_activeEntries) {
+                entry.requeue = true;
+                entry.operation.cancel();
+            }
+        } else {
+            startPendingEntries();
+        }
+        notifyProgress();
+    }
+
+    @UiThread
+    private boolean areRunConditionsMet() {
+        if (ConnectivityQuerier.getConnectivityStatus(m_context) == ConnectivityQuerier.NOT_CONNECTED) {
+            return false;
+        }
+        if (m_runConditions == 0) {
+            return true;
+        }
+
+        if ((m_runConditions & CONDITION_UNMETERED) != 0) {
+            ConnectivityManager connectivityManager = (ConnectivityManager) m_context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivityManager != null && !connectivityManager.isActiveNetworkMetered()) {
+                return true;
+            }
+        }
+        if ((m_runConditions & CONDITION_CHARGING) != 0) {
+            Intent batteryStatus = m_context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            if (batteryStatus != null && batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @UiThread
+    private void startPendingEntries() {
+        while (!m_paused && m_activeEntries.size() < m_maxConcurrentOperations && !m_pendingEntries.isEmpty()) {
+            final Entry entry = m_pendingEntries.remove(0);
+            m_activeEntries.add(entry);
+            m_byteCounter.begin();
+            entry.operation = m_eegeoMap.precache(new LatLng(entry.latitude, entry.longitude), entry.radius,
+                    new OnPrecacheOperationCompletedListener() {
+                        @UiThread
+                        @Override
+                        public void onPrecacheOperationCompleted(PrecacheOperationResult result) {
+                            onEntryCompleted(entry, result.succeeded());
+                        }
+                    });
+        }
+    }
+
+    @UiThread
+    private void onEntryCompleted(Entry entry, boolean succeeded) {
+        if (m_destroyed) {
+            return;
+        }
+
+        m_byteCounter.end();
+        m_activeEntries.remove(entry);
+        entry.operation = null;
+
+        if (entry.removed) {
+            // already dropped from the queue
+        } else if (succeeded) {
+            ++m_completedCount;
+        } else if (entry.requeue) {
+            entry.requeue = false;
+            m_pendingEntries.add(0, entry);
+        } else if (++entry.attempts < MAX_ATTEMPTS) {
+            m_pendingEntries.add(entry);
+        } else {
+            ++m_failedCount;
+        }
+
+        saveQueue();
+        notifyProgress();
+        startPendingEntries();
+    }
+
+    @UiThread
+    private void notifyProgress() {
+        if (m_progressListener != null) {
+            m_progressListener.onPrecacheSchedulerProgress(this);
+        }
+    }
+
+    @UiThread
+    private void loadQueue() {
+        m_fileExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                SavedQueue savedQueue = null;
+                try {
+                    savedQueue = readQueue(m_queueFile);
+                } catch (IOException e) {
+                    Log.w(TAG, "Discarding unreadable precache queue: " + e.getMessage());
+                }
+
+                final SavedQueue loadedQueue = savedQueue;
+                m_uiRunner.runOnUiThread(new Runnable() {
+                    @UiThread
+                    @Override
+                    public void run() {
+                        onQueueLoaded(loadedQueue);
+                    }
+                });
+            }
+        });
+    }
+
+    @UiThread
+    private void onQueueLoaded(SavedQueue savedQueue) {
+        if (m_destroyed) {
+            return;
+        }
+
+        m_queueLoaded = true;
+        if (savedQueue != null) {
+            m_completedCount += savedQueue.completedCount;
+            m_failedCount += savedQueue.failedCount;
+            m_byteCounter.addCompletedBytes(savedQueue.bytes);
+            if (!m_clearedBeforeLoad) {
+                Set<Long> usedIds = new HashSet<>();
+                for (Entry entry : m_activeEntries) {
+                    usedIds.add(entry.id);
+                }
+                for (Entry entry : m_pendingEntries) {
+                    usedIds.add(entry.id);
+                }
+                m_nextEntryId = restoreEntries(savedQueue, usedIds, Math.max(m_nextEntryId, savedQueue.nextEntryId));
+                m_pendingEntries.addAll(0, savedQueue.entries);
+            }
+        }
+
+        saveQueue();
+        notifyProgress();
+        startPendingEntries();
+    }
+
+    @UiThread
+    private void saveQueue() {
+        // not saved until the previous queue has been read, so that it is not overwritten
+        if (!m_queueLoaded || m_destroyed) {
+            return;
+        }
+
+        // active entries are saved too, so that regions in progress are not lost if the process dies
+        final SavedQueue savedQueue = new SavedQueue();
+        for (Entry entry : m_activeEntries) {
+            if (!entry.removed) {
+                savedQueue.entries.add(entry.copy());
+            }
+        }
+        for (Entry entry : m_pendingEntries) {
+            savedQueue.entries.add(entry.copy());
+        }
+        savedQueue.nextEntryId = m_nextEntryId;
+        savedQueue.completedCount = m_completedCount;
+        savedQueue.failedCount = m_failedCount;
+        savedQueue.bytes = m_byteCounter.getBytes();
+
+        m_fileExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                try {
+                    writeQueue(m_queueFile, savedQueue);
+                } catch (IOException e) {
+                    Log.w(TAG, "Unable to save precache queue: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Gives restored entries whose ids are already used by entries enqueued before the queue was read
+     * new ids, starting from nextEntryId.
+     *
+     * @return The next unused id.
+     */
+    static long restoreEntries(SavedQueue savedQueue, Set<Long> usedIds, long nextEntryId) {
+        for (int i = 0; i < savedQueue.entries.size(); ++i) {
+            Entry entry = savedQueue.entries.get(i);
+            if (usedIds.contains(entry.id)) {
+                Entry renumbered = new Entry(nextEntryId++, entry.latitude, entry.longitude, entry.radius);
+                renumbered.attempts = entry.attempts;
+                savedQueue.entries.set(i, renumbered);
+            }
+        }
+        return nextEntryId;
+    }
+
+    /**
+     * @return The saved queue, or null if there is none.
+     */
+    @WorkerThread
+    static SavedQueue readQueue(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != QUEUE_FILE_MAGIC || input.readShort() != QUEUE_FILE_VERSION) {
+                throw new IOException("Unsupported precache queue file");
+            }
+            SavedQueue savedQueue = new SavedQueue();
+            savedQueue.nextEntryId = input.readLong();
+            savedQueue.completedCount = input.readInt();
+            savedQueue.failedCount = input.readInt();
+            savedQueue.bytes = input.readLong();
+            int count = input.readInt();
+            for (int i = 0; i < count; ++i) {
+                Entry entry = new Entry(input.readLong(), input.readDouble(), input.readDouble(), input.readDouble());
+                entry.attempts = input.readByte();
+                savedQueue.entries.add(entry);
+            }
+            return savedQueue;
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // nothing further to clean up
+                }
+            }
+        }
+    }
+
+    @WorkerThread
+    static void writeQueue(File file, SavedQueue savedQueue) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            output.writeInt(QUEUE_FILE_MAGIC);
+            output.writeShort(QUEUE_FILE_VERSION);
+            output.writeLong(savedQueue.nextEntryId);
+            output.writeInt(savedQueue.completedCount);
+            output.writeInt(savedQueue.failedCount);
+            output.writeLong(savedQueue.bytes);
+            output.writeInt(savedQueue.entries.size());
+            for (Entry entry : savedQueue.entries) {
+                output.writeLong(entry.id);
+                output.writeDouble(entry.latitude);
+                output.writeDouble(entry.longitude);
+                output.writeDouble(entry.radius);
+                output.writeByte(entry.attempts);
+            }
+            output.close();
+            output = null;
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Unable to replace " + file);
+            }
+        } catch (IOException e) {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException closeException) {
+                    // nothing further to clean up
+                }
+            }
+            tempFile.delete();
+            throw e;
+        }
+    }
+
+    static final class SavedQueue {
+        final List<Entry> entries = new ArrayList<>();
+        long nextEntryId = 1;
+        int completedCount = 0;
+        int failedCount = 0;
+        long bytes = 0;
+    }
+
+    static final class Entry {
+        final long id;
+        final double latitude;
+        final double longitude;
+        final double radius;
+        int attempts = 0;
+        PrecacheOperation operation = null;
+        boolean requeue = false;
+        boolean removed = false;
+
+        Entry(long id, double latitude, double longitude, double radius) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(id, latitude, longitude, radius);
+            copy.attempts = attempts;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package com.eegeo.mapapi.precaching;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A handle to an ongoing resumable precache. The area is divided into a grid of smaller regions,
+ * precached nearest the center first, with no more than a fixed number in progress at once.
+ * <br>
+ * <br>
+ * Progress is reported per region. If a checkpoint file was given, the completed regions are saved
+ * to it as they complete, and a later precache of the same area with the same file starts from
+ * where this one stopped. The checkpoint is read on a background thread, and no region is started
+ * until it has been read; the progress listener is called once restored regions are counted.
+ * Cancelling keeps the checkpoint; it is deleted once every region has succeeded.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class ResumablePrecacheOperation {
+    private static final String TAG = "ResumablePrecache";
+    private static final int CHECKPOINT_FILE_MAGIC = 0x45475043;
+    private static final short CHECKPOINT_FILE_VERSION = 1;
+
+    private static final byte REGION_PENDING = 0;
+    private static final byte REGION_ACTIVE = 1;
+    private static final byte REGION_SUCCEEDED = 2;
+    private static final byte REGION_FAILED = 3;
+
+    // one thread shared by all operations keeps checkpoint reads and writes off the UI thread and in order
+    private static final ExecutorService ms_checkpointExecutor = Executors.newSingleThreadExecutor();
+
+    private final PrecacheApi m_precacheApi;
+    private final LatLng m_center;
+    private final double m_radius;
+    private final PrecacheGrid m_grid;
+    private final int m_maxConcurrentOperations;
+    private final File m_checkpointFile;
+    private final OnPrecacheProgressListener m_progressListener;
+    private final OnPrecacheOperationCompletedListener m_callback;
+    private final Executor m_callbackExecutor;
+    private final byte[] m_regionStates;
+    private final PrecacheOperation[] m_activeOperations;
+    private final PrecacheByteCounter m_byteCounter = new PrecacheByteCounter();
+    private final long m_startTimeMillis = SystemClock.elapsedRealtime();
+    private long m_previousElapsedMillis = 0;
+    private int m_nextRegion = 0;
+    private int m_activeCount = 0;
+    private int m_succeededCount = 0;
+    private int m_resumedCount = 0;
+    private int m_failedCount = 0;
+    private long m_endTimeMillis = 0;
+    private boolean m_loadingCheckpoint = false;
+    private boolean m_cancelled = false;
+    private boolean m_completed = false;
+
+    @UiThread
+    ResumablePrecacheOperation(@NonNull PrecacheApi precacheApi,
+                               @NonNull ResumablePrecacheOptions options,
+                               double regionRadius,
+                               OnPrecacheProgressListener progressListener,
+                               OnPrecacheOperationCompletedListener callback) {
+        m_precacheApi = precacheApi;
+        m_center = options.getCenter();
+        m_radius = options.getRadius();
+        m_grid = new PrecacheGrid(m_center.latitude, m_center.longitude, m_radius, regionRadius);
+        m_maxConcurrentOperations = options.getMaxConcurrentOperations();
+        m_checkpointFile = options.getCheckpointFile();
+        m_progressListener = progressListener;
+        m_callback = callback;
+        m_callbackExecutor = options.getCallbackExecutor();
+        m_regionStates = new byte[m_grid.getRegionCount()];
+        m_activeOperations = new PrecacheOperation[m_grid.getRegionCount()];
+
+        // no region is started until the checkpoint has been read, so that none is precached twice
+        if (m_checkpointFile != null) {
+            loadCheckpoint();
+        } else {
+            startPendingRegions();
+        }
+    }
+
+    /**
+     * Cancels the precache. Regions in progress are cancelled, and no further regions are started.
+     * The checkpoint, if any, is kept so that the precache can be resumed later.
+     */
+    @UiThread
+    public void cancel() {
+        if (m_completed) {
+            return;
+        }
+
+        m_cancelled = true;
+        m_nextRegion = m_regionStates.length;
+        for (int region = 0; region < m_activeOperations.length; ++region) {
+            if (m_activeOperations[region] != null) {
+                m_activeOperations[region].cancel();
+            }
+        }
+        completeIfFinished();
+    }
+
+    /**
+     * @return The number of regions the area was divided into.
+     */
+    @UiThread
+    public int getRegionCount() {
+        return m_regionStates.length;
+    }
+
+    /**
+     * @return The number of regions which have been precached successfully, including those
+     * completed by an earlier operation and restored from the checkpoint.
+     */
+    @UiThread
+    public int getCompletedRegionCount() {
+        return m_succeededCount + m_resumedCount;
+    }
+
+    /**
+     * @return The number of regions restored as complete from the checkpoint.
+     */
+    @UiThread
+    public int getResumedRegionCount() {
+        return m_resumedCount;
+    }
+
+    /**
+     * @return The number of regions whose precache failed or was cancelled.
+     */
+    @UiThread
+    public int getFailedRegionCount() {
+        return m_failedCount;
+    }
+
+    /**
+     * @return The number of regions currently being precached.
+     */
+    @UiThread
+    public int getActiveRegionCount() {
+        return m_activeCount;
+    }
+
+    /**
+     * @return The fraction of regions completed, between 0.0 and 1.0.
+     */
+    @UiThread
+    public float getProgress() {
+        return (float) getCompletedRegionCount() / m_regionStates.length;
+    }
+
+    /**
+     * Gets the bytes received by the whole application while this precache was in progress,
+     * including by earlier operations restored from the checkpoint. The native precache does not
+     * report its own transfer sizes, so this is not the size of the precached regions: it includes
+     * any other downloads made at the same time.
+     *
+     * @return The number of bytes received.
+     */
+    @UiThread
+    public long getAppBytesReceivedWhilePrecaching() {
+        return m_byteCounter.getBytes();
+    }
+
+    /**
+     * @return The time spent precaching, in milliseconds, including by earlier operations restored
+     * from the checkpoint.
+     */
+    @UiThread
+    public long getElapsedMillis() {
+        long endTimeMillis = m_completed ? m_endTimeMillis : SystemClock.elapsedRealtime();
+        return m_previousElapsedMillis + (endTimeMillis - m_startTimeMillis);
+    }
+
+    /**
+     * @return The average rate at which the application received bytes while this precache was in
+     * progress, in bytes per second. See getAppBytesReceivedWhilePrecaching.
+     */
+    @UiThread
+    public double getAppBytesReceivedPerSecond() {
+        long elapsedMillis = getElapsedMillis();
+        return elapsedMillis > 0 ? getAppBytesReceivedWhilePrecaching() * 1000.0 / elapsedMillis : 0.0;
+    }
+
+    /**
+     * @return The average rate at which regions have been completed by this operation, in regions
+     * per second. Regions restored from the checkpoint are not counted.
+     */
+    @UiThread
+    public double getRegionsPerSecond() {
+        long elapsedMillis = (m_completed ? m_endTimeMillis : SystemClock.elapsedRealtime()) - m_startTimeMillis;
+        return elapsedMillis > 0 ? m_succeededCount * 1000.0 / elapsedMillis : 0.0;
+    }
+
+    /**
+     * @return True once every region has been precached or has failed, or the operation was
+     * cancelled and its regions in progress have stopped.
+     */
+    @UiThread
+    public boolean isComplete() {
+        return m_completed;
+    }
+
+    @UiThread
+    private void startPendingRegions() {
+        while (m_activeCount < m_maxConcurrentOperations && m_nextRegion < m_regionStates.length && !m_cancelled) {
+            final int region = m_nextRegion++;
+            if (m_regionStates[region] != REGION_PENDING) {
+                continue;
+            }
+
+            m_regionStates[region] = REGION_ACTIVE;
+            ++m_activeCount;
+            m_byteCounter.begin();
+            LatLng regionCenter = new LatLng(m_grid.regionLatitudes[region], m_grid.regionLongitudes[region]);
+            m_activeOperations[region] = m_precacheApi.precache(regionCenter, m_grid.regionRadius,
+                    new OnPrecacheOperationCompletedListener() {
+                        @UiThread
+                        @Override
+                        public void onPrecacheOperationCompleted(PrecacheOperationResult result) {
+                            onRegionCompleted(region, result.succeeded());
+                        }
+                    });
+        }
+        completeIfFinished();
+    }
+
+    @UiThread
+    private void onRegionCompleted(int region, boolean succeeded) {
+        m_activeOperations[region] = null;
+        --m_activeCount;
+        m_byteCounter.end();
+        if (succeeded) {
+            m_regionStates[region] = REGION_SUCCEEDED;
+            ++m_succeededCount;
+        } else {
+            m_regionStates[region] = REGION_FAILED;
+            ++m_failedCount;
+        }
+
+        if (m_progressListener != null) {
+            m_progressListener.onPrecacheProgress(this);
+        }
+        startPendingRegions();
+        // once complete, the final state is saved or the checkpoint deleted by completeIfFinished
+        if (succeeded && !m_completed) {
+            saveCheckpoint();
+        }
+    }
+
+    @UiThread
+    private void completeIfFinished() {
+        // a cancel while loading completes once the checkpoint is read, so that it is not overwritten
+        if (m_completed || m_loadingCheckpoint || m_activeCount > 0 || m_nextRegion < m_regionStates.length) {
+            return;
+        }
+
+        m_completed = true;
+        m_endTimeMillis = SystemClock.elapsedRealtime();
+        boolean succeeded = !m_cancelled && getCompletedRegionCount() == m_regionStates.length;
+        if (m_checkpointFile != null) {
+            if (succeeded) {
+                deleteCheckpoint();
+            } else {
+                saveCheckpoint();
+            }
+        }
+
+        returnResult(new PrecacheOperationResult(succeeded));
+    }
+
+    @UiThread
+    private void returnResult(final PrecacheOperationResult result) {
+        if (m_callback == null) {
+            return;
+        }
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                m_callback.onPrecacheOperationCompleted(result);
+            }
+        };
+        // always posted, so that the callback never runs before the caller has the operation
+        if (m_callbackExecutor != null) {
+            m_callbackExecutor.execute(callback);
+        } else {
+            m_precacheApi.getUiRunner().runOnUiThread(callback);
+        }
+    }
+
+    @UiThread
+    private void loadCheckpoint() {
+        m_loadingCheckpoint = true;
+        final File file = m_checkpointFile;
+        final LatLng center = m_center;
+        final double radius = m_radius;
+        final double regionRadius = m_grid.regionRadius;
+        final int regionCount = m_regionStates.length;
+
+        ms_checkpointExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                Checkpoint checkpoint = null;
+                try {
+                    checkpoint = readCheckpoint(file, center, radius, regionRadius, regionCount);
+                } catch (IOException e) {
+                    Log.w(TAG, "Ignoring unreadable precache checkpoint: " + e.getMessage());
+                }
+
+                final Checkpoint loadedCheckpoint = checkpoint;
+                m_precacheApi.getUiRunner().runOnUiThread(new Runnable() {
+                    @UiThread
+                    @Override
+                    public void run() {
+                        onCheckpointLoaded(loadedCheckpoint);
+                    }
+                });
+            }
+        });
+    }
+
+    @UiThread
+    private void onCheckpointLoaded(Checkpoint checkpoint) {
+        m_loadingCheckpoint = false;
+        // applied even if cancelled meanwhile, so that the saved checkpoint keeps the earlier progress
+        if (checkpoint != null) {
+            for (int region = 0; region < m_regionStates.length; ++region) {
+                if ((checkpoint.completedBits[region >> 3] & (1 << (region & 7))) != 0) {
+                    m_regionStates[region] = REGION_SUCCEEDED;
+                    ++m_resumedCount;
+                }
+            }
+            m_byteCounter.setCompletedBytes(checkpoint.bytes);
+            m_previousElapsedMillis = checkpoint.elapsedMillis;
+
+            if (m_progressListener != null && m_resumedCount > 0) {
+                m_progressListener.onPrecacheProgress(this);
+            }
+        }
+        startPendingRegions();
+    }
+
+    @UiThread
+    private void saveCheckpoint() {
+        if (m_checkpointFile == null) {
+            return;
+        }
+
+        final byte[] completedBits = new byte[(m_regionStates.length + 7) / 8];
+        for (int region = 0; region < m_regionStates.length; ++region) {
+            if (m_regionStates[region] == REGION_SUCCEEDED) {
+                completedBits[region >> 3] |= (byte) (1 << (region & 7));
+            }
+        }
+        final File file = m_checkpointFile;
+        final LatLng center = m_center;
+        final double radius = m_radius;
+        final double regionRadius = m_grid.regionRadius;
+        final int regionCount = m_regionStates.length;
+        final long bytes = m_byteCounter.getBytes();
+        final long elapsedMillis = getElapsedMillis();
+
+        ms_checkpointExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                writeCheckpoint(file, center, radius, regionRadius, regionCount, bytes, elapsedMillis, completedBits);
+            }
+        });
+    }
+
+    @UiThread
+    private void deleteCheckpoint() {
+        final File file = m_checkpointFile;
+        ms_checkpointExecutor.execute(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                if (file.exists() && !file.delete()) {
+                    Log.w(TAG, "Failed to delete precache checkpoint " + file);
+                }
+            }
+        });
+    }
+
+    @WorkerThread
+    private static Checkpoint readCheckpoint(File file,
+                                             LatLng center,
+                                             double radius,
+                                             double regionRadius,
+                                             int regionCount) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != CHECKPOINT_FILE_MAGIC || input.readShort() != CHECKPOINT_FILE_VERSION) {
+                throw new IOException("Unsupported precache checkpoint file");
+            }
+            // a checkpoint for a different area or grid says nothing about this one
+            if (input.readDouble() != center.latitude
+                    || input.readDouble() != center.longitude
+                    || input.readDouble() != radius
+                    || input.readDouble() != regionRadius
+                    || input.readInt() != regionCount) {
+                return null;
+            }
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.bytes = input.readLong();
+            checkpoint.elapsedMillis = input.readLong();
+            checkpoint.completedBits = new byte[(regionCount + 7) / 8];
+            input.readFully(checkpoint.completedBits);
+            return checkpoint;
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    @WorkerThread
+    private static void writeCheckpoint(File file,
+                                        LatLng center,
+                                        double radius,
+                                        double regionRadius,
+                                        int regionCount,
+                                        long bytes,
+                                        long elapsedMillis,
+                                        byte[] completedBits) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            output.writeInt(CHECKPOINT_FILE_MAGIC);
+            output.writeShort(CHECKPOINT_FILE_VERSION);
+            output.writeDouble(center.latitude);
+            output.writeDouble(center.longitude);
+            output.writeDouble(radius);
+            output.writeDouble(regionRadius);
+            output.writeInt(regionCount);
+            output.writeLong(bytes);
+            output.writeLong(elapsedMillis);
+            output.write(completedBits);
+            output.close();
+            output = null;
+
+            // replacing the file in one step means a crash never leaves a partial checkpoint
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Failed to rename " + tempFile + " to " + file);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write precache checkpoint: " + e.getMessage());
+            closeQuietly(output);
+            if (tempFile.exists() && !tempFile.delete()) {
+                Log.w(TAG, "Failed to delete " + tempFile);
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // nothing further to clean up
+            }
+        }
+    }
+
+    private static void closeQuietly(OutputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // nothing further to clean up
+            }
+        }
+    }
+
+    private static final class Checkpoint {
+        long bytes = 0;
+        long elapsedMillis = 0;
+        byte[] completedBits;
+    }
+}
@@ -0,0 +1,153 @@
+package com.eegeo.mapapi.precaching;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Defines the parameters of a resumable precache, which precaches a circular area of any size as
+ * a grid of smaller regions, recording completed regions in a checkpoint file.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ResumablePrecacheOptions {
+    /**
+     * The default number of regions precached at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_OPERATIONS = 2;
+
+    private LatLng m_center = null;
+    private double m_radius = 0.0;
+    private double m_regionRadius = 0.0;
+    private int m_maxConcurrentOperations = DEFAULT_MAX_CONCURRENT_OPERATIONS;
+    private File m_checkpointFile = null;
+    private Executor m_callbackExecutor = null;
+
+    /**
+     * Default constructor for resumable precache parameters.
+     */
+    public ResumablePrecacheOptions() {
+
+    }
+
+    /**
+     * Sets the center of the area to precache. This must be set.
+     *
+     * @param center The center of the area.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new center set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions center(LatLng center) {
+        m_center = center;
+        return this;
+    }
+
+    /**
+     * Sets the radius of the area to precache. This may be larger than the maximum precache
+     * radius. This must be set.
+     *
+     * @param radius The radius in meters.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new radius set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions radius(double radius) {
+        m_radius = radius;
+        return this;
+    }
+
+    /**
+     * Sets the radius of each region the area is divided into. Smaller regions give finer progress
+     * and lose less work when interrupted, at the cost of more operations. If this method is not
+     * called, half the maximum precache radius is used.
+     *
+     * @param regionRadius The radius in meters, no greater than EegeoMap.getMaximumPrecacheRadius.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new region radius set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions regionRadius(double regionRadius) {
+        m_regionRadius = regionRadius;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of regions precached at the same time.
+     *
+     * @param maxConcurrentOperations The number of regions, at least 1.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new limit set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions maxConcurrentOperations(int maxConcurrentOperations) {
+        m_maxConcurrentOperations = Math.max(1, maxConcurrentOperations);
+        return this;
+    }
+
+    /**
+     * Sets the file in which completed regions are recorded. If the file holds a checkpoint for the
+     * same area and region radius, regions it records as complete are not precached again. The
+     * file is deleted once every region has succeeded. If this method is not called, progress is
+     * not saved.
+     *
+     * @param checkpointFile The checkpoint file.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new file set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions checkpointFile(File checkpointFile) {
+        m_checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * Sets the Executor on which the completion callback is called. If not specified, it is called
+     * on the Android UI thread. Regions are still scheduled on the UI thread.
+     *
+     * @param callbackExecutor The Executor for the completion callback.
+     * @return The ResumablePrecacheOptions object on which the method was called, with the new Executor set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public ResumablePrecacheOptions callbackExecutor(Executor callbackExecutor) {
+        m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
+    /**
+     * @return The center of the area to precache.
+     */
+    public LatLng getCenter() {
+        return m_center;
+    }
+
+    /**
+     * @return The radius of the area to precache, in meters.
+     */
+    public double getRadius() {
+        return m_radius;
+    }
+
+    /**
+     * @return The radius of each region, or zero if half the maximum precache radius is to be used.
+     */
+    public double getRegionRadius() {
+        return m_regionRadius;
+    }
+
+    /**
+     * @return The maximum number of regions precached at the same time.
+     */
+    public int getMaxConcurrentOperations() {
+        return m_maxConcurrentOperations;
+    }
+
+    /**
+     * @return The checkpoint file, or null if progress is not saved.
+     */
+    public File getCheckpointFile() {
+        return m_checkpointFile;
+    }
+
+    /**
+     * @return The Executor for the completion callback, or null if it is called on the Android UI thread.
+     */
+    public Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eegeo.mapapi.props;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import com.eegeo.mapapi.INativeMessageRunner;
+import com.eegeo.mapapi.IUiMessageRunner;
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+/**
+ * The map operations a PropBatch uses to create and update its instances, implemented by PropsApi.
+ */
+interface IPropBatchInstanceApi {
+    @UiThread
+    INativeMessageRunner getNativeRunner();
+
+    @UiThread
+    IUiMessageRunner getUiRunner();
+
+    @WorkerThread
+    int createBatchInstance(String indoorMapId,
+                            int indoorFloorId,
+                            String name,
+                            double latitudeDegrees,
+                            double longitudeDegrees,
+                            double elevation,
+                            ElevationMode elevationMode,
+                            double headingDegrees,
+                            String geometryId);
+
+    @WorkerThread
+    void destroyBatchInstance(int nativeHandle);
+
+    @WorkerThread
+    void setBatchInstanceLocation(int nativeHandle, double latitudeDegrees, double longitudeDegrees);
+
+    @WorkerThread
+    void setBatchInstanceHeadingDegrees(int nativeHandle, double headingDegrees);
+
+    @WorkerThread
+    void setBatchInstanceElevation(int nativeHandle, double elevation);
+}
@@ -0,0 +1,454 @@
+package com.eegeo.mapapi.props;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import com.eegeo.mapapi.geometry.ElevationMode;
+import com.eegeo.mapapi.geometry.LatLng;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayDeque;
+
+/**
+ * Many props sharing one geometry, such as the desks or chargers of a campus, held in packed
+ * arrays rather than as a Prop object each.
+ * <br>
+ * <br>
+ * Instances are addressed by index. Changes made to any number of instances during one pass of
+ * the UI thread are sent to the map together in a single task. Only visible instances are created
+ * on the map, so hiding instances that are out of interest, such as those on other floors, frees
+ * their map resources. Creating and removing props is spread over several tasks on the map's
+ * thread, so that showing or hiding many instances at once, such as on a floor change, does not
+ * hold up rendering.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class PropBatch {
+    private static final byte CHANGED_VISIBILITY = 1;
+    private static final byte CHANGED_POSITION = 2;
+    private static final byte CHANGED_HEADING = 4;
+    private static final byte CHANGED_ELEVATION = 8;
+    // props created or destroyed per task on the native thread, so that frames render in between
+    private static final int MAX_PROPS_CREATED_OR_DESTROYED_PER_TASK = 32;
+
+    private static int ms_nextUnnamedBatchId = 0;
+
+    private final IPropBatchInstanceApi m_propsApi;
+    private final String m_geometryId;
+    private final String m_indoorMapId;
+    private final ElevationMode m_elevationMode;
+    private final String m_name;
+    private final int[] m_indoorFloorIds;
+
+    // instance state as last set on the UI thread
+    private final double[] m_positions;
+    private final double[] m_headingsDegrees;
+    private final double[] m_elevations;
+    private final boolean[] m_visible;
+    private int m_visibleCount = 0;
+
+    // instances changed since the last flush, each listed once with the kinds of change
+    private final byte[] m_changes;
+    private final int[] m_changedInstances;
+    private int m_changedCount = 0;
+    private boolean m_flushPosted = false;
+    private boolean m_destroyed = false;
+
+    // only accessed on the native thread; the visibility and values last sent by the UI thread,
+    // and the instances waiting for their prop to be created or destroyed to match
+    private final int[] m_nativeHandles;
+    private final boolean[] m_hasNativeProp;
+    private final boolean[] m_nativeVisible;
+    private final double[] m_nativeValues;
+    private final boolean[] m_awaitingCreateOrDestroy;
+    private final ArrayDeque<Integer> m_createOrDestroyQueue = new ArrayDeque<>();
+    private boolean m_createOrDestroyPosted = false;
+    private boolean m_nativeDestroyed = false;
+
+    private final Runnable m_createOrDestroyRunnable = new Runnable() {
+        @WorkerThread
+        @Override
+        public void run() {
+            m_createOrDestroyPosted = false;
+            createOrDestroyQueuedProps();
+        }
+    };
+
+    private final Runnable m_flushRunnable = new Runnable() {
+        @UiThread
+        @Override
+        public void run() {
+            m_flushPosted = false;
+            flush();
+        }
+    };
+
+    /**
+     * This constructor is for internal SDK use only -- use EegeoMap.addPropBatch to create a prop
+     * batch
+     *
+     * @eegeo.internal
+     */
+    @UiThread
+    public PropBatch(@NonNull final PropsApi propsApi,
+                     @NonNull final PropBatchOptions options) throws InvalidParameterException {
+        this(propsApi.getBatchInstanceApi(), options);
+    }
+
+    @UiThread
+    PropBatch(@NonNull final IPropBatchInstanceApi propsApi,
+              @NonNull final PropBatchOptions options) throws InvalidParameterException {
+        double[] positions = options.getPositions();
+        if (positions.length % 2 != 0) {
+            throw new InvalidParameterException("positions must hold latitude and longitude for each instance");
+        }
+        final int count = positions.length / 2;
+        if (options.getIndoorMapId().isEmpty()) {
+            throw new InvalidParameterException("PropBatchOptions must specify an indoor map Id");
+        }
+        if (options.getGeometryId().isEmpty()) {
+            throw new InvalidParameterException("PropBatchOptions must specify a geometry Id");
+        }
+        if (options.getHeadingsDegrees() != null && options.getHeadingsDegrees().length != count) {
+            throw new InvalidParameterException("headingsDegrees must hold a heading for each instance");
+        }
+        if (options.getElevations() != null && options.getElevations().length != count) {
+            throw new InvalidParameterException("elevations must hold an elevation for each instance");
+        }
+        if (options.getIndoorFloorIds() != null && options.getIndoorFloorIds().length != count) {
+            throw new InvalidParameterException("indoorFloorIds must hold a floor id for each instance");
+        }
+
+        m_propsApi = propsApi;
+        m_geometryId = options.getGeometryId();
+        m_indoorMapId = options.getIndoorMapId();
+        m_elevationMode = options.getElevationMode();
+        // instances are always named with their index, so names are unique even without a prefix
+        m_name = options.getName().isEmpty() ? "prop_batch_" + (ms_nextUnnamedBatchId++) : options.getName();
+
+        m_positions = positions.clone();
+        m_headingsDegrees = options.getHeadingsDegrees() != null ? options.getHeadingsDegrees().clone() : new double[count];
+        m_elevations = options.getElevations() != null ? options.getElevations().clone() : new double[count];
+        if (options.getIndoorFloorIds() != null) {
+            m_indoorFloorIds = options.getIndoorFloorIds().clone();
+        } else {
+            m_indoorFloorIds = new int[count];
+            for (int i = 0; i < count; ++i) {
+                m_indoorFloorIds[i] = options.getIndoorFloorId();
+            }
+        }
+        m_visible = new boolean[count];
+        m_changes = new byte[count];
+        m_changedInstances = new int[count];
+        m_nativeHandles = new int[count];
+        m_hasNativeProp = new boolean[count];
+        m_nativeVisible = new boolean[count];
+        m_nativeValues = new double[count * 4];
+        m_awaitingCreateOrDestroy = new boolean[count];
+
+        setAllInstancesVisible(options.getVisible());
+    }
+
+    /**
+     * @return The number of instances in the batch.
+     */
+    @UiThread
+    public int getInstanceCount() {
+        return m_visible.length;
+    }
+
+    /**
+     * @return The number of instances currently visible.
+     */
+    @UiThread
+    public int getVisibleInstanceCount() {
+        return m_visibleCount;
+    }
+
+    /**
+     * @return The geometry id shared by every instance.
+     */
+    @UiThread
+    public String getGeometryId() {
+        return m_geometryId;
+    }
+
+    /**
+     * @return The indoor map id shared by every instance.
+     */
+    @UiThread
+    public String getIndoorMapId() {
+        return m_indoorMapId;
+    }
+
+    /**
+     * @param index The instance index.
+     * @return True if the instance is visible.
+     */
+    @UiThread
+    public boolean isInstanceVisible(int index) {
+        return m_visible[index];
+    }
+
+    /**
+     * @param index The instance index.
+     * @return The position of the instance.
+     */
+    @UiThread
+    public LatLng getInstancePosition(int index) {
+        return new LatLng(m_positions[index * 2], m_positions[index * 2 + 1]);
+    }
+
+    /**
+     * @param index The instance index.
+     * @return The heading of the instance, in degrees clockwise from North.
+     */
+    @UiThread
+    public double getInstanceHeadingDegrees(int index) {
+        return m_headingsDegrees[index];
+    }
+
+    /**
+     * @param index The instance index.
+     * @return The elevation of the instance, in meters.
+     */
+    @UiThread
+    public double getInstanceElevation(int index) {
+        return m_elevations[index];
+    }
+
+    /**
+     * @param index The instance index.
+     * @return The indoor map floor id of the instance.
+     */
+    @UiThread
+    public int getInstanceIndoorFloorId(int index) {
+        return m_indoorFloorIds[index];
+    }
+
+    /**
+     * Shows or hides an instance.
+     *
+     * @param index   The instance index.
+     * @param visible Whether the instance should be drawn.
+     */
+    @UiThread
+    public void setInstanceVisible(int index, boolean visible) {
+        if (m_visible[index] == visible) {
+            return;
+        }
+        m_visible[index] = visible;
+        m_visibleCount += visible ? 1 : -1;
+        markChanged(index, CHANGED_VISIBILITY);
+    }
+
+    /**
+     * Shows or hides every instance.
+     *
+     * @param visible Whether the instances should be drawn.
+     */
+    @UiThread
+    public void setAllInstancesVisible(boolean visible) {
+        for (int index = 0; index < m_visible.length; ++index) {
+            setInstanceVisible(index, visible);
+        }
+    }
+
+    /**
+     * Shows only the instances on one floor, and hides the rest.
+     *
+     * @param indoorFloorId The indoor map floor id.
+     */
+    @UiThread
+    public void setVisibleFloor(int indoorFloorId) {
+        for (int index = 0; index < m_visible.length; ++index) {
+            setInstanceVisible(index, m_indoorFloorIds[index] == indoorFloorId);
+        }
+    }
+
+    /**
+     * Moves an instance.
+     *
+     * @param index    The instance index.
+     * @param position The new position.
+     */
+    @UiThread
+    public void setInstancePosition(int index, @NonNull LatLng position) {
+        m_positions[index * 2] = position.latitude;
+        m_positions[index * 2 + 1] = position.longitude;
+        markChanged(index, CHANGED_POSITION);
+    }
+
+    /**
+     * Rotates an instance.
+     *
+     * @param index          The instance index.
+     * @param headingDegrees The new heading, in degrees clockwise from North.
+     */
+    @UiThread
+    public void setInstanceHeadingDegrees(int index, double headingDegrees) {
+        m_headingsDegrees[index] = headingDegrees;
+        markChanged(index, CHANGED_HEADING);
+    }
+
+    /**
+     * Raises or lowers an instance.
+     *
+     * @param index     The instance index.
+     * @param elevation The new elevation, in meters.
+     */
+    @UiThread
+    public void setInstanceElevation(int index, double elevation) {
+        m_elevations[index] = elevation;
+        markChanged(index, CHANGED_ELEVATION);
+    }
+
+    /**
+     * Removes every instance from the map and destroys the batch. Use EegeoMap.removePropBatch
+     *
+     * @eegeo.internal
+     */
+    @UiThread
+    public void destroy() {
+        if (m_destroyed) {
+            return;
+        }
+        m_destroyed = true;
+        m_propsApi.getNativeRunner().runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                m_nativeDestroyed = true;
+                m_createOrDestroyQueue.clear();
+                for (int index = 0; index < m_hasNativeProp.length; ++index) {
+                    if (m_hasNativeProp[index]) {
+                        m_propsApi.destroyBatchInstance(m_nativeHandles[index]);
+                        m_hasNativeProp[index] = false;
+                    }
+                }
+            }
+        });
+    }
+
+    @UiThread
+    private void markChanged(int index, byte change) {
+        if (m_changes[index] == 0) {
+            m_changedInstances[m_changedCount++] = index;
+        }
+        m_changes[index] |= change;
+
+        if (!m_flushPosted) {
+            m_flushPosted = true;
+            m_propsApi.getUiRunner().runOnUiThread(m_flushRunnable);
+        }
+    }
+
+    @UiThread
+    private void flush() {
+        if (m_destroyed || m_changedCount == 0) {
+            return;
+        }
+
+        // copy the changed instances, so the native thread never reads arrays the UI thread writes
+        final int count = m_changedCount;
+        final int[] indices = new int[count];
+        final byte[] changes = new byte[count];
+        final boolean[] visible = new boolean[count];
+        final double[] values = new double[count * 4];
+        for (int i = 0; i < count; ++i) {
+            int index = m_changedInstances[i];
+            indices[i] = index;
+            changes[i] = m_changes[index];
+            visible[i] = m_visible[index];
+            values[i * 4] = m_positions[index * 2];
+            values[i * 4 + 1] = m_positions[index * 2 + 1];
+            values[i * 4 + 2] = m_headingsDegrees[index];
+            values[i * 4 + 3] = m_elevations[index];
+            m_changes[index] = 0;
+        }
+        m_changedCount = 0;
+
+        m_propsApi.getNativeRunner().runOnNativeThread(new Runnable() {
+            @WorkerThread
+            @Override
+            public void run() {
+                applyChanges(indices, changes, visible, values);
+            }
+        });
+    }
+
+    @WorkerThread
+    private void applyChanges(int[] indices, byte[] changes, boolean[] visible, double[] values) {
+        if (m_nativeDestroyed) {
+            return;
+        }
+
+        for (int i = 0; i < indices.length; ++i) {
+            final int index = indices[i];
+            System.arraycopy(values, i * 4, m_nativeValues, index * 4, 4);
+            m_nativeVisible[index] = visible[i];
+
+            if (m_hasNativeProp[index] != visible[i]) {
+                if (!m_awaitingCreateOrDestroy[index]) {
+                    m_awaitingCreateOrDestroy[index] = true;
+                    m_createOrDestroyQueue.add(index);
+                }
+            } else if (m_hasNativeProp[index]) {
+                final int nativeHandle = m_nativeHandles[index];
+                // changes made while the prop was waiting to be destroyed were not applied to it
+                final byte change = m_awaitingCreateOrDestroy[index]
+                        ? (byte) (CHANGED_POSITION | CHANGED_HEADING | CHANGED_ELEVATION)
+                        : changes[i];
+                if ((change & CHANGED_POSITION) != 0) {
+                    m_propsApi.setBatchInstanceLocation(nativeHandle, values[i * 4], values[i * 4 + 1]);
+                }
+                if ((change & CHANGED_HEADING) != 0) {
+                    m_propsApi.setBatchInstanceHeadingDegrees(nativeHandle, values[i * 4 + 2]);
+                }
+                if ((change & CHANGED_ELEVATION) != 0) {
+                    m_propsApi.setBatchInstanceElevation(nativeHandle, values[i * 4 + 3]);
+                }
+            }
+        }
+
+        if (!m_createOrDestroyPosted) {
+            createOrDestroyQueuedProps();
+        }
+    }
+
+    @WorkerThread
+    private void createOrDestroyQueuedProps() {
+        int remaining = MAX_PROPS_CREATED_OR_DESTROYED_PER_TASK;
+        while (remaining > 0 && !m_createOrDestroyQueue.isEmpty() && !m_nativeDestroyed) {
+            final int index = m_createOrDestroyQueue.poll();
+            m_awaitingCreateOrDestroy[index] = false;
+
+            // the instance may have been shown and hidden again while it waited
+            if (m_nativeVisible[index] && !m_hasNativeProp[index]) {
+                m_nativeHandles[index] = m_propsApi.createBatchInstance(
+                        m_indoorMapId,
+                        m_indoorFloorIds[index],
+                        m_name + "_" + index,
+                        m_nativeValues[index * 4],
+                        m_nativeValues[index * 4 + 1],
+                        m_nativeValues[index * 4 + 3],
+                        m_elevationMode,
+                        m_nativeValues[index * 4 + 2],
+                        m_geometryId);
+                m_hasNativeProp[index] = true;
+                --remaining;
+            } else if (!m_nativeVisible[index] && m_hasNativeProp[index]) {
+                m_propsApi.destroyBatchInstance(m_nativeHandles[index]);
+                m_hasNativeProp[index] = false;
+                --remaining;
+            }
+        }
+
+        if (!m_createOrDestroyQueue.isEmpty() && !m_nativeDestroyed) {
+            m_createOrDestroyPosted = true;
+            m_propsApi.getNativeRunner().runOnNativeThread(m_createOrDestroyRunnable);
+        }
+    }
+}
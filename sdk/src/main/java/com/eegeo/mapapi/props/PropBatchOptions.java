@@ -0,0 +1,224 @@
+package com.eegeo.mapapi.props;
+
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+/**
+ * Defines creation parameters for a PropBatch: many props that share one geometry, with the
+ * position, heading, elevation and floor of each instance held in packed arrays.
+ * <br>
+ * <br>
+ * Positions are required. Headings, elevations and floor ids may be omitted, in which case every
+ * instance has a heading of 0 degrees, an elevation of 0, or the floor id given with indoor.
+ */
+public final class PropBatchOptions {
+
+    private String m_geometryId = "";
+    private String m_indoorMapId = "";
+    private int m_indoorFloorId;
+    private ElevationMode m_elevationMode = ElevationMode.HeightAboveGround;
+    private String m_name = "";
+    private double[] m_positions = new double[0];
+    private double[] m_headingsDegrees = null;
+    private double[] m_elevations = null;
+    private int[] m_indoorFloorIds = null;
+    private boolean m_visible = true;
+
+    /**
+     * Default constructor for prop batch creation parameters.
+     */
+    public PropBatchOptions() {
+
+    }
+
+    /**
+     * Sets the id of the geometry rendered for every instance. See PropOptions.geometryId.
+     *
+     * @param geometryId The name of the geometry to be rendered.
+     * @return The PropBatchOptions object on which the method was called, with the new geometry
+     * id set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions geometryId(String geometryId) {
+        m_geometryId = geometryId;
+        return this;
+    }
+
+    /**
+     * Sets the indoor map on which every instance is displayed, and the floor used for instances
+     * when no per-instance floor ids are given.
+     *
+     * @param indoorMapId   The identifier of the indoor map.
+     * @param indoorFloorId The default indoor map floor id.
+     * @return The PropBatchOptions object on which the method was called, with the new indoor map
+     * properties set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions indoor(String indoorMapId, int indoorFloorId) {
+        m_indoorMapId = indoorMapId;
+        m_indoorFloorId = indoorFloorId;
+        return this;
+    }
+
+    /**
+     * Sets the ElevationMode used to interpret every instance's elevation. If this method is not
+     * called, ElevationMode.HeightAboveGround is used.
+     *
+     * @param elevationMode The ElevationMode.
+     * @return The PropBatchOptions object on which the method was called, with the new elevation
+     * mode set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions elevationMode(ElevationMode elevationMode) {
+        m_elevationMode = elevationMode;
+        return this;
+    }
+
+    /**
+     * Sets a name prefix for the instances. Each instance is named with the prefix followed by an
+     * underscore and its index. By default, each batch is given a prefix of its own.
+     *
+     * @param name The name prefix.
+     * @return The PropBatchOptions object on which the method was called, with the new name set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions name(String name) {
+        m_name = name;
+        return this;
+    }
+
+    /**
+     * Sets the instance positions. The array is not copied until the batch is created.
+     *
+     * @param packedLatLngs The position of each instance, packed as latitude and longitude.
+     * @return The PropBatchOptions object on which the method was called, with the new positions
+     * set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions positions(double[] packedLatLngs) {
+        m_positions = packedLatLngs;
+        return this;
+    }
+
+    /**
+     * Sets the instance headings.
+     *
+     * @param headingsDegrees The heading of each instance, in degrees clockwise from North.
+     * @return The PropBatchOptions object on which the method was called, with the new headings
+     * set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions headingsDegrees(double[] headingsDegrees) {
+        m_headingsDegrees = headingsDegrees;
+        return this;
+    }
+
+    /**
+     * Sets the instance elevations.
+     *
+     * @param elevations The elevation of each instance, in meters.
+     * @return The PropBatchOptions object on which the method was called, with the new elevations
+     * set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions elevations(double[] elevations) {
+        m_elevations = elevations;
+        return this;
+    }
+
+    /**
+     * Sets the instance floors.
+     *
+     * @param indoorFloorIds The indoor map floor id of each instance.
+     * @return The PropBatchOptions object on which the method was called, with the new floor ids
+     * set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions indoorFloorIds(int[] indoorFloorIds) {
+        m_indoorFloorIds = indoorFloorIds;
+        return this;
+    }
+
+    /**
+     * Sets whether instances are initially visible. If this method is not called, every instance
+     * is visible.
+     *
+     * @param visible The initial visibility of every instance.
+     * @return The PropBatchOptions object on which the method was called, with the new visibility
+     * set.
+     */
+    @SuppressWarnings("JavaDoc")
+    public PropBatchOptions visible(boolean visible) {
+        m_visible = visible;
+        return this;
+    }
+
+    /**
+     * @return The geometry id.
+     */
+    public String getGeometryId() {
+        return m_geometryId;
+    }
+
+    /**
+     * @return The indoor map id.
+     */
+    public String getIndoorMapId() {
+        return m_indoorMapId;
+    }
+
+    /**
+     * @return The default indoor map floor id.
+     */
+    public int getIndoorFloorId() {
+        return m_indoorFloorId;
+    }
+
+    /**
+     * @return The elevation mode.
+     */
+    public ElevationMode getElevationMode() {
+        return m_elevationMode;
+    }
+
+    /**
+     * @return The instance name prefix.
+     */
+    public String getName() {
+        return m_name;
+    }
+
+    /**
+     * @return The instance positions, packed as latitude and longitude.
+     */
+    public double[] getPositions() {
+        return m_positions;
+    }
+
+    /**
+     * @return The instance headings, or null if not set.
+     */
+    public double[] getHeadingsDegrees() {
+        return m_headingsDegrees;
+    }
+
+    /**
+     * @return The instance elevations, or null if not set.
+     */
+    public double[] getElevations() {
+        return m_elevations;
+    }
+
+    /**
+     * @return The instance floor ids, or null if not set.
+     */
+    public int[] getIndoorFloorIds() {
+        return m_indoorFloorIds;
+    }
+
+    /**
+     * @return The initial visibility of the instances.
+     */
+    public boolean getVisible() {
+        return m_visible;
+    }
+}
@@ -14,6 +14,7 @@ public class PropsApi {
     private IUiMessageRunner m_uiRunner;
     private long m_jniEegeoMapApiPtr;
     private SparseArray<Prop> m_nativeHandleToProp = new SparseArray<>();
+    private final IPropBatchInstanceApi m_batchInstanceApi = new BatchInstanceApi();
 
     @WorkerThread
     public void register(Prop prop, Prop.AllowHandleAccess allowHandleAccess) {
@@ -105,6 +106,53 @@ public class PropsApi {
         nativeSetElevationMode(m_jniEegeoMapApiPtr, nativeHandle, elevationMode.ordinal());
     }
 
+    @WorkerThread
+    int createBatchInstance(String indoorMapId,
+                            int indoorFloorId,
+                            String name,
+                            double latitudeDegrees,
+                            double longitudeDegrees,
+                            double elevation,
+                            ElevationMode elevationMode,
+                            double headingDegrees,
+                            String geometryId) {
+        return nativeCreateProp(
+                m_jniEegeoMapApiPtr,
+                indoorMapId,
+                indoorFloorId,
+                name,
+                latitudeDegrees,
+                longitudeDegrees,
+                elevation,
+                elevationMode.ordinal(),
+                headingDegrees,
+                geometryId);
+    }
+
+    @WorkerThread
+    void destroyBatchInstance(int nativeHandle) {
+        nativeDestroyProp(m_jniEegeoMapApiPtr, nativeHandle);
+    }
+
+    @WorkerThread
+    void setBatchInstanceLocation(int nativeHandle, double latitudeDegrees, double longitudeDegrees) {
+        nativeSetLocation(m_jniEegeoMapApiPtr, nativeHandle, latitudeDegrees, longitudeDegrees);
+    }
+
+    @WorkerThread
+    void setBatchInstanceHeadingDegrees(int nativeHandle, double headingDegrees) {
+        nativeSetHeadingDegrees(m_jniEegeoMapApiPtr, nativeHandle, headingDegrees);
+    }
+
+    @WorkerThread
+    void setBatchInstanceElevation(int nativeHandle, double elevation) {
+        nativeSetElevation(m_jniEegeoMapApiPtr, nativeHandle, elevation);
+    }
+
+    IPropBatchInstanceApi getBatchInstanceApi() {
+        return m_batchInstanceApi;
+    }
+
     @UiThread
     INativeMessageRunner getNativeRunner() {
         return m_nativeRunner;
@@ -165,4 +213,43 @@ public class PropsApi {
             long jniEegeoMapApiPtr,
             int nativeHandle,
             int elevationModeInt);
+
+    private class BatchInstanceApi implements IPropBatchInstanceApi {
+        @Override
+        public INativeMessageRunner getNativeRunner() {
+            return m_nativeRunner;
+        }
+
+        @Override
+        public IUiMessageRunner getUiRunner() {
+            return m_uiRunner;
+        }
+
+        @Override
+        public int createBatchInstance(String indoorMapId, int indoorFloorId, String name, double latitudeDegrees, double longitudeDegrees,
+                                       double elevation, ElevationMode elevationMode, double headingDegrees, String geometryId) {
+            return PropsApi.this.createBatchInstance(indoorMapId, indoorFloorId, name, latitudeDegrees, longitudeDegrees,
+                    elevation, elevationMode, headingDegrees, geometryId);
+        }
+
+        @Override
+        public void destroyBatchInstance(int nativeHandle) {
+            PropsApi.this.destroyBatchInstance(nativeHandle);
+        }
+
+        @Override
+        public void setBatchInstanceLocation(int nativeHandle, double latitudeDegrees, double longitudeDegrees) {
+            PropsApi.this.setBatchInstanceLocation(nativeHandle, latitudeDegrees, longitudeDegrees);
+        }
+
+        @Override
+        public void setBatchInstanceHeadingDegrees(int nativeHandle, double headingDegrees) {
+            PropsApi.this.setBatchInstanceHeadingDegrees(nativeHandle, headingDegrees);
+        }
+
+        @Override
+        public void setBatchInstanceElevation(int nativeHandle, double elevation) {
+            PropsApi.this.setBatchInstanceElevation(nativeHandle, elevation);
+        }
+    }
 }
@@ -8,6 +8,7 @@ import com.eegeo.mapapi.INativeMessageRunner;
 import com.eegeo.mapapi.IUiMessageRunner;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 
 public class MapsceneApi {
@@ -31,6 +32,7 @@ public class MapsceneApi {
                 this,
                 options.getApplyOnLoad(),
                 options.getOnMapsceneRequestCompletedListener(),
+                options.getCallbackExecutor(),
                 new Callable<Integer>() {
                     @Override
                     public Integer call() throws Exception {
@@ -66,19 +68,35 @@ public class MapsceneApi {
         if (mapsceneRequest == null)
             throw new NullPointerException("MapsceneRequest object not found for nativeHandle");
 
-        m_uiRunner.runOnUiThread(new Runnable() {
+        final Runnable returnResponse = new Runnable() {
             @Override
             public void run() {
-                if(response.succeeded() &&
-                   mapsceneRequest.shouldApplyOnLoad() &&
-                   m_mapsceneApplier != null)
-                {
-                    m_mapsceneApplier.ApplyMapscene(response.getMapscene());
-                }
-
                 mapsceneRequest.returnResponse(response);
             }
-        });
+        };
+        final Executor callbackExecutor = mapsceneRequest.getCallbackExecutor();
+        final boolean applyMapscene = response.succeeded() && mapsceneRequest.shouldApplyOnLoad();
+
+        if (callbackExecutor != null && !applyMapscene) {
+            callbackExecutor.execute(returnResponse);
+        } else {
+            // applying the mapscene changes the map, so must happen on the UI thread first
+            m_uiRunner.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    if(applyMapscene && m_mapsceneApplier != null)
+                    {
+                        m_mapsceneApplier.ApplyMapscene(response.getMapscene());
+                    }
+
+                    if (callbackExecutor != null) {
+                        callbackExecutor.execute(returnResponse);
+                    } else {
+                        returnResponse.run();
+                    }
+                }
+            });
+        }
 
         m_nativeHandleToMapsceneRequest.remove(nativeHandle);
     }
@@ -6,6 +6,7 @@ import androidx.annotation.WorkerThread;
 import com.eegeo.mapapi.util.NativeApiObject;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * A handle to an ongoing mapscene request.
@@ -15,17 +16,20 @@ public class MapsceneRequest extends NativeApiObject {
     private MapsceneApi m_mapsceneApi;
     private final boolean m_applyOnLoad;
     private OnMapsceneRequestCompletedListener m_callback = null;
+    private final Executor m_callbackExecutor;
 
     @UiThread
     MapsceneRequest(final MapsceneApi mapsceneApi,
                     final boolean applyOnLoad,
                     OnMapsceneRequestCompletedListener callback,
+                    Executor callbackExecutor,
                     Callable<Integer> beginRequestCallable) {
         super(mapsceneApi.getNativeRunner(), mapsceneApi.getUiRunner(), beginRequestCallable);
 
         m_mapsceneApi = mapsceneApi;
         m_applyOnLoad = applyOnLoad;
         m_callback = callback;
+        m_callbackExecutor = callbackExecutor;
 
         submit(new Runnable() {
             @WorkerThread
@@ -54,7 +58,11 @@ public class MapsceneRequest extends NativeApiObject {
         });
     }
 
-    @UiThread
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
+    // called on the callback Executor, or the UI thread if there is none
     void returnResponse(MapsceneRequestResponse mapsceneResponse) {
         if (m_callback != null) {
             m_callback.onMapsceneRequestCompleted(mapsceneResponse);
@@ -1,5 +1,7 @@
 package com.eegeo.mapapi.services.mapscene;
 
+import java.util.concurrent.Executor;
+
 /**
  * A set of parameters for a Mapscene request
  */
@@ -9,6 +11,7 @@ public final class MapsceneRequestOptions {
     private boolean m_applyOnLoad;
 
     private OnMapsceneRequestCompletedListener m_onMapsceneRequestCompletedListener = null;
+    private Executor m_callbackExecutor = null;
 
 
     /**
@@ -43,6 +46,19 @@ public final class MapsceneRequestOptions {
         return this;
     }
 
+    /**
+     * Sets the Executor on which the listener is called. If not specified, the listener is called
+     * on the Android UI thread. A Mapscene applied on load is still applied on the UI thread,
+     * before the listener is called.
+     *
+     * @param callbackExecutor The Executor for the listener.
+     * @return This MapsceneRequestOptions object.
+     */
+    public MapsceneRequestOptions callbackExecutor(Executor callbackExecutor) {
+        this.m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
 
     String getUrlOrShortlink() {
         return m_urlOrShortlink;
@@ -55,6 +71,10 @@ public final class MapsceneRequestOptions {
     OnMapsceneRequestCompletedListener getOnMapsceneRequestCompletedListener() {
         return m_onMapsceneRequestCompletedListener;
     }
+
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
 }
 
 
@@ -2,6 +2,8 @@ package com.eegeo.mapapi.services.poi;
 
 import com.eegeo.mapapi.geometry.LatLng;
 
+import java.util.concurrent.Executor;
+
 
 /**
  * A set of parameters for an autocomplete search. 
@@ -15,6 +17,7 @@ public final class AutocompleteOptions {
     private int m_number = 0;
 
     private OnPoiSearchCompletedListener m_onPoiSearchCompletedListener = null;
+    private Executor m_callbackExecutor = null;
 
 
     /**
@@ -51,6 +54,19 @@ public final class AutocompleteOptions {
         return this;
     }
 
+    /**
+     * Sets the Executor on which the listener is called. If not specified, the listener is called
+     * on the Android UI thread. An Executor backed by a worker thread lets large result sets be
+     * processed without first being passed to the UI thread.
+     *
+     * @param callbackExecutor The Executor for the listener.
+     * @return This AutocompleteOptions object.
+     */
+    public AutocompleteOptions callbackExecutor(Executor callbackExecutor) {
+        this.m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
 
     String getQuery() {
         return m_query;
@@ -68,6 +84,10 @@ public final class AutocompleteOptions {
         return m_onPoiSearchCompletedListener;
     }
 
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
 
     boolean usesNumber() {
         return m_useNumber;
@@ -1,6 +1,7 @@
 package com.eegeo.mapapi.services.poi;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.List;
 
 import androidx.annotation.UiThread;
@@ -29,7 +30,7 @@ public class PoiApi {
 
     @UiThread
     public PoiSearch searchText(final TextSearchOptions options) {
-        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(),
+        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(), options.getCallbackExecutor(),
                 new Callable<Integer>() {
                     @Override
                     public Integer call() throws Exception {
@@ -41,7 +42,7 @@ public class PoiApi {
 
     @UiThread
     public PoiSearch searchTag(final TagSearchOptions options) {
-        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(),
+        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(), options.getCallbackExecutor(),
                 new Callable<Integer>() {
                     @Override
                     public Integer call() throws Exception {
@@ -53,7 +54,7 @@ public class PoiApi {
 
     @UiThread
     public PoiSearch searchAutocomplete(final AutocompleteOptions options) {
-        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(),
+        PoiSearch search = new PoiSearch(this, options.getOnPoiSearchCompletedListener(), options.getCallbackExecutor(),
                 new Callable<Integer>() {
                     @Override
                     public Integer call() throws Exception {
@@ -91,13 +92,18 @@ public class PoiApi {
             throw new NullPointerException("PoiSearch object not found for nativeHandle");
 
 
-        m_uiRunner.runOnUiThread(new Runnable() {
-            @UiThread
+        Runnable returnResults = new Runnable() {
             @Override
             public void run() {
                 poiSearch.returnSearchResults(searchResults);
             }
-        });
+        };
+        Executor callbackExecutor = poiSearch.getCallbackExecutor();
+        if (callbackExecutor != null) {
+            callbackExecutor.execute(returnResults);
+        } else {
+            m_uiRunner.runOnUiThread(returnResults);
+        }
 
         m_nativeHandleToPoiSearch.remove(nativeHandle);
     }
@@ -1,6 +1,7 @@
 package com.eegeo.mapapi.services.poi;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
@@ -15,13 +16,15 @@ public class PoiSearch extends NativeApiObject {
 
     private PoiApi m_poiApi;
     private OnPoiSearchCompletedListener m_callback = null;
+    private final Executor m_callbackExecutor;
 
     @UiThread
-    PoiSearch(final PoiApi poiApi, OnPoiSearchCompletedListener callback, Callable<Integer> beginSearchCallable) {
+    PoiSearch(final PoiApi poiApi, OnPoiSearchCompletedListener callback, Executor callbackExecutor, Callable<Integer> beginSearchCallable) {
         super(poiApi.getNativeRunner(), poiApi.getUiRunner(), beginSearchCallable);
 
         m_poiApi = poiApi;
         m_callback = callback;
+        m_callbackExecutor = callbackExecutor;
 
         submit(new Runnable() {
             @WorkerThread
@@ -45,7 +48,11 @@ public class PoiSearch extends NativeApiObject {
         });
     }
 
-    @UiThread
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
+    // called on the callback Executor, or the UI thread if there is none
     void returnSearchResults(PoiSearchResponse searchResults) {
         if (m_callback != null) {
             m_callback.onPoiSearchCompleted(searchResults);
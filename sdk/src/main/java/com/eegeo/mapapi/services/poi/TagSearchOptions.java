@@ -2,6 +2,8 @@ package com.eegeo.mapapi.services.poi;
 
 import com.eegeo.mapapi.geometry.LatLng;
 
+import java.util.concurrent.Executor;
+
 
 /**
  * A set of parameters for a tag search.
@@ -18,6 +20,7 @@ public final class TagSearchOptions {
     private int m_number = 0;
 
     private OnPoiSearchCompletedListener m_onPoiSearchCompletedListener = null;
+    private Executor m_callbackExecutor = null;
 
 
     /**
@@ -65,6 +68,19 @@ public final class TagSearchOptions {
         return this;
     }
 
+    /**
+     * Sets the Executor on which the listener is called. If not specified, the listener is called
+     * on the Android UI thread. An Executor backed by a worker thread lets large result sets be
+     * processed without first being passed to the UI thread.
+     *
+     * @param callbackExecutor The Executor for the listener.
+     * @return This TagSearchOptions object.
+     */
+    public TagSearchOptions callbackExecutor(Executor callbackExecutor) {
+        this.m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
 
     String getQuery() {
         return m_query;
@@ -86,6 +102,10 @@ public final class TagSearchOptions {
         return m_onPoiSearchCompletedListener;
     }
 
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
 
     boolean usesRadius() {
         return m_useRadius;
@@ -2,6 +2,8 @@ package com.eegeo.mapapi.services.poi;
 
 import com.eegeo.mapapi.geometry.LatLng;
 
+import java.util.concurrent.Executor;
+
 
 /**
  * A set of parameters for a free-text search.
@@ -30,6 +32,7 @@ public final class TextSearchOptions {
     private int m_floorDropoff = 0;
 
     private OnPoiSearchCompletedListener m_onPoiSearchCompletedListener = null;
+    private Executor m_callbackExecutor = null;
 
 
     /**
@@ -124,6 +127,19 @@ public final class TextSearchOptions {
         return this;
     }
 
+    /**
+     * Sets the Executor on which the listener is called. If not specified, the listener is called
+     * on the Android UI thread. An Executor backed by a worker thread lets large result sets be
+     * processed without first being passed to the UI thread.
+     *
+     * @param callbackExecutor The Executor for the listener.
+     * @return This TextSearchOptions object.
+     */
+    public TextSearchOptions callbackExecutor(Executor callbackExecutor) {
+        this.m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
 
     String getQuery() {
         return m_query;
@@ -161,6 +177,10 @@ public final class TextSearchOptions {
         return m_onPoiSearchCompletedListener;
     }
 
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
 
     boolean usesRadius() {
         return m_useRadius;
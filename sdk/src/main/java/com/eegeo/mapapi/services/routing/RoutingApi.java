@@ -1,6 +1,7 @@
 package com.eegeo.mapapi.services.routing;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.List;
 
 import androidx.annotation.UiThread;
@@ -81,13 +82,18 @@ public class RoutingApi {
             throw new NullPointerException("RoutingQuery object not found for nativeHandle");
 
 
-        m_uiRunner.runOnUiThread(new Runnable() {
-            @UiThread
+        Runnable returnResponse = new Runnable() {
             @Override
             public void run() {
                 routingQuery.returnQueryResponse(response);
             }
-        });
+        };
+        Executor callbackExecutor = routingQuery.getCallbackExecutor();
+        if (callbackExecutor != null) {
+            callbackExecutor.execute(returnResponse);
+        } else {
+            m_uiRunner.runOnUiThread(returnResponse);
+        }
 
         m_nativeHandleToRoutingQuery.remove(nativeHandle);
     }
@@ -1,6 +1,7 @@
 package com.eegeo.mapapi.services.routing;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
@@ -15,6 +16,7 @@ public class RoutingQuery extends NativeApiObject {
 
     private RoutingApi m_routingApi;
     private OnRoutingQueryCompletedListener m_callback;
+    private final Executor m_callbackExecutor;
 
     @UiThread
     RoutingQuery(final RoutingApi routingApi, final RoutingQueryOptions options) {
@@ -29,6 +31,7 @@ public class RoutingQuery extends NativeApiObject {
 
         m_routingApi = routingApi;
         m_callback = options.getOnRoutingQueryCompletedListener();
+        m_callbackExecutor = options.getCallbackExecutor();
 
         submit(new Runnable() {
             @WorkerThread
@@ -52,7 +55,11 @@ public class RoutingQuery extends NativeApiObject {
         });
     }
 
-    @UiThread
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
+
+    // called on the callback Executor, or the UI thread if there is none
     void returnQueryResponse(RoutingQueryResponse response) {
         if (m_callback != null) {
             m_callback.onRoutingQueryCompleted(this, response);
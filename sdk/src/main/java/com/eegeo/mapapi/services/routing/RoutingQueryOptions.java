@@ -2,6 +2,7 @@ package com.eegeo.mapapi.services.routing;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 import com.eegeo.mapapi.geometry.LatLng;
 
 
@@ -26,6 +27,7 @@ public final class RoutingQueryOptions {
 
     private List<Waypoint> m_waypoints = new ArrayList<Waypoint>();
     private OnRoutingQueryCompletedListener m_onRoutingQueryCompletedListener = null;
+    private Executor m_callbackExecutor = null;
     private TransportationMode m_transportationMode = TransportationMode.Walking;
 
     /**
@@ -80,8 +82,24 @@ public final class RoutingQueryOptions {
         return this;
     }
 
+    /**
+     * Sets the Executor on which the listener is called. If not specified, the listener is called
+     * on the Android UI thread.
+     *
+     * @param callbackExecutor The Executor for the listener.
+     * @return This RoutingQueryOptions object.
+     */
+    public RoutingQueryOptions callbackExecutor(Executor callbackExecutor) {
+        this.m_callbackExecutor = callbackExecutor;
+        return this;
+    }
+
     OnRoutingQueryCompletedListener getOnRoutingQueryCompletedListener() {
         return m_onRoutingQueryCompletedListener;
     }
+
+    Executor getCallbackExecutor() {
+        return m_callbackExecutor;
+    }
 }
 
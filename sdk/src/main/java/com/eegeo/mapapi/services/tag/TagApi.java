@@ -35,6 +35,9 @@ public class TagApi
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final String nativeResult = nativeGetIconUrlForIconKey(m_jniEegeoMapApiPtr, iconKeyInput);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -56,6 +59,9 @@ public class TagApi
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final String nativeResult = nativeGetIconKeyForTagsString(m_jniEegeoMapApiPtr, tagsInput);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -76,6 +82,9 @@ public class TagApi
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final String nativeResult = nativeGetIconUrlForTagsString(m_jniEegeoMapApiPtr, tagsInput);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
@@ -97,6 +106,9 @@ public class TagApi
         m_nativeRunner.runOnNativeThread(new Runnable() {
             @Override
             public void run() {
+                if (p.isCancelled()) {
+                    return;
+                }
                 final String[] nativeResult = nativeGetReadableTagsForTagsString(m_jniEegeoMapApiPtr, tagsInput);
                 m_uiRunner.runOnUiThread(new Runnable() {
                     @Override
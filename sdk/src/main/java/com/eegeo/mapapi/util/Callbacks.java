@@ -1,8 +1,6 @@
 package com.eegeo.mapapi.util;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
+import androidx.annotation.NonNull;
 
 public class Callbacks {
     public interface ICallback0 {
@@ -22,7 +20,15 @@ public class Callbacks {
     }
 
     public static class CallbackCollection<T> {
-        protected List<T> m_callbacks = new ArrayList<T>();
+        private final ListenerRegistry<T> m_callbacks;
+
+        /**
+         * @param callbackType The callback type, or its raw type for a generic callback interface,
+         *                     used to create the arrays returned by snapshot.
+         */
+        public CallbackCollection(@NonNull Class<? super T> callbackType) {
+            m_callbacks = new ListenerRegistry<>(callbackType);
+        }
 
         public void add(T t) {
             m_callbacks.add(t);
@@ -31,52 +37,64 @@ public class Callbacks {
         public void remove(T t) {
             m_callbacks.remove(t);
         }
+
+        /**
+         * @return The callbacks added at the time of the call. The array must not be modified.
+         */
+        @NonNull
+        protected T[] snapshot() {
+            return m_callbacks.snapshot();
+        }
     }
 
     public static final class CallbackCollection0 extends CallbackCollection<ICallback0> implements ICallback0 {
+        public CallbackCollection0() {
+            super(ICallback0.class);
+        }
+
         @Override
         public void onCallback() {
-            if (m_callbacks.size() > 0) {
-                ListIterator<ICallback0> it = m_callbacks.listIterator();
-                while (it.hasNext()) {
-                    it.next().onCallback();
-                }
+            for (ICallback0 callback : snapshot()) {
+                callback.onCallback();
             }
         }
     }
 
     public static final class CallbackCollection1<T> extends CallbackCollection<ICallback1<T>> implements ICallback1<T> {
+        public CallbackCollection1() {
+            super(ICallback1.class);
+        }
+
         @Override
         public void onCallback(T t) {
-            if (m_callbacks.size() > 0) {
-                ListIterator<ICallback1<T>> it = m_callbacks.listIterator();
-                while (it.hasNext()) {
-                    it.next().onCallback(t);
-                }
+            for (ICallback1<T> callback : snapshot()) {
+                callback.onCallback(t);
             }
         }
     }
 
     public static final class CallbackCollection2<T1, T2> extends CallbackCollection<ICallback2<T1, T2>> implements ICallback2<T1, T2> {
+        public CallbackCollection2() {
+            super(ICallback2.class);
+        }
+
         @Override
         public void onCallback(T1 t1, T2 t2) {
-            if (m_callbacks.size() > 0) {
-                ListIterator<ICallback2<T1, T2>> it = m_callbacks.listIterator();
-                while (it.hasNext()) {
-                    it.next().onCallback(t1, t2);
-                }
+            for (ICallback2<T1, T2> callback : snapshot()) {
+                callback.onCallback(t1, t2);
             }
         }
     }
 
     public static final class CallbackCollection3<T1, T2, T3> extends CallbackCollection<ICallback3<T1, T2, T3>> implements ICallback3<T1, T2, T3> {
+        public CallbackCollection3() {
+            super(ICallback3.class);
+        }
+
         @Override
         public void onCallback(T1 t1, T2 t2, T3 t3) {
-            if (m_callbacks.size() > 0) {
-                ListIterator<ICallback3<T1, T2, T3>> it = m_callbacks.listIterator();
-                while (it.hasNext()) {
-                    it.next().onCallback(t1, t2, t3);
-                }
+            for (ICallback3<T1, T2, T3> callback : snapshot()) {
+                callback.onCallback(t1, t2, t3);
             }
         }
     }
@@ -0,0 +1,110 @@
+package com.eegeo.mapapi.util;
+
+import androidx.annotation.NonNull;
+
+import java.lang.reflect.Array;
+
+/**
+ * A copy-on-write set of listeners, for fanning events out to them.
+ * <br>
+ * <br>
+ * Adding or removing a listener replaces the registry's array of listeners with a new one, so an
+ * array returned by snapshot never changes. Dispatching an event iterates over a snapshot, which
+ * allocates nothing, and listeners may add or remove listeners, including themselves, while being
+ * notified. Listeners are expected to change rarely compared with how often events are sent.
+ *
+ * @param <T> The listener type.
+ * @eegeo.internal
+ */
+public final class ListenerRegistry<T> {
+    private final T[] m_empty;
+    private volatile T[] m_listeners;
+
+    /**
+     * @param listenerType The listener type, used to create the snapshot arrays.
+     * @eegeo.internal
+     */
+    @SuppressWarnings("unchecked")
+    public ListenerRegistry(@NonNull Class<?> listenerType) {
+        m_empty = (T[]) Array.newInstance(listenerType, 0);
+        m_listeners = m_empty;
+    }
+
+    /**
+     * Adds a listener. A listener added more than once is notified once for each time it was added.
+     *
+     * @param listener The listener.
+     * @eegeo.internal
+     */
+    public synchronized void add(@NonNull T listener) {
+        T[] listeners = m_listeners;
+        T[] updated = copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        m_listeners = updated;
+    }
+
+    /**
+     * Removes the first occurrence of a listener.
+     *
+     * @param listener The listener.
+     * @return True if the listener was registered.
+     * @eegeo.internal
+     */
+    public synchronized boolean remove(T listener) {
+        T[] listeners = m_listeners;
+        for (int i = 0; i < listeners.length; ++i) {
+            if (listeners[i].equals(listener)) {
+                T[] updated = copyOf(listeners, listeners.length - 1);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                m_listeners = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every listener.
+     *
+     * @eegeo.internal
+     */
+    public synchronized void clear() {
+        m_listeners = m_empty;
+    }
+
+    /**
+     * @return The listeners registered at the time of the call. The array must not be modified.
+     * @eegeo.internal
+     */
+    @NonNull
+    public T[] snapshot() {
+        return m_listeners;
+    }
+
+    /**
+     * @return True if no listeners are registered.
+     * @eegeo.internal
+     */
+    public boolean isEmpty() {
+        return m_listeners.length == 0;
+    }
+
+    /**
+     * @return The number of listeners registered.
+     * @eegeo.internal
+     */
+    public int size() {
+        return m_listeners.length;
+    }
+
+    private T[] copyOf(T[] listeners, int length) {
+        T[] copy = length == 0 ? m_empty : newArray(length);
+        System.arraycopy(listeners, 0, copy, 0, Math.min(length, listeners.length));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newArray(int length) {
+        return (T[]) Array.newInstance(m_empty.getClass().getComponentType(), length);
+    }
+}
@@ -1,28 +1,495 @@
 package com.eegeo.mapapi.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Promise pattern for handling asynchronous operations.
+ * <br>
+ * <br>
+ * A promise is completed once, by ready with a value, by fail with an error, or by cancel. Any
+ * number of consumers may be added with then and onFailure, before or after completion, and each
+ * is called once. Consumers added without an Executor are called on the thread that completes the
+ * promise, which for promises returned by the map is the Android UI thread, or straight away if
+ * the promise is already complete. Consumers added with an Executor are called on it.
+ * <br>
+ * <br>
+ * Promises can be composed with map, flatMap and all. Cancelling a composed promise cancels the
+ * promises it depends on, unless they still have other consumers, and cancelling a promise
+ * returned by the map skips native work not yet started for it. This class is thread-safe.
  *
  * @param <T> Type of the value to be computed asynchronously
  */
 public class Promise<T> {
-    private Ready<T> m_func = null;
+    private static final int PENDING = 0;
+    private static final int FULFILLED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private static ScheduledExecutorService ms_timeoutScheduler = null;
+
+    private int m_state = PENDING;
+    private T m_value = null;
+    private Throwable m_error = null;
+    private List<Consumer<T>> m_consumers = null;
+    private List<Runnable> m_cancelHandlers = null;
+    private List<ScheduledFuture<?>> m_timeouts = null;
+
+    private static final class Consumer<T> {
+        final Ready<T> onReady;
+        final Ready<Throwable> onFailure;
+        final Executor executor;
+
+        Consumer(Ready<T> onReady, Ready<Throwable> onFailure, Executor executor) {
+            this.onReady = onReady;
+            this.onFailure = onFailure;
+            this.executor = executor;
+        }
+    }
 
     /**
-     * Called by the operation which has computed the value requested.
+     * @param t The value.
+     * @param <T> Type of the value.
+     * @return A promise already fulfilled with the value.
+     */
+    public static <T> Promise<T> resolved(T t) {
+        Promise<T> promise = new Promise<>();
+        promise.ready(t);
+        return promise;
+    }
+
+    /**
+     * Called by the operation which has computed the value requested. Has no effect if the promise
+     * is already complete.
      * @param t The computed value.
      */
     public void ready(T t) {
-        if (m_func != null) {
-            m_func.ready(t);
-        }
+        complete(FULFILLED, t, null);
     }
 
     /**
-     * Sets an object which consumes the result of the asyncronous operation.
+     * Called by the operation if it could not compute the value. Has no effect if the promise is
+     * already complete.
+     * @param error The reason for the failure.
+     */
+    public void fail(Throwable error) {
+        complete(FAILED, null, error);
+    }
+
+    /**
+     * Cancels the promise, if it is not yet complete. Handlers added with onCancel are called, and
+     * failure consumers receive a CancellationException.
+     * @return True if the promise was cancelled by this call.
+     */
+    public boolean cancel() {
+        return complete(CANCELLED, null, new CancellationException());
+    }
+
+    /**
+     * Adds an object which consumes the result of the asynchronous operation.
      * @param f Object which consumes the result via its ready method.
      */
     public void then(Ready<T> f) {
-        m_func = f;
+        addConsumer(new Consumer<>(f, null, null));
+    }
+
+    /**
+     * Adds an object which consumes the result of the asynchronous operation on an Executor.
+     * @param f Object which consumes the result via its ready method.
+     * @param executor The Executor on which f is called.
+     * @return This promise, for chaining.
+     */
+    public Promise<T> then(Ready<T> f, Executor executor) {
+        addConsumer(new Consumer<>(f, null, executor));
+        return this;
+    }
+
+    /**
+     * Adds an object which is told if the operation fails, is cancelled or times out.
+     * @param f Object which consumes the error via its ready method.
+     * @return This promise, for chaining.
+     */
+    public Promise<T> onFailure(Ready<Throwable> f) {
+        addConsumer(new Consumer<T>(null, f, null));
+        return this;
+    }
+
+    /**
+     * Adds an object which is told on an Executor if the operation fails, is cancelled or times out.
+     * @param f Object which consumes the error via its ready method.
+     * @param executor The Executor on which f is called.
+     * @return This promise, for chaining.
+     */
+    public Promise<T> onFailure(Ready<Throwable> f, Executor executor) {
+        addConsumer(new Consumer<T>(null, f, executor));
+        return this;
+    }
+
+    /**
+     * Adds a handler called if the promise is cancelled or times out, so that the operation can
+     * stop work whose result is no longer wanted. Called straight away if already cancelled.
+     * @param handler The handler.
+     * @return This promise, for chaining.
+     */
+    public Promise<T> onCancel(Runnable handler) {
+        synchronized (this) {
+            if (m_state == PENDING) {
+                if (m_cancelHandlers == null) {
+                    m_cancelHandlers = new ArrayList<>(1);
+                }
+                m_cancelHandlers.add(handler);
+                return this;
+            }
+            if (m_state != CANCELLED && !(m_error instanceof TimeoutException)) {
+                return this;
+            }
+        }
+        handler.run();
+        return this;
+    }
+
+    /**
+     * Fails the promise with a TimeoutException if it is not complete within a time, and calls its
+     * cancel handlers.
+     * @param timeoutMillis The time limit, in milliseconds.
+     * @param executor The Executor on which the promise is failed, so that its cancel handlers and
+     *                 consumers added without an Executor are called there, as they would be by the
+     *                 operation. For promises returned by the map, this should run on the UI thread.
+     * @return This promise, for chaining.
+     */
+    public Promise<T> timeout(long timeoutMillis, final Executor executor) {
+        final Runnable expire = new Runnable() {
+            @Override
+            public void run() {
+                complete(FAILED, null, new TimeoutException());
+            }
+        };
+        synchronized (this) {
+            if (m_state != PENDING) {
+                return this;
+            }
+            ScheduledFuture<?> timeout = getTimeoutScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!isDone()) {
+                        executor.execute(expire);
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            if (m_timeouts == null) {
+                m_timeouts = new ArrayList<>(1);
+            }
+            m_timeouts.add(timeout);
+        }
+        return this;
+    }
+
+    /**
+     * @param transform Computes the new value from this promise's value, on the thread that
+     *                  completes this promise.
+     * @param <R> Type of the new value.
+     * @return A promise of the transformed value, which fails if this promise fails or transform
+     * throws, and which if cancelled cancels this promise, unless it has other consumers.
+     */
+    public <R> Promise<R> map(final Transform<? super T, ? extends R> transform) {
+        final Promise<R> result = new Promise<>();
+        final Consumer<T> consumer = new Consumer<>(new Ready<T>() {
+            @Override
+            public void ready(T t) {
+                R r;
+                try {
+                    r = transform.apply(t);
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                    return;
+                }
+                result.ready(r);
+            }
+        }, forwardFailure(result), null);
+        addConsumer(consumer);
+        result.onCancel(withdrawRunnable(this, consumer));
+        return result;
+    }
+
+    /**
+     * @param transform Starts a further asynchronous operation from this promise's value.
+     * @param <R> Type of the further operation's value.
+     * @return A promise of the further operation's value, which fails if either operation fails,
+     * and which if cancelled cancels whichever operation is in progress, unless its promise has
+     * other consumers.
+     */
+    public <R> Promise<R> flatMap(final Transform<? super T, Promise<R>> transform) {
+        final Promise<R> result = new Promise<>();
+        final Consumer<T> consumer = new Consumer<>(new Ready<T>() {
+            @Override
+            public void ready(T t) {
+                Promise<R> next;
+                try {
+                    next = transform.apply(t);
+                } catch (RuntimeException e) {
+                    result.fail(e);
+                    return;
+                }
+                Consumer<R> nextConsumer = new Consumer<>(new Ready<R>() {
+                    @Override
+                    public void ready(R r) {
+                        result.ready(r);
+                    }
+                }, forwardFailure(result), null);
+                next.addConsumer(nextConsumer);
+                result.onCancel(withdrawRunnable(next, nextConsumer));
+            }
+        }, forwardFailure(result), null);
+        addConsumer(consumer);
+        result.onCancel(withdrawRunnable(this, consumer));
+        return result;
+    }
+
+    /**
+     * @param promises The promises to combine.
+     * @param <T> Type of the values.
+     * @return A promise of all the values, in the same order as the promises. It fails as soon as
+     * any promise fails, cancelling the rest, and cancelling it cancels them all, except for any
+     * promises that have other consumers.
+     */
+    public static <T> Promise<List<T>> all(final List<Promise<T>> promises) {
+        final Promise<List<T>> result = new Promise<>();
+        final int count = promises.size();
+        if (count == 0) {
+            result.ready(Collections.<T>emptyList());
+            return result;
+        }
+
+        final Object[] values = new Object[count];
+        final int[] remaining = {count};
+        final List<Consumer<T>> consumers = new ArrayList<>(count);
+        final Runnable cancelAll = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; ++i) {
+                    promises.get(i).withdrawConsumer(consumers.get(i));
+                }
+            }
+        };
+        for (int i = 0; i < count; ++i) {
+            final int index = i;
+            consumers.add(new Consumer<>(new Ready<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void ready(T t) {
+                    boolean done;
+                    synchronized (values) {
+                        values[index] = t;
+                        done = --remaining[0] == 0;
+                    }
+                    if (done) {
+                        List<T> list = new ArrayList<>(count);
+                        for (Object value : values) {
+                            list.add((T) value);
+                        }
+                        result.ready(list);
+                    }
+                }
+            }, new Ready<Throwable>() {
+                @Override
+                public void ready(Throwable error) {
+                    if (result.complete(FAILED, null, error)) {
+                        cancelAll.run();
+                    }
+                }
+            }, null));
+        }
+        for (int i = 0; i < count; ++i) {
+            promises.get(i).addConsumer(consumers.get(i));
+        }
+        result.onCancel(cancelAll);
+        return result;
+    }
+
+    /**
+     * @return True once the promise is fulfilled, has failed or is cancelled.
+     */
+    public synchronized boolean isDone() {
+        return m_state != PENDING;
+    }
+
+    /**
+     * @return True if the promise was cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return m_state == CANCELLED;
+    }
+
+    /**
+     * @return True if the promise was fulfilled with a value.
+     */
+    public synchronized boolean isFulfilled() {
+        return m_state == FULFILLED;
+    }
+
+    /**
+     * @return The value, if fulfilled, otherwise null.
+     */
+    public synchronized T getValue() {
+        return m_value;
+    }
+
+    /**
+     * @return The reason the promise failed or was cancelled, otherwise null.
+     */
+    public synchronized Throwable getError() {
+        return m_error;
+    }
+
+    private boolean complete(int state, T value, Throwable error) {
+        return complete(state, value, error, false);
+    }
+
+    private boolean complete(int state, T value, Throwable error, boolean onlyIfNoConsumers) {
+        final List<Consumer<T>> consumers;
+        final List<Runnable> cancelHandlers;
+        final List<ScheduledFuture<?>> timeouts;
+        synchronized (this) {
+            if (m_state != PENDING || (onlyIfNoConsumers && m_consumers != null && !m_consumers.isEmpty())) {
+                return false;
+            }
+            m_state = state;
+            m_value = value;
+            m_error = error;
+            consumers = m_consumers;
+            boolean cancelling = state == CANCELLED || error instanceof TimeoutException;
+            cancelHandlers = cancelling ? m_cancelHandlers : null;
+            timeouts = m_timeouts;
+            m_consumers = null;
+            m_cancelHandlers = null;
+            m_timeouts = null;
+        }
+
+        if (timeouts != null) {
+            for (ScheduledFuture<?> timeout : timeouts) {
+                timeout.cancel(false);
+            }
+        }
+
+        if (cancelHandlers != null) {
+            for (Runnable handler : cancelHandlers) {
+                handler.run();
+            }
+        }
+        if (consumers != null) {
+            RuntimeException firstException = null;
+            for (Consumer<T> consumer : consumers) {
+                try {
+                    deliver(consumer, state, value, error);
+                } catch (RuntimeException e) {
+                    // the other consumers are still owed the result
+                    if (firstException == null) {
+                        firstException = e;
+                    }
+                }
+            }
+            if (firstException != null) {
+                throw firstException;
+            }
+        }
+        return true;
+    }
+
+    private void addConsumer(Consumer<T> consumer) {
+        final int state;
+        final T value;
+        final Throwable error;
+        synchronized (this) {
+            if (m_state == PENDING) {
+                if (m_consumers == null) {
+                    m_consumers = new ArrayList<>(1);
+                }
+                m_consumers.add(consumer);
+                return;
+            }
+            state = m_state;
+            value = m_value;
+            error = m_error;
+        }
+        deliver(consumer, state, value, error);
+    }
+
+    private static <T> void deliver(final Consumer<T> consumer, int state, final T value, final Throwable error) {
+        if (state == FULFILLED && consumer.onReady != null) {
+            if (consumer.executor == null) {
+                consumer.onReady.ready(value);
+            } else {
+                consumer.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        consumer.onReady.ready(value);
+                    }
+                });
+            }
+        } else if (state != FULFILLED && consumer.onFailure != null) {
+            if (consumer.executor == null) {
+                consumer.onFailure.ready(error);
+            } else {
+                consumer.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        consumer.onFailure.ready(error);
+                    }
+                });
+            }
+        }
+    }
+
+    private static Ready<Throwable> forwardFailure(final Promise<?> result) {
+        return new Ready<Throwable>() {
+            @Override
+            public void ready(Throwable error) {
+                result.fail(error);
+            }
+        };
+    }
+
+    // removes a derived promise's consumer, and cancels the promise if no other consumer remains
+    private void withdrawConsumer(Consumer<T> consumer) {
+        synchronized (this) {
+            if (m_consumers != null) {
+                m_consumers.remove(consumer);
+            }
+        }
+        complete(CANCELLED, null, new CancellationException(), true);
+    }
+
+    private static <T> Runnable withdrawRunnable(final Promise<T> promise, final Consumer<T> consumer) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                promise.withdrawConsumer(consumer);
+            }
+        };
+    }
+
+    private static synchronized ScheduledExecutorService getTimeoutScheduler() {
+        if (ms_timeoutScheduler == null) {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "eegeo-promise-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            ms_timeoutScheduler = scheduler;
+        }
+        return ms_timeoutScheduler;
     }
-}
\ No newline at end of file
+}
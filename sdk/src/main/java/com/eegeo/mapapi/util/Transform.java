@@ -0,0 +1,16 @@
+package com.eegeo.mapapi.util;
+
+/**
+ * Interface for objects which compute a value from the result of an asynchronous operation, for
+ * use with Promise.map and Promise.flatMap.
+ *
+ * @param <T> Type of the input.
+ * @param <R> Type of the output.
+ */
+public interface Transform<T, R> {
+    /**
+     * @param t The input.
+     * @return The output.
+     */
+    R apply(T t);
+}
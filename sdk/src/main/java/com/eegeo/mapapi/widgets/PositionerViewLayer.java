@@ -0,0 +1,343 @@
+package com.eegeo.mapapi.widgets;
+
+import android.content.Context;
+import android.graphics.Point;
+import android.graphics.PointF;
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.eegeo.mapapi.positioner.OnPositionerChangedListener;
+import com.eegeo.mapapi.positioner.Positioner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A view container which pins child views to the screen points of Positioners. It is intended for
+ * use as an overlay on top of a MapView, when many views need to track the map at once.
+ * <br>
+ * <br>
+ * Positioner changes received during a frame are collected and applied together in a single pass
+ * on the next animation frame. Views are placed by translation, so moving them never requests a
+ * layout. Positioners which are behind the globe horizon or outside the bounds of this layer have
+ * their views hidden and returned to a pool, from which views are rebound to other Positioners as
+ * they come into view. Whether a Positioner is in view is decided from its screen point and the
+ * size of its view, or of the last view laid out, so no view is bound for one out of view. Hidden pooled views are made invisible rather than removed, so recycling a
+ * view does not request a layout either.
+ * <br>
+ * <br>
+ * Register the layer with EegeoMap.addPositionerChangedListener, and add the Positioners it should
+ * display with addPositioner.
+ * <br>
+ * <br>
+ * Public methods in this class must be called on the Android UI thread.
+ */
+public class PositionerViewLayer extends FrameLayout implements OnPositionerChangedListener {
+
+    /**
+     * Creates and populates the views displayed for Positioners.
+     */
+    public interface ViewBinder {
+        /**
+         * Creates a new view. Called only when the pool of recycled views is empty.
+         *
+         * @param parent The layer the view will be added to.
+         * @return A new view.
+         */
+        @UiThread
+        View createView(@NonNull ViewGroup parent);
+
+        /**
+         * Populates a new or recycled view with content for the given Positioner.
+         *
+         * @param view       A view previously returned by createView.
+         * @param positioner The Positioner the view is now displayed for.
+         */
+        @UiThread
+        void bindView(@NonNull View view, @NonNull Positioner positioner);
+    }
+
+    private static final int DEFAULT_MAX_POOLED_VIEWS = 32;
+
+    private final Map<Positioner, Entry> m_entries = new HashMap<>();
+    private final ArrayList<Entry> m_dirtyEntries = new ArrayList<>();
+    private final ArrayList<Entry> m_reboundEntries = new ArrayList<>();
+    private final ArrayList<View> m_pooledViews = new ArrayList<>();
+    private final PointF m_anchorUV = new PointF(0.5f, 1.0f);
+    private ViewBinder m_viewBinder = null;
+    private int m_maxPooledViews = DEFAULT_MAX_POOLED_VIEWS;
+    // the size of the last view laid out, used to cull Positioners before a view is bound for them
+    private int m_lastViewWidth = 0;
+    private int m_lastViewHeight = 0;
+    private boolean m_updateScheduled = false;
+
+    private final Runnable m_applyUpdates = new Runnable() {
+        @UiThread
+        @Override
+        public void run() {
+            m_updateScheduled = false;
+            applyUpdates();
+        }
+    };
+
+    /**
+     * Constructor for a PositionerViewLayer.
+     *
+     * @param context The Android context for the view.
+     */
+    @UiThread
+    public PositionerViewLayer(@NonNull Context context) {
+        super(context);
+    }
+
+    /**
+     * Constructor for a PositionerViewLayer.
+     *
+     * @param context      The Android context for the view.
+     * @param attributeSet Attributes which may be used to initialize the view.
+     */
+    @UiThread
+    public PositionerViewLayer(@NonNull Context context, AttributeSet attributeSet) {
+        super(context, attributeSet);
+    }
+
+    /**
+     * Sets the object used to create and populate views. This should be set before any Positioners
+     * are added.
+     *
+     * @param viewBinder The ViewBinder.
+     */
+    @UiThread
+    public void setViewBinder(@NonNull ViewBinder viewBinder) {
+        m_viewBinder = viewBinder;
+    }
+
+    /**
+     * Sets the point on each view which is pinned to its Positioner's screen point, as for
+     * ViewAnchor.positionView. Defaults to (0.5, 1.0), the bottom center of the view.
+     *
+     * @param anchorUV The anchor point, relative to the size of the view.
+     */
+    @UiThread
+    public void setAnchorUV(@NonNull PointF anchorUV) {
+        m_anchorUV.set(anchorUV.x, anchorUV.y);
+        markAllDirty();
+    }
+
+    /**
+     * Sets the maximum number of hidden views kept for reuse. Views hidden beyond this number are
+     * removed from the layer.
+     *
+     * @param maxPooledViews The maximum number of pooled views.
+     */
+    @UiThread
+    public void setMaxPooledViews(int maxPooledViews) {
+        m_maxPooledViews = Math.max(0, maxPooledViews);
+        while (m_pooledViews.size() > m_maxPooledViews) {
+            removeView(m_pooledViews.remove(m_pooledViews.size() - 1));
+        }
+    }
+
+    /**
+     * Starts displaying a view for a Positioner.
+     *
+     * @param positioner The Positioner to display.
+     */
+    @UiThread
+    public void addPositioner(@NonNull Positioner positioner) {
+        if (m_entries.containsKey(positioner)) {
+            return;
+        }
+
+        Entry entry = new Entry(positioner);
+        m_entries.put(positioner, entry);
+        markDirty(entry);
+    }
+
+    /**
+     * Stops displaying a view for a Positioner, returning its view to the pool.
+     *
+     * @param positioner The Positioner to remove.
+     */
+    @UiThread
+    public void removePositioner(@NonNull Positioner positioner) {
+        Entry entry = m_entries.remove(positioner);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.dirty) {
+            m_dirtyEntries.remove(entry);
+        }
+        m_reboundEntries.remove(entry);
+        releaseView(entry);
+    }
+
+    /**
+     * Removes all Positioners from the layer, returning their views to the pool.
+     */
+    @UiThread
+    public void clearPositioners() {
+        for (Entry entry : m_entries.values()) {
+            releaseView(entry);
+        }
+        m_entries.clear();
+        m_dirtyEntries.clear();
+        m_reboundEntries.clear();
+    }
+
+    /**
+     * Gets the view currently displayed for a Positioner.
+     *
+     * @param positioner A Positioner previously added to the layer.
+     * @return The view, or null if the Positioner has no view because it is not in view.
+     */
+    @UiThread
+    public View getViewForPositioner(@NonNull Positioner positioner) {
+        Entry entry = m_entries.get(positioner);
+        return entry == null ? null : entry.view;
+    }
+
+    /**
+     * Records that a Positioner has moved. Positioners not added to this layer are ignored. Views
+     * are updated on the next animation frame.
+     *
+     * @param positioner The Positioner object that has changed.
+     */
+    @UiThread
+    @Override
+    public void onPositionerChanged(Positioner positioner) {
+        Entry entry = m_entries.get(positioner);
+        if (entry != null) {
+            markDirty(entry);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        markAllDirty();
+    }
+
+    @UiThread
+    private void markDirty(Entry entry) {
+        if (!entry.dirty) {
+            entry.dirty = true;
+            m_dirtyEntries.add(entry);
+        }
+
+        if (!m_updateScheduled) {
+            m_updateScheduled = true;
+            postOnAnimation(m_applyUpdates);
+        }
+    }
+
+    @UiThread
+    private void markAllDirty() {
+        for (Entry entry : m_entries.values()) {
+            markDirty(entry);
+        }
+    }
+
+    @UiThread
+    private void applyUpdates() {
+        final int width = getWidth();
+        final int height = getHeight();
+
+        for (int i = 0; i < m_dirtyEntries.size(); i++) {
+            Entry entry = m_dirtyEntries.get(i);
+            entry.dirty = false;
+
+            Point screenPoint = entry.positioner.isScreenPointProjectionDefined() ? entry.positioner.getScreenPointOrNull() : null;
+            if (screenPoint == null) {
+                releaseView(entry);
+                continue;
+            }
+
+            // a view not yet laid out is assumed to be the size of the last one that was
+            final boolean measured = entry.view != null && entry.view.getWidth() > 0;
+            if (measured) {
+                m_lastViewWidth = entry.view.getWidth();
+                m_lastViewHeight = entry.view.getHeight();
+            }
+            final int viewWidth = measured ? entry.view.getWidth() : m_lastViewWidth;
+            final int viewHeight = measured ? entry.view.getHeight() : m_lastViewHeight;
+            float left = screenPoint.x - (viewWidth * m_anchorUV.x);
+            float top = screenPoint.y - (viewHeight * m_anchorUV.y);
+
+            // culled before a view is obtained, so no view is bound for a Positioner off screen
+            boolean onScreen = left < width && top < height
+                    && (left + viewWidth) >= 0 && (top + viewHeight) >= 0;
+            if (!onScreen) {
+                releaseView(entry);
+                continue;
+            }
+
+            if (entry.view == null) {
+                if (m_viewBinder == null) {
+                    continue;
+                }
+                entry.view = obtainView();
+                m_viewBinder.bindView(entry.view, entry.positioner);
+                // its size is only known after the next layout, so place it again next frame
+                m_reboundEntries.add(entry);
+            }
+
+            View view = entry.view;
+            view.setTranslationX(left - view.getLeft());
+            view.setTranslationY(top - view.getTop());
+        }
+
+        m_dirtyEntries.clear();
+
+        for (int i = 0; i < m_reboundEntries.size(); i++) {
+            markDirty(m_reboundEntries.get(i));
+        }
+        m_reboundEntries.clear();
+    }
+
+    @UiThread
+    private View obtainView() {
+        View view;
+        if (!m_pooledViews.isEmpty()) {
+            view = m_pooledViews.remove(m_pooledViews.size() - 1);
+        } else {
+            view = m_viewBinder.createView(this);
+            addView(view, new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+        }
+        view.setVisibility(View.VISIBLE);
+        return view;
+    }
+
+    @UiThread
+    private void releaseView(Entry entry) {
+        View view = entry.view;
+        if (view == null) {
+            return;
+        }
+        entry.view = null;
+
+        if (m_pooledViews.size() < m_maxPooledViews) {
+            // INVISIBLE rather than GONE, which would request a layout
+            view.setVisibility(View.INVISIBLE);
+            m_pooledViews.add(view);
+        } else {
+            removeView(view);
+        }
+    }
+
+    private static final class Entry {
+        final Positioner positioner;
+        View view = null;
+        boolean dirty = false;
+
+        Entry(Positioner positioner) {
+            this.positioner = positioner;
+        }
+    }
+}
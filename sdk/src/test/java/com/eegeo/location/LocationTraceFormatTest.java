@@ -0,0 +1,67 @@
+package com.eegeo.location;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LocationTraceFormatTest {
+
+    private static byte[] writeTrace() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        LocationTraceFormat.writeHeader(output, 1000L);
+        byte flags = LocationTraceFormat.FLAG_HAS_ALTITUDE | LocationTraceFormat.FLAG_HAS_ACCURACY | LocationTraceFormat.FLAG_PROVIDER_GPS;
+        LocationTraceFormat.writeLocationRecord(output, 0, flags, 51.5, -0.12, 250, 35.0f, 4.5f);
+        LocationTraceFormat.writeHeadingRecord(output, 100, 270.0f);
+        LocationTraceFormat.writeLocationRecord(output, 400, (byte) 0, 51.6, -0.13, 900, 0.0f, 0.0f);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testRecordsRoundTrip() throws IOException {
+        LocationTraceReplayer replayer = new LocationTraceReplayer(new ByteArrayInputStream(writeTrace()));
+
+        assertEquals(3, replayer.getRecordCount());
+        assertEquals(500L, replayer.getDurationMs());
+
+        assertEquals(LocationTraceFormat.RECORD_LOCATION, replayer.getRecordType(0));
+        assertEquals(LocationTraceFormat.FLAG_HAS_ALTITUDE | LocationTraceFormat.FLAG_HAS_ACCURACY | LocationTraceFormat.FLAG_PROVIDER_GPS, replayer.getFlags(0));
+        assertEquals(51.5, replayer.getLatitude(0), 0.0);
+        assertEquals(-0.12, replayer.getLongitude(0), 0.0);
+        assertEquals(250, replayer.getFixTimeOffsetMs(0));
+        assertEquals(35.0f, replayer.getAltitude(0), 0.0f);
+        assertEquals(4.5f, replayer.getAccuracy(0), 0.0f);
+
+        assertEquals(LocationTraceFormat.RECORD_HEADING, replayer.getRecordType(1));
+        assertEquals(100, replayer.getElapsedMs(1));
+        assertEquals(270.0f, replayer.getHeading(1), 0.0f);
+
+        assertEquals(LocationTraceFormat.RECORD_LOCATION, replayer.getRecordType(2));
+        assertEquals(0, replayer.getFlags(2));
+        assertEquals(51.6, replayer.getLatitude(2), 0.0);
+        assertEquals(900, replayer.getFixTimeOffsetMs(2));
+    }
+
+    @Test
+    public void testTruncatedRecordIsDropped() throws IOException {
+        byte[] trace = writeTrace();
+        byte[] truncated = Arrays.copyOf(trace, trace.length - 3);
+
+        LocationTraceReplayer replayer = new LocationTraceReplayer(new ByteArrayInputStream(truncated));
+
+        assertEquals(2, replayer.getRecordCount());
+        assertEquals(100L, replayer.getDurationMs());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherData() throws IOException {
+        new LocationTraceReplayer(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14}));
+    }
+}
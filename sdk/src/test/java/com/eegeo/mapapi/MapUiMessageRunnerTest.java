@@ -0,0 +1,91 @@
+package com.eegeo.mapapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MapUiMessageRunnerTest {
+
+    private static final class QueueRunner implements IDelayedUiMessageRunner {
+        final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void runOnUiThread(Runnable runnable) {
+            queued.add(runnable);
+        }
+
+        @Override
+        public void runOnUiThreadDelayed(Runnable runnable, long delayMillis) {
+            queued.add(runnable);
+        }
+
+        @Override
+        public void cancelRunOnUiThread(Runnable runnable) {
+            queued.remove(runnable);
+        }
+
+        void runAll() {
+            List<Runnable> runnables = new ArrayList<>(queued);
+            queued.clear();
+            for (Runnable runnable : runnables) {
+                runnable.run();
+            }
+        }
+    }
+
+    private static Runnable record(final List<String> calls, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                calls.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void testRunsPostedRunnablesWhileOpen() {
+        QueueRunner queueRunner = new QueueRunner();
+        MapUiMessageRunner runner = new MapUiMessageRunner(queueRunner);
+        List<String> calls = new ArrayList<>();
+
+        runner.runOnUiThread(record(calls, "a"));
+        runner.runOnUiThreadDelayed(record(calls, "b"), 10);
+        queueRunner.runAll();
+
+        assertEquals(Arrays.asList("a", "b"), calls);
+    }
+
+    @Test
+    public void testDropsRunnablesPostedBeforeAndAfterClose() {
+        QueueRunner queueRunner = new QueueRunner();
+        MapUiMessageRunner runner = new MapUiMessageRunner(queueRunner);
+        List<String> calls = new ArrayList<>();
+
+        runner.runOnUiThread(record(calls, "before"));
+        runner.runOnUiThreadDelayed(record(calls, "delayed"), 10);
+        runner.close();
+        runner.runOnUiThread(record(calls, "after"));
+        queueRunner.runAll();
+
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void testCancelsDelayedRunnable() {
+        QueueRunner queueRunner = new QueueRunner();
+        MapUiMessageRunner runner = new MapUiMessageRunner(queueRunner);
+        List<String> calls = new ArrayList<>();
+        Runnable delayed = record(calls, "delayed");
+
+        runner.runOnUiThreadDelayed(delayed, 10);
+        runner.cancelRunOnUiThread(delayed);
+
+        assertTrue(queueRunner.queued.isEmpty());
+        queueRunner.runAll();
+        assertTrue(calls.isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+package com.eegeo.mapapi.buildings;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BuildingInformationSetTest {
+
+    private static BuildingInformation building(String id, double top, BuildingContour... contours) {
+        return new BuildingInformation(id, new BuildingDimensions(10.0, top, new LatLng(56.46, -2.97)), contours);
+    }
+
+    @Test
+    public void testPacksContoursPerBuilding() {
+        BuildingContour square = new BuildingContour(10.0, 30.0, new LatLng[]{
+                new LatLng(0.0, 0.0), new LatLng(0.0, 1.0), new LatLng(1.0, 1.0), new LatLng(1.0, 0.0)});
+        BuildingContour triangle = new BuildingContour(30.0, 40.0, new LatLng[]{
+                new LatLng(2.0, 2.0), new LatLng(2.0, 3.0), new LatLng(3.0, 2.0)});
+        BuildingInformationSet set = new BuildingInformationSet(Arrays.asList(
+                building("a", 40.0, square, triangle),
+                building("b", 25.0),
+                building("c", 50.0, triangle)));
+
+        assertEquals(3, set.getBuildingCount());
+        assertEquals("b", set.getBuildingId(1));
+        assertEquals(50.0, set.getTopAltitude(2), 0.0);
+        assertEquals(2, set.getContourCount(0));
+        assertEquals(0, set.getContourCount(1));
+        assertEquals(1, set.getContourCount(2));
+        assertEquals(10, set.getTotalPointCount());
+
+        assertEquals(30.0, set.getContourBottomAltitude(0, 1), 0.0);
+        assertEquals(3, set.getContourPointCount(2, 0));
+        double[] points = new double[6];
+        set.getContourPoints(2, 0, points);
+        assertArrayEquals(new double[]{2.0, 2.0, 2.0, 3.0, 3.0, 2.0}, points, 0.0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.eegeo.mapapi.buildings;
+
+import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.mapapi.geometry.LatLngBounds;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BuildingSampleGridTest {
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+
+    @Test
+    public void testSamplesLieInsideCellsCoveringBounds() {
+        LatLngBounds area = bounds(56.459, -2.975, 56.461, -2.970);
+        BuildingSampleGrid grid = new BuildingSampleGrid(area, 20.0, 4096);
+
+        // roughly 220m by 310m at 20m spacing
+        assertTrue(grid.getSampleCount() > 100);
+        assertTrue(grid.getSampleCount() < 300);
+        double halfCell = 20.0 / 111000.0;
+        for (int i = 0; i < grid.getSampleCount(); ++i) {
+            assertTrue(grid.latLngs[i * 2] > area.southwest.latitude - halfCell);
+            assertTrue(grid.latLngs[i * 2] < area.northeast.latitude + halfCell);
+        }
+    }
+
+    @Test
+    public void testOverlappingAreasShareSampleKeys() {
+        BuildingSampleGrid whole = new BuildingSampleGrid(bounds(56.459, -2.975, 56.461, -2.970), 20.0, 4096);
+        BuildingSampleGrid part = new BuildingSampleGrid(bounds(56.4595, -2.974, 56.4605, -2.971), 20.0, 4096);
+
+        Set<Long> wholeKeys = new HashSet<>();
+        for (long key : whole.keys) {
+            wholeKeys.add(key);
+        }
+        for (long key : part.keys) {
+            assertTrue(wholeKeys.contains(key));
+        }
+        assertEquals(wholeKeys.size(), whole.getSampleCount());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsTooManySamples() {
+        new BuildingSampleGrid(bounds(56.0, -3.0, 57.0, -2.0), 20.0, 4096);
+    }
+}
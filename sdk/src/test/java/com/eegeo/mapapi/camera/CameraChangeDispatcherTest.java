@@ -0,0 +1,137 @@
+package com.eegeo.mapapi.camera;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CameraChangeDispatcherTest {
+
+    private static final class RecordingListener implements OnCameraChangeListener {
+        final List<CameraChange> changes = new ArrayList<>();
+
+        @Override
+        public void onCameraChange(CameraChange change) {
+            changes.add(change);
+        }
+    }
+
+    private static CameraPosition position(double latitude, double zoom, double bearing) {
+        return new CameraPosition(new LatLng(latitude, -3.0), zoom, 40.0, bearing);
+    }
+
+    @Test
+    public void testFirstDispatchReportsEverything() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold());
+
+        dispatcher.dispatch(position(56.0, 16.0, 0.0));
+
+        assertEquals(1, listener.changes.size());
+        assertNull(listener.changes.get(0).previousPosition);
+        assertTrue(listener.changes.get(0).hasChanged(CameraChange.CHANGED_INDOOR));
+    }
+
+    @Test
+    public void testUnchangedPositionIsNotReported() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold());
+
+        dispatcher.dispatch(position(56.0, 16.0, 0.0));
+        dispatcher.dispatch(position(56.0, 16.0, 0.0));
+
+        assertEquals(1, listener.changes.size());
+    }
+
+    @Test
+    public void testChangeCarriesFlagsAndDeltas() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold());
+
+        dispatcher.dispatch(position(56.0, 16.0, 350.0));
+        dispatcher.dispatch(position(56.0, 16.5, 10.0));
+
+        CameraChange change = listener.changes.get(1);
+        assertEquals(CameraChange.CHANGED_ZOOM | CameraChange.CHANGED_BEARING, change.changedFlags);
+        assertEquals(0.5, change.zoomDelta, 1e-9);
+        assertEquals(20.0, change.bearingDelta, 1e-9);
+        assertEquals(0.0, change.targetDistanceMeters, 1e-9);
+    }
+
+    @Test
+    public void testSmallChangesAccumulateUntilThresholdExceeded() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold().targetDistanceMeters(100.0));
+
+        dispatcher.dispatch(position(56.0, 16.0, 0.0));
+        // each step is roughly 55m
+        dispatcher.dispatch(position(56.0005, 16.0, 0.0));
+        assertEquals(1, listener.changes.size());
+        dispatcher.dispatch(position(56.001, 16.0, 0.0));
+        assertEquals(2, listener.changes.size());
+
+        CameraChange change = listener.changes.get(1);
+        assertEquals(56.0, change.previousPosition.target.latitude, 1e-9);
+        assertEquals(111.3, change.targetDistanceMeters, 0.5);
+    }
+
+    private static CameraPosition elevatedPosition(double elevation) {
+        return new CameraPosition.Builder()
+                .target(56.0, -3.0)
+                .elevation(elevation)
+                .zoom(16.0)
+                .tilt(40.0)
+                .build();
+    }
+
+    @Test
+    public void testElevationChangeIsReported() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold().targetDistanceMeters(100.0));
+
+        dispatcher.dispatch(elevatedPosition(0.0));
+        dispatcher.dispatch(elevatedPosition(12.0));
+
+        assertEquals(2, listener.changes.size());
+        CameraChange change = listener.changes.get(1);
+        assertEquals(CameraChange.CHANGED_TARGET, change.changedFlags);
+        assertEquals(0.0, change.targetDistanceMeters, 1e-9);
+        assertEquals(12.0, change.targetElevationDelta, 1e-9);
+    }
+
+    @Test
+    public void testElevationChangesAccumulateUntilThresholdExceeded() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold().targetDistanceMeters(100.0).targetElevationMeters(10.0));
+
+        dispatcher.dispatch(elevatedPosition(0.0));
+        dispatcher.dispatch(elevatedPosition(6.0));
+        assertEquals(1, listener.changes.size());
+        dispatcher.dispatch(elevatedPosition(-5.0));
+        assertEquals(1, listener.changes.size());
+        dispatcher.dispatch(elevatedPosition(11.0));
+        assertEquals(2, listener.changes.size());
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() {
+        CameraChangeDispatcher dispatcher = new CameraChangeDispatcher();
+        RecordingListener listener = new RecordingListener();
+        dispatcher.add(listener, new CameraChangeThreshold());
+        dispatcher.remove(listener);
+
+        dispatcher.dispatch(position(56.0, 16.0, 0.0));
+
+        assertTrue(listener.changes.isEmpty());
+    }
+}
@@ -0,0 +1,212 @@
+package com.eegeo.mapapi.camera;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CameraSnapshotTest {
+
+    private static final double LATITUDE = 56.46;
+    private static final double LONGITUDE = -2.97;
+
+    private static final double SCREEN_WIDTH = 1080.0;
+    private static final double SCREEN_HEIGHT = 1920.0;
+
+    // a pinhole camera 800m above and 600m south of the target, looking at it
+    private static double[] makeCameraMatrix() {
+        return makeCameraMatrix(1000.0, Math.toDegrees(Math.atan2(600.0, 800.0)));
+    }
+
+    // a pinhole camera at a distance from the target, tilted from looking straight down towards north
+    private static double[] makeCameraMatrix(double distance, double tiltDegrees) {
+        double latitude = Math.toRadians(LATITUDE);
+        double longitude = Math.toRadians(LONGITUDE);
+        double[] east = {-Math.sin(longitude), Math.cos(longitude), 0.0};
+        double[] north = {-Math.sin(latitude) * Math.cos(longitude), -Math.sin(latitude) * Math.sin(longitude), Math.cos(latitude)};
+        double[] up = {Math.cos(latitude) * Math.cos(longitude), Math.cos(latitude) * Math.sin(longitude), Math.sin(latitude)};
+
+        double[] camera = new double[3];
+        double[] forward = new double[3];
+        for (int i = 0; i < 3; ++i) {
+            camera[i] = up[i] * distance * Math.cos(Math.toRadians(tiltDegrees)) - north[i] * distance * Math.sin(Math.toRadians(tiltDegrees));
+            forward[i] = -camera[i] / distance;
+        }
+        double[] right = east;
+        double[] down = {
+                forward[1] * right[2] - forward[2] * right[1],
+                forward[2] * right[0] - forward[0] * right[2],
+                forward[0] * right[1] - forward[1] * right[0]
+        };
+
+        double focal = 900.0;
+        double centerX = SCREEN_WIDTH / 2.0;
+        double centerY = SCREEN_HEIGHT / 2.0;
+        double[] matrix = new double[12];
+        double[][] rows = {right, down, forward};
+        for (int r = 0; r < 3; ++r) {
+            double translation = -(rows[r][0] * camera[0] + rows[r][1] * camera[1] + rows[r][2] * camera[2]);
+            for (int c = 0; c < 3; ++c) {
+                matrix[r * 4 + c] = rows[r][c];
+            }
+            matrix[r * 4 + 3] = translation;
+        }
+        for (int c = 0; c < 4; ++c) {
+            double x = matrix[c];
+            double y = matrix[4 + c];
+            double w = matrix[8 + c];
+            matrix[c] = focal * x + centerX * w;
+            matrix[4 + c] = focal * y + centerY * w;
+        }
+        return matrix;
+    }
+
+    private static double[] project(double[] matrix, double[] origin, double latitude, double longitude, double altitude) {
+        double[] ecef = new double[3];
+        CameraSnapshot.latLngAltToEcef(latitude, longitude, altitude, ecef);
+        double x = ecef[0] - origin[0];
+        double y = ecef[1] - origin[1];
+        double z = ecef[2] - origin[2];
+        double w = matrix[8] * x + matrix[9] * y + matrix[10] * z + matrix[11];
+        return new double[]{
+                (matrix[0] * x + matrix[1] * y + matrix[2] * z + matrix[3]) / w,
+                (matrix[4] * x + matrix[5] * y + matrix[6] * z + matrix[7]) / w
+        };
+    }
+
+    private static CameraSnapshot fitSnapshot(double[] trueMatrix, double[] origin) {
+        double extent = 50.0;
+        double[] relative = new double[27];
+        double[] screen = new double[18];
+        for (int sample = 0; sample < 9; ++sample) {
+            double[] ecef = new double[3];
+            double[] latLngAlt = new double[3];
+            for (int axis = 0; axis < 3; ++axis) {
+                relative[sample * 3 + axis] = sample < 8 ? (((sample >> axis) & 1) != 0 ? extent : -extent) : 0.0;
+                ecef[axis] = origin[axis] + relative[sample * 3 + axis];
+            }
+            CameraSnapshot.ecefToLatLngAlt(ecef[0], ecef[1], ecef[2], latLngAlt);
+            double[] point = project(trueMatrix, origin, latLngAlt[0], latLngAlt[1], latLngAlt[2]);
+            screen[sample * 2] = point[0];
+            screen[sample * 2 + 1] = point[1];
+        }
+
+        double[] matrix = CameraSnapshot.fitProjectionMatrix(relative, screen);
+        assertNotNull(matrix);
+        return new CameraSnapshot(new CameraPosition(new LatLng(LATITUDE, LONGITUDE), 16, 37, 0), 0, origin[0], origin[1], origin[2], matrix);
+    }
+
+    // fits a snapshot as Projection does, from the sample points for the zoom level, with the
+    // reference camera's results rounded to float as the native projection returns them
+    private static CameraSnapshot fitSnapshotAtZoom(double[] trueMatrix, double[] origin, double zoom) {
+        double[] relative = new double[CameraSnapshot.SAMPLE_COUNT * 3];
+        double[] screen = new double[CameraSnapshot.SAMPLE_COUNT * 2];
+        double[] latLngAlt = new double[3];
+        CameraSnapshot.getSamplePoints(LATITUDE, LONGITUDE, zoom, relative);
+        for (int sample = 0; sample < CameraSnapshot.SAMPLE_COUNT; ++sample) {
+            CameraSnapshot.ecefToLatLngAlt(origin[0] + relative[sample * 3],
+                    origin[1] + relative[sample * 3 + 1],
+                    origin[2] + relative[sample * 3 + 2],
+                    latLngAlt);
+            double[] point = project(trueMatrix, origin, latLngAlt[0], latLngAlt[1], latLngAlt[2]);
+            screen[sample * 2] = (float) point[0];
+            screen[sample * 2 + 1] = (float) point[1];
+        }
+
+        double[] matrix = CameraSnapshot.fitProjectionMatrix(relative, screen);
+        assertNotNull(matrix);
+        return new CameraSnapshot(new CameraPosition(new LatLng(LATITUDE, LONGITUDE), zoom, 0, 0), 0, origin[0], origin[1], origin[2], matrix);
+    }
+
+    // the largest screen error of the snapshot over ground points on screen, out to 20km
+    private static double getMaxGroundError(CameraSnapshot snapshot, double[] trueMatrix, double[] origin) {
+        double maxError = 0.0;
+        double[] screen = new double[2];
+        for (int north = -200; north <= 200; ++north) {
+            for (int east = -200; east <= 200; ++east) {
+                double latitude = LATITUDE + north * 0.0009;
+                double longitude = LONGITUDE + east * 0.0016;
+                double[] ecef = new double[3];
+                CameraSnapshot.latLngAltToEcef(latitude, longitude, 0.0, ecef);
+                double w = trueMatrix[8] * (ecef[0] - origin[0]) + trueMatrix[9] * (ecef[1] - origin[1]) + trueMatrix[10] * (ecef[2] - origin[2]) + trueMatrix[11];
+                double[] expected = project(trueMatrix, origin, latitude, longitude, 0.0);
+                if (w <= 0.0 || expected[0] < 0.0 || expected[0] > SCREEN_WIDTH || expected[1] < 0.0 || expected[1] > SCREEN_HEIGHT) {
+                    continue;
+                }
+                assertTrue(snapshot.toScreenLocation(latitude, longitude, 0.0, screen));
+                maxError = Math.max(maxError, Math.hypot(screen[0] - expected[0], screen[1] - expected[1]));
+            }
+        }
+        return maxError;
+    }
+
+    @Test
+    public void testFittedSnapshotMatchesCamera() {
+        double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(LATITUDE, LONGITUDE, 0.0, origin);
+        double[] trueMatrix = makeCameraMatrix();
+        CameraSnapshot snapshot = fitSnapshot(trueMatrix, origin);
+
+        double[] screen = new double[2];
+        for (int i = -5; i <= 5; ++i) {
+            double latitude = LATITUDE + i * 0.001;
+            double longitude = LONGITUDE + i * 0.0015;
+            double[] expected = project(trueMatrix, origin, latitude, longitude, i * 10.0);
+            assertTrue(snapshot.toScreenLocation(latitude, longitude, i * 10.0, screen));
+            assertEquals(expected[0], screen[0], 1e-3);
+            assertEquals(expected[1], screen[1], 1e-3);
+        }
+    }
+
+    @Test
+    public void testFromScreenLocationInvertsToScreenLocation() {
+        double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(LATITUDE, LONGITUDE, 0.0, origin);
+        CameraSnapshot snapshot = fitSnapshot(makeCameraMatrix(), origin);
+
+        double[] screen = new double[2];
+        double[] latLngAlt = new double[3];
+        assertTrue(snapshot.toScreenLocation(LATITUDE + 0.002, LONGITUDE - 0.001, 25.0, screen));
+        assertTrue(snapshot.fromScreenLocation(screen[0], screen[1], 25.0, latLngAlt));
+        assertEquals(LATITUDE + 0.002, latLngAlt[0], 1e-8);
+        assertEquals(LONGITUDE - 0.001, latLngAlt[1], 1e-8);
+        assertEquals(25.0, latLngAlt[2], 1e-4);
+    }
+
+    @Test
+    public void testPointsBehindCameraAreRejected() {
+        double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(LATITUDE, LONGITUDE, 0.0, origin);
+        CameraSnapshot snapshot = fitSnapshot(makeCameraMatrix(), origin);
+
+        double[] latLngAlts = {LATITUDE, LONGITUDE, 0.0, LATITUDE - 0.02, LONGITUDE, 0.0};
+        double[] screenPoints = new double[4];
+        assertEquals(1, snapshot.toScreenLocations(latLngAlts, screenPoints));
+        assertFalse(Double.isNaN(screenPoints[0]));
+        assertTrue(Double.isNaN(screenPoints[2]));
+    }
+
+    @Test
+    public void testFittedSnapshotErrorAtHighTilt() {
+        double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(LATITUDE, LONGITUDE, 0.0, origin);
+        // about the camera distance the native map uses at zoom level 16
+        for (double tilt = 0.0; tilt <= 85.0; tilt += 5.0) {
+            double[] trueMatrix = makeCameraMatrix(430.0, tilt);
+            CameraSnapshot snapshot = fitSnapshotAtZoom(trueMatrix, origin, 16.0);
+            assertEquals("tilt " + tilt, 0.0, getMaxGroundError(snapshot, trueMatrix, origin), 0.05);
+        }
+    }
+
+    @Test
+    public void testFittedSnapshotErrorGrowsWhenCameraIsFartherThanZoomSuggests() {
+        double[] origin = new double[3];
+        CameraSnapshot.latLngAltToEcef(LATITUDE, LONGITUDE, 0.0, origin);
+        // the sample extent follows the zoom level, so a camera twenty times farther away than
+        // usual for the zoom level is fitted from samples spanning only a few pixels
+        double[] trueMatrix = makeCameraMatrix(430.0 * 20.0, 75.0);
+        CameraSnapshot snapshot = fitSnapshotAtZoom(trueMatrix, origin, 16.0);
+        assertTrue(getMaxGroundError(snapshot, trueMatrix, origin) > 1.0);
+    }
+}
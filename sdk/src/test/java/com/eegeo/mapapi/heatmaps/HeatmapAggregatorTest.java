@@ -0,0 +1,88 @@
+package com.eegeo.mapapi.heatmaps;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HeatmapAggregatorTest {
+
+    private static double[] randomPoints(int count, long seed) {
+        Random random = new Random(seed);
+        double[] points = new double[count * 4];
+        for (int i = 0; i < count; ++i) {
+            points[i * 4] = 56.46 + random.nextDouble() * 0.01;
+            points[i * 4 + 1] = -2.97 + random.nextDouble() * 0.01;
+            points[i * 4 + 2] = 0.0;
+            points[i * 4 + 3] = 1.0 + random.nextInt(5);
+        }
+        return points;
+    }
+
+    private static double totalWeight(double[] points) {
+        double total = 0.0;
+        for (int i = 3; i < points.length; i += 4) {
+            total += points[i];
+        }
+        return total;
+    }
+
+    @Test
+    public void testEveryLevelPreservesTotalWeight() {
+        double[] points = randomPoints(5000, 1);
+        HeatmapAggregator aggregator = new HeatmapAggregator(points, 1.0);
+
+        double expected = totalWeight(points);
+        for (int level = 0; level < aggregator.getLevelCount(); ++level) {
+            assertEquals(expected, totalWeight(aggregator.getPackedPoints(level)), 1e-6);
+        }
+    }
+
+    @Test
+    public void testCoarserLevelsHaveFewerPoints() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(randomPoints(5000, 2), 1.0);
+
+        assertEquals(5000, aggregator.getInputPointCount());
+        for (int level = 1; level < aggregator.getLevelCount(); ++level) {
+            assertTrue(aggregator.getPointCount(level) <= aggregator.getPointCount(level - 1));
+        }
+        assertEquals(1, aggregator.getPointCount(aggregator.getLevelCount() - 1));
+    }
+
+    @Test
+    public void testCentroidIsWeighted() {
+        double[] points = {
+                10.0, 20.0, 0.0, 1.0,
+                10.0, 20.000001, 4.0, 3.0
+        };
+        HeatmapAggregator aggregator = new HeatmapAggregator(points, 1000.0);
+
+        double[] centroid = aggregator.getPackedPoints(0);
+        assertEquals(4, centroid.length);
+        assertEquals(10.0, centroid[0], 1e-9);
+        assertEquals(20.00000075, centroid[1], 1e-9);
+        assertEquals(3.0, centroid[2], 1e-9);
+        assertEquals(4.0, centroid[3], 1e-9);
+    }
+
+    @Test
+    public void testLevelForRadiusUsesCellsNoLargerThanFraction() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(randomPoints(5000, 3), 1.0);
+
+        assertEquals(0, aggregator.getLevelForRadius(1.0));
+        int level = aggregator.getLevelForRadius(40.0);
+        assertEquals(3, level);
+        assertTrue(aggregator.getCellSizeMeters(level) <= 40.0 * HeatmapAggregator.CELL_SIZE_RADIUS_FRACTION);
+        assertEquals(level, aggregator.getLevelForRadii(new double[]{80.0, 40.0, 160.0}));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        HeatmapAggregator aggregator = new HeatmapAggregator(new double[0], 1.0);
+
+        assertEquals(1, aggregator.getLevelCount());
+        assertEquals(0, aggregator.getPointCount(0));
+        assertEquals(0, aggregator.getLevelForRadii(new double[]{100.0}));
+    }
+}
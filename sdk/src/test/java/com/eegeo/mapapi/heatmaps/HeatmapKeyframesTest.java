@@ -0,0 +1,76 @@
+package com.eegeo.mapapi.heatmaps;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.Assert.*;
+
+public class HeatmapKeyframesTest {
+
+    private static HeatmapKeyframes twoPointKeyframes() {
+        double[] positions = {
+                56.46, -2.97, 0.0,
+                56.47, -2.98, 5.0
+        };
+        double[] times = {0.0, 10.0, 30.0};
+        double[] weights = {
+                0.0, 4.0,
+                10.0, 4.0,
+                20.0, 0.0
+        };
+        return new HeatmapKeyframes(positions, times, weights);
+    }
+
+    @Test
+    public void testBufferHoldsPositions() {
+        double[] buffer = twoPointKeyframes().createBuffer();
+
+        assertEquals(8, buffer.length);
+        assertEquals(56.47, buffer[4], 0.0);
+        assertEquals(-2.98, buffer[5], 0.0);
+        assertEquals(5.0, buffer[6], 0.0);
+    }
+
+    @Test
+    public void testInterpolatesBetweenKeyframes() {
+        HeatmapKeyframes keyframes = twoPointKeyframes();
+        double[] buffer = keyframes.createBuffer();
+
+        keyframes.interpolate(5.0, buffer);
+        assertEquals(5.0, buffer[3], 1e-6);
+        assertEquals(4.0, buffer[7], 1e-6);
+
+        keyframes.interpolate(25.0, buffer);
+        assertEquals(17.5, buffer[3], 1e-6);
+        assertEquals(1.0, buffer[7], 1e-6);
+
+        keyframes.interpolate(10.0, buffer);
+        assertEquals(10.0, buffer[3], 1e-6);
+        assertEquals(4.0, buffer[7], 1e-6);
+    }
+
+    @Test
+    public void testClampsOutsideKeyframes() {
+        HeatmapKeyframes keyframes = twoPointKeyframes();
+        double[] buffer = keyframes.createBuffer();
+
+        keyframes.interpolate(-100.0, buffer);
+        assertEquals(0.0, buffer[3], 0.0);
+        assertEquals(4.0, buffer[7], 0.0);
+
+        keyframes.interpolate(100.0, buffer);
+        assertEquals(20.0, buffer[3], 0.0);
+        assertEquals(0.0, buffer[7], 0.0);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsTimesOutOfOrder() {
+        new HeatmapKeyframes(new double[]{0.0, 0.0, 0.0}, new double[]{1.0, 1.0}, new double[]{1.0, 2.0});
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsMissingWeights() {
+        new HeatmapKeyframes(new double[]{0.0, 0.0, 0.0}, new double[]{1.0, 2.0}, new double[]{1.0});
+    }
+}
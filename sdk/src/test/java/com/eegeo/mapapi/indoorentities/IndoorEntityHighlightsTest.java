@@ -0,0 +1,74 @@
+package com.eegeo.mapapi.indoorentities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class IndoorEntityHighlightsTest {
+
+    private static final int RED = 0xffff0000;
+    private static final int GREEN = 0xff00ff00;
+
+    @Test
+    public void testFirstDeltaContainsAllHighlights() {
+        IndoorEntityHighlights highlights = new IndoorEntityHighlights(null, "map");
+        highlights.highlight(Arrays.asList("a", "b", "c"), RED);
+
+        IndoorEntityHighlightDelta delta = highlights.computeDelta();
+        assertEquals(0, delta.clearedIndices.length);
+        assertArrayEquals(new int[]{0, 1, 2}, delta.highlightedIndices);
+        assertEquals(1, delta.styleCount);
+    }
+
+    @Test
+    public void testUnchangedHighlightsProduceEmptyDelta() {
+        IndoorEntityHighlights highlights = new IndoorEntityHighlights(null, "map");
+        highlights.highlight(Arrays.asList("a", "b"), RED);
+        highlights.computeDelta();
+
+        highlights.unhighlightAll();
+        highlights.highlight(Arrays.asList("a", "b"), RED);
+        assertTrue(highlights.computeDelta().isEmpty());
+    }
+
+    @Test
+    public void testDeltaContainsOnlyChangedEntities() {
+        IndoorEntityHighlights highlights = new IndoorEntityHighlights(null, "map");
+        highlights.highlight(Arrays.asList("a", "b", "c"), RED);
+        highlights.computeDelta();
+
+        highlights.unhighlightAll();
+        highlights.highlight(Arrays.asList("a", "d"), RED);
+        highlights.highlight(Arrays.asList("c"), GREEN);
+
+        IndoorEntityHighlightDelta delta = highlights.computeDelta();
+        assertArrayEquals(new int[]{1}, delta.clearedIndices);
+        assertArrayEquals(new int[]{2, 3}, delta.highlightedIndices);
+        assertEquals(GREEN, delta.colors[delta.highlightedStyles[0]]);
+        assertEquals(RED, delta.colors[delta.highlightedStyles[1]]);
+        assertEquals("d", delta.ids[3]);
+    }
+
+    @Test
+    public void testInvalidatedEntitiesAreSentAgain() {
+        IndoorEntityHighlights highlights = new IndoorEntityHighlights(null, "map");
+        highlights.highlight(Arrays.asList("a", "b"), RED);
+        highlights.computeDelta();
+
+        highlights.invalidate(Arrays.asList("b"));
+        assertArrayEquals(new int[]{1}, highlights.computeDelta().highlightedIndices);
+    }
+
+    @Test
+    public void testClearedHighlightsAreReapplied() {
+        IndoorEntityHighlights highlights = new IndoorEntityHighlights(null, "map");
+        highlights.highlight(Arrays.asList("a"), RED);
+        highlights.computeDelta();
+
+        highlights.onAllHighlightsCleared();
+        assertTrue(highlights.isHighlighted("a"));
+        assertArrayEquals(new int[]{0}, highlights.computeDelta().highlightedIndices);
+    }
+}
@@ -0,0 +1,100 @@
+package com.eegeo.mapapi.indoorentities;
+
+import com.eegeo.mapapi.geometry.LatLng;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlineGeometry;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlinePolygon;
+import com.eegeo.mapapi.indooroutlines.IndoorMapFloorOutlinePolygonRing;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndoorMapEntityIndexTest {
+
+    private static List<IndoorMapEntity> createGrid(int floorId, int size) {
+        List<IndoorMapEntity> entities = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                entities.add(new IndoorMapEntity("e" + floorId + "_" + i + "_" + j, floorId,
+                        new LatLng(56.0 + i * 0.0001, -3.0 + j * 0.0001)));
+            }
+        }
+        return entities;
+    }
+
+    private static double squaredDegrees(IndoorMapEntity entity, double latitude, double longitude) {
+        double dLat = entity.position.latitude - latitude;
+        double dLng = (entity.position.longitude - longitude) * Math.cos(Math.toRadians(latitude));
+        return dLat * dLat + dLng * dLng;
+    }
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        List<IndoorMapEntity> entities = createGrid(0, 30);
+        IndoorMapEntityIndex index = IndoorMapEntityIndex.build("map", entities, new HashMap<Integer, IndoorMapFloorOutlineGeometry>());
+        assertEquals(900, index.getEntityCount());
+
+        Random random = new Random(1);
+        for (int sample = 0; sample < 100; ++sample) {
+            double latitude = 56.0 + random.nextDouble() * 0.003;
+            double longitude = -3.0 + random.nextDouble() * 0.003;
+
+            IndoorMapEntity expected = entities.get(0);
+            for (IndoorMapEntity entity : entities) {
+                if (squaredDegrees(entity, latitude, longitude) < squaredDegrees(expected, latitude, longitude)) {
+                    expected = entity;
+                }
+            }
+            assertSame(expected, index.findNearestEntities(0, latitude, longitude, 1).get(0));
+        }
+    }
+
+    @Test
+    public void testNearestEntitiesAreOrderedAndOnFloor() {
+        List<IndoorMapEntity> entities = createGrid(0, 10);
+        entities.addAll(createGrid(1, 10));
+        IndoorMapEntityIndex index = IndoorMapEntityIndex.build("map", entities, new HashMap<Integer, IndoorMapFloorOutlineGeometry>());
+
+        List<IndoorMapEntity> nearest = index.findNearestEntities(1, 56.0, -3.0, 5);
+        assertEquals(5, nearest.size());
+        for (int i = 0; i < nearest.size(); ++i) {
+            assertEquals(1, nearest.get(i).indoorMapFloorId);
+            if (i > 0) {
+                assertTrue(squaredDegrees(nearest.get(i - 1), 56.0, -3.0) <= squaredDegrees(nearest.get(i), 56.0, -3.0));
+            }
+        }
+        assertTrue(index.findNearestEntities(2, 56.0, -3.0, 5).isEmpty());
+    }
+
+    @Test
+    public void testWithinRadius() {
+        IndoorMapEntityIndex index = IndoorMapEntityIndex.build("map", createGrid(0, 10), new HashMap<Integer, IndoorMapFloorOutlineGeometry>());
+        // grid spacing is roughly 11m north-south and 6m east-west
+        List<IndoorMapEntity> results = index.findEntitiesWithinRadius(0, 56.0005, -2.9995, 7.0);
+        assertEquals(3, results.size());
+    }
+
+    @Test
+    public void testFindEntityAtRequiresPointInsideFloor() {
+        IndoorMapFloorOutlinePolygonRing ring = new IndoorMapFloorOutlinePolygonRing(new LatLng[]{
+                new LatLng(55.9999, -3.0001), new LatLng(55.9999, -2.9994),
+                new LatLng(56.0006, -2.9994), new LatLng(56.0006, -3.0001)
+        });
+        IndoorMapFloorOutlineGeometry outline = IndoorMapFloorOutlineGeometry.fromPolygons(
+                Collections.singletonList(new IndoorMapFloorOutlinePolygon(ring, new IndoorMapFloorOutlinePolygonRing[0])));
+        Map<Integer, IndoorMapFloorOutlineGeometry> outlines = new HashMap<>();
+        outlines.put(0, outline);
+        IndoorMapEntityIndex index = IndoorMapEntityIndex.build("map", createGrid(0, 10), outlines);
+
+        assertTrue(index.isInsideFloor(0, 56.0001, -2.9999));
+        assertEquals("e0_1_1", index.findEntityAt(0, 56.0001, -2.9999, 5.0).indoorMapEntityId);
+        assertNull(index.findEntityAt(0, 56.0008, -2.9999, 50.0));
+    }
+}
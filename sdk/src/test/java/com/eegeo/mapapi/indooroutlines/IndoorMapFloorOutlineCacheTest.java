@@ -0,0 +1,123 @@
+package com.eegeo.mapapi.indooroutlines;
+
+import android.content.ComponentCallbacks2;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class IndoorMapFloorOutlineCacheTest {
+
+    private static IndoorMapFloorOutlineGeometry square(double size) {
+        IndoorMapFloorOutlinePolygonRing ring = new IndoorMapFloorOutlinePolygonRing(new LatLng[]{
+                new LatLng(0.0, 0.0), new LatLng(0.0, size), new LatLng(size, size), new LatLng(size, 0.0)
+        });
+        IndoorMapFloorOutlinePolygon polygon = new IndoorMapFloorOutlinePolygon(ring, new IndoorMapFloorOutlinePolygonRing[0]);
+        return IndoorMapFloorOutlineGeometry.fromPolygons(Collections.singletonList(polygon));
+    }
+
+    private static File createTempDirectory() throws IOException {
+        File directory = File.createTempFile("outlines", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdirs());
+        return directory;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testMemoryEvictsLeastRecentlyUsed() {
+        int entryBytes = square(1.0).getSizeInBytes();
+        IndoorMapFloorOutlineCache cache = new IndoorMapFloorOutlineCache(entryBytes * 2);
+
+        cache.put("a", 0, square(1.0));
+        cache.put("b", 0, square(1.0));
+        assertNotNull(cache.get("a", 0));
+        cache.put("c", 0, square(1.0));
+
+        assertNotNull(cache.get("a", 0));
+        assertNull(cache.get("b", 0));
+        assertNotNull(cache.get("c", 0));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0.75f, cache.getHitRate(), 1e-6f);
+    }
+
+    @Test
+    public void testPinnedIndoorMapIsNotEvictedOrTrimmed() {
+        int entryBytes = square(1.0).getSizeInBytes();
+        IndoorMapFloorOutlineCache cache = new IndoorMapFloorOutlineCache(entryBytes * 2);
+
+        cache.pinIndoorMap("a");
+        cache.put("a", 0, square(1.0));
+        cache.put("b", 0, square(1.0));
+        cache.put("c", 0, square(1.0));
+        assertNotNull(cache.get("a", 0));
+        assertNull(cache.get("b", 0));
+
+        cache.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertNotNull(cache.get("a", 0));
+        assertNull(cache.get("c", 0));
+        assertEquals(entryBytes, cache.getMemoryBytes());
+    }
+
+    @Test
+    public void testDiskBudgetEvictsLeastRecentlyUsedFiles() throws IOException {
+        File directory = createTempDirectory();
+        try {
+            IndoorMapFloorOutlineCache measure = new IndoorMapFloorOutlineCache(0, directory);
+            measure.put("x", 0, square(1.0));
+            long fileBytes = measure.getDiskBytes();
+            measure.removeIndoorMap("x");
+            assertEquals(0, measure.getDiskBytes());
+
+            IndoorMapFloorOutlineCache cache = new IndoorMapFloorOutlineCache(0, directory, fileBytes * 2);
+            cache.put("a", 0, square(1.0));
+            cache.put("b", 0, square(1.0));
+            assertNotNull(cache.get("a", 0));
+            cache.put("c", 0, square(1.0));
+
+            assertEquals(fileBytes * 2, cache.getDiskBytes());
+            assertNull(cache.get("b", 0));
+
+            // a new cache on the same directory sees the files left by the previous one
+            IndoorMapFloorOutlineCache reopened = new IndoorMapFloorOutlineCache(0, directory, fileBytes * 2);
+            assertEquals(fileBytes * 2, reopened.getDiskBytes());
+            assertNotNull(reopened.get("a", 0));
+            assertNotNull(reopened.get("c", 0));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testIsOnDiskWithoutReadingTheFile() throws IOException {
+        File directory = createTempDirectory();
+        try {
+            IndoorMapFloorOutlineCache cache = new IndoorMapFloorOutlineCache(0, directory);
+            assertFalse(cache.isOnDisk("a", 0));
+            cache.put("a", 0, square(1.0));
+            assertTrue(cache.isOnDisk("a", 0));
+            assertFalse(cache.isOnDisk("a", 1));
+            assertEquals(0, cache.getHitCount() + cache.getMissCount());
+
+            cache.removeIndoorMap("a");
+            assertFalse(cache.isOnDisk("a", 0));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+}
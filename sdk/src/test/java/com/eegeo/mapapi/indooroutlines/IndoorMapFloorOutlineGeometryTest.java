@@ -0,0 +1,73 @@
+package com.eegeo.mapapi.indooroutlines;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndoorMapFloorOutlineGeometryTest {
+
+    private static IndoorMapFloorOutlinePolygonRing square(double min, double max) {
+        return new IndoorMapFloorOutlinePolygonRing(new LatLng[]{
+                new LatLng(min, min), new LatLng(min, max), new LatLng(max, max), new LatLng(max, min)
+        });
+    }
+
+    private static IndoorMapFloorOutlineGeometry squareWithHole() {
+        IndoorMapFloorOutlinePolygon polygon = new IndoorMapFloorOutlinePolygon(
+                square(0.0, 10.0), new IndoorMapFloorOutlinePolygonRing[]{square(4.0, 6.0)});
+        return IndoorMapFloorOutlineGeometry.fromPolygons(Collections.singletonList(polygon));
+    }
+
+    @Test
+    public void testFromPolygonsCounts() {
+        IndoorMapFloorOutlineGeometry geometry = squareWithHole();
+        assertEquals(1, geometry.getPolygonCount());
+        assertEquals(2, geometry.getRingCount());
+        assertEquals(8, geometry.getPointCount());
+    }
+
+    @Test
+    public void testContainsExcludesHoles() {
+        IndoorMapFloorOutlineGeometry geometry = squareWithHole();
+        assertTrue(geometry.contains(2.0, 2.0));
+        assertFalse(geometry.contains(5.0, 5.0));
+        assertFalse(geometry.contains(11.0, 5.0));
+    }
+
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        IndoorMapFloorOutlineGeometry geometry = squareWithHole();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        geometry.writeTo(new DataOutputStream(bytes));
+
+        IndoorMapFloorOutlineGeometry result = IndoorMapFloorOutlineGeometry.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(geometry.getPackedLatLngs(), result.getPackedLatLngs(), 0.0);
+        assertArrayEquals(geometry.getRingPointStarts(), result.getRingPointStarts());
+        assertArrayEquals(geometry.getPolygonRingStarts(), result.getPolygonRingStarts());
+    }
+
+    @Test
+    public void testToPolygonsRestoresRings() {
+        List<IndoorMapFloorOutlinePolygon> polygons = squareWithHole().toPolygons();
+        assertEquals(1, polygons.size());
+        assertEquals(4, polygons.get(0).outerRing.latLngPoints.size());
+        assertEquals(1, polygons.get(0).innerRings.size());
+        assertEquals(new LatLng(4.0, 4.0), polygons.get(0).innerRings.get(0).latLngPoints.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsUnknownData() throws IOException {
+        IndoorMapFloorOutlineGeometry.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+}
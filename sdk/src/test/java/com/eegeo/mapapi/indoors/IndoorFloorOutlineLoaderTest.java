@@ -0,0 +1,69 @@
+package com.eegeo.mapapi.indoors;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IndoorFloorOutlineLoaderTest {
+
+    @Test
+    public void testAdjacentFloorsAreNearestFirst() {
+        List<Integer> floors = IndoorFloorOutlineLoader.getFloorsInPriorityOrder(2, 5, 2, Collections.<Integer>emptyList());
+        assertEquals(Arrays.asList(2, 3, 1, 4, 0), floors);
+    }
+
+    @Test
+    public void testAdjacentFloorsStayWithinTheIndoorMap() {
+        List<Integer> floors = IndoorFloorOutlineLoader.getFloorsInPriorityOrder(0, 2, 3, Collections.<Integer>emptyList());
+        assertEquals(Arrays.asList(0, 1), floors);
+    }
+
+    @Test
+    public void testRouteFloorsFollowAdjacentFloors() {
+        List<Integer> floors = IndoorFloorOutlineLoader.getFloorsInPriorityOrder(1, 6, 1, Arrays.asList(5, 2));
+        assertEquals(Arrays.asList(1, 2, 0, 5, 2), floors);
+    }
+
+    @Test
+    public void testNoCurrentFloorLeavesOnlyRouteFloors() {
+        List<Integer> floors = IndoorFloorOutlineLoader.getFloorsInPriorityOrder(-1, 4, 1, Arrays.asList(3));
+        assertEquals(Arrays.asList(3), floors);
+    }
+
+    @Test
+    public void testSelectionSkipsRepeatsAndStopsAtBudget() {
+        Map<Integer, Integer> outlineBytes = new HashMap<>();
+        outlineBytes.put(1, 100);
+        outlineBytes.put(2, 200);
+        outlineBytes.put(0, 300);
+
+        List<Integer> selected = IndoorFloorOutlineLoader.selectFloorsWithinBudget(Arrays.asList(1, 2, 1, 0), outlineBytes, 350);
+
+        assertEquals(Arrays.asList(1, 2), selected);
+    }
+
+    @Test
+    public void testFirstFloorIsKeptWhateverItsSize() {
+        Map<Integer, Integer> outlineBytes = new HashMap<>();
+        outlineBytes.put(4, 1000);
+
+        List<Integer> selected = IndoorFloorOutlineLoader.selectFloorsWithinBudget(Arrays.asList(4, 5), outlineBytes, 10);
+
+        assertEquals(Arrays.asList(4), selected);
+    }
+
+    @Test
+    public void testUnloadedOutlinesUseTheEstimate() {
+        int budget = IndoorFloorOutlineLoader.ESTIMATED_OUTLINE_BYTES * 2;
+
+        List<Integer> selected = IndoorFloorOutlineLoader.selectFloorsWithinBudget(Arrays.asList(0, 1, 2), new HashMap<Integer, Integer>(), budget);
+
+        assertEquals(Arrays.asList(0, 1), selected);
+    }
+}
@@ -0,0 +1,59 @@
+package com.eegeo.mapapi.precaching;
+
+import com.eegeo.mapapi.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrecacheCorridorTest {
+
+    private static final List<LatLng> PATH = Arrays.asList(
+            new LatLng(56.0, -3.0),
+            new LatLng(56.0, -2.9),
+            new LatLng(56.05, -2.9));
+
+    @Test
+    public void testRegionsSpanPathAndOverlap() {
+        PrecacheCorridor corridor = new PrecacheCorridor(PATH, 1000.0);
+        int last = corridor.getRegionCount() - 1;
+
+        assertEquals(56.0, corridor.regionLatitudes[0], 1e-9);
+        assertEquals(-3.0, corridor.regionLongitudes[0], 1e-9);
+        assertEquals(56.05, corridor.regionLatitudes[last], 1e-9);
+        assertEquals(-2.9, corridor.regionLongitudes[last], 1e-9);
+
+        for (int i = 1; i <= last; ++i) {
+            double spacing = PrecacheCorridor.distance(corridor.regionLatitudes[i - 1], corridor.regionLongitudes[i - 1],
+                    corridor.regionLatitudes[i], corridor.regionLongitudes[i]);
+            assertTrue(spacing <= 1000.0 * PrecacheCorridor.REGION_SPACING_FRACTION + 1.0);
+            assertTrue(corridor.regionDistancesAlongPath[i] >= corridor.regionDistancesAlongPath[i - 1]);
+        }
+    }
+
+    @Test
+    public void testDistanceAlongPathProjectsOntoNearestSegment() {
+        PrecacheCorridor corridor = new PrecacheCorridor(PATH, 1000.0);
+        double firstSegmentLength = PrecacheCorridor.distance(56.0, -3.0, 56.0, -2.9);
+
+        assertEquals(0.0, corridor.getDistanceAlongPath(55.99, -3.01), 1.0);
+        assertEquals(firstSegmentLength / 2.0, corridor.getDistanceAlongPath(56.001, -2.95), 20.0);
+        assertEquals(corridor.getLength(), corridor.getDistanceAlongPath(56.06, -2.9), 1.0);
+    }
+
+    @Test
+    public void testSinglePointPathHasOneRegion() {
+        PrecacheCorridor corridor = new PrecacheCorridor(Collections.singletonList(new LatLng(1.0, 2.0)), 500.0);
+        assertEquals(1, corridor.getRegionCount());
+        assertEquals(1.0, corridor.regionLatitudes[0], 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPathThrows() {
+        new PrecacheCorridor(Collections.<LatLng>emptyList(), 500.0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.eegeo.mapapi.precaching;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrecacheGridTest {
+
+    @Test
+    public void testSmallAreaIsSingleRegion() {
+        PrecacheGrid grid = new PrecacheGrid(56.0, -3.0, 500.0, 1000.0);
+
+        assertEquals(1, grid.getRegionCount());
+        assertEquals(56.0, grid.regionLatitudes[0], 1e-9);
+        assertEquals(-3.0, grid.regionLongitudes[0], 1e-9);
+    }
+
+    @Test
+    public void testRegionsAreOrderedFromCenter() {
+        PrecacheGrid grid = new PrecacheGrid(56.0, -3.0, 10000.0, 2000.0);
+
+        assertTrue(grid.getRegionCount() > 1);
+        assertEquals(56.0, grid.regionLatitudes[0], 1e-9);
+        assertEquals(-3.0, grid.regionLongitudes[0], 1e-9);
+        double previous = 0.0;
+        for (int i = 0; i < grid.getRegionCount(); ++i) {
+            double distance = PrecacheCorridor.distance(56.0, -3.0, grid.regionLatitudes[i], grid.regionLongitudes[i]);
+            // ordering is by planar offset, which differs slightly from the great circle distance
+            assertTrue(distance >= previous * 0.99);
+            previous = distance;
+        }
+    }
+
+    @Test
+    public void testRegionsCoverArea() {
+        final double radius = 10000.0;
+        final double regionRadius = 2000.0;
+        PrecacheGrid grid = new PrecacheGrid(56.0, -3.0, radius, regionRadius);
+
+        for (int step = 0; step <= 20; ++step) {
+            for (int angle = 0; angle < 36; ++angle) {
+                double distance = radius * step / 20.0;
+                double bearing = Math.toRadians(angle * 10.0);
+                double latitude = 56.0 + distance * Math.cos(bearing) / 111319.49;
+                double longitude = -3.0 + distance * Math.sin(bearing) / (111319.49 * Math.cos(Math.toRadians(56.0)));
+
+                double nearest = Double.MAX_VALUE;
+                for (int i = 0; i < grid.getRegionCount(); ++i) {
+                    nearest = Math.min(nearest, PrecacheCorridor.distance(latitude, longitude, grid.regionLatitudes[i], grid.regionLongitudes[i]));
+                }
+                assertTrue(nearest <= regionRadius * 1.01);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.eegeo.mapapi.precaching;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class PrecacheSchedulerTest {
+
+    private static PrecacheScheduler.SavedQueue createQueue(long... ids) {
+        PrecacheScheduler.SavedQueue savedQueue = new PrecacheScheduler.SavedQueue();
+        for (long id : ids) {
+            PrecacheScheduler.Entry entry = new PrecacheScheduler.Entry(id, 51.5 + id, -0.1, 500.0);
+            entry.attempts = 1;
+            savedQueue.entries.add(entry);
+        }
+        savedQueue.nextEntryId = ids.length + 1;
+        return savedQueue;
+    }
+
+    @Test
+    public void testQueueRoundTrip() throws IOException {
+        File file = File.createTempFile("precache_queue", "");
+        try {
+            PrecacheScheduler.SavedQueue savedQueue = createQueue(1, 2);
+            savedQueue.completedCount = 4;
+            savedQueue.failedCount = 1;
+            savedQueue.bytes = 123456L;
+            PrecacheScheduler.writeQueue(file, savedQueue);
+
+            PrecacheScheduler.SavedQueue readQueue = PrecacheScheduler.readQueue(file);
+
+            assertEquals(3, readQueue.nextEntryId);
+            assertEquals(4, readQueue.completedCount);
+            assertEquals(1, readQueue.failedCount);
+            assertEquals(123456L, readQueue.bytes);
+            assertEquals(2, readQueue.entries.size());
+            assertEquals(2, readQueue.entries.get(1).id);
+            assertEquals(53.5, readQueue.entries.get(1).latitude, 0.0);
+            assertEquals(500.0, readQueue.entries.get(1).radius, 0.0);
+            assertEquals(1, readQueue.entries.get(1).attempts);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMissingQueueIsNull() throws IOException {
+        File file = File.createTempFile("precache_queue", "");
+        assertTrue(file.delete());
+        assertNull(PrecacheScheduler.readQueue(file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        File file = File.createTempFile("precache_queue", "");
+        try {
+            FileOutputStream output = new FileOutputStream(file);
+            output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            output.close();
+            PrecacheScheduler.readQueue(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRestoredEntriesWithUsedIdsAreRenumbered() {
+        PrecacheScheduler.SavedQueue savedQueue = createQueue(1, 2, 3);
+
+        long nextEntryId = PrecacheScheduler.restoreEntries(savedQueue, new HashSet<>(Arrays.asList(1L, 3L)), 10);
+
+        assertEquals(12, nextEntryId);
+        assertEquals(10, savedQueue.entries.get(0).id);
+        assertEquals(2, savedQueue.entries.get(1).id);
+        assertEquals(11, savedQueue.entries.get(2).id);
+        assertEquals(54.5, savedQueue.entries.get(2).latitude, 0.0);
+        assertEquals(1, savedQueue.entries.get(2).attempts);
+    }
+}
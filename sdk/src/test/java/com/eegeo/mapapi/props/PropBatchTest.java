@@ -0,0 +1,208 @@
+package com.eegeo.mapapi.props;
+
+import com.eegeo.mapapi.INativeMessageRunner;
+import com.eegeo.mapapi.IUiMessageRunner;
+import com.eegeo.mapapi.geometry.ElevationMode;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PropBatchTest {
+
+    private static final class QueueRunner implements IUiMessageRunner, INativeMessageRunner {
+        final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void runOnUiThread(Runnable runnable) {
+            queued.add(runnable);
+        }
+
+        @Override
+        public void runOnNativeThread(Runnable runnable) {
+            queued.add(runnable);
+        }
+    }
+
+    // records the props the batch creates and destroys, in place of the native map
+    private static final class RecordingInstanceApi implements IPropBatchInstanceApi {
+        final INativeMessageRunner nativeRunner;
+        final IUiMessageRunner uiRunner;
+        final List<String> createdNames = new ArrayList<>();
+        int destroyedCount = 0;
+        int nextHandle = 0;
+
+        RecordingInstanceApi(QueueRunner runner) {
+            this(runner, runner);
+        }
+
+        RecordingInstanceApi(INativeMessageRunner nativeRunner, IUiMessageRunner uiRunner) {
+            this.nativeRunner = nativeRunner;
+            this.uiRunner = uiRunner;
+        }
+
+        @Override
+        public INativeMessageRunner getNativeRunner() {
+            return nativeRunner;
+        }
+
+        @Override
+        public IUiMessageRunner getUiRunner() {
+            return uiRunner;
+        }
+
+        @Override
+        public int createBatchInstance(String indoorMapId, int indoorFloorId, String name, double latitudeDegrees, double longitudeDegrees,
+                                       double elevation, ElevationMode elevationMode, double headingDegrees, String geometryId) {
+            createdNames.add(name);
+            return nextHandle++;
+        }
+
+        @Override
+        public void destroyBatchInstance(int nativeHandle) {
+            ++destroyedCount;
+        }
+
+        @Override
+        public void setBatchInstanceLocation(int nativeHandle, double latitudeDegrees, double longitudeDegrees) {
+        }
+
+        @Override
+        public void setBatchInstanceHeadingDegrees(int nativeHandle, double headingDegrees) {
+        }
+
+        @Override
+        public void setBatchInstanceElevation(int nativeHandle, double elevation) {
+        }
+    }
+
+    private static PropBatchOptions manyDesks(int count) {
+        return new PropBatchOptions()
+                .geometryId("desk")
+                .indoor("office", 0)
+                .positions(new double[count * 2])
+                .visible(false);
+    }
+
+    private static void runAll(QueueRunner runner) {
+        while (!runner.queued.isEmpty()) {
+            runner.queued.remove(0).run();
+        }
+    }
+
+    private static PropBatchOptions hiddenDesks() {
+        return new PropBatchOptions()
+                .geometryId("desk")
+                .indoor("office", 0)
+                .positions(new double[]{56.46, -2.97, 56.461, -2.971, 56.462, -2.972})
+                .indoorFloorIds(new int[]{0, 1, 1})
+                .visible(false);
+    }
+
+    @Test
+    public void testHiddenBatchSendsNothing() {
+        QueueRunner uiRunner = new QueueRunner();
+        QueueRunner nativeRunner = new QueueRunner();
+        PropBatch batch = new PropBatch(new RecordingInstanceApi(nativeRunner, uiRunner), hiddenDesks());
+
+        assertEquals(3, batch.getInstanceCount());
+        assertEquals(0, batch.getVisibleInstanceCount());
+        assertTrue(uiRunner.queued.isEmpty());
+        assertTrue(nativeRunner.queued.isEmpty());
+    }
+
+    @Test
+    public void testChangesInOneUiPassAreFlushedTogether() {
+        QueueRunner uiRunner = new QueueRunner();
+        QueueRunner nativeRunner = new QueueRunner();
+        PropBatch batch = new PropBatch(new RecordingInstanceApi(nativeRunner, uiRunner), hiddenDesks());
+
+        batch.setVisibleFloor(1);
+        batch.setInstanceHeadingDegrees(1, 90.0);
+        batch.setInstanceElevation(2, 1.5);
+
+        assertEquals(2, batch.getVisibleInstanceCount());
+        assertFalse(batch.isInstanceVisible(0));
+        assertTrue(batch.isInstanceVisible(2));
+        assertEquals(1, uiRunner.queued.size());
+        assertTrue(nativeRunner.queued.isEmpty());
+
+        uiRunner.queued.remove(0).run();
+        assertEquals(1, nativeRunner.queued.size());
+    }
+
+    @Test
+    public void testUnchangedVisibilityIsNotSent() {
+        QueueRunner uiRunner = new QueueRunner();
+        QueueRunner nativeRunner = new QueueRunner();
+        PropBatch batch = new PropBatch(new RecordingInstanceApi(nativeRunner, uiRunner), hiddenDesks());
+
+        batch.setInstanceVisible(0, false);
+        assertTrue(uiRunner.queued.isEmpty());
+    }
+
+    @Test
+    public void testShowingManyInstancesIsSpreadOverTasks() {
+        QueueRunner runner = new QueueRunner();
+        RecordingInstanceApi propsApi = new RecordingInstanceApi(runner);
+        PropBatch batch = new PropBatch(propsApi, manyDesks(100));
+
+        batch.setAllInstancesVisible(true);
+        runner.queued.remove(0).run();
+        runner.queued.remove(0).run();
+
+        assertTrue(propsApi.createdNames.size() > 0);
+        assertTrue(propsApi.createdNames.size() < 100);
+        assertEquals(1, runner.queued.size());
+
+        runAll(runner);
+        assertEquals(100, propsApi.createdNames.size());
+    }
+
+    @Test
+    public void testInstanceShownAndHiddenBeforeItsTurnIsNotCreated() {
+        QueueRunner runner = new QueueRunner();
+        RecordingInstanceApi propsApi = new RecordingInstanceApi(runner);
+        PropBatch batch = new PropBatch(propsApi, manyDesks(100));
+
+        batch.setAllInstancesVisible(true);
+        runner.queued.remove(0).run();
+        runner.queued.remove(0).run();
+        int createdCount = propsApi.createdNames.size();
+
+        // hidden before the queued creations run
+        batch.setAllInstancesVisible(false);
+        runner.queued.remove(1).run();
+        runner.queued.remove(1).run();
+        runAll(runner);
+
+        assertEquals(createdCount, propsApi.createdNames.size());
+        assertEquals(createdCount, propsApi.destroyedCount);
+    }
+
+    @Test
+    public void testUnnamedInstancesHaveDistinctNames() {
+        QueueRunner runner = new QueueRunner();
+        RecordingInstanceApi propsApi = new RecordingInstanceApi(runner);
+        PropBatch first = new PropBatch(propsApi, manyDesks(2));
+        PropBatch second = new PropBatch(propsApi, manyDesks(2));
+
+        first.setAllInstancesVisible(true);
+        second.setAllInstancesVisible(true);
+        runAll(runner);
+
+        assertEquals(4, propsApi.createdNames.size());
+        assertEquals(4, new HashSet<>(propsApi.createdNames).size());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsMismatchedArrays() {
+        QueueRunner runner = new QueueRunner();
+        new PropBatch(new RecordingInstanceApi(runner), hiddenDesks().headingsDegrees(new double[]{0.0}));
+    }
+}
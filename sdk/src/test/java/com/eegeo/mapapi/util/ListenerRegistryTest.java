@@ -0,0 +1,85 @@
+package com.eegeo.mapapi.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListenerRegistryTest {
+
+    private interface Listener {
+        void onEvent();
+    }
+
+    @Test
+    public void testSnapshotIsUnchangedByLaterEdits() {
+        ListenerRegistry<Runnable> registry = new ListenerRegistry<>(Runnable.class);
+        Runnable a = new Runnable() { public void run() {} };
+        Runnable b = new Runnable() { public void run() {} };
+        registry.add(a);
+
+        Runnable[] snapshot = registry.snapshot();
+        registry.add(b);
+        registry.remove(a);
+
+        assertArrayEquals(new Runnable[]{a}, snapshot);
+        assertArrayEquals(new Runnable[]{b}, registry.snapshot());
+    }
+
+    @Test
+    public void testListenerCanRemoveItselfDuringDispatch() {
+        final ListenerRegistry<Listener> registry = new ListenerRegistry<>(Listener.class);
+        final List<String> calls = new ArrayList<>();
+        registry.add(new Listener() {
+            @Override
+            public void onEvent() {
+                calls.add("first");
+                registry.remove(this);
+            }
+        });
+        registry.add(new Listener() {
+            @Override
+            public void onEvent() {
+                calls.add("second");
+            }
+        });
+
+        for (Listener listener : registry.snapshot()) {
+            listener.onEvent();
+        }
+        for (Listener listener : registry.snapshot()) {
+            listener.onEvent();
+        }
+
+        assertEquals(3, calls.size());
+        assertEquals("second", calls.get(2));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testRemovesFirstOccurrenceOnly() {
+        ListenerRegistry<Runnable> registry = new ListenerRegistry<>(Runnable.class);
+        Runnable a = new Runnable() { public void run() {} };
+        registry.add(a);
+        registry.add(a);
+
+        assertTrue(registry.remove(a));
+        assertEquals(1, registry.size());
+        assertTrue(registry.remove(a));
+        assertFalse(registry.remove(a));
+        assertTrue(registry.isEmpty());
+    }
+
+    @Test
+    public void testEmptySnapshotIsShared() {
+        ListenerRegistry<Runnable> registry = new ListenerRegistry<>(Runnable.class);
+        Runnable[] empty = registry.snapshot();
+        Runnable a = new Runnable() { public void run() {} };
+        registry.add(a);
+        registry.remove(a);
+
+        assertSame(empty, registry.snapshot());
+    }
+}
@@ -0,0 +1,288 @@
+package com.eegeo.mapapi.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class PromiseTest {
+
+    private static <T> Ready<T> collect(final List<T> values) {
+        return new Ready<T>() {
+            @Override
+            public void ready(T t) {
+                values.add(t);
+            }
+        };
+    }
+
+    @Test
+    public void testEveryConsumerReceivesTheValue() {
+        Promise<String> promise = new Promise<>();
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        promise.then(collect(first));
+        promise.then(collect(second));
+
+        promise.ready("a");
+        promise.ready("b");
+
+        assertEquals(Arrays.asList("a"), first);
+        assertEquals(Arrays.asList("a"), second);
+    }
+
+    @Test
+    public void testConsumerAddedAfterReadyIsCalled() {
+        Promise<Integer> promise = new Promise<>();
+        promise.ready(3);
+        List<Integer> values = new ArrayList<>();
+        promise.then(collect(values));
+
+        assertEquals(Arrays.asList(3), values);
+        assertTrue(promise.isDone());
+        assertEquals(Integer.valueOf(3), promise.getValue());
+    }
+
+    @Test
+    public void testConsumerIsCalledOnItsExecutor() {
+        final List<Runnable> queued = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        };
+        Promise<Integer> promise = new Promise<>();
+        List<Integer> values = new ArrayList<>();
+        promise.then(collect(values), executor);
+
+        promise.ready(1);
+        assertTrue(values.isEmpty());
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        assertEquals(Arrays.asList(1), values);
+    }
+
+    @Test
+    public void testMapTransformsValueAndForwardsFailure() {
+        Promise<Integer> source = new Promise<>();
+        List<String> values = new ArrayList<>();
+        source.map(new Transform<Integer, String>() {
+            @Override
+            public String apply(Integer value) {
+                return "v" + value;
+            }
+        }).then(collect(values));
+        source.ready(7);
+        assertEquals(Arrays.asList("v7"), values);
+
+        Promise<Integer> failing = new Promise<>();
+        List<Throwable> errors = new ArrayList<>();
+        failing.map(new Transform<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer value) {
+                throw new IllegalStateException();
+            }
+        }).onFailure(collect(errors));
+        failing.ready(1);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testFlatMapWaitsForSecondPromise() {
+        Promise<Integer> first = new Promise<>();
+        final Promise<String> second = new Promise<>();
+        List<String> values = new ArrayList<>();
+        first.flatMap(new Transform<Integer, Promise<String>>() {
+            @Override
+            public Promise<String> apply(Integer value) {
+                return second;
+            }
+        }).then(collect(values));
+
+        first.ready(1);
+        assertTrue(values.isEmpty());
+        second.ready("done");
+        assertEquals(Arrays.asList("done"), values);
+    }
+
+    @Test
+    public void testCancellingDerivedPromiseCancelsSource() {
+        Promise<Integer> source = new Promise<>();
+        final List<String> calls = new ArrayList<>();
+        source.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                calls.add("cancelled");
+            }
+        });
+        Promise<Integer> derived = source.map(new Transform<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer value) {
+                return value;
+            }
+        });
+        List<Throwable> errors = new ArrayList<>();
+        derived.onFailure(collect(errors));
+
+        assertTrue(derived.cancel());
+        assertFalse(derived.cancel());
+
+        assertTrue(source.isCancelled());
+        assertEquals(Arrays.asList("cancelled"), calls);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof CancellationException);
+    }
+
+    @Test
+    public void testCancellingDerivedPromiseLeavesSharedSource() {
+        Promise<Integer> source = new Promise<>();
+        List<Integer> values = new ArrayList<>();
+        source.then(collect(values));
+        Promise<Integer> derived = source.map(new Transform<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer value) {
+                return value;
+            }
+        });
+        List<Integer> derivedValues = new ArrayList<>();
+        derived.then(collect(derivedValues));
+
+        assertTrue(derived.cancel());
+        assertFalse(source.isDone());
+
+        source.ready(4);
+        assertEquals(Arrays.asList(4), values);
+        assertTrue(derivedValues.isEmpty());
+    }
+
+    @Test
+    public void testAllKeepsInputOrder() {
+        Promise<Integer> a = new Promise<>();
+        Promise<Integer> b = new Promise<>();
+        List<List<Integer>> values = new ArrayList<>();
+        Promise.all(Arrays.asList(a, b)).then(collect(values));
+
+        b.ready(2);
+        assertTrue(values.isEmpty());
+        a.ready(1);
+        assertEquals(Arrays.asList(Arrays.asList(1, 2)), values);
+    }
+
+    @Test
+    public void testAllFailsAndCancelsRemainingOnFailure() {
+        Promise<Integer> a = new Promise<>();
+        Promise<Integer> b = new Promise<>();
+        List<Throwable> errors = new ArrayList<>();
+        Promise.all(Arrays.asList(a, b)).onFailure(collect(errors));
+
+        a.fail(new IllegalStateException());
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalStateException);
+        assertTrue(b.isCancelled());
+    }
+
+    @Test
+    public void testAllOfNothingIsReady() {
+        List<List<Integer>> values = new ArrayList<>();
+        Promise.all(new ArrayList<Promise<Integer>>()).then(collect(values));
+        assertEquals(1, values.size());
+        assertTrue(values.get(0).isEmpty());
+    }
+
+    @Test
+    public void testTimeoutFailsOnExecutorAndRunsCancelHandlers() throws InterruptedException {
+        final List<Runnable> queued = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                synchronized (queued) {
+                    queued.add(command);
+                }
+                latch.countDown();
+            }
+        };
+        final List<Thread> threads = new ArrayList<>();
+        Promise<Integer> promise = new Promise<>();
+        promise.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+            }
+        });
+        promise.onFailure(new Ready<Throwable>() {
+            @Override
+            public void ready(Throwable error) {
+                if (error instanceof TimeoutException) {
+                    threads.add(Thread.currentThread());
+                }
+            }
+        });
+
+        promise.timeout(10, executor);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(promise.isDone());
+        synchronized (queued) {
+            queued.get(0).run();
+        }
+        assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), threads);
+        assertFalse(promise.isCancelled());
+        assertTrue(promise.getError() instanceof TimeoutException);
+    }
+
+    @Test
+    public void testTimeoutIsDroppedOnCompletion() throws InterruptedException {
+        final List<Runnable> queued = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                synchronized (queued) {
+                    queued.add(command);
+                }
+            }
+        };
+        Promise<Integer> promise = new Promise<>();
+        promise.timeout(20, executor);
+        promise.ready(1);
+
+        Thread.sleep(100);
+        synchronized (queued) {
+            assertTrue(queued.isEmpty());
+        }
+        assertTrue(promise.isFulfilled());
+    }
+
+    @Test
+    public void testEveryConsumerIsCalledWhenOneThrows() {
+        Promise<Integer> promise = new Promise<>();
+        List<Integer> values = new ArrayList<>();
+        promise.then(new Ready<Integer>() {
+            @Override
+            public void ready(Integer value) {
+                throw new IllegalStateException();
+            }
+        });
+        promise.then(collect(values));
+
+        try {
+            promise.ready(1);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList(1), values);
+    }
+}